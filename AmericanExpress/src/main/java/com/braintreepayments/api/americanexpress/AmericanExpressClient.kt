@@ -10,7 +10,8 @@ import org.json.JSONException
  * Used to integrate with Braintree's American Express API
  */
 class AmericanExpressClient internal constructor(
-    private val braintreeClient: BraintreeClient
+    private val braintreeClient: BraintreeClient,
+    private val rewardsBalanceCache: AmericanExpressRewardsBalanceCache? = null
 ) {
 
     /**
@@ -26,6 +27,29 @@ class AmericanExpressClient internal constructor(
         )
     )
 
+    /**
+     * Initializes a new [AmericanExpressClient] instance that keeps successfully fetched rewards
+     * balances in memory, so that asking again for the same nonce and currency within
+     * [rewardsBalanceCacheTtlMillis] does not result in another network request. Balances that
+     * contain an error code are never cached.
+     *
+     * @param context an Android Context
+     * @param authorization a Tokenization Key or Client Token used to authenticate
+     * @param rewardsBalanceCacheTtlMillis how long, in milliseconds, a fetched rewards balance is
+     * reused. Keep this short, as the balance can change.
+     */
+    constructor(
+        context: Context,
+        authorization: String,
+        rewardsBalanceCacheTtlMillis: Long
+    ) : this(
+        BraintreeClient(
+            context,
+            authorization
+        ),
+        AmericanExpressRewardsBalanceCache(rewardsBalanceCacheTtlMillis)
+    )
+
     /**
      * Gets the rewards balance associated with a Braintree nonce. Only for American Express cards.
      *
@@ -38,6 +62,12 @@ class AmericanExpressClient internal constructor(
         currencyIsoCode: String,
         callback: AmericanExpressGetRewardsBalanceCallback
     ) {
+        rewardsBalanceCache?.get(nonce, currencyIsoCode)?.let { cachedRewardsBalance ->
+            braintreeClient.sendAnalyticsEvent(AmericanExpressAnalytics.REWARDS_BALANCE_STARTED)
+            callbackSuccess(AmericanExpressResult.Success(cachedRewardsBalance), callback)
+            return
+        }
+
         val getRewardsBalanceUrl = Uri.parse(AMEX_REWARDS_BALANCE_PATH)
             .buildUpon()
             .appendQueryParameter("paymentMethodNonce", nonce)
@@ -51,6 +81,9 @@ class AmericanExpressClient internal constructor(
                 try {
                     val rewardsBalance =
                         AmericanExpressRewardsBalance.fromJson(responseBody)
+                    if (rewardsBalance.errorCode == null) {
+                        rewardsBalanceCache?.put(nonce, currencyIsoCode, rewardsBalance)
+                    }
                     callbackSuccess(AmericanExpressResult.Success(rewardsBalance), callback)
                 } catch (e: JSONException) {
                     callbackFailure(AmericanExpressResult.Failure(e), callback)
@@ -61,6 +94,42 @@ class AmericanExpressClient internal constructor(
         }
     }
 
+    /**
+     * Gets the rewards balances associated with a Braintree nonce in several currencies. The
+     * balances are requested concurrently and [callback] is invoked once all of them have
+     * finished. Only for American Express cards.
+     *
+     * @param nonce A nonce representing a card that will be used to look up the rewards balances
+     * @param currencyIsoCodes The currencyIsoCodes to use. Example: ['USD', 'EUR']
+     * @param callback [AmericanExpressGetRewardsBalancesCallback]
+     */
+    fun getRewardsBalances(
+        nonce: String,
+        currencyIsoCodes: List<String>,
+        callback: AmericanExpressGetRewardsBalancesCallback
+    ) {
+        val currencies = currencyIsoCodes.distinct()
+        if (currencies.isEmpty()) {
+            callback.onAmericanExpressResults(emptyMap())
+            return
+        }
+
+        val results = mutableMapOf<String, AmericanExpressResult>()
+        currencies.forEach { currencyIsoCode ->
+            getRewardsBalance(nonce, currencyIsoCode) { result ->
+                val allResults = synchronized(results) {
+                    results[currencyIsoCode] = result
+                    if (results.size == currencies.size) {
+                        currencies.associateWith { results.getValue(it) }
+                    } else {
+                        null
+                    }
+                }
+                allResults?.let { callback.onAmericanExpressResults(it) }
+            }
+        }
+    }
+
     private fun callbackSuccess(
         result: AmericanExpressResult.Success,
         callback: AmericanExpressGetRewardsBalanceCallback
@@ -0,0 +1,13 @@
+package com.braintreepayments.api.americanexpress
+
+/**
+ * Callback for receiving the results of
+ * [AmericanExpressClient.getRewardsBalances].
+ */
+fun interface AmericanExpressGetRewardsBalancesCallback {
+    /**
+     * @param americanExpressResults the [AmericanExpressResult] for each requested currency ISO
+     * code, in the order the currencies were requested
+     */
+    fun onAmericanExpressResults(americanExpressResults: Map<String, AmericanExpressResult>)
+}
@@ -0,0 +1,45 @@
+package com.braintreepayments.api.americanexpress
+
+import com.braintreepayments.api.sharedutils.Time
+
+/**
+ * In-memory cache of successfully fetched [AmericanExpressRewardsBalance]s keyed by nonce and
+ * currency. Entries expire [ttlMillis] after they were fetched and the least recently used entries
+ * are evicted once [maxEntries] is exceeded.
+ */
+internal class AmericanExpressRewardsBalanceCache(
+    private val ttlMillis: Long,
+    private val maxEntries: Int = DEFAULT_MAX_ENTRIES,
+    private val time: Time = Time()
+) {
+
+    private data class Key(val nonce: String, val currencyIsoCode: String)
+
+    private class Entry(val rewardsBalance: AmericanExpressRewardsBalance, val fetchedAt: Long)
+
+    private val entries = object : LinkedHashMap<Key, Entry>(maxEntries, LOAD_FACTOR, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Key, Entry>?) =
+            size > maxEntries
+    }
+
+    @Synchronized
+    fun get(nonce: String, currencyIsoCode: String): AmericanExpressRewardsBalance? {
+        val key = Key(nonce, currencyIsoCode)
+        val entry = entries[key] ?: return null
+        if (time.monotonicTime - entry.fetchedAt >= ttlMillis) {
+            entries.remove(key)
+            return null
+        }
+        return entry.rewardsBalance
+    }
+
+    @Synchronized
+    fun put(nonce: String, currencyIsoCode: String, rewardsBalance: AmericanExpressRewardsBalance) {
+        entries[Key(nonce, currencyIsoCode)] = Entry(rewardsBalance, time.monotonicTime)
+    }
+
+    companion object {
+        private const val DEFAULT_MAX_ENTRIES = 32
+        private const val LOAD_FACTOR = 0.75f
+    }
+}
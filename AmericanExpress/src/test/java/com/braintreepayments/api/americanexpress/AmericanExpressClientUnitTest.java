@@ -4,9 +4,13 @@ import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertSame;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 import com.braintreepayments.api.core.AnalyticsEventParams;
 import com.braintreepayments.api.testutils.Fixtures;
@@ -14,6 +18,7 @@ import com.braintreepayments.api.testutils.MockBraintreeClientBuilder;
 import com.braintreepayments.api.core.BraintreeClient;
 import com.braintreepayments.api.sharedutils.AuthorizationException;
 import com.braintreepayments.api.sharedutils.HttpResponseCallback;
+import com.braintreepayments.api.sharedutils.Time;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -21,6 +26,12 @@ import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.robolectric.RobolectricTestRunner;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 @RunWith(RobolectricTestRunner.class)
 public class AmericanExpressClientUnitTest {
 
@@ -34,7 +45,7 @@ public class AmericanExpressClientUnitTest {
     @Test
     public void getRewardsBalance_sendsGETRequestForAmexAwardsBalance() {
         BraintreeClient braintreeClient = mock(BraintreeClient.class);
-        AmericanExpressClient sut = new AmericanExpressClient(braintreeClient);
+        AmericanExpressClient sut = new AmericanExpressClient(braintreeClient, null);
         sut.getRewardsBalance("fake-nonce", "USD", amexRewardsCallback);
 
         ArgumentCaptor<String> urlCaptor = ArgumentCaptor.forClass(String.class);
@@ -52,7 +63,7 @@ public class AmericanExpressClientUnitTest {
                 .sendGETSuccessfulResponse(Fixtures.AMEX_REWARDS_BALANCE_SUCCESS)
                 .build();
 
-        AmericanExpressClient sut = new AmericanExpressClient(braintreeClient);
+        AmericanExpressClient sut = new AmericanExpressClient(braintreeClient, null);
         sut.getRewardsBalance("fake-nonce", "USD", amexRewardsCallback);
 
         ArgumentCaptor<AmericanExpressResult> amexRewardsCaptor =
@@ -79,7 +90,7 @@ public class AmericanExpressClientUnitTest {
                 .sendGETSuccessfulResponse(Fixtures.AMEX_REWARDS_BALANCE_INELIGIBLE_CARD)
                 .build();
 
-        AmericanExpressClient sut = new AmericanExpressClient(braintreeClient);
+        AmericanExpressClient sut = new AmericanExpressClient(braintreeClient, null);
         sut.getRewardsBalance("fake-nonce", "USD", amexRewardsCallback);
 
         ArgumentCaptor<AmericanExpressResult> amexRewardsCaptor =
@@ -106,7 +117,7 @@ public class AmericanExpressClientUnitTest {
                 .sendGETSuccessfulResponse(Fixtures.AMEX_REWARDS_BALANCE_INSUFFICIENT_POINTS)
                 .build();
 
-        AmericanExpressClient sut = new AmericanExpressClient(braintreeClient);
+        AmericanExpressClient sut = new AmericanExpressClient(braintreeClient, null);
         sut.getRewardsBalance("fake-nonce", "USD", amexRewardsCallback);
 
         ArgumentCaptor<AmericanExpressResult> amexRewardsCaptor =
@@ -135,7 +146,7 @@ public class AmericanExpressClientUnitTest {
                 .sendGETErrorResponse(expectedError)
                 .build();
 
-        AmericanExpressClient sut = new AmericanExpressClient(braintreeClient);
+        AmericanExpressClient sut = new AmericanExpressClient(braintreeClient, null);
         sut.getRewardsBalance("fake-nonce", "USD", amexRewardsCallback);
 
         ArgumentCaptor<AmericanExpressResult> amexRewardsCaptor =
@@ -155,7 +166,7 @@ public class AmericanExpressClientUnitTest {
                 .sendGETSuccessfulResponse(Fixtures.AMEX_REWARDS_BALANCE_SUCCESS)
                 .build();
 
-        AmericanExpressClient sut = new AmericanExpressClient(braintreeClient);
+        AmericanExpressClient sut = new AmericanExpressClient(braintreeClient, null);
         sut.getRewardsBalance("fake-nonce", "USD", amexRewardsCallback);
 
         AnalyticsEventParams params = new AnalyticsEventParams();
@@ -169,7 +180,7 @@ public class AmericanExpressClientUnitTest {
                 .sendGETErrorResponse(new AuthorizationException("Bad fingerprint"))
                 .build();
 
-        AmericanExpressClient sut = new AmericanExpressClient(braintreeClient);
+        AmericanExpressClient sut = new AmericanExpressClient(braintreeClient, null);
         sut.getRewardsBalance("fake-nonce", "USD", amexRewardsCallback);
 
         AnalyticsEventParams params = new AnalyticsEventParams();
@@ -182,11 +193,86 @@ public class AmericanExpressClientUnitTest {
         BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
                 .sendGETSuccessfulResponse("-- not json --")
                 .build();
-        AmericanExpressClient sut = new AmericanExpressClient(braintreeClient);
+        AmericanExpressClient sut = new AmericanExpressClient(braintreeClient, null);
         sut.getRewardsBalance("fake-nonce", "USD", amexRewardsCallback);
 
         AnalyticsEventParams params = new AnalyticsEventParams();
         verify(braintreeClient).sendAnalyticsEvent(AmericanExpressAnalytics.REWARDS_BALANCE_STARTED, params);
         verify(braintreeClient).sendAnalyticsEvent(AmericanExpressAnalytics.REWARDS_BALANCE_FAILED, params);
     }
+
+    @Test
+    public void getRewardsBalance_withCache_reusesCachedBalance() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .sendGETSuccessfulResponse(Fixtures.AMEX_REWARDS_BALANCE_SUCCESS)
+                .build();
+        AmericanExpressClient sut = new AmericanExpressClient(braintreeClient,
+                new AmericanExpressRewardsBalanceCache(60000, 32, new Time()));
+
+        sut.getRewardsBalance("fake-nonce", "USD", amexRewardsCallback);
+        sut.getRewardsBalance("fake-nonce", "USD", amexRewardsCallback);
+
+        verify(braintreeClient, times(1)).sendGET(anyString(), any(HttpResponseCallback.class));
+        ArgumentCaptor<AmericanExpressResult> amexRewardsCaptor =
+                ArgumentCaptor.forClass(AmericanExpressResult.class);
+        verify(amexRewardsCallback, times(2)).onAmericanExpressResult(amexRewardsCaptor.capture());
+
+        List<AmericanExpressResult> results = amexRewardsCaptor.getAllValues();
+        assertSame(((AmericanExpressResult.Success) results.get(0)).getRewardsBalance(),
+                ((AmericanExpressResult.Success) results.get(1)).getRewardsBalance());
+    }
+
+    @Test
+    public void getRewardsBalance_withCache_doesNotCacheBalanceWithErrorCode() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .sendGETSuccessfulResponse(Fixtures.AMEX_REWARDS_BALANCE_INSUFFICIENT_POINTS)
+                .build();
+        AmericanExpressClient sut = new AmericanExpressClient(braintreeClient,
+                new AmericanExpressRewardsBalanceCache(60000, 32, new Time()));
+
+        sut.getRewardsBalance("fake-nonce", "USD", amexRewardsCallback);
+        sut.getRewardsBalance("fake-nonce", "USD", amexRewardsCallback);
+
+        verify(braintreeClient, times(2)).sendGET(anyString(), any(HttpResponseCallback.class));
+    }
+
+    @Test
+    public void getRewardsBalances_requestsEachCurrencyAndReturnsResultsInOrder() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .sendGETSuccessfulResponse(Fixtures.AMEX_REWARDS_BALANCE_SUCCESS)
+                .build();
+        AmericanExpressClient sut = new AmericanExpressClient(braintreeClient, null);
+        AmericanExpressGetRewardsBalancesCallback callback =
+                mock(AmericanExpressGetRewardsBalancesCallback.class);
+
+        sut.getRewardsBalances("fake-nonce", Arrays.asList("USD", "EUR", "USD"), callback);
+
+        ArgumentCaptor<String> urlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(braintreeClient, times(2))
+                .sendGET(urlCaptor.capture(), any(HttpResponseCallback.class));
+        assertTrue(urlCaptor.getAllValues().get(0).endsWith("currencyIsoCode=USD"));
+        assertTrue(urlCaptor.getAllValues().get(1).endsWith("currencyIsoCode=EUR"));
+
+        ArgumentCaptor<Map<String, AmericanExpressResult>> resultsCaptor =
+                ArgumentCaptor.forClass(Map.class);
+        verify(callback).onAmericanExpressResults(resultsCaptor.capture());
+
+        Map<String, AmericanExpressResult> results = resultsCaptor.getValue();
+        assertEquals(Arrays.asList("USD", "EUR"), new ArrayList<>(results.keySet()));
+        assertTrue(results.get("USD") instanceof AmericanExpressResult.Success);
+        assertTrue(results.get("EUR") instanceof AmericanExpressResult.Success);
+    }
+
+    @Test
+    public void getRewardsBalances_withNoCurrencies_returnsEmptyResults() {
+        BraintreeClient braintreeClient = mock(BraintreeClient.class);
+        AmericanExpressClient sut = new AmericanExpressClient(braintreeClient, null);
+        AmericanExpressGetRewardsBalancesCallback callback =
+                mock(AmericanExpressGetRewardsBalancesCallback.class);
+
+        sut.getRewardsBalances("fake-nonce", Collections.emptyList(), callback);
+
+        verify(callback).onAmericanExpressResults(Collections.emptyMap());
+        verifyNoInteractions(braintreeClient);
+    }
 }
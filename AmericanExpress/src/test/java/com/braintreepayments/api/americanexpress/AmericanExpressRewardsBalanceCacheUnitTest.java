@@ -0,0 +1,62 @@
+package com.braintreepayments.api.americanexpress;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.braintreepayments.api.sharedutils.Time;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AmericanExpressRewardsBalanceCacheUnitTest {
+
+    private Time time;
+    private AmericanExpressRewardsBalanceCache sut;
+
+    @Before
+    public void beforeEach() {
+        time = mock(Time.class);
+        when(time.getMonotonicTime()).thenReturn(0L);
+        sut = new AmericanExpressRewardsBalanceCache(1000, 2, time);
+    }
+
+    @Test
+    public void get_withinTtl_returnsCachedBalance() {
+        AmericanExpressRewardsBalance rewardsBalance = new AmericanExpressRewardsBalance();
+        sut.put("fake-nonce", "USD", rewardsBalance);
+
+        when(time.getMonotonicTime()).thenReturn(999L);
+        assertSame(rewardsBalance, sut.get("fake-nonce", "USD"));
+    }
+
+    @Test
+    public void get_afterTtl_returnsNull() {
+        sut.put("fake-nonce", "USD", new AmericanExpressRewardsBalance());
+
+        when(time.getMonotonicTime()).thenReturn(1000L);
+        assertNull(sut.get("fake-nonce", "USD"));
+    }
+
+    @Test
+    public void get_isKeyedByNonceAndCurrency() {
+        sut.put("fake-nonce", "USD", new AmericanExpressRewardsBalance());
+
+        assertNull(sut.get("fake-nonce", "EUR"));
+        assertNull(sut.get("other-nonce", "USD"));
+    }
+
+    @Test
+    public void put_whenMaxEntriesExceeded_evictsLeastRecentlyUsedEntry() {
+        AmericanExpressRewardsBalance usdBalance = new AmericanExpressRewardsBalance();
+        sut.put("fake-nonce", "USD", usdBalance);
+        sut.put("fake-nonce", "EUR", new AmericanExpressRewardsBalance());
+        sut.get("fake-nonce", "USD");
+
+        sut.put("fake-nonce", "GBP", new AmericanExpressRewardsBalance());
+
+        assertSame(usdBalance, sut.get("fake-nonce", "USD"));
+        assertNull(sut.get("fake-nonce", "EUR"));
+    }
+}
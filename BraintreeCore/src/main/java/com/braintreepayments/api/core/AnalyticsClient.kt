@@ -43,7 +43,12 @@ class AnalyticsClient internal constructor(
             endTime = analyticsEventParams.endTime,
             endpoint = analyticsEventParams.endpoint,
             experiment = analyticsEventParams.experiment,
-            paymentMethodsDisplayed = analyticsEventParams.paymentMethodsDisplayed
+            paymentMethodsDisplayed = analyticsEventParams.paymentMethodsDisplayed,
+            connectDuration = analyticsEventParams.connectDuration,
+            requestWriteDuration = analyticsEventParams.requestWriteDuration,
+            timeToFirstByte = analyticsEventParams.timeToFirstByte,
+            responseReadDuration = analyticsEventParams.responseReadDuration,
+            queueWaitDuration = analyticsEventParams.queueWaitDuration
         )
         configurationLoader.loadConfiguration { result ->
             if (result is ConfigurationLoaderResult.Success) {
@@ -145,7 +150,8 @@ class AnalyticsClient internal constructor(
                             FPTI_ANALYTICS_URL,
                             analyticsRequest.toString(),
                             configuration,
-                            authorization
+                            authorization,
+                            isBackground = true
                         )
                         analyticsEventBlobDao.deleteEventBlobs(eventBlobs)
                     }
@@ -190,6 +196,7 @@ class AnalyticsClient internal constructor(
                 data = analyticsRequest.toString(),
                 configuration = null,
                 authorization = authorization,
+                isBackground = true,
                 callback = null
             )
         } catch (e: JSONException) { /* ignored */
@@ -239,6 +246,11 @@ class AnalyticsClient internal constructor(
             .putOpt(FPTI_KEY_MERCHANT_EXPERIMENT, event.experiment)
             .putOpt(FPTI_KEY_MERCHANT_PAYMENT_METHODS_DISPLAYED,
                 event.paymentMethodsDisplayed.ifEmpty { null })
+            .putOpt(FPTI_KEY_CONNECT_DURATION, event.connectDuration)
+            .putOpt(FPTI_KEY_REQUEST_WRITE_DURATION, event.requestWriteDuration)
+            .putOpt(FPTI_KEY_TIME_TO_FIRST_BYTE, event.timeToFirstByte)
+            .putOpt(FPTI_KEY_RESPONSE_READ_DURATION, event.responseReadDuration)
+            .putOpt(FPTI_KEY_QUEUE_WAIT_DURATION, event.queueWaitDuration)
         return json.toString()
     }
 
@@ -288,6 +300,11 @@ class AnalyticsClient internal constructor(
         private const val FPTI_KEY_ENDPOINT = "endpoint"
         private const val FPTI_KEY_MERCHANT_EXPERIMENT = "experiment"
         private const val FPTI_KEY_MERCHANT_PAYMENT_METHODS_DISPLAYED = "payment_methods_displayed"
+        private const val FPTI_KEY_CONNECT_DURATION = "connect_duration"
+        private const val FPTI_KEY_REQUEST_WRITE_DURATION = "request_write_duration"
+        private const val FPTI_KEY_TIME_TO_FIRST_BYTE = "time_to_first_byte"
+        private const val FPTI_KEY_RESPONSE_READ_DURATION = "response_read_duration"
+        private const val FPTI_KEY_QUEUE_WAIT_DURATION = "queue_wait_duration"
 
         private const val FPTI_BATCH_KEY_VENMO_INSTALLED = "venmo_installed"
         private const val FPTI_BATCH_KEY_PAYPAL_INSTALLED = "paypal_installed"
@@ -15,5 +15,10 @@ internal data class AnalyticsEvent(
     val endTime: Long? = null,
     val endpoint: String? = null,
     val experiment: String? = null,
-    val paymentMethodsDisplayed: List<String> = emptyList()
+    val paymentMethodsDisplayed: List<String> = emptyList(),
+    val connectDuration: Long? = null,
+    val requestWriteDuration: Long? = null,
+    val timeToFirstByte: Long? = null,
+    val responseReadDuration: Long? = null,
+    val queueWaitDuration: Long? = null
 )
@@ -1,6 +1,7 @@
 package com.braintreepayments.api.core
 
 import androidx.annotation.RestrictTo
+import com.braintreepayments.api.sharedutils.HttpResponseTiming
 
 /**
  * DTO for analytics events. See also: [AnalyticsEvent]
@@ -17,6 +18,11 @@ import androidx.annotation.RestrictTo
  * the experiment, as a JSON string, that the merchant sent to the us.
  * @property paymentMethodsDisplayed A ShopperInsights module specific event that indicates the
  * order of payment methods displayed to the shopper by the merchant.
+ * @property connectDuration [HttpResponseTiming] connect (DNS, TCP and TLS) duration.
+ * @property requestWriteDuration [HttpResponseTiming] request body write duration.
+ * @property timeToFirstByte [HttpResponseTiming] time to first byte.
+ * @property responseReadDuration [HttpResponseTiming] response body read duration.
+ * @property queueWaitDuration [HttpResponseTiming] background thread queue wait duration.
  */
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 data class AnalyticsEventParams @JvmOverloads constructor(
@@ -27,5 +33,24 @@ data class AnalyticsEventParams @JvmOverloads constructor(
     var endTime: Long? = null,
     var endpoint: String? = null,
     val experiment: String? = null,
-    val paymentMethodsDisplayed: List<String> = emptyList()
+    val paymentMethodsDisplayed: List<String> = emptyList(),
+    var connectDuration: Long? = null,
+    var requestWriteDuration: Long? = null,
+    var timeToFirstByte: Long? = null,
+    var responseReadDuration: Long? = null,
+    var queueWaitDuration: Long? = null
+)
+
+/**
+ * Creates latency [AnalyticsEventParams] for a request to [endpoint] from its [HttpResponseTiming].
+ */
+internal fun HttpResponseTiming?.toLatencyEventParams(endpoint: String) = AnalyticsEventParams(
+    startTime = this?.startTime,
+    endTime = this?.endTime,
+    endpoint = endpoint,
+    connectDuration = this?.connectDuration,
+    requestWriteDuration = this?.requestWriteDuration,
+    timeToFirstByte = this?.timeToFirstByte,
+    responseReadDuration = this?.responseReadDuration,
+    queueWaitDuration = this?.queueWaitDuration
 )
@@ -29,9 +29,9 @@ class ApiClient(
             val url = versionedPath("$PAYMENT_METHOD_ENDPOINT/${paymentMethod.apiPath}")
             paymentMethod.sessionId = analyticsParamRepository.sessionId
 
-            sendPOST(
+            sendJSONPOST(
                 url = url,
-                data = paymentMethod.buildJSON().toString(),
+                body = JsonRequestBody { writer -> paymentMethod.writeJSONFields(writer) },
             ) { responseBody, httpError ->
                 parseResponseToJSON(responseBody)?.let { json ->
                     callback.onResult(json, null)
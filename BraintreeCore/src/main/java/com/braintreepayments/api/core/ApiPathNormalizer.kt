@@ -0,0 +1,79 @@
+package com.braintreepayments.api.core
+
+/**
+ * Reduces request endpoints to the low-cardinality names reported with
+ * [CoreAnalytics.API_REQUEST_LATENCY] events.
+ *
+ * These run once per HTTP response, so they are written as plain string scans rather than
+ * regular expressions.
+ */
+internal object ApiPathNormalizer {
+
+    private const val MERCHANTS_PREFIX = "/merchants/"
+    private const val CLIENT_API_SUFFIX = "/client_api"
+    private const val PAYMENT_METHODS_PREFIX = "payment_methods/"
+    private const val THREE_D_SECURE_SUFFIX = "/three_d_secure"
+    private const val THREE_D_SECURE_PATH = "payment_methods/three_d_secure"
+
+    /**
+     * Removes every `/merchants/<merchant id>/client_api` segment and collapses
+     * `payment_methods/<anything>/three_d_secure` to `payment_methods/three_d_secure`.
+     */
+    fun normalizeRestPath(endpoint: String): String {
+        return collapseThreeDSecurePath(removeMerchantSegments(endpoint))
+    }
+
+    /**
+     * Returns the GraphQL operation header of [query], i.e. everything before the first `(`,
+     * such as `mutation TokenizeCreditCard`.
+     */
+    fun graphQLOperationName(query: String): String {
+        return query.substringBefore('(')
+    }
+
+    private fun removeMerchantSegments(path: String): String {
+        var start = path.indexOf(MERCHANTS_PREFIX)
+        if (start < 0) {
+            return path
+        }
+
+        val result = StringBuilder(path.length)
+        var copyFrom = 0
+        while (start >= 0) {
+            val idStart = start + MERCHANTS_PREFIX.length
+            var idEnd = idStart
+            while (idEnd < path.length && isAsciiLetterOrDigit(path[idEnd])) {
+                idEnd++
+            }
+
+            if (idEnd > idStart && path.startsWith(CLIENT_API_SUFFIX, idEnd)) {
+                result.append(path, copyFrom, start)
+                copyFrom = idEnd + CLIENT_API_SUFFIX.length
+                start = path.indexOf(MERCHANTS_PREFIX, copyFrom)
+            } else {
+                start = path.indexOf(MERCHANTS_PREFIX, start + 1)
+            }
+        }
+        result.append(path, copyFrom, path.length)
+        return result.toString()
+    }
+
+    private fun collapseThreeDSecurePath(path: String): String {
+        val start = path.indexOf(PAYMENT_METHODS_PREFIX)
+        if (start < 0) {
+            return path
+        }
+
+        // greedy match: collapse up to the last "/three_d_secure" after the prefix
+        val end = path.lastIndexOf(THREE_D_SECURE_SUFFIX)
+        if (end < start + PAYMENT_METHODS_PREFIX.length) {
+            return path
+        }
+        return path.substring(0, start) + THREE_D_SECURE_PATH +
+            path.substring(end + THREE_D_SECURE_SUFFIX.length)
+    }
+
+    private fun isAsciiLetterOrDigit(c: Char): Boolean {
+        return c in 'a'..'z' || c in 'A'..'Z' || c in '0'..'9'
+    }
+}
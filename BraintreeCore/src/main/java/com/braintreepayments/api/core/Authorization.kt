@@ -24,6 +24,14 @@ abstract class Authorization internal constructor(private val rawValue: String)
     }
 
     companion object {
+
+        // compiled once; fromString runs for every BraintreeClient that is created
+        private val TOKENIZATION_KEY_REGEX = Regex(TokenizationKey.MATCHER)
+        private val BASE_64_REGEX = Regex(ClientToken.BASE_64_MATCHER)
+
+        // clients and analytics workers usually parse the same one or two strings over and over
+        internal val cache = AuthorizationCache()
+
         /**
          * Returns an [Authorization] of the correct type for a given [String]. If an
          * invalid authorization string is provided, an [InvalidAuthorization] will be returned.
@@ -40,11 +48,12 @@ abstract class Authorization internal constructor(private val rawValue: String)
                 val errorMessage = "Authorization provided is invalid: $authTrimmed"
                 return InvalidAuthorization(authTrimmed ?: "null", errorMessage)
             }
+            cache.get(authTrimmed)?.let { return it }
             return try {
                     if (isTokenizationKey(authTrimmed)) {
-                        TokenizationKey(authTrimmed)
+                        TokenizationKey(authTrimmed).also { cache.put(authTrimmed, it) }
                     } else if (isClientToken(authTrimmed)) {
-                        ClientToken(authTrimmed)
+                        ClientToken(authTrimmed).also { cache.put(authTrimmed, it) }
                     } else {
                         val errorMessage = "Authorization provided is invalid: $authTrimmed"
                         InvalidAuthorization(authTrimmed, errorMessage)
@@ -55,11 +64,11 @@ abstract class Authorization internal constructor(private val rawValue: String)
         }
 
         private fun isTokenizationKey(tokenizationKey: String): Boolean {
-            return tokenizationKey.matches(Regex(TokenizationKey.MATCHER))
+            return TOKENIZATION_KEY_REGEX.matches(tokenizationKey)
         }
 
         private fun isClientToken(clientToken: String): Boolean {
-            return clientToken.matches(Regex(ClientToken.BASE_64_MATCHER))
+            return BASE_64_REGEX.matches(clientToken)
         }
     }
 }
@@ -0,0 +1,33 @@
+package com.braintreepayments.api.core
+
+/**
+ * Bounded cache of parsed [Authorization]s keyed by their trimmed authorization string. Parsed
+ * authorizations are immutable, so a cached instance can be shared by every [BraintreeClient] and
+ * analytics upload that uses the same string. The least recently used entries are evicted once
+ * [maxEntries] is exceeded.
+ */
+internal class AuthorizationCache(private val maxEntries: Int = DEFAULT_MAX_ENTRIES) {
+
+    private val entries =
+        object : LinkedHashMap<String, Authorization>(maxEntries, LOAD_FACTOR, true) {
+            override fun removeEldestEntry(
+                eldest: MutableMap.MutableEntry<String, Authorization>?
+            ) = size > maxEntries
+        }
+
+    @Synchronized
+    fun get(authorizationString: String): Authorization? = entries[authorizationString]
+
+    @Synchronized
+    fun put(authorizationString: String, authorization: Authorization) {
+        entries[authorizationString] = authorization
+    }
+
+    @Synchronized
+    fun clear() = entries.clear()
+
+    companion object {
+        private const val DEFAULT_MAX_ENTRIES = 8
+        private const val LOAD_FACTOR = 0.75f
+    }
+}
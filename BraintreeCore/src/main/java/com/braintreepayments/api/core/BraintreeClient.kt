@@ -3,13 +3,22 @@ package com.braintreepayments.api.core
 import android.content.Context
 import android.content.pm.ActivityInfo
 import android.net.Uri
+import android.os.Handler
+import android.os.Looper
 import androidx.annotation.RestrictTo
+import com.braintreepayments.api.sharedutils.BackgroundHttpResponseCallback
+import com.braintreepayments.api.sharedutils.BackgroundNetworkResponseCallback
+import com.braintreepayments.api.sharedutils.HttpCall
 import com.braintreepayments.api.sharedutils.HttpResponseCallback
 import com.braintreepayments.api.sharedutils.HttpResponseTiming
 import com.braintreepayments.api.sharedutils.ManifestValidator
+import com.braintreepayments.api.sharedutils.NetworkResponseCallback
 import com.braintreepayments.api.sharedutils.Time
+import kotlinx.coroutines.suspendCancellableCoroutine
 import org.json.JSONException
 import org.json.JSONObject
+import kotlin.coroutines.resume
+import kotlin.coroutines.resumeWithException
 
 /**
  * Core Braintree class that handles network requests.
@@ -23,17 +32,19 @@ class BraintreeClient internal constructor(
     returnUrlScheme: String,
     appLinkReturnUri: Uri?,
     sdkComponent: SdkComponent = SdkComponent.create(applicationContext),
-    private val httpClient: BraintreeHttpClient = BraintreeHttpClient(),
-    private val graphQLClient: BraintreeGraphQLClient = BraintreeGraphQLClient(),
+    private val engine: BraintreeEngine = BraintreeEngineRegistry.instance.acquire(authorization),
+    private val httpClient: BraintreeHttpClient = engine.httpClient,
+    private val graphQLClient: BraintreeGraphQLClient = engine.graphQLClient,
     private val configurationLoader: ConfigurationLoader = ConfigurationLoader.instance,
     private val manifestValidator: ManifestValidator = ManifestValidator(),
     private val time: Time = Time(),
     private val merchantRepository: MerchantRepository = MerchantRepository.instance,
-    private val analyticsClient: AnalyticsClient = AnalyticsClient(),
+    private val analyticsClient: AnalyticsClient = engine.analyticsClient,
+    private val customTabsWarmer: CustomTabsWarmer = CustomTabsWarmer.instance,
 ) {
 
-    private val crashReporter: CrashReporter
     private var launchesBrowserSwitchAsNewTask: Boolean = false
+    private val mainThreadHandler = Handler(Looper.getMainLooper())
 
     private val braintreeDeepLinkReturnUrlScheme: String =
         "${getAppPackageNameWithoutUnderscores(applicationContext)}.braintree.deeplinkhandler"
@@ -62,8 +73,7 @@ class BraintreeClient internal constructor(
         //  a circular reference. We should consider if we need CrashReporter anymore since
         //  merchants already have access to Crash statistics via GooglePlay. We also have crash
         //  statistics access via the sdk console
-        crashReporter = CrashReporter(this)
-        crashReporter.start()
+        engine.startCrashReporter(this)
 
         merchantRepository.let {
             it.applicationContext = applicationContext
@@ -82,7 +92,36 @@ class BraintreeClient internal constructor(
      * @param callback [ConfigurationCallback]
      */
     fun getConfiguration(callback: ConfigurationCallback) {
-        configurationLoader.loadConfiguration { result ->
+        loadConfiguration { configuration, error ->
+            runOnMainThread { callback.onResult(configuration, error) }
+        }
+    }
+
+    /**
+     * Variant of [getConfiguration] for flows that can be canceled. If configuration has to be
+     * fetched, the fetch is canceled along with [httpCall]. Once [httpCall] is canceled,
+     * [callback] is not invoked.
+     *
+     * @param httpCall handle of the flow that needs the configuration
+     * @param callback [ConfigurationCallback]
+     * @suppress
+     */
+    fun getConfiguration(httpCall: HttpCall, callback: ConfigurationCallback) {
+        loadConfiguration(httpCall) { configuration, error ->
+            runOnMainThread {
+                if (!httpCall.isCanceled) callback.onResult(configuration, error)
+            }
+        }
+    }
+
+    /**
+     * Loads configuration without switching threads. When configuration has to be fetched from
+     * the network, [callback] is invoked on the background thread that performed the fetch so that
+     * internal request chains can continue without a round trip through the main thread. A fetch
+     * is canceled along with [httpCall].
+     */
+    private fun loadConfiguration(httpCall: HttpCall? = null, callback: ConfigurationCallback) {
+        configurationLoader.loadConfiguration(httpCall) { result ->
             when (result) {
                 is ConfigurationLoaderResult.Success -> {
                     callback.onResult(result.configuration, null)
@@ -94,6 +133,65 @@ class BraintreeClient internal constructor(
         }
     }
 
+    private fun runOnMainThread(block: () -> Unit) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            block()
+        } else {
+            mainThreadHandler.post(block)
+        }
+    }
+
+    /**
+     * @return [callback], marked to be invoked on the background thread that completed the
+     * request when [responseCallback] is a [BackgroundHttpResponseCallback]
+     */
+    private fun networkCallback(
+        responseCallback: HttpResponseCallback,
+        callback: NetworkResponseCallback
+    ): NetworkResponseCallback = if (responseCallback is BackgroundHttpResponseCallback) {
+        BackgroundNetworkResponseCallback(callback::onResult)
+    } else {
+        callback
+    }
+
+    /**
+     * @return a [networkCallback] that reports the latency of a response with [sendTimingEvent],
+     * unless it was coalesced into another request, and delivers its body or error to
+     * [responseCallback]
+     */
+    private fun deliveringCallback(
+        responseCallback: HttpResponseCallback,
+        sendTimingEvent: (HttpResponseTiming) -> Unit
+    ): NetworkResponseCallback = networkCallback(responseCallback) { response, httpError ->
+        response?.let {
+            try {
+                if (!it.isCoalesced) sendTimingEvent(it.timing)
+                responseCallback.onResult(it.body, null)
+            } catch (jsonException: JSONException) {
+                responseCallback.onResult(null, jsonException)
+            }
+        } ?: httpError?.let { error ->
+            responseCallback.onResult(null, error)
+        }
+    }
+
+    private fun deliverConfigurationError(
+        httpCall: HttpCall,
+        responseCallback: HttpResponseCallback,
+        configError: Exception?
+    ) {
+        if (httpCall.isCanceled) {
+            return
+        }
+        if (responseCallback is BackgroundHttpResponseCallback) {
+            responseCallback.onResult(null, configError)
+        } else {
+            runOnMainThread {
+                if (!httpCall.isCanceled) responseCallback.onResult(null, configError)
+            }
+        }
+    }
+
     /**
      * @suppress
      */
@@ -105,30 +203,40 @@ class BraintreeClient internal constructor(
     }
 
     /**
+     * [responseCallback] is invoked on the main thread, unless it is a
+     * [BackgroundHttpResponseCallback].
+     *
+     * @return an [HttpCall] that can be used to cancel the request. Once canceled,
+     * [responseCallback] is not invoked.
      * @suppress
      */
-    fun sendGET(url: String, responseCallback: HttpResponseCallback) {
-        getConfiguration { configuration, configError ->
+    fun sendGET(url: String, responseCallback: HttpResponseCallback): HttpCall {
+        val httpCall = HttpCall()
+        loadConfiguration(httpCall) { configuration, configError ->
+            if (httpCall.isCanceled) {
+                return@loadConfiguration
+            }
             if (configuration != null) {
-                httpClient.get(url, configuration, merchantRepository.authorization) { response, httpError ->
-                    response?.let {
-                        try {
-                            sendAnalyticsTimingEvent(url, response.timing)
-                            responseCallback.onResult(it.body, null)
-                        } catch (jsonException: JSONException) {
-                            responseCallback.onResult(null, jsonException)
-                        }
-                    } ?: httpError?.let { error ->
-                        responseCallback.onResult(null, error)
-                    }
-                }
+                httpClient.get(
+                    url,
+                    configuration,
+                    merchantRepository.authorization,
+                    httpCall,
+                    deliveringCallback(responseCallback) { sendAnalyticsTimingEvent(url, it) }
+                )
             } else {
-                responseCallback.onResult(null, configError)
+                deliverConfigurationError(httpCall, responseCallback, configError)
             }
         }
+        return httpCall
     }
 
     /**
+     * [responseCallback] is invoked on the main thread, unless it is a
+     * [BackgroundHttpResponseCallback].
+     *
+     * @return an [HttpCall] that can be used to cancel the request. Once canceled,
+     * [responseCallback] is not invoked.
      * @suppress
      */
     @JvmOverloads
@@ -137,74 +245,168 @@ class BraintreeClient internal constructor(
         data: String,
         additionalHeaders: Map<String, String> = emptyMap(),
         responseCallback: HttpResponseCallback,
-    ) {
-        getConfiguration { configuration, configError ->
+    ): HttpCall {
+        val httpCall = HttpCall()
+        loadConfiguration(httpCall) { configuration, configError ->
+            if (httpCall.isCanceled) {
+                return@loadConfiguration
+            }
             if (configuration != null) {
                 httpClient.post(
                     path = url,
                     data = data,
                     configuration = configuration,
                     authorization = merchantRepository.authorization,
-                    additionalHeaders = additionalHeaders
-                ) { response, httpError ->
-                    response?.let {
-                        try {
-                            sendAnalyticsTimingEvent(url, it.timing)
-                            responseCallback.onResult(it.body, null)
-                        } catch (jsonException: JSONException) {
-                            responseCallback.onResult(null, jsonException)
-                        }
-                    } ?: httpError?.let { error ->
-                        responseCallback.onResult(null, error)
+                    additionalHeaders = additionalHeaders,
+                    httpCall = httpCall,
+                    callback = deliveringCallback(responseCallback) {
+                        sendAnalyticsTimingEvent(url, it)
                     }
-                }
+                )
             } else {
-                responseCallback.onResult(null, configError)
+                deliverConfigurationError(httpCall, responseCallback, configError)
             }
         }
+        return httpCall
     }
 
     /**
+     * Variant of [sendPOST] whose body is streamed straight into the request bytes by [body]
+     * instead of being passed in as an already serialized string. [responseCallback] is invoked
+     * on the main thread, unless it is a [BackgroundHttpResponseCallback].
+     *
+     * @return an [HttpCall] that can be used to cancel the request. Once canceled,
+     * [responseCallback] is not invoked.
      * @suppress
      */
-    fun sendGraphQLPOST(json: JSONObject?, responseCallback: HttpResponseCallback) {
-        getConfiguration { configuration, configError ->
+    @JvmOverloads
+    fun sendJSONPOST(
+        url: String,
+        body: JsonRequestBody,
+        additionalHeaders: Map<String, String> = emptyMap(),
+        responseCallback: HttpResponseCallback,
+    ): HttpCall {
+        val httpCall = HttpCall()
+        loadConfiguration(httpCall) { configuration, configError ->
+            if (httpCall.isCanceled) {
+                return@loadConfiguration
+            }
             if (configuration != null) {
-                graphQLClient.post(
-                    json?.toString(),
+                httpClient.postJSON(
+                    path = url,
+                    body = body,
+                    configuration = configuration,
+                    authorization = merchantRepository.authorization,
+                    additionalHeaders = additionalHeaders,
+                    httpCall = httpCall,
+                    callback = deliveringCallback(responseCallback) {
+                        sendAnalyticsTimingEvent(url, it)
+                    }
+                )
+            } else {
+                deliverConfigurationError(httpCall, responseCallback, configError)
+            }
+        }
+        return httpCall
+    }
+
+    /**
+     * [responseCallback] is invoked on the main thread, unless it is a
+     * [BackgroundHttpResponseCallback].
+     *
+     * @return an [HttpCall] that can be used to cancel the request. Once canceled,
+     * [responseCallback] is not invoked.
+     * @suppress
+     */
+    fun sendGraphQLPOST(json: JSONObject?, responseCallback: HttpResponseCallback): HttpCall {
+        val httpCall = HttpCall()
+        loadConfiguration(httpCall) { configuration, configError ->
+            if (httpCall.isCanceled) {
+                return@loadConfiguration
+            }
+            if (configuration != null) {
+                graphQLClient.postQuery(
+                    json,
                     configuration,
-                    merchantRepository.authorization
-                ) { response, httpError ->
-                    response?.let {
-                        try {
-                            json?.optString(GraphQLConstants.Keys.QUERY)
-                                ?.let { query ->
-                                    val queryDiscardHolder = query.replace(Regex("^[^\\(]*"), "")
-                                    val finalQuery = query.replace(queryDiscardHolder, "")
-                                    val params = AnalyticsEventParams(
-                                        startTime = it.timing.startTime,
-                                        endTime = it.timing.endTime,
-                                        endpoint = finalQuery
-                                    )
-                                    sendAnalyticsEvent(
-                                        CoreAnalytics.API_REQUEST_LATENCY,
-                                        params
-                                    )
-                                }
-                            responseCallback.onResult(it.body, null)
-                        } catch (jsonException: JSONException) {
-                            responseCallback.onResult(null, jsonException)
+                    merchantRepository.authorization,
+                    httpCall,
+                    deliveringCallback(responseCallback) { timing ->
+                        json?.optString(GraphQLConstants.Keys.QUERY)?.let { query ->
+                            sendAnalyticsEvent(
+                                CoreAnalytics.API_REQUEST_LATENCY,
+                                timing.toLatencyEventParams(
+                                    ApiPathNormalizer.graphQLOperationName(query)
+                                )
+                            )
                         }
-                    } ?: httpError?.let { error ->
-                        responseCallback.onResult(null, error)
                     }
-                }
+                )
             } else {
-                responseCallback.onResult(null, configError)
+                deliverConfigurationError(httpCall, responseCallback, configError)
             }
         }
+        return httpCall
     }
 
+    /**
+     * Suspending variant of [getConfiguration]. The coroutine resumes on the caller's dispatcher.
+     */
+    suspend fun getConfiguration(): Configuration = suspendCancellableCoroutine { continuation ->
+        val httpCall = HttpCall()
+        continuation.invokeOnCancellation { httpCall.cancel() }
+        loadConfiguration(httpCall) { configuration, error ->
+            if (configuration != null) {
+                continuation.resume(configuration)
+            } else {
+                continuation.resumeWithException(
+                    error ?: BraintreeException("Configuration is null")
+                )
+            }
+        }
+    }
+
+    /**
+     * Suspending variant of [sendGET].
+     *
+     * @return the HTTP response body
+     * @suppress
+     */
+    suspend fun sendGET(url: String): String = awaitResponseBody { sendGET(url, it) }
+
+    /**
+     * Suspending variant of [sendPOST].
+     *
+     * @return the HTTP response body
+     * @suppress
+     */
+    suspend fun sendPOST(
+        url: String,
+        data: String,
+        additionalHeaders: Map<String, String> = emptyMap(),
+    ): String = awaitResponseBody { sendPOST(url, data, additionalHeaders, it) }
+
+    /**
+     * Suspending variant of [sendGraphQLPOST].
+     *
+     * @return the HTTP response body
+     * @suppress
+     */
+    suspend fun sendGraphQLPOST(json: JSONObject?): String =
+        awaitResponseBody { sendGraphQLPOST(json, it) }
+
+    // resumed from the request's background thread; the coroutine's dispatcher does the only hop
+    private suspend fun awaitResponseBody(send: (HttpResponseCallback) -> HttpCall): String =
+        suspendCancellableCoroutine { continuation ->
+            val httpCall = send(BackgroundHttpResponseCallback { responseBody, httpError ->
+                if (httpError != null) {
+                    continuation.resumeWithException(httpError)
+                } else {
+                    continuation.resume(responseBody.orEmpty())
+                }
+            })
+            continuation.invokeOnCancellation { httpCall.cancel() }
+        }
+
     /**
      * @suppress
      */
@@ -234,11 +436,31 @@ class BraintreeClient internal constructor(
         return manifestValidator.getActivityInfo(merchantRepository.applicationContext, klass)
     }
 
+    /**
+     * Starts the Custom Tabs browser in the background ahead of a browser switch, so that it
+     * opens faster when launched.
+     *
+     * @suppress
+     */
+    fun warmUpBrowserSwitch() {
+        customTabsWarmer.warmUp(merchantRepository.applicationContext)
+    }
+
+    /**
+     * Lets the Custom Tabs browser connect to the origin of [url] before a browser switch to it
+     * is launched. The page itself is not loaded ahead of time.
+     *
+     * @suppress
+     */
+    fun preconnectBrowserSwitch(url: Uri) {
+        customTabsWarmer.preconnect(merchantRepository.applicationContext, url)
+    }
+
     /**
      * @suppress
      */
     internal fun reportCrash() =
-        getConfiguration { configuration, _ ->
+        loadConfiguration { configuration, _ ->
             analyticsClient.reportCrash(
                 merchantRepository.applicationContext,
                 configuration,
@@ -253,18 +475,9 @@ class BraintreeClient internal constructor(
     }
 
     private fun sendAnalyticsTimingEvent(endpoint: String, timing: HttpResponseTiming) {
-        var cleanedPath = endpoint.replace(Regex("/merchants/([A-Za-z0-9]+)/client_api"), "")
-        cleanedPath = cleanedPath.replace(
-            Regex("payment_methods/.*/three_d_secure"), "payment_methods/three_d_secure"
-        )
-
         sendAnalyticsEvent(
             CoreAnalytics.API_REQUEST_LATENCY,
-            AnalyticsEventParams(
-                startTime = timing.startTime,
-                endTime = timing.endTime,
-                endpoint = cleanedPath
-            )
+            timing.toLatencyEventParams(ApiPathNormalizer.normalizeRestPath(endpoint))
         )
     }
 
@@ -0,0 +1,151 @@
+package com.braintreepayments.api.core
+
+import com.braintreepayments.api.sharedutils.HttpClient
+import com.braintreepayments.api.sharedutils.HttpEventListener
+import com.braintreepayments.api.sharedutils.TLSSocketFactory
+import java.lang.ref.WeakReference
+import javax.net.ssl.SSLSocketFactory
+
+/**
+ * Holds the network stack (REST transport, GraphQL transport and analytics pipeline) that every
+ * [BraintreeClient] created for the same authorization shares.
+ */
+internal class BraintreeEngine(
+    val httpClient: BraintreeHttpClient,
+    val graphQLClient: BraintreeGraphQLClient,
+    val analyticsClient: AnalyticsClient,
+    private val crashReporterRegistry: CrashReporterRegistry = CrashReporterRegistry.instance,
+) {
+
+    /**
+     * Reports crashes through [braintreeClient] using the process-wide [CrashReporter]. The
+     * reporter does not reference the engine, so it does not keep the engine alive.
+     */
+    fun startCrashReporter(braintreeClient: BraintreeClient) {
+        crashReporterRegistry.register(braintreeClient)
+    }
+
+    /**
+     * Registers [listener] with both the REST and the GraphQL transport.
+     */
+    fun setHttpEventListener(listener: HttpEventListener?) {
+        httpClient.setEventListener(listener)
+        graphQLClient.setEventListener(listener)
+    }
+
+    /**
+     * Sets the window in which GraphQL operations are batched, see
+     * [BraintreeGraphQLClient.setBatchWindow].
+     */
+    fun setGraphQLBatchWindow(windowMillis: Long) {
+        graphQLClient.setBatchWindow(windowMillis)
+    }
+
+    /**
+     * Enables or disables GraphQL persisted queries, see
+     * [BraintreeGraphQLClient.setPersistedQueriesEnabled].
+     */
+    fun setGraphQLPersistedQueriesEnabled(enabled: Boolean) {
+        graphQLClient.setPersistedQueriesEnabled(enabled)
+    }
+}
+
+/**
+ * Process-wide registry of [BraintreeEngine] instances keyed by the raw authorization string.
+ *
+ * Each [BraintreeClient] holds a strong reference to the engine it acquired, while the registry
+ * only holds weak references. An engine is therefore retained for as long as at least one client
+ * uses it, and becomes eligible for garbage collection once the last client goes away. Settings
+ * made through [BraintreeNetworking] are kept by the registry, so they are applied again when an
+ * engine for the same authorization is created later.
+ */
+internal class BraintreeEngineRegistry(
+    private val engineFactory: (SSLSocketFactory) -> BraintreeEngine = ::createEngine
+) {
+
+    private val engines = mutableMapOf<String, WeakReference<BraintreeEngine>>()
+    private val httpEventListeners = mutableMapOf<String, HttpEventListener>()
+    private val graphQLBatchWindows = mutableMapOf<String, Long>()
+    private val graphQLPersistedQueries = mutableMapOf<String, Boolean>()
+
+    // TLS context creation parses the pinned certificates; do it once per process
+    private val socketFactory: SSLSocketFactory by lazy {
+        TLSSocketFactory(TLSCertificatePinning.createCertificateInputStream())
+    }
+
+    /**
+     * Returns the [BraintreeEngine] for the given [authorization], creating one if no live
+     * engine exists for it.
+     */
+    @Synchronized
+    fun acquire(authorization: Authorization): BraintreeEngine {
+        val key = authorization.toString()
+        engines[key]?.get()?.let { return it }
+
+        // drop entries whose engines have already been collected
+        engines.entries.removeAll { it.value.get() == null }
+
+        return engineFactory(socketFactory).also { engine ->
+            httpEventListeners[key]?.let { engine.setHttpEventListener(it) }
+            graphQLBatchWindows[key]?.let { engine.setGraphQLBatchWindow(it) }
+            graphQLPersistedQueries[key]?.let { engine.setGraphQLPersistedQueriesEnabled(it) }
+            engines[key] = WeakReference(engine)
+        }
+    }
+
+    /**
+     * Registers [listener] with the engine for [authorization], now and whenever it is created
+     * again. A null [listener] unregisters the current one.
+     */
+    @Synchronized
+    fun setHttpEventListener(authorization: String, listener: HttpEventListener?) {
+        if (listener != null) {
+            httpEventListeners[authorization] = listener
+        } else {
+            httpEventListeners.remove(authorization)
+        }
+        engines[authorization]?.get()?.setHttpEventListener(listener)
+    }
+
+    /**
+     * Sets the GraphQL batch window of the engine for [authorization], now and whenever it is
+     * created again.
+     */
+    @Synchronized
+    fun setGraphQLBatchWindow(authorization: String, windowMillis: Long) {
+        graphQLBatchWindows[authorization] = windowMillis
+        engines[authorization]?.get()?.setGraphQLBatchWindow(windowMillis)
+    }
+
+    /**
+     * Enables or disables GraphQL persisted queries for the engine for [authorization], now and
+     * whenever it is created again.
+     */
+    @Synchronized
+    fun setGraphQLPersistedQueriesEnabled(authorization: String, enabled: Boolean) {
+        graphQLPersistedQueries[authorization] = enabled
+        engines[authorization]?.get()?.setGraphQLPersistedQueriesEnabled(enabled)
+    }
+
+    companion object {
+
+        private fun createEngine(socketFactory: SSLSocketFactory): BraintreeEngine {
+            val httpClient = BraintreeHttpClient(
+                HttpClient(socketFactory, BraintreeHttpResponseParser())
+            )
+            val graphQLClient = BraintreeGraphQLClient(
+                HttpClient(socketFactory, BraintreeGraphQLResponseParser())
+            )
+            return BraintreeEngine(
+                httpClient = httpClient,
+                graphQLClient = graphQLClient,
+                analyticsClient = AnalyticsClient(httpClient)
+            )
+        }
+
+        /**
+         * Singleton instance of the BraintreeEngineRegistry.
+         */
+        val instance: BraintreeEngineRegistry by lazy { BraintreeEngineRegistry() }
+    }
+}
@@ -1,6 +1,7 @@
 package com.braintreepayments.api.core
 
 import android.os.Parcelable
+import androidx.annotation.RestrictTo
 import com.braintreepayments.api.core.GraphQLConstants.ErrorTypes
 import com.braintreepayments.api.sharedutils.Json
 import kotlinx.parcelize.Parcelize
@@ -51,6 +52,21 @@ class BraintreeError internal constructor(
         private const val CODE_KEY = "code"
         private const val UNKNOWN_CODE = -1
 
+        /**
+         * Creates an error for [field] in the same shape as the gateway's field errors, for
+         * validation that happens on-device.
+         *
+         * @suppress
+         */
+        @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+        @JvmStatic
+        fun forField(
+            field: String,
+            message: String? = null,
+            fieldErrors: List<BraintreeError>? = null,
+            code: Int = UNKNOWN_CODE
+        ) = BraintreeError(field, message, fieldErrors?.toMutableList(), code)
+
         internal fun fromJsonArray(input: JSONArray?): MutableList<BraintreeError> {
             val json = input ?: JSONArray()
             val errors = mutableListOf<BraintreeError>()
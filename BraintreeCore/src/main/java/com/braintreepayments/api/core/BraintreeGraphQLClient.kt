@@ -1,9 +1,14 @@
 package com.braintreepayments.api.core
 
+import com.braintreepayments.api.sharedutils.BackgroundNetworkResponseCallback.Companion.continuationOf
+import com.braintreepayments.api.sharedutils.HttpCall
 import com.braintreepayments.api.sharedutils.HttpClient
+import com.braintreepayments.api.sharedutils.HttpEventListener
 import com.braintreepayments.api.sharedutils.HttpRequest
 import com.braintreepayments.api.sharedutils.NetworkResponseCallback
 import com.braintreepayments.api.sharedutils.TLSSocketFactory
+import com.braintreepayments.api.sharedutils.UnprocessableEntityException
+import org.json.JSONObject
 import java.util.Locale
 import javax.net.ssl.SSLException
 
@@ -11,6 +16,44 @@ internal class BraintreeGraphQLClient(
     private val httpClient: HttpClient = createDefaultHttpClient()
 ) {
 
+    @Volatile
+    private var persistedQueriesEnabled = false
+
+    // cleared for the lifetime of this client if the API reports persisted queries are unsupported
+    @Volatile
+    private var persistedQueriesSupported = true
+
+    @Volatile
+    private var batcher: GraphQLRequestBatcher? = null
+
+    /**
+     * Registers [listener] for the lifecycle events of every request sent by this client, or
+     * unregisters the current listener if [listener] is null.
+     */
+    fun setEventListener(listener: HttpEventListener?) {
+        httpClient.setEventListener(listener)
+    }
+
+    /**
+     * Enables batching of GraphQL operations that are issued within [windowMillis] of each other
+     * into a single array-body request. A window of 0 (the default) disables batching.
+     */
+    fun setBatchWindow(windowMillis: Long) {
+        batcher = if (windowMillis > 0) {
+            GraphQLRequestBatcher(windowMillis, sendRequest = ::sendRequest)
+        } else {
+            null
+        }
+    }
+
+    /**
+     * Enables sending only the hash of queries declared as [GraphQLPersistedQuery]s, see
+     * [postQuery]. Persisted queries are disabled by default.
+     */
+    fun setPersistedQueriesEnabled(enabled: Boolean) {
+        persistedQueriesEnabled = enabled
+    }
+
     fun post(
         path: String?,
         data: String?,
@@ -23,16 +66,10 @@ internal class BraintreeGraphQLClient(
             callback.onResult(null, BraintreeException(message))
             return
         }
-        val request = HttpRequest()
-            .method("POST")
-            .path(path)
-            .data(data)
-            .baseUrl(configuration.graphQLUrl)
-            .addHeader("User-Agent", "braintree/android/" + BuildConfig.VERSION_NAME)
-            .addHeader("Authorization",
-                String.format(Locale.US, "Bearer %s", authorization.bearer))
-            .addHeader("Braintree-Version", GraphQLConstants.Headers.API_VERSION)
-        httpClient.sendRequest(request, callback)
+        httpClient.sendRequest(
+            buildRequest(path, data, configuration, authorization, null),
+            callback
+        )
     }
 
     fun post(
@@ -40,22 +77,112 @@ internal class BraintreeGraphQLClient(
         configuration: Configuration,
         authorization: Authorization,
         callback: NetworkResponseCallback
+    ) = post(data, configuration, authorization, null, callback)
+
+    fun post(
+        data: String?,
+        configuration: Configuration,
+        authorization: Authorization,
+        httpCall: HttpCall?,
+        callback: NetworkResponseCallback
     ) {
         if (authorization is InvalidAuthorization) {
             val message = authorization.errorMessage
             callback.onResult(null, BraintreeException(message))
             return
         }
-        val request = HttpRequest()
-            .method("POST")
-            .path("")
-            .data(data)
-            .baseUrl(configuration.graphQLUrl)
-            .addHeader("User-Agent", "braintree/android/" + BuildConfig.VERSION_NAME)
-            .addHeader("Authorization",
-                String.format(Locale.US, "Bearer %s", authorization.bearer))
-            .addHeader("Braintree-Version", GraphQLConstants.Headers.API_VERSION)
-        httpClient.sendRequest(request, callback)
+        val batcher = batcher
+        if (batcher != null && data != null) {
+            batcher.enqueue(data, configuration, authorization, httpCall, callback)
+        } else {
+            sendRequest(data, configuration, authorization, httpCall, callback)
+        }
+    }
+
+    private fun sendRequest(
+        data: String?,
+        configuration: Configuration,
+        authorization: Authorization,
+        httpCall: HttpCall?,
+        callback: NetworkResponseCallback
+    ) {
+        httpClient.sendRequest(
+            buildRequest("", data, configuration, authorization, httpCall),
+            callback
+        )
+    }
+
+    private fun buildRequest(
+        path: String?,
+        data: String?,
+        configuration: Configuration,
+        authorization: Authorization,
+        httpCall: HttpCall?
+    ): HttpRequest = HttpRequest()
+        .method("POST")
+        .path(path)
+        .data(data)
+        .call(httpCall)
+        .baseUrl(configuration.graphQLUrl)
+        .addHeader("User-Agent", "braintree/android/" + BuildConfig.VERSION_NAME)
+        .addHeader("Authorization", String.format(Locale.US, "Bearer %s", authorization.bearer))
+        .addHeader("Braintree-Version", GraphQLConstants.Headers.API_VERSION)
+
+    /**
+     * Posts a GraphQL request body. If persisted queries are enabled and the body's query has been
+     * declared as a [GraphQLPersistedQuery], only its SHA-256 hash is sent. If the API has not
+     * seen the hash yet, the request is repeated with the full query text alongside the hash so
+     * that the API stores it. If the API rejects the hash-only request in any other way that
+     * shows the operation did not run, the request is repeated with the plain body, and persisted
+     * queries are disabled for this client once the plain body succeeds. Any other error is
+     * forwarded as is, since the operation may already have run.
+     */
+    fun postQuery(
+        json: JSONObject?,
+        configuration: Configuration,
+        authorization: Authorization,
+        httpCall: HttpCall?,
+        callback: NetworkResponseCallback
+    ) {
+        val persistedQuery = json?.optString(GraphQLConstants.Keys.QUERY)
+            ?.let { GraphQLPersistedQuery.forQuery(it) }
+        if (json == null || persistedQuery == null || !persistedQueriesEnabled ||
+            !persistedQueriesSupported
+        ) {
+            post(json?.toString(), configuration, authorization, httpCall, callback)
+            return
+        }
+
+        val hashedBody = buildPersistedQueryBody(json, persistedQuery, includeQuery = false)
+        // the continuations run on the thread callback expects, so a resend stays on that thread
+        val hashedCallback = continuationOf(callback) { response, error ->
+            when {
+                error is PersistedQueryNotFoundException && !error.isUnsupported -> {
+                    val fullBody =
+                        buildPersistedQueryBody(json, persistedQuery, includeQuery = true)
+                    post(fullBody.toString(), configuration, authorization, httpCall, callback)
+                }
+
+                error is PersistedQueryNotFoundException -> {
+                    persistedQueriesSupported = false
+                    post(json.toString(), configuration, authorization, httpCall, callback)
+                }
+
+                error != null && isRejectedBeforeRunning(error) -> {
+                    val plainCallback = continuationOf(callback) { plainResponse, plainError ->
+                        if (plainError == null) {
+                            // the API only rejected the hash-only form of the request
+                            persistedQueriesSupported = false
+                        }
+                        callback.onResult(plainResponse, plainError)
+                    }
+                    post(json.toString(), configuration, authorization, httpCall, plainCallback)
+                }
+
+                else -> callback.onResult(response, error)
+            }
+        }
+        post(hashedBody.toString(), configuration, authorization, httpCall, hashedCallback)
     }
 
     @Throws(Exception::class)
@@ -69,20 +196,56 @@ internal class BraintreeGraphQLClient(
             val message = authorization.errorMessage
             throw BraintreeException(message)
         }
-        val request = HttpRequest()
-            .method("POST")
-            .path(path)
-            .data(data)
-            .baseUrl(configuration.graphQLUrl)
-            .addHeader("User-Agent", "braintree/android/" + BuildConfig.VERSION_NAME)
-            .addHeader("Authorization",
-                String.format(Locale.US, "Bearer %s", authorization.bearer))
-            .addHeader("Braintree-Version", GraphQLConstants.Headers.API_VERSION)
-        return httpClient.sendRequest(request)
+        return httpClient.sendRequest(
+            buildRequest(path, data, configuration, authorization, null)
+        )
     }
 
     companion object {
 
+        private const val PERSISTED_QUERY_VERSION = 1
+
+        /**
+         * A hash-only request that the API rejected as malformed, or answered with a non-user
+         * GraphQL error, did not run. User errors mean the operation ran, and transport, rate
+         * limit and server failures leave it unknown whether it ran.
+         */
+        private fun isRejectedBeforeRunning(error: Exception) =
+            error is UnprocessableEntityException || error is GraphQLRequestException
+
+        /**
+         * Copies [json], adding the persisted query extension. The query text is only kept if
+         * [includeQuery] is true, which registers the query under its hash.
+         */
+        private fun buildPersistedQueryBody(
+            json: JSONObject,
+            persistedQuery: GraphQLPersistedQuery,
+            includeQuery: Boolean
+        ): JSONObject {
+            val body = copyWithout(json, GraphQLConstants.Keys.QUERY)
+            if (includeQuery) {
+                body.put(GraphQLConstants.Keys.QUERY, persistedQuery.query)
+            }
+            val extensions = json.optJSONObject(GraphQLConstants.Keys.EXTENSIONS)
+                ?.let { copyWithout(it, GraphQLConstants.Keys.PERSISTED_QUERY) } ?: JSONObject()
+            val persistedQueryJson = JSONObject()
+                .put(GraphQLConstants.Keys.PERSISTED_QUERY_VERSION, PERSISTED_QUERY_VERSION)
+                .put(GraphQLConstants.Keys.SHA_256_HASH, persistedQuery.sha256Hash)
+            extensions.put(GraphQLConstants.Keys.PERSISTED_QUERY, persistedQueryJson)
+            return body.put(GraphQLConstants.Keys.EXTENSIONS, extensions)
+        }
+
+        // shallow copy; the original body is still needed for the full-text fallback
+        private fun copyWithout(json: JSONObject, excludedKey: String): JSONObject {
+            val copy = JSONObject()
+            json.keys().forEach { key ->
+                if (key != excludedKey) {
+                    copy.put(key, json.get(key))
+                }
+            }
+            return copy
+        }
+
         @Throws(SSLException::class)
         private fun createDefaultHttpClient(): HttpClient {
             val socketFactory =
@@ -4,7 +4,6 @@ import com.braintreepayments.api.sharedutils.AuthorizationException
 import com.braintreepayments.api.sharedutils.BaseHttpResponseParser
 import com.braintreepayments.api.sharedutils.HttpResponseParser
 import com.braintreepayments.api.sharedutils.Json
-import com.braintreepayments.api.sharedutils.UnexpectedException
 import org.json.JSONObject
 import java.net.HttpURLConnection
 
@@ -25,32 +24,63 @@ internal class BraintreeGraphQLResponseParser(
     @Throws(Exception::class)
     override fun parse(responseCode: Int, connection: HttpURLConnection): String {
         val response = baseParser.parse(responseCode, connection)
-        val errors = JSONObject(response).optJSONArray(GraphQLConstants.Keys.ERRORS)
-        if (errors == null) return response
-
-        for (i in 0 until errors.length()) {
-            val error = errors.getJSONObject(i)
-            val extensions = error.optJSONObject(GraphQLConstants.Keys.EXTENSIONS)
-            val message = Json.optString(
-                error,
-                GraphQLConstants.Keys.MESSAGE,
-                "An Unexpected Exception Occurred"
-            )
-            if (extensions == null) {
-                throw UnexpectedException(message)
-            }
+        if (response.trimStart().startsWith("[")) {
+            // batched response; GraphQLRequestBatcher checks each operation's result
+            return response
+        }
+        return parseOperationResult(response)
+    }
+
+    companion object {
+
+        /**
+         * Checks a single GraphQL operation result for errors.
+         *
+         * @return [response] if it does not contain any errors.
+         */
+        @Throws(Exception::class)
+        fun parseOperationResult(response: String): String {
+            val errors = JSONObject(response).optJSONArray(GraphQLConstants.Keys.ERRORS)
+            if (errors == null) return response
+
+            for (i in 0 until errors.length()) {
+                val error = errors.getJSONObject(i)
+                val extensions = error.optJSONObject(GraphQLConstants.Keys.EXTENSIONS)
+                val message = Json.optString(
+                    error,
+                    GraphQLConstants.Keys.MESSAGE,
+                    "An Unexpected Exception Occurred"
+                )
+                val code = extensions?.let { Json.optString(it, GraphQLConstants.Keys.CODE, "") }
+                val persistedQueryNotFound =
+                    message == GraphQLConstants.PersistedQueryErrors.NOT_FOUND_MESSAGE ||
+                        code == GraphQLConstants.PersistedQueryErrors.NOT_FOUND_CODE
+                val persistedQueryNotSupported =
+                    message == GraphQLConstants.PersistedQueryErrors.NOT_SUPPORTED_MESSAGE ||
+                        code == GraphQLConstants.PersistedQueryErrors.NOT_SUPPORTED_CODE
+                if (persistedQueryNotFound || persistedQueryNotSupported) {
+                    throw PersistedQueryNotFoundException(
+                        message,
+                        isUnsupported = persistedQueryNotSupported
+                    )
+                }
+
+                if (extensions == null) {
+                    throw GraphQLRequestException(message)
+                }
 
-            val legacyCode =
-                Json.optString(extensions, GraphQLConstants.Keys.LEGACY_CODE, "")
-            val errorType =
-                Json.optString(extensions, GraphQLConstants.Keys.ERROR_TYPE, "")
+                val legacyCode =
+                    Json.optString(extensions, GraphQLConstants.Keys.LEGACY_CODE, "")
+                val errorType =
+                    Json.optString(extensions, GraphQLConstants.Keys.ERROR_TYPE, "")
 
-            if (legacyCode == GraphQLConstants.LegacyErrorCodes.VALIDATION_NOT_ALLOWED) {
-                throw AuthorizationException(error.getString(GraphQLConstants.Keys.MESSAGE))
-            } else if (errorType != GraphQLConstants.ErrorTypes.USER) {
-                throw UnexpectedException(message)
+                if (legacyCode == GraphQLConstants.LegacyErrorCodes.VALIDATION_NOT_ALLOWED) {
+                    throw AuthorizationException(error.getString(GraphQLConstants.Keys.MESSAGE))
+                } else if (errorType != GraphQLConstants.ErrorTypes.USER) {
+                    throw GraphQLRequestException(message)
+                }
             }
+            throw ErrorWithResponse.fromGraphQLJson(response)
         }
-        throw ErrorWithResponse.fromGraphQLJson(response)
     }
 }
@@ -1,9 +1,12 @@
 package com.braintreepayments.api.core
 
 import android.net.Uri
+import com.braintreepayments.api.sharedutils.HttpCall
 import com.braintreepayments.api.sharedutils.HttpClient
 import com.braintreepayments.api.sharedutils.HttpClient.RetryStrategy
+import com.braintreepayments.api.sharedutils.HttpEventListener
 import com.braintreepayments.api.sharedutils.HttpRequest
+import com.braintreepayments.api.sharedutils.JsonBodyWriter
 import com.braintreepayments.api.sharedutils.NetworkResponseCallback
 import com.braintreepayments.api.sharedutils.TLSSocketFactory
 import org.json.JSONException
@@ -17,6 +20,14 @@ internal class BraintreeHttpClient(
     private val httpClient: HttpClient = createDefaultHttpClient()
 ) {
 
+    /**
+     * Registers [listener] for the lifecycle events of every request sent by this client, or
+     * unregisters the current listener if [listener] is null.
+     */
+    fun setEventListener(listener: HttpEventListener?) {
+        httpClient.setEventListener(listener)
+    }
+
     /**
      * Make a HTTP GET request to Braintree using the base url, path and authorization provided.
      * If the path is a full url, it will be used instead of the previously provided url.
@@ -30,7 +41,24 @@ internal class BraintreeHttpClient(
         configuration: Configuration?,
         authorization: Authorization?,
         callback: NetworkResponseCallback
-    ) = get(path, configuration, authorization, HttpClient.NO_RETRY, callback)
+    ) = get(path, configuration, authorization, HttpClient.NO_RETRY, null, callback)
+
+    /**
+     * Make a cancellable HTTP GET request to Braintree using the base url, path and authorization
+     * provided. If the path is a full url, it will be used instead of the previously provided url.
+     * @param path The path or url to request from the server via GET
+     * @param configuration configuration for the Braintree Android SDK.
+     * @param authorization
+     * @param httpCall handle used to cancel the request while it is in flight
+     * @param callback [NetworkResponseCallback]
+     */
+    operator fun get(
+        path: String,
+        configuration: Configuration?,
+        authorization: Authorization?,
+        httpCall: HttpCall?,
+        callback: NetworkResponseCallback
+    ) = get(path, configuration, authorization, HttpClient.NO_RETRY, httpCall, callback)
 
     /**
      * Make a HTTP GET request to Braintree using the base url, path and authorization provided.
@@ -47,6 +75,26 @@ internal class BraintreeHttpClient(
         authorization: Authorization?,
         @RetryStrategy retryStrategy: Int,
         callback: NetworkResponseCallback
+    ) = get(path, configuration, authorization, retryStrategy, null, callback)
+
+    /**
+     * Make a HTTP GET request to Braintree using the base url, path and authorization provided.
+     * If the path is a full url, it will be used instead of the previously provided url.
+     * @param path The path or url to request from the server via GET
+     * @param configuration configuration for the Braintree Android SDK.
+     * @param authorization
+     * @param retryStrategy retry strategy
+     * @param httpCall optional handle used to cancel the request while it is in flight
+     * @param callback [NetworkResponseCallback]
+     */
+    @Suppress("LongParameterList")
+    operator fun get(
+        path: String,
+        configuration: Configuration?,
+        authorization: Authorization?,
+        @RetryStrategy retryStrategy: Int,
+        httpCall: HttpCall?,
+        callback: NetworkResponseCallback
     ) {
         if (authorization is InvalidAuthorization) {
             val message = authorization.errorMessage
@@ -68,7 +116,7 @@ internal class BraintreeHttpClient(
         } else {
             path
         }
-        val request = HttpRequest().method("GET").path(targetPath)
+        val request = HttpRequest().method("GET").path(targetPath).call(httpCall)
             .addHeader(USER_AGENT_HEADER, "braintree/android/" + BuildConfig.VERSION_NAME)
         if (isRelativeURL && configuration != null) {
             request.baseUrl(configuration.clientApiUrl)
@@ -86,15 +134,20 @@ internal class BraintreeHttpClient(
      * @param data The body of the POST request
      * @param configuration configuration for the Braintree Android SDK.
      * @param authorization
+     * @param additionalHeaders additional headers to send with the request
+     * @param httpCall optional handle used to cancel the request while it is in flight
+     * @param isBackground whether the request is background traffic, such as analytics
      * @param callback [NetworkResponseCallback]
      */
-    @Suppress("CyclomaticComplexMethod")
+    @Suppress("CyclomaticComplexMethod", "LongParameterList")
     fun post(
         path: String,
         data: String,
         configuration: Configuration?,
         authorization: Authorization?,
         additionalHeaders: Map<String, String> = emptyMap(),
+        httpCall: HttpCall? = null,
+        isBackground: Boolean = false,
         callback: NetworkResponseCallback?
     ) {
         if (authorization is InvalidAuthorization) {
@@ -112,10 +165,7 @@ internal class BraintreeHttpClient(
         }
         val requestData = if (authorization is ClientToken) {
             try {
-                JSONObject(data).put(
-                    AUTHORIZATION_FINGERPRINT_KEY,
-                    authorization.authorizationFingerprint
-                ).toString()
+                appendAuthorizationFingerprint(data, authorization.authorizationFingerprint)
             } catch (e: JSONException) {
                 callback?.onResult(null, e)
                 return
@@ -124,6 +174,74 @@ internal class BraintreeHttpClient(
             data
         }
         val request = HttpRequest().method("POST").path(path).data(requestData)
+        sendPOST(
+            request, isRelativeURL, configuration, authorization, additionalHeaders, httpCall,
+            isBackground, callback
+        )
+    }
+
+    /**
+     * Make a HTTP POST request to Braintree with a body that is streamed directly into UTF-8
+     * bytes. For client token authorization, the authorization fingerprint is written as part of
+     * the same pass instead of re-parsing the body.
+     * @param path The path or url to request from the server via HTTP POST
+     * @param body The members of the JSON object to POST
+     * @param configuration configuration for the Braintree Android SDK.
+     * @param authorization
+     * @param additionalHeaders additional headers to send with the request
+     * @param httpCall optional handle used to cancel the request while it is in flight
+     * @param isBackground whether the request is background traffic, such as analytics
+     * @param callback [NetworkResponseCallback]
+     */
+    @Suppress("LongParameterList")
+    fun postJSON(
+        path: String,
+        body: JsonRequestBody,
+        configuration: Configuration?,
+        authorization: Authorization?,
+        additionalHeaders: Map<String, String> = emptyMap(),
+        httpCall: HttpCall? = null,
+        isBackground: Boolean = false,
+        callback: NetworkResponseCallback?
+    ) {
+        if (authorization is InvalidAuthorization) {
+            val message = authorization.errorMessage
+            callback?.onResult(null, BraintreeException(message))
+            return
+        }
+        val isRelativeURL = !path.startsWith("http")
+        if (configuration == null && isRelativeURL) {
+            val message =
+                "Braintree HTTP POST request without configuration cannot have a relative path."
+            callback?.onResult(null, BraintreeException(message))
+            return
+        }
+        val data = try {
+            encode(body, authorization)
+        } catch (e: JSONException) {
+            callback?.onResult(null, e)
+            return
+        }
+        val request = HttpRequest().method("POST").path(path).data(data)
+        sendPOST(
+            request, isRelativeURL, configuration, authorization, additionalHeaders, httpCall,
+            isBackground, callback
+        )
+    }
+
+    @Suppress("LongParameterList")
+    private fun sendPOST(
+        request: HttpRequest,
+        isRelativeURL: Boolean,
+        configuration: Configuration?,
+        authorization: Authorization?,
+        additionalHeaders: Map<String, String>,
+        httpCall: HttpCall?,
+        isBackground: Boolean,
+        callback: NetworkResponseCallback?
+    ) {
+        request.call(httpCall)
+            .background(isBackground)
             .addHeader(USER_AGENT_HEADER, "braintree/android/" + BuildConfig.VERSION_NAME)
         if (isRelativeURL && configuration != null) {
             request.baseUrl(configuration.clientApiUrl)
@@ -143,11 +261,16 @@ internal class BraintreeHttpClient(
      * @param data the body of the post request
      * @param configuration configuration for the Braintree Android SDK.
      * @param authorization
+     * @param isBackground whether the request is background traffic, such as analytics
      * @return the HTTP response body
      */
     @Throws(Exception::class)
     fun post(
-        path: String, data: String, configuration: Configuration?, authorization: Authorization?
+        path: String,
+        data: String,
+        configuration: Configuration?,
+        authorization: Authorization?,
+        isBackground: Boolean = false
     ): String {
         if (authorization is InvalidAuthorization) {
             val message = authorization.errorMessage
@@ -159,15 +282,15 @@ internal class BraintreeHttpClient(
                 "Braintree HTTP GET request without configuration cannot have a relative path."
             throw BraintreeException(message)
         }
-        val requestData = if (authorization is ClientToken) {
-            JSONObject(data).put(
-                AUTHORIZATION_FINGERPRINT_KEY,
-                authorization.authorizationFingerprint
-            ).toString()
+        val request = HttpRequest().method("POST").path(path)
+        if (authorization is ClientToken) {
+            request.data(
+                appendAuthorizationFingerprint(data, authorization.authorizationFingerprint)
+            )
         } else {
-            data
+            request.data(data)
         }
-        val request = HttpRequest().method("POST").path(path).data(requestData)
+        request.background(isBackground)
             .addHeader(USER_AGENT_HEADER, "braintree/android/" + BuildConfig.VERSION_NAME)
         if (isRelativeURL && configuration != null) {
             request.baseUrl(configuration.clientApiUrl)
@@ -183,6 +306,59 @@ internal class BraintreeHttpClient(
         private const val USER_AGENT_HEADER = "User-Agent"
         private const val CLIENT_KEY_HEADER = "Client-Key"
 
+        /**
+         * Streams [body] into UTF-8 bytes, adding the authorization fingerprint for client tokens.
+         */
+        @Throws(JSONException::class)
+        private fun encode(body: JsonRequestBody, authorization: Authorization?): ByteArray {
+            val writer = JsonBodyWriter()
+            try {
+                writer.beginObject()
+                body.writeFields(writer)
+                if (authorization is ClientToken) {
+                    // written last so it takes precedence, as JSONObject.put would
+                    writer.name(AUTHORIZATION_FINGERPRINT_KEY)
+                        .value(authorization.authorizationFingerprint)
+                }
+                return writer.endObject().toByteArray()
+            } finally {
+                // zeroes a partially written body if writeFields failed
+                writer.release()
+            }
+        }
+
+        /**
+         * Adds the authorization fingerprint as the last member of the JSON object in [data]. The
+         * member is spliced into the string instead of parsing and re-serializing the whole body,
+         * so only the enclosing braces are validated; a malformed body is left for the server to
+         * reject. A body that already mentions the fingerprint key is parsed instead, so that its
+         * fingerprint is replaced rather than duplicated.
+         */
+        @Throws(JSONException::class)
+        internal fun appendAuthorizationFingerprint(data: String, fingerprint: String): String {
+            val start = data.indexOfFirst { !it.isWhitespace() }
+            val end = data.indexOfLast { !it.isWhitespace() }
+            if (start < 0 || data[start] != '{' || data[end] != '}') {
+                throw JSONException("Request body is not a JSON object")
+            }
+            if (data.contains("\"$AUTHORIZATION_FINGERPRINT_KEY\"")) {
+                return JSONObject(data).put(AUTHORIZATION_FINGERPRINT_KEY, fingerprint).toString()
+            }
+            var lastMemberEnd = end - 1
+            while (data[lastMemberEnd].isWhitespace()) {
+                lastMemberEnd--
+            }
+            val member = "\"$AUTHORIZATION_FINGERPRINT_KEY\":${JSONObject.quote(fingerprint)}"
+            return buildString(data.length + member.length + 1) {
+                append(data, 0, end)
+                if (lastMemberEnd != start) {
+                    append(',')
+                }
+                append(member)
+                append(data, end, data.length)
+            }
+        }
+
         @Throws(SSLException::class)
         private fun createDefaultHttpClient(): HttpClient {
             val socketFactory =
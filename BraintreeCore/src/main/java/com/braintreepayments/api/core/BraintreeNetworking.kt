@@ -0,0 +1,79 @@
+package com.braintreepayments.api.core
+
+/**
+ * Settings for the network stack used by Braintree clients.
+ *
+ * All clients created with the same authorization share one network stack, so each setting
+ * applies engine-wide: to every client created with that authorization, including clients created
+ * before the setting was made.
+ */
+object BraintreeNetworking {
+
+    /**
+     * Registers [listener] for the lifecycle events of every REST and GraphQL request sent for
+     * [authorization], replacing any listener registered before. Pass null to unregister.
+     *
+     * Most events are delivered on background threads, see [NetworkEventListener].
+     *
+     * @param authorization the Tokenization Key or Client Token the clients are created with
+     * @param listener the [NetworkEventListener], or null
+     */
+    @JvmStatic
+    fun setNetworkEventListener(authorization: String, listener: NetworkEventListener?) {
+        BraintreeEngineRegistry.instance.setHttpEventListener(
+            authorization,
+            listener?.let { NetworkEventListenerAdapter(it) }
+        )
+    }
+
+    /**
+     * Batches GraphQL operations that are sent for [authorization] within [windowMillis] of each
+     * other into a single request, e.g. a card tokenization and a Venmo payment context query
+     * started at the same time. Each operation still receives its own result. Batching trades up
+     * to [windowMillis] of extra latency per operation for fewer connections.
+     *
+     * The window applies to all GraphQL traffic of every client created with [authorization], not
+     * only to the client that triggered the operations. Pass 0 to disable batching, which is the
+     * default.
+     *
+     * @param authorization the Tokenization Key or Client Token the clients are created with
+     * @param windowMillis the batch window in milliseconds, or 0
+     */
+    @JvmStatic
+    fun setGraphQLBatchWindow(authorization: String, windowMillis: Long) {
+        BraintreeEngineRegistry.instance.setGraphQLBatchWindow(authorization, windowMillis)
+    }
+
+    /**
+     * Sends only the SHA-256 hash of the GraphQL queries that the SDK has declared as persisted
+     * for [authorization], instead of their full text, which reduces the size of those requests.
+     * The full query is sent instead whenever the GraphQL API does not recognize the hash or
+     * rejects the hash-only request before running it.
+     *
+     * Persisted queries are disabled by default.
+     *
+     * @param authorization the Tokenization Key or Client Token the clients are created with
+     * @param enabled true to send persisted queries by their hash
+     */
+    @JvmStatic
+    fun setGraphQLPersistedQueriesEnabled(authorization: String, enabled: Boolean) {
+        BraintreeEngineRegistry.instance.setGraphQLPersistedQueriesEnabled(authorization, enabled)
+    }
+
+    /**
+     * Starts the device's Custom Tabs browser in the background while a PayPal, Venmo or Local
+     * Payment flow prepares its browser switch, and lets it connect to the origin of the approval
+     * page once that is known, so the page opens faster. Only the origin is shared with the
+     * browser ahead of the switch. The browser connection is released after a few minutes of
+     * inactivity.
+     *
+     * The setting applies to every client, regardless of its authorization. Warming up is
+     * disabled by default.
+     *
+     * @param enabled true to warm up the browser ahead of browser switches
+     */
+    @JvmStatic
+    fun setBrowserSwitchWarmUpEnabled(enabled: Boolean) {
+        CustomTabsWarmer.instance.setEnabled(enabled)
+    }
+}
@@ -2,6 +2,8 @@ package com.braintreepayments.api.core
 
 import android.net.Uri
 import android.util.Base64
+import com.braintreepayments.api.sharedutils.BackgroundNetworkResponseCallback
+import com.braintreepayments.api.sharedutils.HttpCall
 import com.braintreepayments.api.sharedutils.HttpClient
 import com.braintreepayments.api.sharedutils.Time
 import org.json.JSONException
@@ -19,7 +21,14 @@ internal class ConfigurationLoader(
 ) {
     private val analyticsClient: AnalyticsClient by lazyAnalyticsClient
 
-    fun loadConfiguration(callback: ConfigurationLoaderCallback) {
+    fun loadConfiguration(callback: ConfigurationLoaderCallback) =
+        loadConfiguration(null, callback)
+
+    /**
+     * Loads configuration from the cache, or fetches it if none is cached. A fetch is canceled
+     * along with [httpCall], in which case [callback] is not invoked.
+     */
+    fun loadConfiguration(httpCall: HttpCall?, callback: ConfigurationLoaderCallback) {
         val authorization = merchantRepository.authorization
         if (authorization is InvalidAuthorization) {
             val clientSDKSetupURL =
@@ -40,25 +49,25 @@ internal class ConfigurationLoader(
         cachedConfig?.let {
             callback.onResult(ConfigurationLoaderResult.Success(it))
         } ?: run {
-            httpClient.get(
-                configUrl, null, authorization, HttpClient.RETRY_MAX_3_TIMES
-            ) { response, httpError ->
+            // the result is delivered on the background thread; callers that surface it to the
+            // merchant are responsible for hopping to the main thread exactly once
+            val responseCallback = BackgroundNetworkResponseCallback { response, httpError ->
                 val responseBody = response?.body
-                val timing = response?.timing
+                // a response shared with an identical in-flight request was already timed there
+                val timing = response?.takeUnless { it.isCoalesced }?.timing
                 if (responseBody != null) {
                     try {
                         val configuration = Configuration.fromJson(responseBody)
                         saveConfigurationToCache(configuration, authorization, configUrl)
                         callback.onResult(ConfigurationLoaderResult.Success(configuration, timing))
 
-                        analyticsClient.sendEvent(
-                            eventName = CoreAnalytics.API_REQUEST_LATENCY,
-                            analyticsEventParams = AnalyticsEventParams(
-                                startTime = timing?.startTime,
-                                endTime = timing?.endTime,
-                                endpoint = "/v1/configuration"
+                        timing?.let {
+                            analyticsClient.sendEvent(
+                                eventName = CoreAnalytics.API_REQUEST_LATENCY,
+                                analyticsEventParams =
+                                    it.toLatencyEventParams("/v1/configuration")
                             )
-                        )
+                        }
                     } catch (jsonException: JSONException) {
                         callback.onResult(ConfigurationLoaderResult.Failure(jsonException))
                     }
@@ -71,6 +80,10 @@ internal class ConfigurationLoader(
                     }
                 }
             }
+            httpClient.get(
+                configUrl, null, authorization, HttpClient.RETRY_MAX_3_TIMES, httpCall,
+                responseCallback
+            )
         }
     }
 
@@ -6,7 +6,7 @@ import java.io.StringWriter
 import java.lang.ref.WeakReference
 
 internal class CrashReporter(
-    private val braintreeClientRef: WeakReference<BraintreeClient>
+    private val braintreeClientProvider: () -> BraintreeClient?
 ) : Thread.UncaughtExceptionHandler {
 
     @Retention(AnnotationRetention.SOURCE)
@@ -15,6 +15,9 @@ internal class CrashReporter(
 
     private var defaultExceptionHandler: Thread.UncaughtExceptionHandler? = null
 
+    constructor(braintreeClientRef: WeakReference<BraintreeClient>) :
+            this({ braintreeClientRef.get() })
+
     constructor(braintreeClient: BraintreeClient) :
             this(WeakReference<BraintreeClient>(braintreeClient))
 
@@ -50,7 +53,7 @@ internal class CrashReporter(
     }
 
     override fun uncaughtException(thread: Thread, exception: Throwable) {
-        val braintreeClient = braintreeClientRef.get()
+        val braintreeClient = braintreeClientProvider()
         if (braintreeClient == null) {
             handleExceptionWithDefaultBehavior(thread, exception)
             restoreDefaultExceptionHandler()
@@ -0,0 +1,43 @@
+package com.braintreepayments.api.core
+
+import java.lang.ref.WeakReference
+
+/**
+ * Owns the single [CrashReporter] installed for the process, instead of chaining a new uncaught
+ * exception handler for every [BraintreeClient] or [BraintreeEngine] that is created.
+ *
+ * Clients are held weakly and the handler only references this registry, so installing it never
+ * keeps a client, or the engine it uses, alive. Crashes are reported through the most recently
+ * registered client that is still alive.
+ */
+internal class CrashReporterRegistry {
+
+    private val braintreeClients = mutableListOf<WeakReference<BraintreeClient>>()
+    private var crashReporter: CrashReporter? = null
+
+    @Synchronized
+    fun register(braintreeClient: BraintreeClient) {
+        braintreeClients.removeAll { it.get() == null }
+        braintreeClients.add(WeakReference(braintreeClient))
+        if (crashReporter == null) {
+            crashReporter = CrashReporter { crashReportingClient() }.also { it.start() }
+        }
+    }
+
+    /**
+     * @return the most recently registered [BraintreeClient] that is still alive
+     */
+    @Synchronized
+    internal fun crashReportingClient(): BraintreeClient? {
+        braintreeClients.removeAll { it.get() == null }
+        return braintreeClients.lastOrNull()?.get()
+    }
+
+    companion object {
+
+        /**
+         * Singleton instance of the CrashReporterRegistry.
+         */
+        val instance: CrashReporterRegistry by lazy { CrashReporterRegistry() }
+    }
+}
@@ -0,0 +1,157 @@
+package com.braintreepayments.api.core
+
+import android.content.ComponentName
+import android.content.Context
+import android.net.Uri
+import android.os.Handler
+import android.os.Looper
+import androidx.browser.customtabs.CustomTabsClient
+import androidx.browser.customtabs.CustomTabsServiceConnection
+import androidx.browser.customtabs.CustomTabsSession
+import java.util.concurrent.TimeUnit
+
+/**
+ * Binds to the device's Custom Tabs browser ahead of a browser switch, so that the browser
+ * process is already running, and optionally connected to the approval page's origin, when the
+ * [com.braintreepayments.api.BrowserSwitchClient] launches it. The connection is released once
+ * it has not been used for [IDLE_TIMEOUT_MILLIS].
+ *
+ * Approval page URLs carry payment tokens, so only their origin is ever passed to the browser:
+ * it can resolve DNS and open a connection, but does not load the page itself ahead of time.
+ *
+ * Warming up is opt-in, see [BraintreeNetworking.setBrowserSwitchWarmUpEnabled], and best
+ * effort: nothing happens when no installed browser supports Custom Tabs.
+ */
+internal class CustomTabsWarmer(
+    private val handler: Handler = Handler(Looper.getMainLooper())
+) {
+
+    private var isEnabled = false
+    private var boundContext: Context? = null
+    private var connection: CustomTabsServiceConnection? = null
+    private var session: CustomTabsSession? = null
+    private var pendingOrigin: Uri? = null
+
+    private val unbindRunnable = Runnable { unbind() }
+
+    /**
+     * Enables or disables warming up. Disabling it releases a connection that is already bound.
+     */
+    @Synchronized
+    fun setEnabled(enabled: Boolean) {
+        isEnabled = enabled
+        if (!enabled) {
+            handler.removeCallbacks(unbindRunnable)
+            unbind()
+        }
+    }
+
+    /**
+     * Binds to the Custom Tabs service, if enabled and not already bound, and asks the browser to
+     * start.
+     */
+    @Synchronized
+    fun warmUp(context: Context) {
+        if (!isEnabled) return
+        scheduleUnbind()
+        if (connection != null) return
+
+        val applicationContext = context.applicationContext
+        val packageName = CustomTabsClient.getPackageName(applicationContext, null) ?: return
+        val newConnection = object : CustomTabsServiceConnection() {
+            override fun onCustomTabsServiceConnected(
+                name: ComponentName,
+                client: CustomTabsClient
+            ) {
+                onConnected(this, client)
+            }
+
+            override fun onServiceDisconnected(name: ComponentName?) {
+                onDisconnected(this)
+            }
+        }
+        val isBound = try {
+            CustomTabsClient.bindCustomTabsService(applicationContext, packageName, newConnection)
+        } catch (ignored: SecurityException) {
+            false
+        }
+        if (isBound) {
+            boundContext = applicationContext
+            connection = newConnection
+        }
+    }
+
+    /**
+     * Tells the browser that a page on the origin (scheme, host and port) of [url] is likely to
+     * be opened next, so it can connect to it. The rest of [url] is never sent. If the browser is
+     * still connecting, the hint is sent once it is connected.
+     */
+    @Synchronized
+    fun preconnect(context: Context, url: Uri) {
+        if (!isEnabled) return
+        warmUp(context)
+        val origin = origin(url) ?: return
+        val currentSession = session
+        if (currentSession != null) {
+            currentSession.mayLaunchUrl(origin, null, null)
+        } else {
+            pendingOrigin = origin
+        }
+    }
+
+    @Synchronized
+    private fun onConnected(connection: CustomTabsServiceConnection, client: CustomTabsClient) {
+        if (this.connection !== connection) return
+
+        client.warmup(0L)
+        session = client.newSession(null)?.also { newSession ->
+            pendingOrigin?.let { newSession.mayLaunchUrl(it, null, null) }
+        }
+        pendingOrigin = null
+    }
+
+    @Synchronized
+    private fun onDisconnected(connection: CustomTabsServiceConnection) {
+        if (this.connection === connection) {
+            this.connection = null
+            session = null
+        }
+    }
+
+    @Synchronized
+    private fun unbind() {
+        connection?.let {
+            try {
+                boundContext?.unbindService(it)
+            } catch (ignored: IllegalArgumentException) {
+                // the service was already unbound by the system
+            }
+        }
+        boundContext = null
+        connection = null
+        session = null
+        pendingOrigin = null
+    }
+
+    private fun origin(url: Uri): Uri? {
+        val scheme = url.scheme ?: return null
+        val host = url.host ?: return null
+        val authority = if (url.port == -1) host else "$host:${url.port}"
+        return Uri.Builder().scheme(scheme).encodedAuthority(authority).build()
+    }
+
+    private fun scheduleUnbind() {
+        handler.removeCallbacks(unbindRunnable)
+        handler.postDelayed(unbindRunnable, IDLE_TIMEOUT_MILLIS)
+    }
+
+    companion object {
+        private val IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5)
+
+        /**
+         * Singleton instance of the CustomTabsWarmer, since one browser connection can serve
+         * every flow.
+         */
+        val instance: CustomTabsWarmer by lazy { CustomTabsWarmer() }
+    }
+}
@@ -97,6 +97,22 @@ data class ErrorWithResponse internal constructor(
             parseJson(json)
         }
 
+        /**
+         * Creates a validation error for [fieldErrors] found on-device, with the same status code
+         * the gateway uses for validation errors.
+         *
+         * @suppress
+         */
+        @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+        @JvmStatic
+        fun fromFieldErrors(message: String, fieldErrors: List<BraintreeError>) =
+            ErrorWithResponse(
+                statusCode = GRAPHQL_ERROR_CODE,
+                errorResponse = null,
+                fieldErrors = fieldErrors,
+                message = message
+            )
+
         internal fun fromGraphQLJson(json: String?): ErrorWithResponse {
             val errorWithResponse = ErrorWithResponse(
                 errorResponse = json,
@@ -20,6 +20,11 @@ object GraphQLConstants {
         const val LEGACY_CODE = "legacyCode"
         const val URL = "url"
         const val FEATURES = "features"
+        const val OPERATION_NAME = "operationName"
+        const val PERSISTED_QUERY = "persistedQuery"
+        const val PERSISTED_QUERY_VERSION = "version"
+        const val SHA_256_HASH = "sha256Hash"
+        const val CODE = "code"
     }
 
     object ErrorTypes {
@@ -30,6 +35,13 @@ object GraphQLConstants {
         const val USER = "Input is invalid."
     }
 
+    object PersistedQueryErrors {
+        const val NOT_FOUND_MESSAGE = "PersistedQueryNotFound"
+        const val NOT_FOUND_CODE = "PERSISTED_QUERY_NOT_FOUND"
+        const val NOT_SUPPORTED_MESSAGE = "PersistedQueryNotSupported"
+        const val NOT_SUPPORTED_CODE = "PERSISTED_QUERY_NOT_SUPPORTED"
+    }
+
     object LegacyErrorCodes {
         const val VALIDATION_NOT_ALLOWED = "50000"
     }
@@ -0,0 +1,53 @@
+package com.braintreepayments.api.core
+
+import androidx.annotation.RestrictTo
+import java.security.MessageDigest
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * A GraphQL operation document that can be sent as a persisted query, i.e. as the SHA-256 hash
+ * of its text instead of the text itself.
+ *
+ * Instances are meant to be held in static constants. Each instance registers itself on
+ * construction so that [BraintreeGraphQLClient] can recognize its [query] in an outgoing
+ * request body and swap it for [sha256Hash].
+ *
+ * @property query the full operation document
+ * @suppress
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+class GraphQLPersistedQuery(val query: String) {
+
+    /**
+     * Lowercase hex SHA-256 hash of [query].
+     */
+    val sha256Hash: String = sha256Hex(query)
+
+    init {
+        registry[query] = this
+    }
+
+    companion object {
+
+        private val registry = ConcurrentHashMap<String, GraphQLPersistedQuery>()
+
+        /**
+         * Returns the [GraphQLPersistedQuery] declared for [query], or null if the document has
+         * not been declared as persisted.
+         */
+        internal fun forQuery(query: String): GraphQLPersistedQuery? = registry[query]
+
+        private fun sha256Hex(text: String): String {
+            val digest = MessageDigest.getInstance("SHA-256").digest(text.toByteArray())
+            val hex = StringBuilder(digest.size * 2)
+            for (byte in digest) {
+                val value = byte.toInt() and 0xff
+                hex.append(HEX_DIGITS[value ushr 4])
+                hex.append(HEX_DIGITS[value and 0x0f])
+            }
+            return hex.toString()
+        }
+
+        private const val HEX_DIGITS = "0123456789abcdef"
+    }
+}
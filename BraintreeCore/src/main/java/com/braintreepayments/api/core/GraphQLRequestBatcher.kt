@@ -0,0 +1,198 @@
+package com.braintreepayments.api.core
+
+import com.braintreepayments.api.sharedutils.BackgroundNetworkResponseCallback
+import com.braintreepayments.api.sharedutils.BackgroundNetworkResponseCallback.Companion.continuationOf
+import com.braintreepayments.api.sharedutils.HttpCall
+import com.braintreepayments.api.sharedutils.HttpResponse
+import com.braintreepayments.api.sharedutils.NetworkResponseCallback
+import com.braintreepayments.api.sharedutils.UnexpectedException
+import org.json.JSONArray
+import org.json.JSONException
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Gathers GraphQL operations issued within [windowMillis] of each other and sends them as a
+ * single array-body POST. The array response is split back into one result per operation, and
+ * each result is checked for GraphQL errors as if it had been sent on its own.
+ *
+ * Operations are only batched together when they target the same GraphQL URL with the same
+ * authorization, and expect their results on the same thread (see
+ * [com.braintreepayments.api.sharedutils.BackgroundNetworkResponseCallback]). A batched request
+ * is canceled once every operation in it has been canceled.
+ *
+ * @param sendRequest sends a request body as a single, unbatched GraphQL request
+ */
+internal class GraphQLRequestBatcher(
+    private val windowMillis: Long,
+    private val maxBatchSize: Int = DEFAULT_MAX_BATCH_SIZE,
+    private val schedule: (delayMillis: Long, task: Runnable) -> Unit = ::scheduleOnTimer,
+    private val sendRequest: (
+        data: String,
+        configuration: Configuration,
+        authorization: Authorization,
+        httpCall: HttpCall?,
+        callback: NetworkResponseCallback
+    ) -> Unit,
+) {
+
+    private class Operation(
+        val data: String,
+        val httpCall: HttpCall?,
+        val callback: NetworkResponseCallback
+    )
+
+    private class Batch(
+        val configuration: Configuration,
+        val authorization: Authorization
+    ) {
+        val operations = mutableListOf<Operation>()
+    }
+
+    private val pendingBatches = mutableMapOf<String, Batch>()
+
+    /**
+     * Queues [data] to be sent with any other operations that arrive within the batch window.
+     */
+    fun enqueue(
+        data: String,
+        configuration: Configuration,
+        authorization: Authorization,
+        httpCall: HttpCall?,
+        callback: NetworkResponseCallback
+    ) {
+        val isBackground = callback is BackgroundNetworkResponseCallback
+        val key = "${configuration.graphQLUrl}|${authorization.bearer}|$isBackground"
+        val batchToFlush: Batch?
+        synchronized(this) {
+            val batch = pendingBatches.getOrPut(key) {
+                Batch(configuration, authorization).also { newBatch ->
+                    schedule(windowMillis, Runnable { flush(key, newBatch) })
+                }
+            }
+            batch.operations.add(Operation(data, httpCall, callback))
+            batchToFlush = if (batch.operations.size >= maxBatchSize) {
+                pendingBatches.remove(key)
+            } else {
+                null
+            }
+        }
+        batchToFlush?.let { sendBatch(it) }
+    }
+
+    private fun flush(key: String, batch: Batch) {
+        synchronized(this) {
+            // the batch may already have been sent because it filled up before the window closed,
+            // in which case a newer batch may be pending under the same key
+            if (pendingBatches[key] !== batch) return
+            pendingBatches.remove(key)
+        }
+        sendBatch(batch)
+    }
+
+    private fun sendBatch(batch: Batch) {
+        val operations = batch.operations.filter { it.httpCall?.isCanceled != true }
+        when (operations.size) {
+            0 -> return
+            1 -> {
+                val operation = operations[0]
+                sendRequest(
+                    operation.data,
+                    batch.configuration,
+                    batch.authorization,
+                    operation.httpCall,
+                    operation.callback
+                )
+            }
+
+            else -> {
+                // request bodies are already serialized; join them instead of re-parsing
+                val data = operations.joinToString(",", "[", "]") { it.data }
+                val batchCallback = continuationOf(operations[0].callback) { response, error ->
+                    if (response != null) {
+                        dispatchBatchResponse(response, operations)
+                    } else {
+                        operations.forEach { deliver(it, null, error) }
+                    }
+                }
+                val batchCall = HttpCall()
+                val activeOperations = AtomicInteger(operations.size)
+                operations.forEach { operation ->
+                    operation.httpCall?.link(OperationCancellation {
+                        if (activeOperations.decrementAndGet() == 0) batchCall.cancel()
+                    })
+                }
+                sendRequest(
+                    data,
+                    batch.configuration,
+                    batch.authorization,
+                    batchCall,
+                    batchCallback
+                )
+            }
+        }
+    }
+
+    private fun dispatchBatchResponse(response: HttpResponse, operations: List<Operation>) {
+        val results = try {
+            JSONArray(response.body)
+        } catch (e: JSONException) {
+            operations.forEach { deliver(it, null, e) }
+            return
+        }
+
+        // the batch made a single request, so only the first result carries its timing; the
+        // others are marked as coalesced so that the request latency is reported once
+        var timingDelivered = false
+        operations.forEachIndexed { index, operation ->
+            val result = results.optJSONObject(index)
+            if (result == null) {
+                deliver(operation, null, UnexpectedException("Missing batched GraphQL result"))
+                return@forEachIndexed
+            }
+            try {
+                val body = BraintreeGraphQLResponseParser.parseOperationResult(result.toString())
+                deliver(operation, HttpResponse(body, response.timing, timingDelivered), null)
+                timingDelivered = true
+            } catch (e: Exception) {
+                deliver(operation, null, e)
+            }
+        }
+    }
+
+    private fun deliver(operation: Operation, response: HttpResponse?, error: Exception?) {
+        if (operation.httpCall?.isCanceled != true) {
+            operation.callback.onResult(response, error)
+        }
+    }
+
+    /**
+     * Linked to the [HttpCall] of a batched operation, so that the operation being canceled is
+     * counted against the batched request.
+     */
+    private class OperationCancellation(private val onCancel: () -> Unit) : HttpCall() {
+
+        override fun cancel() {
+            if (isCanceled) return
+            super.cancel()
+            onCancel()
+        }
+    }
+
+    companion object {
+
+        private const val DEFAULT_MAX_BATCH_SIZE = 10
+
+        private val timer: ScheduledExecutorService by lazy {
+            Executors.newSingleThreadScheduledExecutor { runnable ->
+                Thread(runnable, "braintree-graphql-batcher").apply { isDaemon = true }
+            }
+        }
+
+        private fun scheduleOnTimer(delayMillis: Long, task: Runnable) {
+            timer.schedule(task, delayMillis, TimeUnit.MILLISECONDS)
+        }
+    }
+}
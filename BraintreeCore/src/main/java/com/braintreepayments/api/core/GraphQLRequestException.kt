@@ -0,0 +1,10 @@
+package com.braintreepayments.api.core
+
+import com.braintreepayments.api.sharedutils.UnexpectedException
+
+/**
+ * Thrown by [BraintreeGraphQLResponseParser] when the GraphQL API answers a request with an error
+ * that is not a user error, e.g. a missing query or a variable that cannot be coerced.
+ * [BraintreeGraphQLClient] uses it to tell such rejections apart from failures of the transport.
+ */
+internal class GraphQLRequestException(message: String) : UnexpectedException(message)
@@ -0,0 +1,23 @@
+package com.braintreepayments.api.core
+
+import androidx.annotation.RestrictTo
+import com.braintreepayments.api.sharedutils.JsonBodyWriter
+import org.json.JSONException
+
+/**
+ * A JSON object request body that is streamed straight into the request's UTF-8 bytes.
+ * Implementations write the members of the top-level object; the enclosing braces are written
+ * by [BraintreeHttpClient], which may add members of its own.
+ *
+ * Only REST tokenization ([ApiClient.tokenizeREST]) sends its body this way. GraphQL bodies and
+ * the PayPal, Venmo and 3D Secure request builders still build a [org.json.JSONObject] and send
+ * its String form.
+ *
+ * @suppress
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+fun interface JsonRequestBody {
+
+    @Throws(JSONException::class)
+    fun writeFields(writer: JsonBodyWriter)
+}
@@ -0,0 +1,89 @@
+package com.braintreepayments.api.core
+
+/**
+ * A lifecycle event of a request sent by a Braintree client, see
+ * [BraintreeNetworking.setNetworkEventListener].
+ *
+ * Durations are in milliseconds and are null when they do not apply to the [phase] or were not
+ * measured for the request.
+ *
+ * @property phase the lifecycle phase the request reached
+ * @property method the HTTP method, e.g. `GET` or `POST`
+ * @property host the host the request is sent to, or null if its url could not be resolved
+ * @property path the path of the request with merchant id segments removed, or null if its url
+ * could not be resolved
+ * @property statusCode the HTTP status code, for [Phase.RESPONSE_PARSED]
+ * @property connectDurationMillis time spent acquiring the connection, including DNS resolution,
+ * TCP connect and the TLS handshake, for [Phase.CONNECTION_ACQUIRED] and [Phase.RESPONSE_PARSED]
+ * @property requestWriteDurationMillis time spent writing the request body
+ * @property timeToFirstByteMillis time between the request being sent and the response status
+ * line being received
+ * @property responseReadDurationMillis time spent reading and parsing the response body
+ * @property queueWaitDurationMillis time the request waited for a background thread
+ * @property failureType the classification of the failure, for [Phase.FAILED]
+ * @property retryCount the number of retries scheduled so far, for [Phase.RETRY_SCHEDULED]
+ */
+data class NetworkEvent internal constructor(
+    val phase: Phase,
+    val method: String?,
+    val host: String?,
+    val path: String?,
+    val statusCode: Int? = null,
+    val connectDurationMillis: Long? = null,
+    val requestWriteDurationMillis: Long? = null,
+    val timeToFirstByteMillis: Long? = null,
+    val responseReadDurationMillis: Long? = null,
+    val queueWaitDurationMillis: Long? = null,
+    val failureType: FailureType? = null,
+    val retryCount: Int? = null,
+) {
+
+    /**
+     * The lifecycle phases reported for a request.
+     */
+    enum class Phase {
+        /** The request was handed to the network stack. */
+        ENQUEUED,
+
+        /** A connection is available and the request is about to be sent. */
+        CONNECTION_ACQUIRED,
+
+        /** A successful response was read and parsed. */
+        RESPONSE_PARSED,
+
+        /** An attempt failed, before it is either retried or reported. */
+        FAILED,
+
+        /** A failed request was scheduled to be sent again. */
+        RETRY_SCHEDULED
+    }
+
+    /**
+     * Coarse classification of request failures.
+     */
+    enum class FailureType {
+        /** The connection or read timed out. */
+        TIMEOUT,
+
+        /** The device has no usable network connection. */
+        OFFLINE,
+
+        /** The request could not be sent or the response could not be read. */
+        NETWORK,
+
+        /** The server responded with 429. */
+        RATE_LIMITED,
+
+        /** The server responded with 500 or 503. */
+        SERVER_ERROR,
+
+        /** The server rejected the request. */
+        CLIENT_ERROR,
+
+        /** The request was not sent because too many recent requests to its host failed. */
+        CIRCUIT_OPEN,
+
+        /** Any other failure. */
+        UNEXPECTED
+    }
+}
@@ -0,0 +1,16 @@
+package com.braintreepayments.api.core
+
+/**
+ * Receives a [NetworkEvent] for each lifecycle phase of the requests sent by Braintree clients,
+ * see [BraintreeNetworking.setNetworkEventListener].
+ *
+ * Apart from [NetworkEvent.Phase.ENQUEUED], events are delivered on the background thread
+ * executing the request, so implementations must be thread-safe and should return quickly.
+ */
+fun interface NetworkEventListener {
+
+    /**
+     * @param event the [NetworkEvent]
+     */
+    fun onNetworkEvent(event: NetworkEvent)
+}
@@ -0,0 +1,78 @@
+package com.braintreepayments.api.core
+
+import com.braintreepayments.api.sharedutils.HttpEventListener
+import com.braintreepayments.api.sharedutils.HttpFailureType
+import com.braintreepayments.api.sharedutils.HttpRequest
+import com.braintreepayments.api.sharedutils.HttpResponse
+import java.net.URL
+
+/**
+ * Translates the library's [HttpEventListener] callbacks into [NetworkEvent]s for a merchant's
+ * [NetworkEventListener], so that no library-internal type reaches merchant code.
+ */
+internal class NetworkEventListenerAdapter(
+    private val listener: NetworkEventListener
+) : HttpEventListener {
+
+    override fun onRequestEnqueued(request: HttpRequest) {
+        listener.onNetworkEvent(request.toEvent(NetworkEvent.Phase.ENQUEUED))
+    }
+
+    override fun onConnectionAcquired(request: HttpRequest, connectDurationMillis: Long) {
+        listener.onNetworkEvent(
+            request.toEvent(NetworkEvent.Phase.CONNECTION_ACQUIRED)
+                .copy(connectDurationMillis = connectDurationMillis)
+        )
+    }
+
+    override fun onResponseParsed(request: HttpRequest, responseCode: Int, response: HttpResponse) {
+        val timing = response.timing
+        listener.onNetworkEvent(
+            request.toEvent(NetworkEvent.Phase.RESPONSE_PARSED).copy(
+                statusCode = responseCode,
+                connectDurationMillis = timing.connectDuration,
+                requestWriteDurationMillis = timing.requestWriteDuration,
+                timeToFirstByteMillis = timing.timeToFirstByte,
+                responseReadDurationMillis = timing.responseReadDuration,
+                queueWaitDurationMillis = timing.queueWaitDuration
+            )
+        )
+    }
+
+    override fun onRequestFailed(
+        request: HttpRequest,
+        error: Exception,
+        failureType: HttpFailureType
+    ) {
+        listener.onNetworkEvent(
+            request.toEvent(NetworkEvent.Phase.FAILED)
+                .copy(failureType = NetworkEvent.FailureType.valueOf(failureType.name))
+        )
+    }
+
+    override fun onRetryScheduled(request: HttpRequest, retryCount: Int) {
+        listener.onNetworkEvent(
+            request.toEvent(NetworkEvent.Phase.RETRY_SCHEDULED).copy(retryCount = retryCount)
+        )
+    }
+
+    private fun HttpRequest.toEvent(phase: NetworkEvent.Phase): NetworkEvent {
+        val url = parseURL(this)
+        return NetworkEvent(
+            phase = phase,
+            method = method,
+            host = url?.host,
+            path = url?.path?.let { ApiPathNormalizer.normalizeRestPath(it) }
+        )
+    }
+
+    companion object {
+
+        @Suppress("SwallowedException", "TooGenericExceptionCaught")
+        private fun parseURL(request: HttpRequest): URL? = try {
+            request.url
+        } catch (ignore: Exception) {
+            null
+        }
+    }
+}
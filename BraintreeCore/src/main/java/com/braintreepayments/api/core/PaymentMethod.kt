@@ -1,6 +1,7 @@
 package com.braintreepayments.api.core
 
 import androidx.annotation.RestrictTo
+import com.braintreepayments.api.sharedutils.JsonBodyWriter
 import org.json.JSONException
 import org.json.JSONObject
 
@@ -32,4 +33,16 @@ interface PaymentMethod {
     @Throws(JSONException::class)
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
     fun buildJSON(): JSONObject
+
+    /**
+     * Streams the members of the REST tokenization body into [writer]. The default
+     * implementation copies the members of [buildJSON]; payment methods that are tokenized often
+     * override it to skip building the intermediate tree.
+     */
+    @Throws(JSONException::class)
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    fun writeJSONFields(writer: JsonBodyWriter) {
+        val json = buildJSON()
+        json.keys().forEach { key -> writer.name(key).value(json.opt(key)) }
+    }
 }
@@ -0,0 +1,14 @@
+package com.braintreepayments.api.core
+
+/**
+ * Thrown by [BraintreeGraphQLResponseParser] when the GraphQL API does not recognize the hash of
+ * a persisted query. [BraintreeGraphQLClient] handles it by resending the full query text, so
+ * it never reaches merchant callbacks.
+ *
+ * @property isUnsupported true if the API does not support persisted queries at all, as opposed
+ * to not having seen this particular query yet
+ */
+internal class PersistedQueryNotFoundException(
+    message: String,
+    val isUnsupported: Boolean = false
+) : Exception(message)
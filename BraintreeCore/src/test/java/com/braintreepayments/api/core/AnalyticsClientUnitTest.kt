@@ -8,6 +8,7 @@ import com.braintreepayments.api.core.AnalyticsClient.Companion.WORK_INPUT_KEY_S
 import com.braintreepayments.api.core.AnalyticsClient.Companion.WORK_NAME_ANALYTICS_UPLOAD
 import com.braintreepayments.api.core.Authorization.Companion.fromString
 import com.braintreepayments.api.core.Configuration.Companion.fromJson
+import com.braintreepayments.api.sharedutils.HttpResponseTiming
 import com.braintreepayments.api.sharedutils.Time
 import com.braintreepayments.api.testutils.Fixtures
 import io.mockk.*
@@ -122,6 +123,51 @@ class AnalyticsClientUnitTest {
         JSONAssert.assertEquals(JSONObject(expectedJSON), JSONObject(actualJSON), true)
     }
 
+    @Test
+    @Throws(JSONException::class)
+    fun sendEvent_includesRequestPhaseTimingsInJSON() {
+        val workRequestSlot = slot<OneTimeWorkRequest>()
+        every {
+            workManager.enqueueUniqueWork(
+                "writeAnalyticsToDb",
+                ExistingWorkPolicy.APPEND_OR_REPLACE,
+                capture(workRequestSlot)
+            )
+        } returns mockk()
+
+        val timing = HttpResponseTiming(
+            startTime = 100,
+            endTime = 200,
+            connectDuration = 30,
+            requestWriteDuration = 5,
+            timeToFirstByte = 60,
+            responseReadDuration = 4,
+            queueWaitDuration = 2
+        )
+        sut.sendEvent(eventName, timing.toLatencyEventParams("fake-endpoint"))
+
+        // language=JSON
+        val expectedJSON = """
+        {
+          "event_name": "sample-event-name",
+          "t": 123,
+          "is_vault": false,
+          "tenant_name": "Braintree",
+          "start_time": 100,
+          "end_time": 200,
+          "endpoint": "fake-endpoint",
+          "connect_duration": 30,
+          "request_write_duration": 5,
+          "time_to_first_byte": 60,
+          "response_read_duration": 4,
+          "queue_wait_duration": 2
+        }
+        """
+        val workSpec = workRequestSlot.captured.workSpec
+        val actualJSON = workSpec.input.getString(WORK_INPUT_KEY_ANALYTICS_JSON)!!
+        JSONAssert.assertEquals(JSONObject(expectedJSON), JSONObject(actualJSON), true)
+    }
+
     fun sendEvent_convertsAnalyticsEventWithOptionalParamsToJSONAndEnqueuesItForWriteToDbWorker() {
         val workRequestSlot = slot<OneTimeWorkRequest>()
         every {
@@ -261,7 +307,8 @@ class AnalyticsClientUnitTest {
                 "https://api-m.paypal.com/v1/tracking/batch/events",
                 capture(analyticsJSONSlot),
                 any(),
-                any()
+                any(),
+                true
             )
         }
 
@@ -360,7 +407,7 @@ class AnalyticsClientUnitTest {
         every { analyticsEventBlobDao.getBlobsBySessionId(sessionId) } returns blobs
 
         val analyticsJSONSlot = slot<String>()
-        every { httpClient.post(any(), capture(analyticsJSONSlot), any(), any()) }
+        every { httpClient.post(any(), capture(analyticsJSONSlot), any(), any(), true) }
 
         sut.performAnalyticsUpload(inputData)
 
@@ -454,7 +501,7 @@ class AnalyticsClientUnitTest {
         every { analyticsEventBlobDao.getBlobsBySessionId(sessionId) } returns blobs
 
         val httpError = Exception("error")
-        every { httpClient.post(any(), any(), any(), any()) } throws httpError
+        every { httpClient.post(any(), any(), any(), any(), any()) } throws httpError
 
         val result = sut.performAnalyticsUpload(inputData)
         assertTrue(result is ListenableWorker.Result.Failure)
@@ -478,6 +525,7 @@ class AnalyticsClientUnitTest {
                 data = capture(analyticsJSONSlot),
                 configuration = any(),
                 authorization = authorization,
+                isBackground = true,
                 callback = any()
             )
         } returns Unit
@@ -1,6 +1,8 @@
 package com.braintreepayments.api.core
 
 import com.braintreepayments.api.card.Card
+import com.braintreepayments.api.sharedutils.HttpCall
+import com.braintreepayments.api.sharedutils.JsonBodyWriter
 import com.braintreepayments.api.testutils.Fixtures
 import com.braintreepayments.api.testutils.MockkBraintreeClientBuilder
 import io.mockk.*
@@ -40,8 +42,10 @@ class ApiClientUnitTest {
             .build()
 
         every { analyticsParamRepository.sessionId } returns "session-id"
-        val bodySlot = slot<String>()
-        every { braintreeClient.sendPOST(any(), capture(bodySlot), any(), any()) } returns Unit
+        val bodySlot = slot<JsonRequestBody>()
+        every {
+            braintreeClient.sendJSONPOST(any(), capture(bodySlot), any(), any())
+        } returns mockk()
 
         val sut = ApiClient(braintreeClient, analyticsParamRepository)
         val card = spyk(Card())
@@ -49,10 +53,13 @@ class ApiClientUnitTest {
 
         verifyOrder {
             card.sessionId = "session-id"
-            braintreeClient.sendPOST(any(), any(), any(), any())
+            braintreeClient.sendJSONPOST(any(), any(), any(), any())
         }
 
-        val data = JSONObject(bodySlot.captured).getJSONObject("_meta")
+        val writer = JsonBodyWriter().beginObject()
+        bodySlot.captured.writeFields(writer)
+        val body = String(writer.endObject().toByteArray(), Charsets.UTF_8)
+        val data = JSONObject(body).getJSONObject("_meta")
         assertEquals("session-id", data.getString("sessionId"))
     }
 
@@ -64,7 +71,7 @@ class ApiClientUnitTest {
             .build()
 
         val graphQLBodySlot = slot<JSONObject>()
-        every { braintreeClient.sendGraphQLPOST(capture(graphQLBodySlot), any()) } returns Unit
+        every { braintreeClient.sendGraphQLPOST(capture(graphQLBodySlot), any()) } returns HttpCall()
 
         val sut = ApiClient(braintreeClient)
         val card = Card()
@@ -88,13 +95,13 @@ class ApiClientUnitTest {
     }
 
     @Test
-    fun `when tokenizeREST is called, braintreeClient sendPOST is called with empty headers`() {
+    fun `when tokenizeREST is called, braintreeClient sendJSONPOST is called with empty headers`() {
         val braintreeClient = MockkBraintreeClientBuilder().build()
         val sut = ApiClient(braintreeClient)
 
         sut.tokenizeREST(mockk(relaxed = true), mockk(relaxed = true))
 
-        verify { braintreeClient.sendPOST(any(), any(), emptyMap(), any()) }
+        verify { braintreeClient.sendJSONPOST(any(), any(), emptyMap(), any()) }
     }
 
     @Test
@@ -0,0 +1,83 @@
+package com.braintreepayments.api.core
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class ApiPathNormalizerUnitTest {
+
+    @Test
+    fun normalizeRestPath_removesMerchantSegment() {
+        assertEquals(
+            "/v1/configuration",
+            ApiPathNormalizer.normalizeRestPath("/merchants/abc123/client_api/v1/configuration")
+        )
+    }
+
+    @Test
+    fun normalizeRestPath_collapsesThreeDSecurePath() {
+        assertEquals(
+            "/v1/payment_methods/three_d_secure/lookup",
+            ApiPathNormalizer.normalizeRestPath(
+                "/merchants/abc123/client_api/v1/payment_methods/some-nonce/three_d_secure/lookup"
+            )
+        )
+    }
+
+    @Test
+    fun normalizeRestPath_leavesUnrelatedPathsUntouched() {
+        assertEquals(
+            "v1/paypal_hermes/create_payment_resource",
+            ApiPathNormalizer.normalizeRestPath("v1/paypal_hermes/create_payment_resource")
+        )
+        assertEquals(
+            "v1/payment_methods/three_d_secure",
+            ApiPathNormalizer.normalizeRestPath("v1/payment_methods/three_d_secure")
+        )
+    }
+
+    @Test
+    fun normalizeRestPath_matchesPreviousRegexImplementation() {
+        val merchantRegex = Regex("/merchants/([A-Za-z0-9]+)/client_api")
+        val threeDSecureRegex = Regex("payment_methods/.*/three_d_secure")
+        val paths = listOf(
+            "",
+            "/merchants//client_api/v1",
+            "/merchants/abc/client_api",
+            "/merchants/a_b/client_api/v1",
+            "/merchants/abc/client_ap/v1",
+            "/merchants/abc/merchants/def/client_api/v1",
+            "/merchants/abc/client_api/merchants/def/client_api/v1",
+            "payment_methods//three_d_secure",
+            "payment_methods/a/three_d_secure/b/three_d_secure/c",
+            "x/payment_methods/a/b/three_d_secure",
+            "/three_d_secure/payment_methods/a",
+            "payment_methods/three_d_secure/payment_methods/a/three_d_secure",
+        )
+
+        paths.forEach { path ->
+            val expected = path.replace(merchantRegex, "")
+                .replace(threeDSecureRegex, "payment_methods/three_d_secure")
+            assertEquals(path, expected, ApiPathNormalizer.normalizeRestPath(path))
+        }
+    }
+
+    @Test
+    fun graphQLOperationName_returnsTextBeforeFirstParenthesis() {
+        assertEquals(
+            "mutation TokenizeCreditCard",
+            ApiPathNormalizer.graphQLOperationName(
+                "mutation TokenizeCreditCard(\$input: TokenizeCreditCardInput!) { a(b: 1) }"
+            )
+        )
+    }
+
+    @Test
+    fun graphQLOperationName_withoutParenthesis_returnsWholeQuery() {
+        assertEquals(
+            "query ClientConfiguration { clientConfiguration }",
+            ApiPathNormalizer.graphQLOperationName(
+                "query ClientConfiguration { clientConfiguration }"
+            )
+        )
+    }
+}
@@ -0,0 +1,41 @@
+package com.braintreepayments.api.core
+
+import com.braintreepayments.api.testutils.Fixtures
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+class AuthorizationCacheUnitTest {
+
+    @Test
+    fun get_returnsStoredAuthorization() {
+        val sut = AuthorizationCache()
+        val authorization = TokenizationKey(Fixtures.TOKENIZATION_KEY)
+        sut.put(Fixtures.TOKENIZATION_KEY, authorization)
+
+        assertSame(authorization, sut.get(Fixtures.TOKENIZATION_KEY))
+    }
+
+    @Test
+    fun put_whenFull_evictsLeastRecentlyUsedEntry() {
+        val sut = AuthorizationCache(maxEntries = 2)
+        val authorization = TokenizationKey(Fixtures.TOKENIZATION_KEY)
+        sut.put("a", authorization)
+        sut.put("b", authorization)
+        sut.get("a")
+        sut.put("c", authorization)
+
+        assertSame(authorization, sut.get("a"))
+        assertNull(sut.get("b"))
+        assertSame(authorization, sut.get("c"))
+    }
+
+    @Test
+    fun clear_removesAllEntries() {
+        val sut = AuthorizationCache()
+        sut.put("a", TokenizationKey(Fixtures.TOKENIZATION_KEY))
+        sut.clear()
+
+        assertNull(sut.get("a"))
+    }
+}
@@ -3,6 +3,8 @@ package com.braintreepayments.api.core
 import com.braintreepayments.api.core.Authorization.Companion.fromString
 import com.braintreepayments.api.testutils.Fixtures
 import org.robolectric.RobolectricTestRunner
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
 import org.junit.Assert.assertTrue
 import org.junit.Test
 import org.junit.runner.RunWith
@@ -50,4 +52,24 @@ class AuthorizationUnitTest {
         val result = fromString("not authorization")
         assertTrue(result is InvalidAuthorization)
     }
+
+    @Test
+    fun fromString_withSameString_returnsCachedInstance() {
+        val first = fromString(Fixtures.BASE64_CLIENT_TOKEN)
+        val second = fromString(Fixtures.BASE64_CLIENT_TOKEN)
+        assertSame(first, second)
+    }
+
+    @Test
+    fun fromString_withSurroundingSpaces_sharesCachedInstance() {
+        val first = fromString(Fixtures.TOKENIZATION_KEY)
+        val second = fromString("  ${Fixtures.TOKENIZATION_KEY}\n")
+        assertSame(first, second)
+    }
+
+    @Test
+    fun fromString_doesNotCacheInvalidAuthorization() {
+        fromString("not authorization")
+        assertNull(Authorization.cache.get("not authorization"))
+    }
 }
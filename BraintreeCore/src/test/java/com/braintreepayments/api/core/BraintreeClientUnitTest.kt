@@ -7,12 +7,18 @@ import androidx.fragment.app.FragmentActivity
 import androidx.test.core.app.ApplicationProvider
 import androidx.work.testing.WorkManagerTestInitHelper
 import com.braintreepayments.api.BrowserSwitchClient
+import com.braintreepayments.api.sharedutils.BackgroundHttpResponseCallback
+import com.braintreepayments.api.sharedutils.BackgroundNetworkResponseCallback
+import com.braintreepayments.api.sharedutils.HttpCall
+import com.braintreepayments.api.sharedutils.HttpResponse
 import com.braintreepayments.api.sharedutils.HttpResponseCallback
+import com.braintreepayments.api.sharedutils.HttpResponseTiming
 import com.braintreepayments.api.sharedutils.ManifestValidator
 import com.braintreepayments.api.sharedutils.NetworkResponseCallback
 import com.braintreepayments.api.sharedutils.Time
 import com.braintreepayments.api.testutils.Fixtures
 import io.mockk.*
+import kotlinx.coroutines.runBlocking
 import org.json.JSONException
 import org.json.JSONObject
 import org.junit.Assert.*
@@ -120,6 +126,7 @@ class BraintreeClientUnitTest {
                 "sample-url",
                 configuration,
                 authorization,
+                any<HttpCall>(),
                 capture(networkResponseCallbackSlot)
             )
         }
@@ -127,6 +134,67 @@ class BraintreeClientUnitTest {
         assertTrue(networkResponseCallbackSlot.isCaptured)
     }
 
+    @Test
+    fun sendGET_whenResponseIsCoalesced_doesNotSendLatencyEvent() {
+        val configurationLoader = MockkConfigurationLoaderBuilder()
+            .configuration(mockk<Configuration>(relaxed = true))
+            .build()
+        val coalescedResponse = HttpResponse("response-body", HttpResponseTiming(1, 2), true)
+        every {
+            braintreeHttpClient.get(any(), any(), any(), any<HttpCall>(), any())
+        } answers {
+            lastArg<NetworkResponseCallback>().onResult(coalescedResponse, null)
+        }
+        val sut = createBraintreeClient(configurationLoader)
+        val httpResponseCallback = mockk<HttpResponseCallback>(relaxed = true)
+
+        sut.sendGET("sample-url", httpResponseCallback)
+
+        verify { httpResponseCallback.onResult("response-body", null) }
+        verify(exactly = 0) { analyticsClient.sendEvent(CoreAnalytics.API_REQUEST_LATENCY, any()) }
+    }
+
+    @Test
+    fun sendGET_withBackgroundCallback_passesBackgroundCallbackToHttpClient() {
+        val configurationLoader = MockkConfigurationLoaderBuilder()
+            .configuration(mockk<Configuration>(relaxed = true))
+            .build()
+        val sut = createBraintreeClient(configurationLoader)
+        val httpResponseCallback = mockk<BackgroundHttpResponseCallback>(relaxed = true)
+        val networkResponseCallbackSlot = slot<NetworkResponseCallback>()
+
+        sut.sendGET("sample-url", httpResponseCallback)
+        verify {
+            braintreeHttpClient.get(
+                "sample-url",
+                any(),
+                authorization,
+                any<HttpCall>(),
+                capture(networkResponseCallbackSlot)
+            )
+        }
+
+        assertTrue(networkResponseCallbackSlot.captured is BackgroundNetworkResponseCallback)
+        networkResponseCallbackSlot.captured.onResult(
+            HttpResponse("response-body", HttpResponseTiming(1, 2)), null
+        )
+        verify { httpResponseCallback.onResult("response-body", null) }
+    }
+
+    @Test
+    fun sendPOST_withBackgroundCallback_onGetConfigurationFailure_forwardsErrorInline() {
+        val configError = Exception("configuration error")
+        val configurationLoader = MockkConfigurationLoaderBuilder()
+            .configurationError(configError)
+            .build()
+        val sut = createBraintreeClient(configurationLoader)
+        val httpResponseCallback = mockk<BackgroundHttpResponseCallback>(relaxed = true)
+
+        sut.sendPOST("sample-url", "{}", responseCallback = httpResponseCallback)
+
+        verify { httpResponseCallback.onResult(null, configError) }
+    }
+
     @Test
     fun sendGET_onGetConfigurationFailure_forwardsErrorToCallback() {
         val configError = Exception("configuration error")
@@ -174,6 +242,7 @@ class BraintreeClientUnitTest {
                 data = "{}",
                 configuration = configuration,
                 authorization = authorization,
+                httpCall = any(),
                 callback = capture(networkResponseCallbackSlot)
             )
         }
@@ -195,6 +264,49 @@ class BraintreeClientUnitTest {
         verify { httpResponseCallback.onResult(null, exception) }
     }
 
+    @Test
+    fun sendJSONPOST_onGetConfigurationSuccess_forwardsRequestToHttpClient() {
+        val configuration = mockk<Configuration>(relaxed = true)
+        val configurationLoader = MockkConfigurationLoaderBuilder()
+            .configuration(configuration)
+            .build()
+
+        val sut = createBraintreeClient(configurationLoader)
+
+        val body = JsonRequestBody { writer -> writer.name("key").value("value") }
+        val networkResponseCallbackSlot = slot<NetworkResponseCallback>()
+        val httpResponseCallback = mockk<HttpResponseCallback>(relaxed = true)
+        sut.sendJSONPOST("sample-url", body, emptyMap(), httpResponseCallback)
+
+        verify {
+            braintreeHttpClient.postJSON(
+                path = "sample-url",
+                body = body,
+                configuration = configuration,
+                authorization = authorization,
+                additionalHeaders = emptyMap(),
+                httpCall = any(),
+                callback = capture(networkResponseCallbackSlot)
+            )
+        }
+
+        assertTrue(networkResponseCallbackSlot.isCaptured)
+    }
+
+    @Test
+    fun sendJSONPOST_onGetConfigurationFailure_forwardsErrorToCallback() {
+        val exception = Exception("configuration error")
+        val configurationLoader = MockkConfigurationLoaderBuilder()
+            .configurationError(exception)
+            .build()
+
+        val sut = createBraintreeClient(configurationLoader)
+        val httpResponseCallback = mockk<HttpResponseCallback>(relaxed = true)
+
+        sut.sendJSONPOST("sample-url", { }, emptyMap(), httpResponseCallback)
+        verify { httpResponseCallback.onResult(null, exception) }
+    }
+
     @Test
     fun `sendPOST defaults additionalHeaders to an empty map`() {
         val configurationLoader = MockkConfigurationLoaderBuilder()
@@ -215,6 +327,7 @@ class BraintreeClientUnitTest {
                 configuration = any(),
                 authorization = any(),
                 additionalHeaders = emptyMap(),
+                httpCall = any(),
                 callback = any()
             )
         }
@@ -242,6 +355,7 @@ class BraintreeClientUnitTest {
                 configuration = any(),
                 authorization = any(),
                 additionalHeaders = headers,
+                httpCall = any(),
                 callback = any()
             )
         }
@@ -271,12 +385,14 @@ class BraintreeClientUnitTest {
         val httpResponseCallback = mockk<HttpResponseCallback>(relaxed = true)
         val networkResponseCallbackSlot = slot<NetworkResponseCallback>()
 
-        sut.sendGraphQLPOST(JSONObject(), httpResponseCallback)
+        val json = JSONObject()
+        sut.sendGraphQLPOST(json, httpResponseCallback)
         verify {
-            braintreeGraphQLClient.post(
-                "{}",
+            braintreeGraphQLClient.postQuery(
+                json,
                 configuration,
                 authorization,
+                any<HttpCall>(),
                 capture(networkResponseCallbackSlot)
             )
         }
@@ -284,6 +400,26 @@ class BraintreeClientUnitTest {
         assertTrue(networkResponseCallbackSlot.isCaptured)
     }
 
+    @Test
+    fun sendGraphQLPOST_whenResponseIsCoalesced_doesNotSendLatencyEvent() {
+        val configurationLoader = MockkConfigurationLoaderBuilder()
+            .configuration(mockk<Configuration>(relaxed = true))
+            .build()
+        val coalescedResponse = HttpResponse("response-body", HttpResponseTiming(1, 2), true)
+        every {
+            braintreeGraphQLClient.postQuery(any(), any(), any(), any(), any())
+        } answers {
+            lastArg<NetworkResponseCallback>().onResult(coalescedResponse, null)
+        }
+        val sut = createBraintreeClient(configurationLoader)
+        val httpResponseCallback = mockk<HttpResponseCallback>(relaxed = true)
+
+        sut.sendGraphQLPOST(JSONObject().put("query", "query A { a }"), httpResponseCallback)
+
+        verify { httpResponseCallback.onResult("response-body", null) }
+        verify(exactly = 0) { analyticsClient.sendEvent(CoreAnalytics.API_REQUEST_LATENCY, any()) }
+    }
+
     @Test
     fun sendGraphQLPOST_onGetConfigurationFailure_forwardsErrorToCallback() {
         val exception = Exception("configuration error")
@@ -399,7 +535,7 @@ class BraintreeClientUnitTest {
 
         val callbackSlot = slot<ConfigurationLoaderCallback>()
         verify {
-            configurationLoader.loadConfiguration(capture(callbackSlot))
+            configurationLoader.loadConfiguration(any(), capture(callbackSlot))
         }
 
         callbackSlot.captured.onResult(ConfigurationLoaderResult.Success(configuration))
@@ -430,11 +566,152 @@ class BraintreeClientUnitTest {
         verify(exactly = 0) { merchantRepository.appLinkReturnUri = null }
     }
 
+    @Test
+    fun `suspend sendPOST returns response body`() {
+        val configurationLoader = MockkConfigurationLoaderBuilder()
+            .configuration(mockk<Configuration>(relaxed = true))
+            .build()
+        every {
+            braintreeHttpClient.post(any(), any(), any(), any(), any(), any(), any(), any())
+        } answers {
+            lastArg<NetworkResponseCallback?>()
+                ?.onResult(HttpResponse("response-body", HttpResponseTiming(1, 2)), null)
+        }
+        val sut = createBraintreeClient(configurationLoader)
+
+        val result = runBlocking { sut.sendPOST("sample-url", "{}") }
+
+        assertEquals("response-body", result)
+    }
+
+    @Test
+    fun `suspend sendGET throws http error`() {
+        val configurationLoader = MockkConfigurationLoaderBuilder()
+            .configuration(mockk<Configuration>(relaxed = true))
+            .build()
+        val httpError = Exception("http error")
+        every {
+            braintreeHttpClient.get(any(), any(), any(), any<HttpCall>(), any())
+        } answers {
+            lastArg<NetworkResponseCallback>().onResult(null, httpError)
+        }
+        val sut = createBraintreeClient(configurationLoader)
+
+        val thrown = runCatching { runBlocking { sut.sendGET("sample-url") } }.exceptionOrNull()
+
+        assertSame(httpError, thrown)
+    }
+
+    @Test
+    fun `suspend getConfiguration throws configuration error`() {
+        val configError = Exception("configuration error")
+        val configurationLoader = MockkConfigurationLoaderBuilder()
+            .configurationError(configError)
+            .build()
+        val sut = createBraintreeClient(configurationLoader)
+
+        val thrown = runCatching { runBlocking { sut.getConfiguration() } }.exceptionOrNull()
+
+        assertSame(configError, thrown)
+    }
+
+    @Test
+    fun `sendPOST when canceled before configuration loads does not send request`() {
+        val configurationLoader = mockk<ConfigurationLoader>(relaxed = true)
+        val sut = createBraintreeClient(configurationLoader)
+        val httpResponseCallback = mockk<HttpResponseCallback>(relaxed = true)
+
+        val httpCall = sut.sendPOST("sample-url", "{}", emptyMap(), httpResponseCallback)
+        httpCall.cancel()
+
+        val callbackSlot = slot<ConfigurationLoaderCallback>()
+        verify { configurationLoader.loadConfiguration(any(), capture(callbackSlot)) }
+        callbackSlot.captured.onResult(
+            ConfigurationLoaderResult.Success(mockk<Configuration>(relaxed = true))
+        )
+
+        verify(exactly = 0) {
+            braintreeHttpClient.post(any(), any(), any(), any(), any(), any(), any(), any())
+        }
+        verify(exactly = 0) { httpResponseCallback.onResult(any(), any()) }
+    }
+
+    @Test
+    fun `sendPOST with background callback when canceled before configuration fails does not call back`() {
+        val configurationLoader = mockk<ConfigurationLoader>(relaxed = true)
+        val sut = createBraintreeClient(configurationLoader)
+        val httpResponseCallback = mockk<BackgroundHttpResponseCallback>(relaxed = true)
+
+        val httpCall = sut.sendPOST("sample-url", "{}", emptyMap(), httpResponseCallback)
+        httpCall.cancel()
+
+        val callbackSlot = slot<ConfigurationLoaderCallback>()
+        verify { configurationLoader.loadConfiguration(any(), capture(callbackSlot)) }
+        callbackSlot.captured.onResult(
+            ConfigurationLoaderResult.Failure(Exception("configuration error"))
+        )
+
+        verify(exactly = 0) { httpResponseCallback.onResult(any(), any()) }
+    }
+
+    @Test
+    fun `getConfiguration with HttpCall forwards it to configuration loader`() {
+        val configurationLoader = mockk<ConfigurationLoader>(relaxed = true)
+        val sut = createBraintreeClient(configurationLoader)
+        val callback = mockk<ConfigurationCallback>(relaxed = true)
+        val httpCall = HttpCall()
+
+        sut.getConfiguration(httpCall, callback)
+        httpCall.cancel()
+
+        val callbackSlot = slot<ConfigurationLoaderCallback>()
+        verify { configurationLoader.loadConfiguration(httpCall, capture(callbackSlot)) }
+        callbackSlot.captured.onResult(
+            ConfigurationLoaderResult.Success(mockk<Configuration>(relaxed = true))
+        )
+
+        verify(exactly = 0) { callback.onResult(any(), any()) }
+    }
+
+    @Test
+    fun `sendGET forwards HttpCall to httpClient`() {
+        val configurationLoader = MockkConfigurationLoaderBuilder()
+            .configuration(mockk<Configuration>(relaxed = true))
+            .build()
+        val sut = createBraintreeClient(configurationLoader)
+
+        val httpCall = sut.sendGET("sample-url", mockk(relaxed = true))
+
+        verify { braintreeHttpClient.get("sample-url", any(), any(), httpCall, any()) }
+    }
+
+    @Test
+    fun `warmUpBrowserSwitch warms up Custom Tabs browser`() {
+        val customTabsWarmer = mockk<CustomTabsWarmer>(relaxed = true)
+        val sut = createBraintreeClient(customTabsWarmer = customTabsWarmer)
+
+        sut.warmUpBrowserSwitch()
+
+        verify { customTabsWarmer.warmUp(applicationContext) }
+    }
+
+    @Test
+    fun `preconnectBrowserSwitch forwards url to Custom Tabs warmer`() {
+        val customTabsWarmer = mockk<CustomTabsWarmer>(relaxed = true)
+        val sut = createBraintreeClient(customTabsWarmer = customTabsWarmer)
+        val url = Uri.parse("https://example.com/approve")
+
+        sut.preconnectBrowserSwitch(url)
+
+        verify { customTabsWarmer.preconnect(applicationContext, url) }
+    }
+
     private fun createBraintreeClient(
         configurationLoader: ConfigurationLoader = mockk(),
         time: Time = Time(),
         appLinkReturnUri: Uri? = Uri.parse("https://example.com"),
-        merchantRepository: MerchantRepository = MerchantRepository.instance
+        merchantRepository: MerchantRepository = MerchantRepository.instance,
+        customTabsWarmer: CustomTabsWarmer = mockk(relaxed = true)
     ) = BraintreeClient(
         applicationContext = applicationContext,
         integrationType = IntegrationType.CUSTOM,
@@ -448,5 +725,6 @@ class BraintreeClientUnitTest {
         configurationLoader = configurationLoader,
         time = time,
         merchantRepository = merchantRepository,
+        customTabsWarmer = customTabsWarmer,
     )
 }
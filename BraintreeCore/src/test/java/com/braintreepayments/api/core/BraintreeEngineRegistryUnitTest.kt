@@ -0,0 +1,95 @@
+package com.braintreepayments.api.core
+
+import com.braintreepayments.api.sharedutils.HttpEventListener
+import com.braintreepayments.api.testutils.Fixtures
+import io.mockk.mockk
+import io.mockk.verify
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import javax.net.ssl.SSLSocketFactory
+
+@RunWith(RobolectricTestRunner::class)
+class BraintreeEngineRegistryUnitTest {
+
+    private val socketFactories = mutableListOf<SSLSocketFactory>()
+
+    private val sut = BraintreeEngineRegistry { socketFactory ->
+        socketFactories.add(socketFactory)
+        mockk(relaxed = true)
+    }
+
+    @Test
+    fun acquire_withSameAuthorization_returnsSameEngine() {
+        val first = sut.acquire(Authorization.fromString(Fixtures.TOKENIZATION_KEY))
+        val second = sut.acquire(Authorization.fromString(Fixtures.TOKENIZATION_KEY))
+
+        assertSame(first, second)
+        assertEquals(1, socketFactories.size)
+    }
+
+    @Test
+    fun acquire_withDifferentAuthorization_returnsNewEngine() {
+        val first = sut.acquire(Authorization.fromString(Fixtures.TOKENIZATION_KEY))
+        val second = sut.acquire(Authorization.fromString(Fixtures.BASE64_CLIENT_TOKEN))
+
+        assertNotSame(first, second)
+    }
+
+    @Test
+    fun acquire_sharesSocketFactoryAcrossEngines() {
+        sut.acquire(Authorization.fromString(Fixtures.TOKENIZATION_KEY))
+        sut.acquire(Authorization.fromString(Fixtures.BASE64_CLIENT_TOKEN))
+
+        assertEquals(2, socketFactories.size)
+        assertSame(socketFactories[0], socketFactories[1])
+    }
+
+    @Test
+    fun setHttpEventListener_registersListenerWithLiveEngine() {
+        val engine = sut.acquire(Authorization.fromString(Fixtures.TOKENIZATION_KEY))
+        val listener = mockk<HttpEventListener>()
+
+        sut.setHttpEventListener(Fixtures.TOKENIZATION_KEY, listener)
+
+        verify { engine.setHttpEventListener(listener) }
+    }
+
+    @Test
+    fun setHttpEventListener_registersListenerWithEngineCreatedLater() {
+        val listener = mockk<HttpEventListener>()
+        sut.setHttpEventListener(Fixtures.TOKENIZATION_KEY, listener)
+
+        val engine = sut.acquire(Authorization.fromString(Fixtures.TOKENIZATION_KEY))
+
+        verify { engine.setHttpEventListener(listener) }
+    }
+
+    @Test
+    fun setGraphQLBatchWindow_appliesWindowToLiveAndLaterEngines() {
+        val first = sut.acquire(Authorization.fromString(Fixtures.TOKENIZATION_KEY))
+
+        sut.setGraphQLBatchWindow(Fixtures.TOKENIZATION_KEY, 10)
+        val other = sut.acquire(Authorization.fromString(Fixtures.BASE64_CLIENT_TOKEN))
+        sut.setGraphQLBatchWindow(Fixtures.BASE64_CLIENT_TOKEN, 20)
+
+        verify { first.setGraphQLBatchWindow(10) }
+        verify { other.setGraphQLBatchWindow(20) }
+        verify(exactly = 0) { other.setGraphQLBatchWindow(10) }
+    }
+
+    @Test
+    fun setGraphQLPersistedQueriesEnabled_appliesToLiveAndLaterEngines() {
+        val first = sut.acquire(Authorization.fromString(Fixtures.TOKENIZATION_KEY))
+
+        sut.setGraphQLPersistedQueriesEnabled(Fixtures.TOKENIZATION_KEY, true)
+        sut.setGraphQLPersistedQueriesEnabled(Fixtures.BASE64_CLIENT_TOKEN, true)
+        val other = sut.acquire(Authorization.fromString(Fixtures.BASE64_CLIENT_TOKEN))
+
+        verify { first.setGraphQLPersistedQueriesEnabled(true) }
+        verify { other.setGraphQLPersistedQueriesEnabled(true) }
+    }
+}
@@ -0,0 +1,53 @@
+package com.braintreepayments.api.core
+
+import com.braintreepayments.api.sharedutils.HttpEventListener
+import io.mockk.mockk
+import io.mockk.verify
+import org.junit.Test
+
+class BraintreeEngineUnitTest {
+
+    @Test
+    fun startCrashReporter_registersClientWithProcessWideReporter() {
+        val crashReporterRegistry = mockk<CrashReporterRegistry>(relaxed = true)
+        val braintreeClient = mockk<BraintreeClient>(relaxed = true)
+        val sut = BraintreeEngine(mockk(), mockk(), mockk(), crashReporterRegistry)
+
+        sut.startCrashReporter(braintreeClient)
+
+        verify { crashReporterRegistry.register(braintreeClient) }
+    }
+
+    @Test
+    fun setHttpEventListener_registersListenerWithRestAndGraphQLClients() {
+        val httpClient = mockk<BraintreeHttpClient>(relaxed = true)
+        val graphQLClient = mockk<BraintreeGraphQLClient>(relaxed = true)
+        val listener = mockk<HttpEventListener>()
+        val sut = BraintreeEngine(httpClient, graphQLClient, mockk())
+
+        sut.setHttpEventListener(listener)
+
+        verify { httpClient.setEventListener(listener) }
+        verify { graphQLClient.setEventListener(listener) }
+    }
+
+    @Test
+    fun setGraphQLBatchWindow_setsBatchWindowOnGraphQLClient() {
+        val graphQLClient = mockk<BraintreeGraphQLClient>(relaxed = true)
+        val sut = BraintreeEngine(mockk(), graphQLClient, mockk())
+
+        sut.setGraphQLBatchWindow(10)
+
+        verify { graphQLClient.setBatchWindow(10) }
+    }
+
+    @Test
+    fun setGraphQLPersistedQueriesEnabled_enablesPersistedQueriesOnGraphQLClient() {
+        val graphQLClient = mockk<BraintreeGraphQLClient>(relaxed = true)
+        val sut = BraintreeEngine(mockk(), graphQLClient, mockk())
+
+        sut.setGraphQLPersistedQueriesEnabled(true)
+
+        verify { graphQLClient.setPersistedQueriesEnabled(true) }
+    }
+}
@@ -3,16 +3,25 @@ package com.braintreepayments.api.core
 import com.braintreepayments.api.testutils.Fixtures
 import com.braintreepayments.api.sharedutils.HttpClient
 import com.braintreepayments.api.sharedutils.HttpRequest
+import com.braintreepayments.api.sharedutils.HttpResponse
+import com.braintreepayments.api.sharedutils.HttpResponseTiming
 import com.braintreepayments.api.sharedutils.NetworkResponseCallback
+import com.braintreepayments.api.sharedutils.UnexpectedException
+import com.braintreepayments.api.sharedutils.UnprocessableEntityException
 import io.mockk.every
 import io.mockk.mockk
 import io.mockk.slot
+import io.mockk.verify
 import org.json.JSONException
+import org.json.JSONObject
 import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
 import org.junit.Before
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
+import java.io.IOException
 import java.net.MalformedURLException
 import java.net.URISyntaxException
 import java.net.URL
@@ -143,4 +152,232 @@ class BraintreeGraphQLClientUnitTest {
             assertEquals("token invalid", e.message)
         }
     }
+
+    @Test
+    fun postQuery_withUndeclaredQuery_sendsFullBody() {
+        val httpRequestSlot = slot<HttpRequest>()
+        every {
+            httpClient.sendRequest(capture(httpRequestSlot), any<NetworkResponseCallback>())
+        } returns Unit
+
+        val json = JSONObject().put("query", "query NotPersisted { a }")
+        val sut = BraintreeGraphQLClient(httpClient)
+        sut.postQuery(json, configuration, authorization, null, httpResponseCallback)
+
+        val body = JSONObject(String(httpRequestSlot.captured.data, StandardCharsets.UTF_8))
+        assertEquals("query NotPersisted { a }", body.getString("query"))
+        assertFalse(body.has("extensions"))
+    }
+
+    @Test
+    fun postQuery_withPersistedQuery_byDefault_sendsFullBody() {
+        val httpRequestSlot = slot<HttpRequest>()
+        every {
+            httpClient.sendRequest(capture(httpRequestSlot), any<NetworkResponseCallback>())
+        } returns Unit
+
+        val json = JSONObject().put("query", PERSISTED_QUERY.query)
+        val sut = BraintreeGraphQLClient(httpClient)
+        sut.postQuery(json, configuration, authorization, null, httpResponseCallback)
+
+        val body = JSONObject(String(httpRequestSlot.captured.data, StandardCharsets.UTF_8))
+        assertEquals(PERSISTED_QUERY.query, body.getString("query"))
+        assertFalse(body.has("extensions"))
+    }
+
+    @Test
+    fun postQuery_withPersistedQuery_sendsHashInsteadOfQueryText() {
+        val httpRequestSlot = slot<HttpRequest>()
+        every {
+            httpClient.sendRequest(capture(httpRequestSlot), any<NetworkResponseCallback>())
+        } returns Unit
+
+        val json = JSONObject()
+            .put("query", PERSISTED_QUERY.query)
+            .put("variables", JSONObject().put("id", "123"))
+        val sut = BraintreeGraphQLClient(httpClient)
+        sut.setPersistedQueriesEnabled(true)
+        sut.postQuery(json, configuration, authorization, null, httpResponseCallback)
+
+        val body = JSONObject(String(httpRequestSlot.captured.data, StandardCharsets.UTF_8))
+        assertFalse(body.has("query"))
+        assertEquals("123", body.getJSONObject("variables").getString("id"))
+        val persistedQuery = body.getJSONObject("extensions").getJSONObject("persistedQuery")
+        assertEquals(1, persistedQuery.getInt("version"))
+        assertEquals(PERSISTED_QUERY.sha256Hash, persistedQuery.getString("sha256Hash"))
+        assertTrue(json.has("query"))
+    }
+
+    @Test
+    fun postQuery_onPersistedQueryNotFound_resendsFullQueryTextWithHash() {
+        val httpRequests = mutableListOf<HttpRequest>()
+        val callbackSlot = slot<NetworkResponseCallback>()
+        every {
+            httpClient.sendRequest(capture(httpRequests), capture(callbackSlot))
+        } answers {
+            if (httpRequests.size == 1) {
+                callbackSlot.captured.onResult(null, PersistedQueryNotFoundException("not found"))
+            }
+        }
+        every { httpResponseCallback.onResult(any(), any()) } returns Unit
+
+        val json = JSONObject().put("query", PERSISTED_QUERY.query)
+        val sut = BraintreeGraphQLClient(httpClient)
+        sut.setPersistedQueriesEnabled(true)
+        sut.postQuery(json, configuration, authorization, null, httpResponseCallback)
+
+        assertEquals(2, httpRequests.size)
+        val retryBody = JSONObject(String(httpRequests[1].data, StandardCharsets.UTF_8))
+        assertEquals(PERSISTED_QUERY.query, retryBody.getString("query"))
+        val persistedQuery = retryBody.getJSONObject("extensions").getJSONObject("persistedQuery")
+        assertEquals(PERSISTED_QUERY.sha256Hash, persistedQuery.getString("sha256Hash"))
+        verify(exactly = 0) { httpResponseCallback.onResult(any(), any()) }
+    }
+
+    @Test
+    fun postQuery_whenPersistedQueriesUnsupported_sendsFullQueryTextOnSubsequentRequests() {
+        val httpRequests = mutableListOf<HttpRequest>()
+        val callbackSlot = slot<NetworkResponseCallback>()
+        every {
+            httpClient.sendRequest(capture(httpRequests), capture(callbackSlot))
+        } answers {
+            if (httpRequests.size == 1) {
+                callbackSlot.captured.onResult(
+                    null,
+                    PersistedQueryNotFoundException("not supported", isUnsupported = true)
+                )
+            }
+        }
+
+        val json = JSONObject().put("query", PERSISTED_QUERY.query)
+        val sut = BraintreeGraphQLClient(httpClient)
+        sut.setPersistedQueriesEnabled(true)
+        sut.postQuery(json, configuration, authorization, null, httpResponseCallback)
+        sut.postQuery(json, configuration, authorization, null, httpResponseCallback)
+
+        assertEquals(3, httpRequests.size)
+        val retryBody = JSONObject(String(httpRequests[1].data, StandardCharsets.UTF_8))
+        assertEquals(PERSISTED_QUERY.query, retryBody.getString("query"))
+        assertFalse(retryBody.has("extensions"))
+        val lastBody = JSONObject(String(httpRequests[2].data, StandardCharsets.UTF_8))
+        assertEquals(PERSISTED_QUERY.query, lastBody.getString("query"))
+    }
+
+    @Test
+    fun postQuery_onUserError_forwardsErrorWithoutResending() {
+        val callbackSlot = slot<NetworkResponseCallback>()
+        val error = ErrorWithResponse.fromGraphQLJson(Fixtures.ERRORS_GRAPHQL_CREDIT_CARD_ERROR)
+        every {
+            httpClient.sendRequest(any(), capture(callbackSlot))
+        } answers { callbackSlot.captured.onResult(null, error) }
+        every { httpResponseCallback.onResult(any(), any()) } returns Unit
+
+        val json = JSONObject().put("query", PERSISTED_QUERY.query)
+        val sut = BraintreeGraphQLClient(httpClient)
+        sut.setPersistedQueriesEnabled(true)
+        sut.postQuery(json, configuration, authorization, null, httpResponseCallback)
+
+        verify(exactly = 1) { httpClient.sendRequest(any(), any<NetworkResponseCallback>()) }
+        verify { httpResponseCallback.onResult(null, error) }
+    }
+
+    @Test
+    fun postQuery_onNetworkError_forwardsErrorWithoutResending() {
+        val callbackSlot = slot<NetworkResponseCallback>()
+        val error = IOException("connection reset")
+        every {
+            httpClient.sendRequest(any(), capture(callbackSlot))
+        } answers { callbackSlot.captured.onResult(null, error) }
+        every { httpResponseCallback.onResult(any(), any()) } returns Unit
+
+        val json = JSONObject().put("query", PERSISTED_QUERY.query)
+        val sut = BraintreeGraphQLClient(httpClient)
+        sut.setPersistedQueriesEnabled(true)
+        sut.postQuery(json, configuration, authorization, null, httpResponseCallback)
+
+        verify(exactly = 1) { httpClient.sendRequest(any(), any<NetworkResponseCallback>()) }
+        verify { httpResponseCallback.onResult(null, error) }
+    }
+
+    @Test
+    fun postQuery_onUnexpectedHttpError_forwardsErrorWithoutResending() {
+        val httpRequests = mutableListOf<HttpRequest>()
+        val callbackSlot = slot<NetworkResponseCallback>()
+        val error = UnexpectedException("Gateway timeout")
+        every {
+            httpClient.sendRequest(capture(httpRequests), capture(callbackSlot))
+        } answers { callbackSlot.captured.onResult(null, error) }
+        every { httpResponseCallback.onResult(any(), any()) } returns Unit
+
+        val json = JSONObject().put("query", PERSISTED_QUERY.query)
+        val sut = BraintreeGraphQLClient(httpClient)
+        sut.setPersistedQueriesEnabled(true)
+        sut.postQuery(json, configuration, authorization, null, httpResponseCallback)
+        sut.postQuery(json, configuration, authorization, null, httpResponseCallback)
+
+        assertEquals(2, httpRequests.size)
+        verify(exactly = 2) { httpResponseCallback.onResult(null, error) }
+        // persisted queries stay enabled
+        val lastBody = JSONObject(String(httpRequests[1].data, StandardCharsets.UTF_8))
+        assertFalse(lastBody.has("query"))
+    }
+
+    @Test
+    fun postQuery_whenHashOnlyRequestIsRejected_resendsPlainBodyAndDisablesPersistedQueries() {
+        val httpRequests = mutableListOf<HttpRequest>()
+        val callbackSlot = slot<NetworkResponseCallback>()
+        val response = HttpResponse("{}", HttpResponseTiming(0, 0))
+        every {
+            httpClient.sendRequest(capture(httpRequests), capture(callbackSlot))
+        } answers {
+            if (httpRequests.size == 1) {
+                callbackSlot.captured.onResult(null, GraphQLRequestException("Must provide query"))
+            } else {
+                callbackSlot.captured.onResult(response, null)
+            }
+        }
+        every { httpResponseCallback.onResult(any(), any()) } returns Unit
+
+        val json = JSONObject().put("query", PERSISTED_QUERY.query)
+        val sut = BraintreeGraphQLClient(httpClient)
+        sut.setPersistedQueriesEnabled(true)
+        sut.postQuery(json, configuration, authorization, null, httpResponseCallback)
+        sut.postQuery(json, configuration, authorization, null, httpResponseCallback)
+
+        assertEquals(3, httpRequests.size)
+        val retryBody = JSONObject(String(httpRequests[1].data, StandardCharsets.UTF_8))
+        assertEquals(PERSISTED_QUERY.query, retryBody.getString("query"))
+        assertFalse(retryBody.has("extensions"))
+        val lastBody = JSONObject(String(httpRequests[2].data, StandardCharsets.UTF_8))
+        assertEquals(PERSISTED_QUERY.query, lastBody.getString("query"))
+        verify(exactly = 2) { httpResponseCallback.onResult(response, null) }
+    }
+
+    @Test
+    fun postQuery_whenHashOnlyRequestIsRejectedAndPlainBodyFails_keepsPersistedQueriesEnabled() {
+        val httpRequests = mutableListOf<HttpRequest>()
+        val callbackSlot = slot<NetworkResponseCallback>()
+        val error = UnprocessableEntityException("bad request")
+        every {
+            httpClient.sendRequest(capture(httpRequests), capture(callbackSlot))
+        } answers { callbackSlot.captured.onResult(null, error) }
+        every { httpResponseCallback.onResult(any(), any()) } returns Unit
+
+        val json = JSONObject().put("query", PERSISTED_QUERY.query)
+        val sut = BraintreeGraphQLClient(httpClient)
+        sut.setPersistedQueriesEnabled(true)
+        sut.postQuery(json, configuration, authorization, null, httpResponseCallback)
+
+        assertEquals(2, httpRequests.size)
+        verify(exactly = 1) { httpResponseCallback.onResult(null, error) }
+
+        sut.postQuery(json, configuration, authorization, null, httpResponseCallback)
+
+        val hashedBody = JSONObject(String(httpRequests[2].data, StandardCharsets.UTF_8))
+        assertFalse(hashedBody.has("query"))
+    }
+
+    companion object {
+        private val PERSISTED_QUERY = GraphQLPersistedQuery("query Persisted { node }")
+    }
 }
@@ -93,6 +93,7 @@ class BraintreeGraphQLResponseParserUnitTest {
             sut.parse(123, urlConnection)
             fail("No exception was thrown")
         } catch (e: UnexpectedException) {
+            assertTrue(e is GraphQLRequestException)
             assertEquals(
                 "Variable 'input' has coerced Null value for NonNull type 'String!'",
                 e.message
@@ -114,4 +115,50 @@ class BraintreeGraphQLResponseParserUnitTest {
             assertEquals("An Unexpected Exception Occurred", e.message)
         }
     }
+
+    @Test
+    @Throws(Exception::class)
+    fun parse_onPersistedQueryNotFound_throwsPersistedQueryNotFoundException() {
+        val response = """
+            { "errors": [ {
+                "message": "PersistedQueryNotFound",
+                "extensions": { "code": "PERSISTED_QUERY_NOT_FOUND" }
+            } ] }
+        """
+        every { baseParser.parse(123, urlConnection) } returns response
+
+        val sut = BraintreeGraphQLResponseParser(baseParser)
+        try {
+            sut.parse(123, urlConnection)
+            fail("No exception was thrown")
+        } catch (e: PersistedQueryNotFoundException) {
+            assertEquals("PersistedQueryNotFound", e.message)
+            assertFalse(e.isUnsupported)
+        }
+    }
+
+    @Test
+    @Throws(Exception::class)
+    fun parse_onPersistedQueryNotSupported_throwsUnsupportedPersistedQueryNotFoundException() {
+        val response = """{ "errors": [ { "message": "PersistedQueryNotSupported" } ] }"""
+        every { baseParser.parse(123, urlConnection) } returns response
+
+        val sut = BraintreeGraphQLResponseParser(baseParser)
+        try {
+            sut.parse(123, urlConnection)
+            fail("No exception was thrown")
+        } catch (e: PersistedQueryNotFoundException) {
+            assertTrue(e.isUnsupported)
+        }
+    }
+
+    @Test
+    @Throws(Exception::class)
+    fun parse_withBatchedResponse_returnsArrayUnchecked() {
+        val response = """[ { "data": {} }, { "errors": [ { "message": "error" } ] } ]"""
+        every { baseParser.parse(123, urlConnection) } returns response
+
+        val sut = BraintreeGraphQLResponseParser(baseParser)
+        assertEquals(response, sut.parse(123, urlConnection))
+    }
 }
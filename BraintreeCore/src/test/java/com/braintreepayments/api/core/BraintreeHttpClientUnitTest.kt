@@ -12,6 +12,7 @@ import io.mockk.runs
 import io.mockk.slot
 import io.mockk.verify
 import org.json.JSONException
+import org.json.JSONObject
 import org.junit.Assert.*
 import org.junit.Before
 import org.junit.Test
@@ -312,6 +313,86 @@ class BraintreeHttpClientUnitTest {
         assertEquals(expectedData, String(httpRequest.data, StandardCharsets.UTF_8))
     }
 
+    @Test
+    @Throws(MalformedURLException::class, URISyntaxException::class)
+    fun postJSON_withTokenizationKey_streamsBodyIntoHttpRequest() {
+        val tokenizationKey: Authorization = TokenizationKey(Fixtures.TOKENIZATION_KEY)
+        val configuration = mockk<Configuration>()
+        every { configuration.clientApiUrl } returns "https://example.com"
+
+        val callback = mockk<NetworkResponseCallback>()
+        val httpRequestSlot = slot<HttpRequest>()
+        every { httpClient.sendRequest(capture(httpRequestSlot), callback) } returns Unit
+
+        val sut = BraintreeHttpClient(httpClient)
+        sut.postJSON(
+            path = "sample/path",
+            body = { writer -> writer.name("key").value("value") },
+            configuration = configuration,
+            authorization = tokenizationKey,
+            callback = callback
+        )
+
+        val httpRequest = httpRequestSlot.captured
+        val headers = httpRequest.headers
+        assertEquals(URL("https://example.com/sample/path"), httpRequest.url)
+        assertEquals("braintree/android/" + BuildConfig.VERSION_NAME, headers["User-Agent"])
+        assertEquals(Fixtures.TOKENIZATION_KEY, headers["Client-Key"])
+        assertEquals("POST", httpRequest.method)
+        assertEquals("""{"key":"value"}""", String(httpRequest.data, StandardCharsets.UTF_8))
+    }
+
+    @Test
+    fun postJSON_withClientToken_writesAuthorizationFingerprintIntoBody() {
+        val clientToken = Authorization.fromString(
+            FixturesHelper.base64Encode(Fixtures.CLIENT_TOKEN)
+        ) as ClientToken
+        val configuration = mockk<Configuration>()
+        every { configuration.clientApiUrl } returns "https://example.com"
+
+        val callback = mockk<NetworkResponseCallback>()
+        val httpRequestSlot = slot<HttpRequest>()
+        every { httpClient.sendRequest(capture(httpRequestSlot), callback) } returns Unit
+
+        val sut = BraintreeHttpClient(httpClient)
+        sut.postJSON(
+            path = "sample/path",
+            body = { writer -> writer.name("key").value("value") },
+            configuration = configuration,
+            authorization = clientToken,
+            callback = callback
+        )
+
+        val expectedData = """{"key":"value","authorizationFingerprint":""" +
+            """"${clientToken.authorizationFingerprint}"}"""
+        assertEquals(
+            expectedData,
+            String(httpRequestSlot.captured.data, StandardCharsets.UTF_8)
+        )
+    }
+
+    @Test
+    fun postJSON_whenBodyThrowsJSONException_postsCallbackError() {
+        val configuration = mockk<Configuration>()
+        every { configuration.clientApiUrl } returns "https://example.com"
+
+        val error = JSONException("bad body")
+        val callback = mockk<NetworkResponseCallback>()
+        every { callback.onResult(null, error) } returns Unit
+
+        val sut = BraintreeHttpClient(httpClient)
+        sut.postJSON(
+            path = "sample/path",
+            body = { throw error },
+            configuration = configuration,
+            authorization = TokenizationKey(Fixtures.TOKENIZATION_KEY),
+            callback = callback
+        )
+
+        verify { callback.onResult(null, error) }
+        verify(exactly = 0) { httpClient.sendRequest(any(), any<NetworkResponseCallback>()) }
+    }
+
     @Test
     fun postAsync_withNullConfiguration_andRelativeUrl_postsCallbackError() {
         val clientToken = Authorization.fromString(
@@ -384,9 +465,103 @@ class BraintreeHttpClientUnitTest {
         )
 
         val exception = exceptionSlot.captured
+        assertEquals("Request body is not a JSON object", exception.message)
+    }
+
+    @Test
+    fun postAsync_withClientToken_splicesFingerprintIntoBodyAsIs() {
+        val configuration = mockk<Configuration>()
+        every { configuration.clientApiUrl } returns "https://example.com"
+        val httpRequestSlot = slot<HttpRequest>()
+        every { httpClient.sendRequest(capture(httpRequestSlot), any()) } returns Unit
+        val clientToken = Authorization.fromString(
+            FixturesHelper.base64Encode(Fixtures.CLIENT_TOKEN)
+        ) as ClientToken
+        val data = """ { "b": 1.50, "a": {"c": "}"} }
+"""
+
+        BraintreeHttpClient(httpClient).post(
+            path = "sample/path",
+            data = data,
+            configuration = configuration,
+            authorization = clientToken,
+            callback = mockk()
+        )
+
+        val body = String(httpRequestSlot.captured.data, StandardCharsets.UTF_8)
         assertEquals(
-            "Value not of type java.lang.String cannot be converted to JSONObject",
-            exception.message
+            """ { "b": 1.50, "a": {"c": "}"} ,""" +
+                """"authorizationFingerprint":"${clientToken.authorizationFingerprint}"}
+""",
+            body
+        )
+    }
+
+    @Test
+    fun postSync_withClientToken_writesFingerprintAsLastMemberOfBody() {
+        val configuration = mockk<Configuration>()
+        every { configuration.clientApiUrl } returns "https://example.com"
+        val httpRequestSlot = slot<HttpRequest>()
+        every { httpClient.sendRequest(capture(httpRequestSlot)) } returns ""
+        val clientToken = Authorization.fromString(
+            FixturesHelper.base64Encode(Fixtures.CLIENT_TOKEN)
+        ) as ClientToken
+        val data = """{"creditCard":{"number":"4111111111111111"},"_meta":{"source":"form"}}"""
+
+        BraintreeHttpClient(httpClient).post("sample/path", data, configuration, clientToken)
+
+        val body = String(httpRequestSlot.captured.data, StandardCharsets.UTF_8)
+        assertEquals(
+            """{"creditCard":{"number":"4111111111111111"},"_meta":{"source":"form"},""" +
+                """"authorizationFingerprint":"${clientToken.authorizationFingerprint}"}""",
+            body
+        )
+    }
+
+    @Test
+    fun postSync_withClientToken_whenBodyHasFingerprint_replacesIt() {
+        val configuration = mockk<Configuration>()
+        every { configuration.clientApiUrl } returns "https://example.com"
+        val httpRequestSlot = slot<HttpRequest>()
+        every { httpClient.sendRequest(capture(httpRequestSlot)) } returns ""
+        val clientToken = Authorization.fromString(
+            FixturesHelper.base64Encode(Fixtures.CLIENT_TOKEN)
+        ) as ClientToken
+        val data = """{"authorizationFingerprint":"old","key":"value"}"""
+
+        BraintreeHttpClient(httpClient).post("sample/path", data, configuration, clientToken)
+
+        val sentData = String(httpRequestSlot.captured.data, StandardCharsets.UTF_8)
+        assertEquals(1, sentData.split("\"authorizationFingerprint\"").size - 1)
+        val body = JSONObject(sentData)
+        assertEquals(
+            clientToken.authorizationFingerprint,
+            body.getString("authorizationFingerprint")
+        )
+        assertEquals("value", body.getString("key"))
+        assertEquals(2, body.length())
+    }
+
+    @Test(expected = JSONException::class)
+    fun postSync_withClientToken_whenBodyIsNotAnObject_throwsJSONException() {
+        val clientToken = Authorization.fromString(
+            FixturesHelper.base64Encode(Fixtures.CLIENT_TOKEN)
+        ) as ClientToken
+
+        BraintreeHttpClient(httpClient).post("https://example.com", "[]", null, clientToken)
+    }
+
+    @Test(expected = JSONException::class)
+    fun postSync_withClientToken_whenBodyDoesNotEndWithClosingBrace_throwsJSONException() {
+        val clientToken = Authorization.fromString(
+            FixturesHelper.base64Encode(Fixtures.CLIENT_TOKEN)
+        ) as ClientToken
+
+        BraintreeHttpClient(httpClient).post(
+            "https://example.com",
+            """{"key":"value"} trailing""",
+            null,
+            clientToken
         )
     }
 
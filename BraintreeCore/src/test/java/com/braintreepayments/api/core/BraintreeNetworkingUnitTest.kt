@@ -0,0 +1,78 @@
+package com.braintreepayments.api.core
+
+import android.content.Context
+import androidx.test.core.app.ApplicationProvider
+import com.braintreepayments.api.testutils.Fixtures
+import io.mockk.mockk
+import io.mockk.verify
+import org.json.JSONObject
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class BraintreeNetworkingUnitTest {
+
+    private val applicationContext: Context = ApplicationProvider.getApplicationContext()
+
+    @After
+    fun afterEach() {
+        BraintreeNetworking.setNetworkEventListener(Fixtures.TOKENIZATION_KEY, null)
+    }
+
+    @Test
+    fun setNetworkEventListener_receivesEventsForRestAndGraphQLRequests() {
+        val listener = mockk<NetworkEventListener>(relaxed = true)
+        BraintreeNetworking.setNetworkEventListener(Fixtures.TOKENIZATION_KEY, listener)
+
+        val sut = createBraintreeClient()
+        sut.sendPOST(
+            url = "https://api.example.com/v1/payment_methods",
+            data = "{}",
+            responseCallback = mockk(relaxed = true)
+        )
+        sut.sendGraphQLPOST(JSONObject(), mockk(relaxed = true))
+
+        val events = mutableListOf<NetworkEvent>()
+        verify(exactly = 2) {
+            listener.onNetworkEvent(match { it.phase == NetworkEvent.Phase.ENQUEUED })
+        }
+        verify { listener.onNetworkEvent(capture(events)) }
+        assertEquals(
+            listOf(
+                "api.example.com/v1/payment_methods",
+                "example-graphql.com/graphql"
+            ),
+            events.filter { it.phase == NetworkEvent.Phase.ENQUEUED }
+                .map { "${it.host}${it.path}" }
+        )
+    }
+
+    @Test
+    fun setNetworkEventListener_withNull_stopsDeliveringEvents() {
+        val listener = mockk<NetworkEventListener>(relaxed = true)
+        BraintreeNetworking.setNetworkEventListener(Fixtures.TOKENIZATION_KEY, listener)
+        BraintreeNetworking.setNetworkEventListener(Fixtures.TOKENIZATION_KEY, null)
+
+        createBraintreeClient().sendGraphQLPOST(JSONObject(), mockk(relaxed = true))
+
+        verify(exactly = 0) { listener.onNetworkEvent(any()) }
+    }
+
+    private fun createBraintreeClient(): BraintreeClient {
+        val configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_GRAPHQL)
+        return BraintreeClient(
+            applicationContext = applicationContext,
+            integrationType = IntegrationType.CUSTOM,
+            authorization = Authorization.fromString(Fixtures.TOKENIZATION_KEY),
+            returnUrlScheme = "sample-return-url-scheme",
+            appLinkReturnUri = null,
+            configurationLoader = MockkConfigurationLoaderBuilder()
+                .configuration(configuration)
+                .build(),
+            analyticsClient = mockk(relaxed = true),
+        )
+    }
+}
@@ -1,6 +1,7 @@
 package com.braintreepayments.api.core
 
 import android.util.Base64
+import com.braintreepayments.api.sharedutils.HttpCall
 import com.braintreepayments.api.sharedutils.HttpClient
 import com.braintreepayments.api.sharedutils.HttpResponse
 import com.braintreepayments.api.sharedutils.HttpResponseTiming
@@ -51,6 +52,7 @@ class ConfigurationLoaderUnitTest {
                 null,
                 authorization,
                 HttpClient.RETRY_MAX_3_TIMES,
+                null,
                 capture(callbackSlot)
             )
         }
@@ -82,6 +84,7 @@ class ConfigurationLoaderUnitTest {
                 null,
                 authorization,
                 HttpClient.RETRY_MAX_3_TIMES,
+                null,
                 capture(callbackSlot)
             )
         }
@@ -113,6 +116,7 @@ class ConfigurationLoaderUnitTest {
                 null,
                 authorization,
                 HttpClient.RETRY_MAX_3_TIMES,
+                null,
                 capture(callbackSlot)
             )
         }
@@ -139,6 +143,7 @@ class ConfigurationLoaderUnitTest {
                 null,
                 authorization,
                 HttpClient.RETRY_MAX_3_TIMES,
+                null,
                 capture(callbackSlot)
             )
         }
@@ -155,6 +160,26 @@ class ConfigurationLoaderUnitTest {
         )
     }
 
+    @Test
+    fun loadConfiguration_withHttpCall_forwardsHttpCallToHttpClient() {
+        every { authorization.configUrl } returns "https://example.com/config"
+        val httpCall = HttpCall()
+
+        val sut = ConfigurationLoader(braintreeHttpClient, merchantRepository, configurationCache)
+        sut.loadConfiguration(httpCall, callback)
+
+        verify {
+            braintreeHttpClient.get(
+                "https://example.com/config?configVersion=3",
+                null,
+                authorization,
+                HttpClient.RETRY_MAX_3_TIMES,
+                httpCall,
+                any()
+            )
+        }
+    }
+
     @Test
     fun loadConfiguration_whenInvalidToken_exception_is_returned() {
         every { merchantRepository.authorization } returns InvalidAuthorization("invalid", "token invalid")
@@ -190,6 +215,7 @@ class ConfigurationLoaderUnitTest {
                 null,
                 authorization,
                 ofType(Int::class),
+                any(),
                 ofType(NetworkResponseCallback::class)
             )
         }
@@ -223,6 +249,7 @@ class ConfigurationLoaderUnitTest {
                 null,
                 authorization,
                 HttpClient.RETRY_MAX_3_TIMES,
+                null,
                 capture(callbackSlot)
             )
         }
@@ -0,0 +1,51 @@
+package com.braintreepayments.api.core
+
+import io.mockk.mockk
+import org.junit.After
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Before
+import org.junit.Test
+
+class CrashReporterRegistryUnitTest {
+
+    private var defaultExceptionHandler: Thread.UncaughtExceptionHandler? = null
+
+    private val sut = CrashReporterRegistry()
+
+    @Before
+    fun beforeEach() {
+        defaultExceptionHandler = Thread.getDefaultUncaughtExceptionHandler()
+    }
+
+    @After
+    fun afterEach() {
+        Thread.setDefaultUncaughtExceptionHandler(defaultExceptionHandler)
+    }
+
+    @Test
+    fun crashReportingClient_whenNoClientRegistered_returnsNull() {
+        assertNull(sut.crashReportingClient())
+    }
+
+    @Test
+    fun register_registersOneHandlerForEveryClient() {
+        sut.register(mockk(relaxed = true))
+        val handler = Thread.getDefaultUncaughtExceptionHandler()
+
+        sut.register(mockk(relaxed = true))
+
+        assertSame(handler, Thread.getDefaultUncaughtExceptionHandler())
+    }
+
+    @Test
+    fun register_reportsThroughMostRecentlyRegisteredClient() {
+        val first = mockk<BraintreeClient>(relaxed = true)
+        val second = mockk<BraintreeClient>(relaxed = true)
+
+        sut.register(first)
+        sut.register(second)
+
+        assertSame(second, sut.crashReportingClient())
+    }
+}
@@ -0,0 +1,162 @@
+package com.braintreepayments.api.core
+
+import android.content.ComponentName
+import android.content.Context
+import android.net.Uri
+import android.os.Handler
+import androidx.browser.customtabs.CustomTabsClient
+import androidx.browser.customtabs.CustomTabsServiceConnection
+import androidx.browser.customtabs.CustomTabsSession
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.mockkStatic
+import io.mockk.slot
+import io.mockk.unmockkStatic
+import io.mockk.verify
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class CustomTabsWarmerUnitTest {
+
+    private val browserPackageName = "com.android.chrome"
+    private val componentName = ComponentName(browserPackageName, "CustomTabsService")
+    private val url = Uri.parse("https://example.com/approve?token=EC-123")
+    private val origin = Uri.parse("https://example.com")
+
+    private val context: Context = mockk(relaxed = true)
+    private val handler: Handler = mockk(relaxed = true)
+    private val client: CustomTabsClient = mockk(relaxed = true)
+    private val session: CustomTabsSession = mockk(relaxed = true)
+    private val connection = slot<CustomTabsServiceConnection>()
+
+    @Before
+    fun beforeEach() {
+        every { context.applicationContext } returns context
+        every { client.newSession(null) } returns session
+
+        mockkStatic(CustomTabsClient::class)
+        every { CustomTabsClient.getPackageName(context, null) } returns browserPackageName
+        every {
+            CustomTabsClient.bindCustomTabsService(context, browserPackageName, capture(connection))
+        } returns true
+    }
+
+    @After
+    fun afterEach() {
+        unmockkStatic(CustomTabsClient::class)
+    }
+
+    @Test
+    fun warmUp_bindsToBrowserAndWarmsItUpOnceConnected() {
+        val sut = CustomTabsWarmer(handler).apply { setEnabled(true) }
+        sut.warmUp(context)
+
+        verify { CustomTabsClient.bindCustomTabsService(context, browserPackageName, any()) }
+        verify(exactly = 0) { client.warmup(any()) }
+
+        connection.captured.onCustomTabsServiceConnected(componentName, client)
+        verify { client.warmup(0L) }
+    }
+
+    @Test
+    fun warmUp_byDefault_doesNotBind() {
+        val sut = CustomTabsWarmer(handler)
+        sut.warmUp(context)
+        sut.preconnect(context, url)
+
+        verify(exactly = 0) { CustomTabsClient.bindCustomTabsService(any(), any(), any()) }
+    }
+
+    @Test
+    fun setEnabled_withFalse_unbindsFromBrowser() {
+        val sut = CustomTabsWarmer(handler).apply { setEnabled(true) }
+        sut.warmUp(context)
+
+        sut.setEnabled(false)
+        sut.warmUp(context)
+
+        verify { context.unbindService(connection.captured) }
+        verify(exactly = 1) {
+            CustomTabsClient.bindCustomTabsService(context, browserPackageName, any())
+        }
+    }
+
+    @Test
+    fun warmUp_whenAlreadyBound_doesNotBindAgain() {
+        val sut = CustomTabsWarmer(handler).apply { setEnabled(true) }
+        sut.warmUp(context)
+        sut.warmUp(context)
+
+        verify(exactly = 1) {
+            CustomTabsClient.bindCustomTabsService(context, browserPackageName, any())
+        }
+    }
+
+    @Test
+    fun warmUp_whenNoBrowserSupportsCustomTabs_doesNotBind() {
+        every { CustomTabsClient.getPackageName(context, null) } returns null
+
+        val sut = CustomTabsWarmer(handler).apply { setEnabled(true) }
+        sut.warmUp(context)
+
+        verify(exactly = 0) { CustomTabsClient.bindCustomTabsService(any(), any(), any()) }
+    }
+
+    @Test
+    fun preconnect_beforeConnected_sendsOriginOnceConnected() {
+        val sut = CustomTabsWarmer(handler).apply { setEnabled(true) }
+        sut.preconnect(context, url)
+
+        verify(exactly = 0) { session.mayLaunchUrl(any(), any(), any()) }
+
+        connection.captured.onCustomTabsServiceConnected(componentName, client)
+        verify { session.mayLaunchUrl(origin, null, null) }
+    }
+
+    @Test
+    fun preconnect_whenConnected_sendsOriginToSession() {
+        val sut = CustomTabsWarmer(handler).apply { setEnabled(true) }
+        sut.warmUp(context)
+        connection.captured.onCustomTabsServiceConnected(componentName, client)
+
+        sut.preconnect(context, url)
+
+        verify { session.mayLaunchUrl(origin, null, null) }
+    }
+
+    @Test
+    fun preconnect_neverSendsPathOrQueryOfUrl() {
+        val sut = CustomTabsWarmer(handler).apply { setEnabled(true) }
+        sut.warmUp(context)
+        connection.captured.onCustomTabsServiceConnected(componentName, client)
+
+        sut.preconnect(
+            context,
+            Uri.parse("https://user@example.com:8443/checkoutnow?token=EC-123#fragment")
+        )
+
+        verify { session.mayLaunchUrl(Uri.parse("https://example.com:8443"), null, null) }
+        verify(exactly = 0) { session.mayLaunchUrl(url, any(), any()) }
+    }
+
+    @Test
+    fun warmUp_whenIdle_unbindsFromBrowser() {
+        val unbind = slot<Runnable>()
+        every { handler.postDelayed(capture(unbind), any()) } returns true
+
+        val sut = CustomTabsWarmer(handler).apply { setEnabled(true) }
+        sut.warmUp(context)
+        unbind.captured.run()
+
+        verify { context.unbindService(connection.captured) }
+
+        sut.warmUp(context)
+        verify(exactly = 2) {
+            CustomTabsClient.bindCustomTabsService(context, browserPackageName, any())
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.braintreepayments.api.core
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+class GraphQLPersistedQueryUnitTest {
+
+    @Test
+    fun sha256Hash_isLowercaseHexDigestOfQuery() {
+        val sut = GraphQLPersistedQuery("abc")
+        assertEquals(
+            "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+            sut.sha256Hash
+        )
+    }
+
+    @Test
+    fun forQuery_returnsDeclaredQuery() {
+        val sut = GraphQLPersistedQuery("query Declared { node }")
+        assertSame(sut, GraphQLPersistedQuery.forQuery("query Declared { node }"))
+    }
+
+    @Test
+    fun forQuery_withUndeclaredQuery_returnsNull() {
+        assertNull(GraphQLPersistedQuery.forQuery("query Undeclared { node }"))
+    }
+}
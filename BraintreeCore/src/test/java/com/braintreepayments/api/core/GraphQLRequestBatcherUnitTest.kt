@@ -0,0 +1,220 @@
+package com.braintreepayments.api.core
+
+import com.braintreepayments.api.sharedutils.BackgroundNetworkResponseCallback
+import com.braintreepayments.api.sharedutils.HttpCall
+import com.braintreepayments.api.sharedutils.HttpResponse
+import com.braintreepayments.api.sharedutils.HttpResponseTiming
+import com.braintreepayments.api.sharedutils.NetworkResponseCallback
+import com.braintreepayments.api.testutils.Fixtures
+import io.mockk.mockk
+import io.mockk.verify
+import org.json.JSONObject
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class GraphQLRequestBatcherUnitTest {
+
+    private class SentRequest(
+        val data: String,
+        val httpCall: HttpCall?,
+        val callback: NetworkResponseCallback
+    )
+
+    private val scheduledTasks = mutableListOf<Runnable>()
+    private val sentRequests = mutableListOf<SentRequest>()
+    private val timing = HttpResponseTiming(0, 10)
+
+    private lateinit var configuration: Configuration
+    private lateinit var authorization: Authorization
+    private lateinit var sut: GraphQLRequestBatcher
+
+    @Before
+    fun beforeEach() {
+        configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_GRAPHQL)
+        authorization = Authorization.fromString(Fixtures.BASE64_CLIENT_TOKEN)
+        sut = GraphQLRequestBatcher(
+            windowMillis = 5,
+            maxBatchSize = 3,
+            schedule = { _, task -> scheduledTasks.add(task) },
+            sendRequest = { data, _, _, httpCall, callback ->
+                sentRequests.add(SentRequest(data, httpCall, callback))
+            }
+        )
+    }
+
+    @Test
+    fun enqueue_withSingleOperation_sendsItUnbatchedWhenWindowCloses() {
+        val callback = mockk<NetworkResponseCallback>(relaxed = true)
+        sut.enqueue("{\"query\":\"a\"}", configuration, authorization, null, callback)
+
+        assertTrue(sentRequests.isEmpty())
+        scheduledTasks.forEach { it.run() }
+
+        assertEquals(1, sentRequests.size)
+        assertEquals("{\"query\":\"a\"}", sentRequests[0].data)
+        assertTrue(sentRequests[0].callback === callback)
+    }
+
+    @Test
+    fun enqueue_withOperationsInSameWindow_sendsArrayBodyAndDemultiplexesResults() {
+        val callbackA = mockk<NetworkResponseCallback>(relaxed = true)
+        val callbackB = mockk<NetworkResponseCallback>(relaxed = true)
+        sut.enqueue("{\"query\":\"a\"}", configuration, authorization, null, callbackA)
+        sut.enqueue("{\"query\":\"b\"}", configuration, authorization, null, callbackB)
+
+        assertEquals(1, scheduledTasks.size)
+        scheduledTasks.forEach { it.run() }
+
+        assertEquals(1, sentRequests.size)
+        assertEquals("[{\"query\":\"a\"},{\"query\":\"b\"}]", sentRequests[0].data)
+
+        val batchResponse = "[{\"data\":{\"a\":1}},{\"data\":{\"b\":2}}]"
+        sentRequests[0].callback.onResult(HttpResponse(batchResponse, timing), null)
+
+        verify {
+            callbackA.onResult(match {
+                JSONObject(it.body!!).getJSONObject("data").getInt("a") == 1
+            }, null)
+        }
+        verify {
+            callbackB.onResult(match {
+                JSONObject(it.body!!).getJSONObject("data").getInt("b") == 2
+            }, null)
+        }
+    }
+
+    @Test
+    fun batchResponse_reportsRequestTimingOnlyWithFirstResult() {
+        val callbackA = mockk<NetworkResponseCallback>(relaxed = true)
+        val callbackB = mockk<NetworkResponseCallback>(relaxed = true)
+        sut.enqueue("{\"query\":\"a\"}", configuration, authorization, null, callbackA)
+        sut.enqueue("{\"query\":\"b\"}", configuration, authorization, null, callbackB)
+        scheduledTasks.forEach { it.run() }
+
+        val batchResponse = "[{\"data\":{\"a\":1}},{\"data\":{\"b\":2}}]"
+        sentRequests[0].callback.onResult(HttpResponse(batchResponse, timing), null)
+
+        verify { callbackA.onResult(match { !it.isCoalesced && it.timing == timing }, null) }
+        verify { callbackB.onResult(match { it.isCoalesced }, null) }
+    }
+
+    @Test
+    fun enqueue_whenBatchIsFull_sendsImmediately() {
+        repeat(3) {
+            sut.enqueue("{}", configuration, authorization, null, mockk(relaxed = true))
+        }
+
+        assertEquals(1, sentRequests.size)
+        assertEquals("[{},{},{}]", sentRequests[0].data)
+
+        // the window timer firing afterwards does not send anything else
+        scheduledTasks.forEach { it.run() }
+        assertEquals(1, sentRequests.size)
+    }
+
+    @Test
+    fun enqueue_withDifferentAuthorization_sendsSeparateRequests() {
+        val tokenizationKey = Authorization.fromString(Fixtures.TOKENIZATION_KEY)
+        sut.enqueue("{}", configuration, authorization, null, mockk(relaxed = true))
+        sut.enqueue("{}", configuration, tokenizationKey, null, mockk(relaxed = true))
+
+        scheduledTasks.forEach { it.run() }
+        assertEquals(2, sentRequests.size)
+    }
+
+    @Test
+    fun enqueue_withBackgroundCallbacks_batchesThemSeparatelyOnABackgroundCallback() {
+        sut.enqueue("{}", configuration, authorization, null, mockk(relaxed = true))
+        sut.enqueue("{}", configuration, authorization, null,
+            mockk<BackgroundNetworkResponseCallback>(relaxed = true))
+        sut.enqueue("{}", configuration, authorization, null,
+            mockk<BackgroundNetworkResponseCallback>(relaxed = true))
+
+        scheduledTasks.forEach { it.run() }
+
+        assertEquals(2, sentRequests.size)
+        assertFalse(sentRequests[0].callback is BackgroundNetworkResponseCallback)
+        assertEquals("[{},{}]", sentRequests[1].data)
+        assertTrue(sentRequests[1].callback is BackgroundNetworkResponseCallback)
+    }
+
+    @Test
+    fun batchResponse_withOperationError_forwardsErrorOnlyToThatOperation() {
+        val callbackA = mockk<NetworkResponseCallback>(relaxed = true)
+        val callbackB = mockk<NetworkResponseCallback>(relaxed = true)
+        sut.enqueue("{}", configuration, authorization, null, callbackA)
+        sut.enqueue("{}", configuration, authorization, null, callbackB)
+        scheduledTasks.forEach { it.run() }
+
+        val batchResponse = "[{\"data\":{}},{\"errors\":[{\"message\":\"boom\"}]}]"
+        sentRequests[0].callback.onResult(HttpResponse(batchResponse, timing), null)
+
+        verify { callbackA.onResult(any(), null) }
+        verify { callbackB.onResult(null, match { it.message == "boom" }) }
+    }
+
+    @Test
+    fun batchResponse_onRequestError_forwardsErrorToEveryOperation() {
+        val callbackA = mockk<NetworkResponseCallback>(relaxed = true)
+        val callbackB = mockk<NetworkResponseCallback>(relaxed = true)
+        sut.enqueue("{}", configuration, authorization, null, callbackA)
+        sut.enqueue("{}", configuration, authorization, null, callbackB)
+        scheduledTasks.forEach { it.run() }
+
+        val error = Exception("network error")
+        sentRequests[0].callback.onResult(null, error)
+
+        verify { callbackA.onResult(null, error) }
+        verify { callbackB.onResult(null, error) }
+    }
+
+    @Test
+    fun flush_skipsCanceledOperations() {
+        val canceledCall = HttpCall().apply { cancel() }
+        val callback = mockk<NetworkResponseCallback>(relaxed = true)
+        sut.enqueue("{\"query\":\"a\"}", configuration, authorization, canceledCall, callback)
+        sut.enqueue("{\"query\":\"b\"}", configuration, authorization, null, callback)
+        scheduledTasks.forEach { it.run() }
+
+        assertEquals(1, sentRequests.size)
+        assertEquals("{\"query\":\"b\"}", sentRequests[0].data)
+    }
+
+    @Test
+    fun flush_whenBatchWasAlreadySentBecauseItFilledUp_doesNotFlushNewerBatch() {
+        val callback = mockk<NetworkResponseCallback>(relaxed = true)
+        repeat(3) { sut.enqueue("{}", configuration, authorization, null, callback) }
+        sut.enqueue("{\"query\":\"d\"}", configuration, authorization, null, callback)
+        assertEquals(1, sentRequests.size)
+
+        scheduledTasks[0].run()
+        assertEquals(1, sentRequests.size)
+
+        scheduledTasks[1].run()
+        assertEquals(2, sentRequests.size)
+        assertEquals("{\"query\":\"d\"}", sentRequests[1].data)
+    }
+
+    @Test
+    fun batchedRequest_isCanceledOnceEveryOperationIsCanceled() {
+        val callA = HttpCall()
+        val callB = HttpCall()
+        val callback = mockk<NetworkResponseCallback>(relaxed = true)
+        sut.enqueue("{}", configuration, authorization, callA, callback)
+        sut.enqueue("{}", configuration, authorization, callB, callback)
+        scheduledTasks.forEach { it.run() }
+        val batchCall = sentRequests[0].httpCall!!
+
+        callA.cancel()
+        assertFalse(batchCall.isCanceled)
+
+        callB.cancel()
+        assertTrue(batchCall.isCanceled)
+    }
+}
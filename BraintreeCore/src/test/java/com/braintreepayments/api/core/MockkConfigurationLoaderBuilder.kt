@@ -20,8 +20,8 @@ internal class MockkConfigurationLoaderBuilder {
 
     fun build(): ConfigurationLoader {
         val configurationLoader = mockk<ConfigurationLoader>(relaxed = true)
-        every { configurationLoader.loadConfiguration(any()) } answers {
-            val callback = firstArg<ConfigurationLoaderCallback>()
+        every { configurationLoader.loadConfiguration(any(), any()) } answers {
+            val callback = secondArg<ConfigurationLoaderCallback>()
             configuration?.let {
                 callback.onResult(ConfigurationLoaderResult.Success(it))
             } ?: run {
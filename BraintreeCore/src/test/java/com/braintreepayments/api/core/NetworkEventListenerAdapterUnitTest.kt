@@ -0,0 +1,93 @@
+package com.braintreepayments.api.core
+
+import com.braintreepayments.api.sharedutils.HttpFailureType
+import com.braintreepayments.api.sharedutils.HttpRequest
+import com.braintreepayments.api.sharedutils.HttpResponse
+import com.braintreepayments.api.sharedutils.HttpResponseTiming
+import io.mockk.mockk
+import io.mockk.slot
+import io.mockk.verify
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.net.SocketTimeoutException
+
+class NetworkEventListenerAdapterUnitTest {
+
+    private val listener = mockk<NetworkEventListener>(relaxed = true)
+    private val request = HttpRequest()
+        .method("POST")
+        .baseUrl("https://api.example.com")
+        .path("/merchants/abc123/client_api/v1/payment_methods")
+
+    private val sut = NetworkEventListenerAdapter(listener)
+
+    @Test
+    fun onRequestEnqueued_reportsMethodHostAndNormalizedPath() {
+        sut.onRequestEnqueued(request)
+
+        assertEquals(
+            NetworkEvent(
+                phase = NetworkEvent.Phase.ENQUEUED,
+                method = "POST",
+                host = "api.example.com",
+                path = "/v1/payment_methods"
+            ),
+            captureEvent()
+        )
+    }
+
+    @Test
+    fun onResponseParsed_reportsStatusCodeAndPhaseTimings() {
+        val timing = HttpResponseTiming(
+            startTime = 1,
+            endTime = 100,
+            connectDuration = 10,
+            requestWriteDuration = 20,
+            timeToFirstByte = 30,
+            responseReadDuration = 40,
+            queueWaitDuration = 50
+        )
+
+        sut.onResponseParsed(request, 201, HttpResponse("{}", timing))
+
+        val event = captureEvent()
+        assertEquals(NetworkEvent.Phase.RESPONSE_PARSED, event.phase)
+        assertEquals(201, event.statusCode)
+        assertEquals(10L, event.connectDurationMillis)
+        assertEquals(20L, event.requestWriteDurationMillis)
+        assertEquals(30L, event.timeToFirstByteMillis)
+        assertEquals(40L, event.responseReadDurationMillis)
+        assertEquals(50L, event.queueWaitDurationMillis)
+    }
+
+    @Test
+    fun onRequestFailed_reportsFailureType() {
+        sut.onRequestFailed(request, SocketTimeoutException(), HttpFailureType.TIMEOUT)
+
+        val event = captureEvent()
+        assertEquals(NetworkEvent.Phase.FAILED, event.phase)
+        assertEquals(NetworkEvent.FailureType.TIMEOUT, event.failureType)
+    }
+
+    @Test
+    fun onRetryScheduled_reportsRetryCount() {
+        sut.onRetryScheduled(request, 2)
+
+        val event = captureEvent()
+        assertEquals(NetworkEvent.Phase.RETRY_SCHEDULED, event.phase)
+        assertEquals(2, event.retryCount)
+    }
+
+    @Test
+    fun failureType_coversEveryHttpFailureType() {
+        HttpFailureType.values().forEach {
+            assertEquals(it.name, NetworkEvent.FailureType.valueOf(it.name).name)
+        }
+    }
+
+    private fun captureEvent(): NetworkEvent {
+        val event = slot<NetworkEvent>()
+        verify { listener.onNetworkEvent(capture(event)) }
+        return event.captured
+    }
+}
@@ -4,7 +4,9 @@ import android.os.Parcelable
 import android.text.TextUtils
 import androidx.annotation.RestrictTo
 import com.braintreepayments.api.core.BraintreeException
+import com.braintreepayments.api.core.ErrorWithResponse
 import com.braintreepayments.api.core.GraphQLConstants
+import com.braintreepayments.api.core.GraphQLPersistedQuery
 import com.braintreepayments.api.core.IntegrationType
 import com.braintreepayments.api.core.MetadataBuilder
 import com.braintreepayments.api.core.PaymentMethod
@@ -12,6 +14,7 @@ import com.braintreepayments.api.core.PaymentMethod.Companion.DEFAULT_SOURCE
 import com.braintreepayments.api.core.PaymentMethod.Companion.OPERATION_NAME_KEY
 import com.braintreepayments.api.core.PaymentMethod.Companion.OPTIONS_KEY
 import com.braintreepayments.api.core.PaymentMethod.Companion.VALIDATE_KEY
+import com.braintreepayments.api.sharedutils.JsonBodyWriter
 import kotlinx.parcelize.Parcelize
 import org.json.JSONException
 import org.json.JSONObject
@@ -47,6 +50,8 @@ import org.json.JSONObject
  * @property source The source associated with the tokenization call for analytics use. Set automatically.
  * @property integration The integration method associated with the tokenization call for analytics use.
  * Defaults to custom and does not need to ever be set.
+ * @property responseProfile The card details returned in the resulting [CardNonce] when tokenizing
+ * through GraphQL. Defaults to [CardResponseProfile.FULL].
  */
 @Parcelize
 data class Card @JvmOverloads constructor(
@@ -69,7 +74,8 @@ data class Card @JvmOverloads constructor(
     var streetAddress: String? = null,
     override var sessionId: String? = null,
     override var source: String? = DEFAULT_SOURCE,
-    override var integration: IntegrationType? = IntegrationType.CUSTOM
+    override var integration: IntegrationType? = IntegrationType.CUSTOM,
+    var responseProfile: CardResponseProfile = CardResponseProfile.FULL
 ) : PaymentMethod, Parcelable {
 
     companion object {
@@ -94,6 +100,32 @@ data class Card @JvmOverloads constructor(
         private const val MERCHANT_ACCOUNT_ID_KEY = "merchantAccountId"
         private const val AUTHENTICATION_INSIGHT_REQUESTED_KEY = "authenticationInsight"
         private const val AUTHENTICATION_INSIGHT_INPUT_KEY = "authenticationInsightInput"
+
+        // one persisted document per profile, so each can be sent by its hash
+        private val TOKENIZE_CREDIT_CARD_MUTATIONS = CardResponseProfile.values().associateWith {
+            GraphQLPersistedQuery(
+                "mutation TokenizeCreditCard(\$input: TokenizeCreditCardInput!) {" +
+                    "  tokenizeCreditCard(input: \$input) {" +
+                    it.creditCardSelection +
+                    "  }" +
+                    "}"
+            )
+        }
+
+        private val TOKENIZE_CREDIT_CARD_WITH_AUTH_INSIGHT_MUTATIONS =
+            CardResponseProfile.values().associateWith {
+                GraphQLPersistedQuery(
+                    "mutation TokenizeCreditCard(\$input: TokenizeCreditCardInput!, " +
+                        "\$authenticationInsightInput: AuthenticationInsightInput!) {" +
+                        "  tokenizeCreditCard(input: \$input) {" +
+                        it.creditCardSelection +
+                        "    authenticationInsight(input: \$authenticationInsightInput) {" +
+                        "      customerAuthenticationRegulationEnvironment" +
+                        "    }" +
+                        "  }" +
+                        "}"
+                )
+            }
     }
 
     private fun buildMetadataJSON(): JSONObject {
@@ -159,6 +191,19 @@ data class Card @JvmOverloads constructor(
         }
     }
 
+    /**
+     * Checks this card on-device for input the gateway would reject: an invalid card number (Luhn
+     * check, except for UnionPay, and length for the detected [CardBrand]), a missing or past
+     * expiration date, and a CVV of the wrong length for the brand.
+     *
+     * Errors use the same `creditCard` field names and codes as the gateway's validation errors,
+     * so they can be handled like any other [ErrorWithResponse].
+     *
+     * @return an [ErrorWithResponse] describing each invalid field, or null if no problems were
+     * found
+     */
+    fun validate(): ErrorWithResponse? = CardValidator().validate(this)
+
     /**
      * @hide
      */
@@ -205,59 +250,59 @@ data class Card @JvmOverloads constructor(
         }
     }
 
-    @get:RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
-    override val apiPath: String
-        get() = "credit_cards"
-
-    private val cardTokenizationGraphQLMutation: String
-        get() {
-            val stringBuilder = StringBuilder()
-            stringBuilder.append("mutation TokenizeCreditCard(\$input: TokenizeCreditCardInput!")
+    /**
+     * Streams the same members as [buildJSON] without building the intermediate tree.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    @Throws(JSONException::class)
+    override fun writeJSONFields(writer: JsonBodyWriter) {
+        writer.name(MetadataBuilder.META_KEY).value(buildMetadataJSON())
 
-            if (isAuthenticationInsightRequested) {
-                stringBuilder.append(", \$authenticationInsightInput: AuthenticationInsightInput!")
-            }
+        writer.name(CREDIT_CARD_KEY).beginObject()
+            .putOpt(NUMBER_KEY, number)
+            .putOpt(CVV_KEY, cvv)
+            .putOpt(EXPIRATION_MONTH_KEY, expirationMonth)
+            .putOpt(EXPIRATION_YEAR_KEY, expirationYear)
+            .putOpt(CARDHOLDER_NAME_KEY, cardholderName)
+        writer.name(OPTIONS_KEY).beginObject()
+            .name(VALIDATE_KEY).value(shouldValidate)
+            .endObject()
 
-            stringBuilder.append(
-                ") {" +
-                        "  tokenizeCreditCard(input: \$input) {" +
-                        "    token" +
-                        "    creditCard {" +
-                        "      bin" +
-                        "      brand" +
-                        "      expirationMonth" +
-                        "      expirationYear" +
-                        "      cardholderName" +
-                        "      last4" +
-                        "      binData {" +
-                        "        prepaid" +
-                        "        healthcare" +
-                        "        debit" +
-                        "        durbinRegulated" +
-                        "        commercial" +
-                        "        payroll" +
-                        "        issuingBank" +
-                        "        countryOfIssuance" +
-                        "        productId" +
-                        "      }" +
-                        "    }"
-            )
+        val hasBillingAddress = listOf(
+            firstName, lastName, company, locality, postalCode, region, streetAddress,
+            extendedAddress, countryCode
+        ).any { it != null }
+        if (hasBillingAddress) {
+            writer.name(BILLING_ADDRESS_KEY).beginObject()
+                .putOpt(FIRST_NAME_KEY, firstName)
+                .putOpt(LAST_NAME_KEY, lastName)
+                .putOpt(COMPANY_KEY, company)
+                .putOpt(LOCALITY_KEY, locality)
+                .putOpt(POSTAL_CODE_KEY, postalCode)
+                .putOpt(REGION_KEY, region)
+                .putOpt(STREET_ADDRESS_KEY, streetAddress)
+                .putOpt(EXTENDED_ADDRESS_KEY, extendedAddress)
+                .putOpt(COUNTRY_CODE_ALPHA3_KEY, countryCode)
+                .endObject()
+        }
+        writer.endObject()
 
-            if (isAuthenticationInsightRequested) {
-                stringBuilder.append(
-                    "" +
-                            "    authenticationInsight(input: \$authenticationInsightInput) {" +
-                            "      customerAuthenticationRegulationEnvironment" +
-                            "    }"
-                )
-            }
+        if (isAuthenticationInsightRequested) {
+            writer.putOpt(MERCHANT_ACCOUNT_ID_KEY, merchantAccountId)
+            writer.name(AUTHENTICATION_INSIGHT_REQUESTED_KEY).value(true)
+        }
+    }
 
-            stringBuilder.append(
-                "" +
-                        "  }" +
-                        "}"
-            )
+    @get:RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    override val apiPath: String
+        get() = "credit_cards"
 
-            return stringBuilder.toString()
+    private val cardTokenizationGraphQLMutation: String
+        get() = if (isAuthenticationInsightRequested) {
+            TOKENIZE_CREDIT_CARD_WITH_AUTH_INSIGHT_MUTATIONS.getValue(responseProfile).query
+        } else {
+            TOKENIZE_CREDIT_CARD_MUTATIONS.getValue(responseProfile).query
         }
 }
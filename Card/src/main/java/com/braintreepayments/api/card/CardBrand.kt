@@ -0,0 +1,90 @@
+package com.braintreepayments.api.card
+
+/**
+ * Card networks that can be recognized from the leading digits of a card number by
+ * [CardBrandDetector].
+ *
+ * @property supportedCardType the name used for this brand in the merchant's supported card types
+ * @property minLength the shortest valid card number for this brand
+ * @property maxLength the longest valid card number for this brand
+ * @property cvvLength the number of digits in this brand's security code
+ */
+enum class CardBrand(
+    val supportedCardType: String,
+    val minLength: Int,
+    val maxLength: Int,
+    val cvvLength: Int,
+    private val gapIndices: IntArray
+) {
+    /**
+     * Visa
+     */
+    VISA("Visa", 13, 19, 3, intArrayOf(4, 8, 12, 16)),
+
+    /**
+     * Mastercard
+     */
+    MASTERCARD("MasterCard", 16, 16, 3, intArrayOf(4, 8, 12)),
+
+    /**
+     * American Express
+     */
+    AMERICAN_EXPRESS("American Express", 15, 15, 4, intArrayOf(4, 10)),
+
+    /**
+     * Discover
+     */
+    DISCOVER("Discover", 16, 19, 3, intArrayOf(4, 8, 12, 16)),
+
+    /**
+     * JCB
+     */
+    JCB("JCB", 16, 19, 3, intArrayOf(4, 8, 12, 16)),
+
+    /**
+     * Diners Club
+     */
+    DINERS_CLUB("Diners Club", 14, 19, 3, intArrayOf(4, 10)),
+
+    /**
+     * Maestro
+     */
+    MAESTRO("Maestro", 12, 19, 3, intArrayOf(4, 8, 12, 16)),
+
+    /**
+     * UnionPay
+     */
+    UNIONPAY("UnionPay", 16, 19, 3, intArrayOf(4, 8, 12, 16));
+
+    /**
+     * @return true if a card number with [length] digits can be valid for this brand
+     */
+    fun isValidLength(length: Int): Boolean = length in minLength..maxLength
+
+    /**
+     * Groups the digits of [cardNumber] the way they are printed on cards of this brand, e.g.
+     * `3782 822463 10005` for American Express. Characters other than digits are dropped.
+     */
+    fun format(cardNumber: String): String {
+        val formatted = StringBuilder(maxLength + gapIndices.size)
+        var digits = 0
+        for (c in cardNumber) {
+            if (c !in '0'..'9') continue
+            if (digits > 0 && digits in gapIndices) formatted.append(' ')
+            formatted.append(c)
+            digits++
+        }
+        return formatted.toString()
+    }
+
+    companion object {
+
+        /**
+         * @return the [CardBrand] named [supportedCardType] in a merchant's supported card types,
+         * or null if the name is not recognized
+         */
+        @JvmStatic
+        fun fromSupportedCardType(supportedCardType: String): CardBrand? =
+            values().firstOrNull { it.supportedCardType.equals(supportedCardType, true) }
+    }
+}
@@ -0,0 +1,133 @@
+package com.braintreepayments.api.card
+
+/**
+ * Detects the [CardBrand] of a card number on-device from its issuer identification number (IIN)
+ * prefix, so that brand-specific formatting and validation can be applied as the number is typed,
+ * before anything is sent to Braintree.
+ *
+ * Lookups walk a digit trie of the known IIN ranges. They take time proportional to the number of
+ * digits read and do not allocate.
+ *
+ * @param supportedCardTypes the merchant's supported card types, as returned in the Braintree
+ * configuration. Brands that are not in this list are never detected. When null, all brands are
+ * detected.
+ */
+class CardBrandDetector @JvmOverloads constructor(supportedCardTypes: List<String>? = null) {
+
+    private val enabledBrands = BooleanArray(BRANDS.size) { supportedCardTypes == null }
+
+    init {
+        supportedCardTypes?.forEach { name ->
+            CardBrand.fromSupportedCardType(name)?.let { enabledBrands[it.ordinal] = true }
+        }
+    }
+
+    /**
+     * Returns the brand of [cardNumber], which may be partially entered. Spaces and dashes are
+     * ignored.
+     *
+     * @return the detected brand, or null if the digits entered so far do not identify a supported
+     * brand or [cardNumber] contains any other character
+     */
+    fun detect(cardNumber: CharSequence): CardBrand? {
+        var node = ROOT
+        var brandOrdinal = NO_BRAND
+        // indexed loop; iterating the CharSequence directly would allocate an iterator
+        for (i in 0 until cardNumber.length) {
+            val c = cardNumber[i]
+            if (c == ' ' || c == '-') continue
+            if (c !in '0'..'9') return null
+            // past the deepest known prefix, the rest of the number is only checked for digits
+            if (node == NO_NODE) continue
+            node = IinTrie.children[node * RADIX + (c - '0')]
+            // the deepest matching prefix wins, e.g. 6011 (Discover) over 60 (no brand)
+            if (node != NO_NODE && IinTrie.brands[node] != NO_BRAND) {
+                brandOrdinal = IinTrie.brands[node]
+            }
+        }
+        if (brandOrdinal == NO_BRAND || !enabledBrands[brandOrdinal]) return null
+        return BRANDS[brandOrdinal]
+    }
+
+    /**
+     * @return true if [brand] is one of the brands this detector recognizes
+     */
+    fun isSupported(brand: CardBrand): Boolean = enabledBrands[brand.ordinal]
+
+    /**
+     * Digit trie of IIN prefixes, shared by every detector. Node `n`'s child for digit `d` is at
+     * `children[n * 10 + d]`.
+     */
+    private object IinTrie {
+
+        var children = IntArray(INITIAL_NODES * RADIX) { NO_NODE }
+            private set
+        var brands = IntArray(INITIAL_NODES) { NO_BRAND }
+            private set
+        private var nodeCount = 1
+
+        init {
+            addRange(CardBrand.VISA, 4, 4)
+            addRange(CardBrand.MASTERCARD, 51, 55)
+            addRange(CardBrand.MASTERCARD, 2221, 2720)
+            addRange(CardBrand.AMERICAN_EXPRESS, 34, 34)
+            addRange(CardBrand.AMERICAN_EXPRESS, 37, 37)
+            addRange(CardBrand.DISCOVER, 6011, 6011)
+            addRange(CardBrand.DISCOVER, 644, 649)
+            addRange(CardBrand.DISCOVER, 65, 65)
+            addRange(CardBrand.JCB, 3528, 3589)
+            addRange(CardBrand.DINERS_CLUB, 300, 305)
+            addRange(CardBrand.DINERS_CLUB, 309, 309)
+            addRange(CardBrand.DINERS_CLUB, 36, 36)
+            addRange(CardBrand.DINERS_CLUB, 38, 39)
+            addRange(CardBrand.MAESTRO, 50, 50)
+            addRange(CardBrand.MAESTRO, 56, 58)
+            addRange(CardBrand.MAESTRO, 6304, 6304)
+            addRange(CardBrand.MAESTRO, 6759, 6759)
+            addRange(CardBrand.MAESTRO, 6761, 6763)
+            addRange(CardBrand.UNIONPAY, 62, 62)
+            addRange(CardBrand.UNIONPAY, 81, 81)
+        }
+
+        /**
+         * Adds every prefix from [low] to [high], which must have the same number of digits.
+         */
+        private fun addRange(brand: CardBrand, low: Int, high: Int) {
+            for (prefix in low..high) {
+                var node = ROOT
+                for (digit in prefix.toString()) {
+                    val index = node * RADIX + (digit - '0')
+                    if (children[index] == NO_NODE) {
+                        // allocate first; newNode() may replace the children array
+                        val child = newNode()
+                        children[index] = child
+                    }
+                    node = children[index]
+                }
+                brands[node] = brand.ordinal
+            }
+        }
+
+        private fun newNode(): Int {
+            if (nodeCount == brands.size) {
+                val capacity = brands.size * 2
+                children = children.copyOf(capacity * RADIX)
+                children.fill(NO_NODE, nodeCount * RADIX)
+                brands = brands.copyOf(capacity)
+                brands.fill(NO_BRAND, nodeCount)
+            }
+            return nodeCount++
+        }
+    }
+
+    private companion object {
+        const val RADIX = 10
+        const val ROOT = 0
+        const val NO_NODE = -1
+        const val NO_BRAND = -1
+        const val INITIAL_NODES = 256
+
+        // cached because values() copies the array on every call
+        val BRANDS = CardBrand.values()
+    }
+}
@@ -0,0 +1,118 @@
+package com.braintreepayments.api.card
+
+import com.braintreepayments.api.core.BraintreeException
+import com.braintreepayments.api.core.GraphQLConstants
+import com.braintreepayments.api.core.PaymentMethod.Companion.OPERATION_NAME_KEY
+import org.json.JSONException
+import org.json.JSONObject
+
+/**
+ * Builds and parses a single GraphQL document that tokenizes several cards through aliased
+ * `tokenizeCreditCard` mutations (`card0`, `card1`, ...).
+ */
+internal object CardBulkTokenization {
+
+    /**
+     * Upper bound on the number of cards tokenized by one GraphQL document.
+     */
+    const val MAX_CARDS_PER_DOCUMENT = 10
+
+    private const val OPERATION_NAME = "TokenizeCreditCards"
+    private const val ALIAS_PREFIX = "card"
+    private const val INPUT_VARIABLE = "input"
+    private const val AUTHENTICATION_INSIGHT_VARIABLE = "authenticationInsightInput"
+    private const val CLIENT_SDK_METADATA_KEY = "clientSdkMetadata"
+    private const val DATA_KEY = "data"
+    private const val TOKENIZE_CREDIT_CARD_KEY = "tokenizeCreditCard"
+
+    /**
+     * Builds the request body for tokenizing [cards] in one document.
+     *
+     * @throws BraintreeException if any card cannot be tokenized through GraphQL
+     */
+    @Throws(BraintreeException::class, JSONException::class)
+    fun buildPayload(cards: List<Card>): JSONObject {
+        val variables = JSONObject()
+        val definitions = StringBuilder()
+        val selections = StringBuilder()
+        var metadata: JSONObject? = null
+
+        cards.forEachIndexed { index, card ->
+            val cardPayload = card.buildJSONForGraphQL()
+            val cardVariables = cardPayload.getJSONObject(GraphQLConstants.Keys.VARIABLES)
+            metadata = metadata ?: cardPayload.optJSONObject(CLIENT_SDK_METADATA_KEY)
+
+            val inputVariable = "$INPUT_VARIABLE$index"
+            variables.put(inputVariable, cardVariables.get(GraphQLConstants.Keys.INPUT))
+            if (index > 0) definitions.append(", ")
+            definitions.append("\$$inputVariable: TokenizeCreditCardInput!")
+
+            selections.append("  ${alias(index)}: tokenizeCreditCard(input: \$$inputVariable) {")
+            selections.append(card.responseProfile.creditCardSelection)
+
+            val insightInput = cardVariables.optJSONObject(AUTHENTICATION_INSIGHT_VARIABLE)
+            if (insightInput != null) {
+                val insightVariable = "$AUTHENTICATION_INSIGHT_VARIABLE$index"
+                variables.put(insightVariable, insightInput)
+                definitions.append(", \$$insightVariable: AuthenticationInsightInput!")
+                selections.append(
+                    "    authenticationInsight(input: \$$insightVariable) {" +
+                        "      customerAuthenticationRegulationEnvironment" +
+                        "    }"
+                )
+            }
+            selections.append("  }")
+        }
+
+        val query = "mutation $OPERATION_NAME($definitions) {$selections}"
+        return JSONObject().apply {
+            putOpt(CLIENT_SDK_METADATA_KEY, metadata)
+            put(GraphQLConstants.Keys.QUERY, query)
+            put(OPERATION_NAME_KEY, OPERATION_NAME)
+            put(GraphQLConstants.Keys.VARIABLES, variables)
+        }
+    }
+
+    /**
+     * Splits a response to a document built by [buildPayload] into one [CardResult] per card.
+     */
+    fun parseResults(response: JSONObject, cardCount: Int): List<CardResult> {
+        val data = response.optJSONObject(DATA_KEY)
+        return List(cardCount) { index ->
+            parseResult(data, index) ?: CardResult.Failure(
+                BraintreeException("Missing tokenization result for card at index $index")
+            )
+        }
+    }
+
+    /**
+     * Parses the `data` of an error response to a document built by [buildPayload], in which
+     * some of the aliased mutations may still have succeeded.
+     *
+     * @return one entry per card, `null` for cards without a tokenization result
+     */
+    fun parsePartialResults(errorResponse: String, cardCount: Int): List<CardResult?> {
+        val data = try {
+            JSONObject(errorResponse).optJSONObject(DATA_KEY)
+        } catch (ignored: JSONException) {
+            null
+        }
+        return List(cardCount) { index -> parseResult(data, index) }
+    }
+
+    private fun parseResult(data: JSONObject?, index: Int): CardResult? {
+        val payload = data?.optJSONObject(alias(index)) ?: return null
+        return try {
+            // reshape into a single-card response so the regular parser can be reused
+            val cardResponse = JSONObject().put(
+                DATA_KEY,
+                JSONObject().put(TOKENIZE_CREDIT_CARD_KEY, payload)
+            )
+            CardResult.Success(CardNonce.fromJSON(cardResponse))
+        } catch (e: JSONException) {
+            CardResult.Failure(e)
+        }
+    }
+
+    private fun alias(index: Int) = "$ALIAS_PREFIX$index"
+}
@@ -1,15 +1,21 @@
 package com.braintreepayments.api.card
 
 import android.content.Context
+import androidx.annotation.RestrictTo
 import com.braintreepayments.api.card.CardNonce.Companion.fromJSON
 import com.braintreepayments.api.core.AnalyticsParamRepository
 import com.braintreepayments.api.core.ApiClient
 import com.braintreepayments.api.core.BraintreeClient
 import com.braintreepayments.api.core.BraintreeException
 import com.braintreepayments.api.core.Configuration
+import com.braintreepayments.api.core.ErrorWithResponse
 import com.braintreepayments.api.core.GraphQLConstants
+import com.braintreepayments.api.sharedutils.HttpCall
+import kotlinx.coroutines.suspendCancellableCoroutine
 import org.json.JSONException
 import org.json.JSONObject
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.coroutines.resume
 
 /**
  * Used to tokenize credit or debit cards using a [Card]. For more information see the
@@ -34,6 +40,29 @@ class CardClient internal constructor(
         )
     )
 
+    /**
+     * Initializes a new [CardClient] instance that shares an existing [BraintreeClient], so that
+     * other payment method clients can tokenize cards as part of their own flow.
+     *
+     * @param braintreeClient the [BraintreeClient] used by the calling client
+     * @suppress
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    constructor(braintreeClient: BraintreeClient) : this(
+        braintreeClient,
+        ApiClient(braintreeClient)
+    )
+
+    /**
+     * When enabled, [tokenize] and [tokenizeAll] check each [Card] with [Card.validate], along with
+     * the merchant's CVV and postal code challenges, before making any tokenization request. A card
+     * that fails these checks is reported as a [CardResult.Failure] with the resulting
+     * [ErrorWithResponse] instead of being sent to the gateway. Defaults to false.
+     */
+    var isPreflightValidationEnabled: Boolean = false
+
+    private val cardValidator = CardValidator()
+
     /**
      * Create a [CardNonce].
      *
@@ -61,13 +90,50 @@ class CardClient internal constructor(
      * @param callback [CardTokenizeCallback]
      */
     fun tokenize(card: Card, callback: CardTokenizeCallback) {
+        tokenize(card, HttpCall(), callback)
+    }
+
+    private fun tokenize(card: Card, httpCall: HttpCall, callback: CardTokenizeCallback) {
         analyticsParamRepository.resetSessionId()
+        tokenizeInCurrentSession(card, httpCall, callback)
+    }
+
+    /**
+     * Variant of [tokenize] that keeps the current analytics session instead of starting a new
+     * one, for flows that tokenize a card as one step of a session they have already started.
+     *
+     * @param card     [Card]
+     * @param callback [CardTokenizeCallback]
+     * @suppress
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    fun tokenizeInCurrentSession(card: Card, callback: CardTokenizeCallback) =
+        tokenizeInCurrentSession(card, HttpCall(), callback)
+
+    /**
+     * Variant of [tokenizeInCurrentSession] that can be canceled. Canceling [httpCall] cancels the
+     * configuration fetch and tokenization request that are in flight, and [callback] is not
+     * invoked afterwards.
+     *
+     * @param card     [Card]
+     * @param httpCall handle used to cancel tokenization
+     * @param callback [CardTokenizeCallback]
+     * @suppress
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    fun tokenizeInCurrentSession(card: Card, httpCall: HttpCall, callback: CardTokenizeCallback) {
         braintreeClient.sendAnalyticsEvent(CardAnalytics.CARD_TOKENIZE_STARTED)
-        braintreeClient.getConfiguration { configuration: Configuration?, error: Exception? ->
+        braintreeClient.getConfiguration(
+            httpCall
+        ) { configuration: Configuration?, error: Exception? ->
             if (error != null) {
                 callbackFailure(callback, CardResult.Failure(error))
                 return@getConfiguration
             }
+            preflightError(card, configuration)?.let { validationError ->
+                callbackFailure(callback, CardResult.Failure(validationError))
+                return@getConfiguration
+            }
             val shouldTokenizeViaGraphQL =
                 configuration?.isGraphQLFeatureEnabled(
                     GraphQLConstants.Features.TOKENIZE_CREDIT_CARDS
@@ -78,30 +144,251 @@ class CardClient internal constructor(
                 card.sessionId = analyticsParamRepository.sessionId
                 try {
                     val tokenizePayload = card.buildJSONForGraphQL()
-                    apiClient.tokenizeGraphQL(
+                    httpCall.link(apiClient.tokenizeGraphQL(
                         tokenizePayload
                     ) { tokenizationResponse: JSONObject?, exception: Exception? ->
                         handleTokenizeResponse(
                             tokenizationResponse, exception, callback
                         )
-                    }
+                    })
                 } catch (e: BraintreeException) {
                     callbackFailure(callback, CardResult.Failure(e))
                 } catch (e: JSONException) {
                     callbackFailure(callback, CardResult.Failure(e))
                 }
             } else {
-                apiClient.tokenizeREST(
+                httpCall.link(apiClient.tokenizeREST(
                     card
                 ) { tokenizationResponse: JSONObject?, exception: Exception? ->
                     handleTokenizeResponse(
                         tokenizationResponse, exception, callback
                     )
+                })
+            }
+        }
+    }
+
+    /**
+     * Suspending variant of [tokenize]. Cancelling the calling coroutine cancels the configuration
+     * fetch and tokenization request that are in flight, so calling it from a lifecycle-bound scope
+     * such as `lifecycleScope` abandons tokenization when the screen is destroyed.
+     *
+     * @param card [Card]
+     * @return a [CardResult] containing a [CardNonce] or an [Exception]
+     */
+    suspend fun tokenize(card: Card): CardResult = suspendCancellableCoroutine { continuation ->
+        val httpCall = HttpCall()
+        continuation.invokeOnCancellation { httpCall.cancel() }
+        tokenize(card, httpCall) { cardResult -> continuation.resume(cardResult) }
+    }
+
+    /**
+     * Create a [CardNonce] for each of [cards] with a single configuration fetch and session.
+     *
+     * When GraphQL tokenization is enabled, cards are tokenized in chunks of up to
+     * [CardBulkTokenization.MAX_CARDS_PER_DOCUMENT] per request. If a chunk is rejected with an
+     * [ErrorWithResponse], its cards are retried one at a time so that validation errors are
+     * reported for the card that caused them. Otherwise, cards are tokenized through parallel
+     * REST requests.
+     *
+     * @param cards    the cards to tokenize
+     * @param callback [CardTokenizeAllCallback] that receives one [CardResult] per card, in the
+     * same order as [cards]
+     */
+    fun tokenizeAll(cards: List<Card>, callback: CardTokenizeAllCallback) {
+        tokenizeAll(cards, HttpCall(), callback)
+    }
+
+    private fun tokenizeAll(
+        cards: List<Card>,
+        httpCall: HttpCall,
+        callback: CardTokenizeAllCallback
+    ) {
+        if (cards.isEmpty()) {
+            callback.onCardResults(emptyList())
+            return
+        }
+
+        analyticsParamRepository.resetSessionId()
+        braintreeClient.sendAnalyticsEvent(CardAnalytics.CARD_TOKENIZE_STARTED)
+        val collector = CardResultCollector(cards.size) { results ->
+            val allSucceeded = results.all { it is CardResult.Success }
+            braintreeClient.sendAnalyticsEvent(
+                if (allSucceeded) {
+                    CardAnalytics.CARD_TOKENIZE_SUCCEEDED
+                } else {
+                    CardAnalytics.CARD_TOKENIZE_FAILED
                 }
+            )
+            callback.onCardResults(results)
+        }
+
+        braintreeClient.getConfiguration(
+            httpCall
+        ) { configuration: Configuration?, error: Exception? ->
+            if (error != null) {
+                cards.indices.forEach { collector.onResult(it, CardResult.Failure(error)) }
+                return@getConfiguration
+            }
+            val shouldTokenizeViaGraphQL = configuration?.isGraphQLFeatureEnabled(
+                GraphQLConstants.Features.TOKENIZE_CREDIT_CARDS
+            ) ?: false
+
+            val validIndices = cards.indices.filter { index ->
+                val validationError = preflightError(cards[index], configuration)
+                validationError?.let { collector.onResult(index, CardResult.Failure(it)) }
+                validationError == null
+            }
+            if (shouldTokenizeViaGraphQL) {
+                cards.forEach { it.sessionId = analyticsParamRepository.sessionId }
+                validIndices.chunked(CardBulkTokenization.MAX_CARDS_PER_DOCUMENT)
+                    .forEach { chunk -> tokenizeChunkGraphQL(cards, chunk, httpCall, collector) }
+            } else {
+                forEachWithConcurrencyLimit(validIndices) { index, onComplete ->
+                    httpCall.link(
+                        apiClient.tokenizeREST(cards[index]) { tokenizationResponse, exception ->
+                            collector.onResult(
+                                index,
+                                toCardResult(tokenizationResponse, exception)
+                            )
+                            onComplete()
+                        }
+                    )
+                }
+            }
+        }
+    }
+
+    /**
+     * Suspending variant of [tokenizeAll]. Cancelling the calling coroutine cancels the
+     * configuration fetch and every tokenization request that is in flight, and no further
+     * requests are sent.
+     *
+     * @param cards the cards to tokenize
+     * @return one [CardResult] per card, in the same order as [cards]
+     */
+    suspend fun tokenizeAll(cards: List<Card>): List<CardResult> =
+        suspendCancellableCoroutine { continuation ->
+            val httpCall = HttpCall()
+            continuation.invokeOnCancellation { httpCall.cancel() }
+            tokenizeAll(cards, httpCall) { cardResults -> continuation.resume(cardResults) }
+        }
+
+    private fun tokenizeChunkGraphQL(
+        cards: List<Card>,
+        chunk: List<Int>,
+        httpCall: HttpCall,
+        collector: CardResultCollector
+    ) {
+        val payload = try {
+            CardBulkTokenization.buildPayload(chunk.map { cards[it] })
+        } catch (e: BraintreeException) {
+            // one of the cards is invalid on its own; let each card report its own outcome
+            tokenizeEachGraphQL(cards, chunk, httpCall, collector)
+            return
+        } catch (e: JSONException) {
+            chunk.forEach { collector.onResult(it, CardResult.Failure(e)) }
+            return
+        }
+
+        val chunkCall = apiClient.tokenizeGraphQL(payload) { tokenizationResponse, exception ->
+            if (tokenizationResponse != null) {
+                CardBulkTokenization.parseResults(tokenizationResponse, chunk.size)
+                    .forEachIndexed { i, result -> collector.onResult(chunk[i], result) }
+            } else if (exception is ErrorWithResponse) {
+                // keep the cards that were tokenized and retry the others one by one, so that
+                // each failing card reports its own errors
+                val partialResults = exception.errorResponse
+                    ?.let { CardBulkTokenization.parsePartialResults(it, chunk.size) }
+                val failedIndices = chunk.filterIndexed { i, index ->
+                    val result = partialResults?.get(i)
+                    result?.let { collector.onResult(index, it) }
+                    result == null
+                }
+                tokenizeEachGraphQL(cards, failedIndices, httpCall, collector)
+            } else {
+                val error = exception ?: BraintreeException("Card tokenization failed")
+                chunk.forEach { collector.onResult(it, CardResult.Failure(error)) }
+            }
+        }
+        httpCall.link(chunkCall)
+    }
+
+    private fun tokenizeEachGraphQL(
+        cards: List<Card>,
+        indices: List<Int>,
+        httpCall: HttpCall,
+        collector: CardResultCollector
+    ) {
+        forEachWithConcurrencyLimit(indices) { index, onComplete ->
+            try {
+                httpCall.link(apiClient.tokenizeGraphQL(
+                    cards[index].buildJSONForGraphQL()
+                ) { tokenizationResponse, exception ->
+                    collector.onResult(index, toCardResult(tokenizationResponse, exception))
+                    onComplete()
+                })
+            } catch (e: BraintreeException) {
+                collector.onResult(index, CardResult.Failure(e))
+                onComplete()
+            } catch (e: JSONException) {
+                collector.onResult(index, CardResult.Failure(e))
+                onComplete()
             }
         }
     }
 
+    /**
+     * Runs [request] for each of [indices], with at most [MAX_CONCURRENT_REQUESTS] in flight.
+     * [request] must invoke its completion callback exactly once when the request has finished.
+     */
+    private fun forEachWithConcurrencyLimit(
+        indices: List<Int>,
+        request: (index: Int, onComplete: () -> Unit) -> Unit
+    ) {
+        val nextPosition = AtomicInteger(0)
+        fun startNext() {
+            val position = nextPosition.getAndIncrement()
+            if (position < indices.size) {
+                request(indices[position]) { startNext() }
+            }
+        }
+        repeat(minOf(MAX_CONCURRENT_REQUESTS, indices.size)) { startNext() }
+    }
+
+    private fun toCardResult(tokenizationResponse: JSONObject?, exception: Exception?): CardResult {
+        return if (tokenizationResponse != null) {
+            try {
+                CardResult.Success(fromJSON(tokenizationResponse))
+            } catch (e: JSONException) {
+                CardResult.Failure(e)
+            }
+        } else {
+            CardResult.Failure(exception ?: BraintreeException("Card tokenization failed"))
+        }
+    }
+
+    /**
+     * Gathers results that arrive out of order and delivers them once every card has one.
+     */
+    private class CardResultCollector(
+        cardCount: Int,
+        private val onComplete: (List<CardResult>) -> Unit
+    ) {
+        private val results = arrayOfNulls<CardResult>(cardCount)
+        private var remaining = cardCount
+
+        fun onResult(index: Int, result: CardResult) {
+            val completedResults = synchronized(this) {
+                if (results[index] != null) return
+                results[index] = result
+                remaining--
+                if (remaining == 0) results.map { it!! } else null
+            }
+            completedResults?.let(onComplete)
+        }
+    }
+
     private fun handleTokenizeResponse(
         tokenizationResponse: JSONObject?, exception: Exception?,
         callback: CardTokenizeCallback
@@ -118,6 +405,9 @@ class CardClient internal constructor(
         }
     }
 
+    private fun preflightError(card: Card, configuration: Configuration?): ErrorWithResponse? =
+        if (isPreflightValidationEnabled) cardValidator.validate(card, configuration) else null
+
     private fun callbackFailure(callback: CardTokenizeCallback, cardResult: CardResult) {
         braintreeClient.sendAnalyticsEvent(CardAnalytics.CARD_TOKENIZE_FAILED)
         callback.onCardResult(cardResult)
@@ -127,4 +417,13 @@ class CardClient internal constructor(
         braintreeClient.sendAnalyticsEvent(CardAnalytics.CARD_TOKENIZE_SUCCEEDED)
         callback.onCardResult(cardResult)
     }
+
+    companion object {
+
+        /**
+         * Upper bound on the number of single-card tokenization requests [tokenizeAll] keeps in
+         * flight at once.
+         */
+        internal const val MAX_CONCURRENT_REQUESTS = 4
+    }
 }
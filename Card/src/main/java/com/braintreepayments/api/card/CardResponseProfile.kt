@@ -0,0 +1,65 @@
+package com.braintreepayments.api.card
+
+/**
+ * Card details to request in a GraphQL card tokenization response. Smaller profiles transfer
+ * and parse less data. Fields that are not requested are left empty in the resulting
+ * [CardNonce]; for example [CardNonce.binData] reports every [BinType] as [BinType.Unknown] unless
+ * [FULL] is used.
+ *
+ * Profiles only apply when cards are tokenized through GraphQL. REST tokenization always returns
+ * every field.
+ */
+enum class CardResponseProfile(internal val creditCardSelection: String) {
+
+    /**
+     * Only the nonce, [CardNonce.cardType] and [CardNonce.lastFour] (and [CardNonce.lastTwo]).
+     */
+    MINIMAL(
+        "    token" +
+            "    creditCard {" +
+            "      brand" +
+            "      last4" +
+            "    }"
+    ),
+
+    /**
+     * Every card detail except [CardNonce.binData].
+     */
+    STANDARD(
+        "    token" +
+            "    creditCard {" +
+            "      bin" +
+            "      brand" +
+            "      expirationMonth" +
+            "      expirationYear" +
+            "      cardholderName" +
+            "      last4" +
+            "    }"
+    ),
+
+    /**
+     * Every card detail, including [CardNonce.binData]. This is the default.
+     */
+    FULL(
+        "    token" +
+            "    creditCard {" +
+            "      bin" +
+            "      brand" +
+            "      expirationMonth" +
+            "      expirationYear" +
+            "      cardholderName" +
+            "      last4" +
+            "      binData {" +
+            "        prepaid" +
+            "        healthcare" +
+            "        debit" +
+            "        durbinRegulated" +
+            "        commercial" +
+            "        payroll" +
+            "        issuingBank" +
+            "        countryOfIssuance" +
+            "        productId" +
+            "      }" +
+            "    }"
+    )
+}
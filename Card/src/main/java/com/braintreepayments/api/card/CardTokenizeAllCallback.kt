@@ -0,0 +1,13 @@
+package com.braintreepayments.api.card
+
+/**
+ * Callback for receiving results of [CardClient.tokenizeAll].
+ */
+fun interface CardTokenizeAllCallback {
+
+    /**
+     * @param cardResults one [CardResult] per card, in the order the cards were passed to
+     * [CardClient.tokenizeAll]
+     */
+    fun onCardResults(cardResults: List<CardResult>)
+}
@@ -0,0 +1,176 @@
+package com.braintreepayments.api.card
+
+import com.braintreepayments.api.core.BraintreeError
+import com.braintreepayments.api.core.Configuration
+import com.braintreepayments.api.core.ErrorWithResponse
+import com.braintreepayments.api.sharedutils.Time
+import java.util.Calendar
+
+/**
+ * Checks a [Card] on-device for errors that the gateway would otherwise reject with a 422, so
+ * that a tokenization request that is bound to fail is never sent.
+ *
+ * Errors are reported under a `creditCard` field, with the same field names and error codes the
+ * gateway uses, so callers can handle them exactly like an [ErrorWithResponse] from the gateway.
+ */
+internal class CardValidator(private val time: Time = Time()) {
+
+    /**
+     * @param configuration when provided, the merchant's CVV and postal code challenges are also
+     * checked
+     * @return an [ErrorWithResponse] describing every invalid field, or null if [card] is valid
+     */
+    fun validate(card: Card, configuration: Configuration? = null): ErrorWithResponse? {
+        val number = card.number?.filter { it != ' ' && it != '-' }.orEmpty()
+        val brand = if (number.isEmpty()) null else CardBrandDetector().detect(number)
+
+        val errors = mutableListOf<BraintreeError>()
+        // a card with only a CVV is a valid request to verify the CVV of a vaulted card
+        if (number.isNotEmpty()) {
+            validateNumber(number, brand)?.let { errors.add(it) }
+            errors.addAll(validateExpiration(card.expirationMonth, card.expirationYear))
+        }
+        validateCvv(card.cvv, brand, configuration)?.let { errors.add(it) }
+        validatePostalCode(card.postalCode, configuration)?.let { errors.add(it) }
+
+        if (errors.isEmpty()) return null
+        val billingAddressErrors = errors.filter { it.field == POSTAL_CODE_FIELD }
+        val creditCardErrors = errors.filter { it.field != POSTAL_CODE_FIELD }.toMutableList()
+        if (billingAddressErrors.isNotEmpty()) {
+            creditCardErrors.add(
+                BraintreeError.forField(BILLING_ADDRESS_FIELD, fieldErrors = billingAddressErrors)
+            )
+        }
+        return ErrorWithResponse.fromFieldErrors(
+            VALIDATION_ERROR_MESSAGE,
+            listOf(BraintreeError.forField(CREDIT_CARD_FIELD, fieldErrors = creditCardErrors))
+        )
+    }
+
+    private fun validateNumber(number: String, brand: CardBrand?): BraintreeError? {
+        val (message, code) = when {
+            number.any { it !in '0'..'9' } -> NUMBER_INVALID
+            number.length !in MIN_NUMBER_LENGTH..MAX_NUMBER_LENGTH -> NUMBER_LENGTH_INVALID
+            brand != null && !brand.isValidLength(number.length) -> NUMBER_LENGTH_INVALID
+            // some UnionPay cards are issued without a Luhn check digit
+            brand != CardBrand.UNIONPAY && !passesLuhnCheck(number) -> NUMBER_INVALID
+            else -> return null
+        }
+        return BraintreeError.forField(NUMBER_FIELD, message, code = code)
+    }
+
+    private fun validateExpiration(month: String?, year: String?): List<BraintreeError> {
+        if (month.isNullOrEmpty() && year.isNullOrEmpty()) {
+            return listOf(error(EXPIRATION_DATE_FIELD, EXPIRATION_DATE_REQUIRED))
+        }
+
+        val monthValue = month?.takeIf { it.length in 1..2 }?.toIntOrNull()
+            ?.takeIf { it in 1..MONTHS_PER_YEAR }
+        val yearValue = year
+            ?.takeIf { it.length == SHORT_YEAR_LENGTH || it.length == FULL_YEAR_LENGTH }
+            ?.toIntOrNull()
+            ?.let { if (it < CENTURY) it + CENTURY * currentCentury() else it }
+
+        val errors = mutableListOf<BraintreeError>()
+        if (monthValue == null) errors.add(error(EXPIRATION_MONTH_FIELD, EXPIRATION_MONTH_INVALID))
+        if (yearValue == null) errors.add(error(EXPIRATION_YEAR_FIELD, EXPIRATION_YEAR_INVALID))
+        if (monthValue != null && yearValue != null) {
+            val calendar = currentCalendar()
+            val currentYear = calendar.get(Calendar.YEAR)
+            val currentMonth = calendar.get(Calendar.MONTH) + 1
+            val isExpired = yearValue < currentYear ||
+                (yearValue == currentYear && monthValue < currentMonth)
+            if (isExpired || yearValue > currentYear + MAX_YEARS_IN_FUTURE) {
+                errors.add(error(EXPIRATION_DATE_FIELD, EXPIRATION_DATE_INVALID))
+            }
+        }
+        return errors
+    }
+
+    private fun validateCvv(
+        cvv: String?,
+        brand: CardBrand?,
+        configuration: Configuration?
+    ): BraintreeError? {
+        if (cvv.isNullOrEmpty()) {
+            val isRequired = configuration?.isCvvChallengePresent == true
+            return if (isRequired) error(CVV_FIELD, CVV_REQUIRED) else null
+        }
+        val isValidLength = if (brand != null) {
+            cvv.length == brand.cvvLength
+        } else {
+            cvv.length in MIN_CVV_LENGTH..MAX_CVV_LENGTH
+        }
+        val isValid = isValidLength && cvv.all { it in '0'..'9' }
+        return if (isValid) null else error(CVV_FIELD, CVV_INVALID)
+    }
+
+    private fun validatePostalCode(postalCode: String?, configuration: Configuration?) =
+        if (postalCode.isNullOrBlank() && configuration?.isPostalCodeChallengePresent == true) {
+            error(POSTAL_CODE_FIELD, POSTAL_CODE_REQUIRED)
+        } else {
+            null
+        }
+
+    private fun error(field: String, error: Pair<String, Int>) =
+        BraintreeError.forField(field, error.first, code = error.second)
+
+    private fun currentCalendar() =
+        Calendar.getInstance().apply { timeInMillis = time.currentTime }
+
+    private fun currentCentury() = currentCalendar().get(Calendar.YEAR) / CENTURY
+
+    companion object {
+
+        private const val VALIDATION_ERROR_MESSAGE = "Credit card is invalid"
+
+        private const val CREDIT_CARD_FIELD = "creditCard"
+        private const val NUMBER_FIELD = "number"
+        private const val CVV_FIELD = "cvv"
+        private const val EXPIRATION_DATE_FIELD = "expirationDate"
+        private const val EXPIRATION_MONTH_FIELD = "expirationMonth"
+        private const val EXPIRATION_YEAR_FIELD = "expirationYear"
+        private const val BILLING_ADDRESS_FIELD = "billingAddress"
+        private const val POSTAL_CODE_FIELD = "postalCode"
+
+        private const val MIN_NUMBER_LENGTH = 12
+        private const val MAX_NUMBER_LENGTH = 19
+        private const val MIN_CVV_LENGTH = 3
+        private const val MAX_CVV_LENGTH = 4
+        private const val MONTHS_PER_YEAR = 12
+        private const val MAX_YEARS_IN_FUTURE = 20
+        private const val CENTURY = 100
+        private const val SHORT_YEAR_LENGTH = 2
+        private const val FULL_YEAR_LENGTH = 4
+        private const val MAX_DIGIT = 9
+        private const val LUHN_MODULUS = 10
+
+        // messages and codes match the gateway's credit card validation errors
+        private val NUMBER_INVALID = "Credit card number is invalid." to 81715
+        private val NUMBER_LENGTH_INVALID = "Credit card number must be 12-19 digits." to 81716
+        private val CVV_REQUIRED = "CVV is required." to 81706
+        private val CVV_INVALID =
+            "CVV must be 4 digits for American Express and 3 digits for other card types." to 81707
+        private val EXPIRATION_DATE_REQUIRED = "Expiration date is required." to 81709
+        private val EXPIRATION_DATE_INVALID = "Expiration date is invalid." to 81710
+        private val EXPIRATION_MONTH_INVALID = "Expiration month is invalid." to 81712
+        private val EXPIRATION_YEAR_INVALID = "Expiration year is invalid." to 81713
+        private val POSTAL_CODE_REQUIRED = "Postal code is required." to 81808
+
+        /**
+         * @return true if [number], which must contain only digits, has a valid Luhn check digit
+         */
+        internal fun passesLuhnCheck(number: String): Boolean {
+            var sum = 0
+            for (i in number.indices) {
+                var digit = number[number.length - 1 - i] - '0'
+                if (i % 2 == 1) {
+                    digit *= 2
+                    if (digit > MAX_DIGIT) digit -= MAX_DIGIT
+                }
+                sum += digit
+            }
+            return sum % LUHN_MODULUS == 0
+        }
+    }
+}
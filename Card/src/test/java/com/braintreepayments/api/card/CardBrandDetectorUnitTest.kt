@@ -0,0 +1,91 @@
+package com.braintreepayments.api.card
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class CardBrandDetectorUnitTest {
+
+    private val sut = CardBrandDetector()
+
+    @Test
+    fun `detect recognizes test card numbers for each brand`() {
+        assertEquals(CardBrand.VISA, sut.detect("4111111111111111"))
+        assertEquals(CardBrand.MASTERCARD, sut.detect("5555555555554444"))
+        assertEquals(CardBrand.MASTERCARD, sut.detect("2223000048400011"))
+        assertEquals(CardBrand.AMERICAN_EXPRESS, sut.detect("378282246310005"))
+        assertEquals(CardBrand.DISCOVER, sut.detect("6011111111111117"))
+        assertEquals(CardBrand.JCB, sut.detect("3530111333300000"))
+        assertEquals(CardBrand.DINERS_CLUB, sut.detect("36259600000004"))
+        assertEquals(CardBrand.MAESTRO, sut.detect("6304000000000000"))
+        assertEquals(CardBrand.UNIONPAY, sut.detect("6212345678901232"))
+    }
+
+    @Test
+    fun `detect works on partially entered numbers`() {
+        assertEquals(CardBrand.VISA, sut.detect("4"))
+        assertEquals(CardBrand.AMERICAN_EXPRESS, sut.detect("37"))
+        assertNull(sut.detect("3"))
+        assertNull(sut.detect("222"))
+        assertEquals(CardBrand.MASTERCARD, sut.detect("2720"))
+        assertNull(sut.detect("2721"))
+    }
+
+    @Test
+    fun `detect prefers the longest matching prefix`() {
+        assertNull(sut.detect("601"))
+        assertEquals(CardBrand.DISCOVER, sut.detect("6011"))
+        assertEquals(CardBrand.MAESTRO, sut.detect("6759"))
+    }
+
+    @Test
+    fun `detect ignores spaces and dashes`() {
+        assertEquals(CardBrand.AMERICAN_EXPRESS, sut.detect("3782 822463 10005"))
+        assertEquals(CardBrand.DISCOVER, sut.detect("6011-1111-1111-1117"))
+    }
+
+    @Test
+    fun `detect returns null for other characters`() {
+        assertNull(sut.detect("4x11"))
+        assertNull(sut.detect(""))
+    }
+
+    @Test
+    fun `detect returns null for other characters after the brand prefix`() {
+        assertNull(sut.detect("41abc"))
+        assertNull(sut.detect("6011 1111 1111 111x"))
+    }
+
+    @Test
+    fun `detect only recognizes supported card types`() {
+        val sut = CardBrandDetector(listOf("Visa", "american express", "Unknown Brand"))
+
+        assertEquals(CardBrand.VISA, sut.detect("4111"))
+        assertEquals(CardBrand.AMERICAN_EXPRESS, sut.detect("3782"))
+        assertNull(sut.detect("5555"))
+        assertTrue(sut.isSupported(CardBrand.VISA))
+        assertFalse(sut.isSupported(CardBrand.MASTERCARD))
+    }
+
+    @Test
+    fun `format groups digits by brand`() {
+        assertEquals("3782 822463 10005", CardBrand.AMERICAN_EXPRESS.format("378282246310005"))
+        assertEquals("4111 1111 1111 1111", CardBrand.VISA.format("4111-1111-1111-1111"))
+        assertEquals("4111 11", CardBrand.VISA.format("411111"))
+    }
+
+    @Test
+    fun `isValidLength checks brand length range`() {
+        assertTrue(CardBrand.AMERICAN_EXPRESS.isValidLength(15))
+        assertFalse(CardBrand.AMERICAN_EXPRESS.isValidLength(16))
+        assertTrue(CardBrand.VISA.isValidLength(19))
+    }
+
+    @Test
+    fun `fromSupportedCardType is case insensitive`() {
+        assertEquals(CardBrand.MASTERCARD, CardBrand.fromSupportedCardType("mastercard"))
+        assertNull(CardBrand.fromSupportedCardType("Carte Blanche"))
+    }
+}
@@ -1,11 +1,16 @@
 package com.braintreepayments.api.card;
 
 import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -13,11 +18,16 @@ import com.braintreepayments.api.core.AnalyticsParamRepository;
 import com.braintreepayments.api.core.ApiClient;
 import com.braintreepayments.api.core.BraintreeClient;
 import com.braintreepayments.api.core.Configuration;
+import com.braintreepayments.api.core.ConfigurationCallback;
+import com.braintreepayments.api.core.ErrorWithResponse;
+import com.braintreepayments.api.core.PaymentMethod;
 import com.braintreepayments.api.core.TokenizeCallback;
+import com.braintreepayments.api.sharedutils.HttpCall;
 import com.braintreepayments.api.testutils.Fixtures;
 import com.braintreepayments.api.testutils.MockApiClientBuilder;
 import com.braintreepayments.api.testutils.MockBraintreeClientBuilder;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.junit.Before;
@@ -28,6 +38,17 @@ import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.robolectric.RobolectricTestRunner;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import kotlin.coroutines.EmptyCoroutineContext;
+import kotlinx.coroutines.BuildersKt;
+import kotlinx.coroutines.CoroutineStart;
+import kotlinx.coroutines.Deferred;
+
 @RunWith(RobolectricTestRunner.class)
 public class CardClientUnitTest {
 
@@ -63,6 +84,18 @@ public class CardClientUnitTest {
         verify(analyticsParamRepository).resetSessionId();
     }
 
+    @Test
+    public void tokenizeInCurrentSession_doesNotResetSessionId() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder().build();
+        apiClient = new MockApiClientBuilder().build();
+
+        CardClient sut = new CardClient(braintreeClient, apiClient, analyticsParamRepository);
+        sut.tokenizeInCurrentSession(card, cardTokenizeCallback);
+
+        verify(analyticsParamRepository, never()).resetSessionId();
+        verify(braintreeClient).sendAnalyticsEvent(eq(CardAnalytics.CARD_TOKENIZE_STARTED), any());
+    }
+
     @Test
     public void tokenize_sendsTokenizeStartedAnalytics() {
         BraintreeClient braintreeClient = new MockBraintreeClientBuilder().build();
@@ -267,4 +300,472 @@ public class CardClientUnitTest {
         Exception actualError = ((CardResult.Failure) result).getError();
         assertEquals(configError, actualError);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void tokenizeAll_withNoCards_returnsEmptyResultsWithoutNetworkCalls() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder().build();
+        CardTokenizeAllCallback callback = mock(CardTokenizeAllCallback.class);
+
+        CardClient sut = new CardClient(braintreeClient, apiClient, analyticsParamRepository);
+        sut.tokenizeAll(Collections.emptyList(), callback);
+
+        verify(callback).onCardResults(Collections.emptyList());
+        verify(braintreeClient, never())
+                .getConfiguration(any(HttpCall.class), any(ConfigurationCallback.class));
+    }
+
+    @Test
+    public void tokenizeAll_whenGraphQLEnabled_tokenizesCardsInOneAliasedDocument()
+            throws JSONException {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLEnabledConfig)
+                .build();
+        JSONObject cardPayload = new JSONObject(Fixtures.GRAPHQL_RESPONSE_CREDIT_CARD)
+                .getJSONObject("data")
+                .getJSONObject("tokenizeCreditCard");
+        JSONObject response = new JSONObject().put("data", new JSONObject()
+                .put("card0", cardPayload)
+                .put("card1", cardPayload));
+        apiClient = new MockApiClientBuilder()
+                .tokenizeGraphQLSuccess(response)
+                .build();
+        CardTokenizeAllCallback callback = mock(CardTokenizeAllCallback.class);
+
+        CardClient sut = new CardClient(braintreeClient, apiClient, analyticsParamRepository);
+        sut.tokenizeAll(Arrays.asList(new Card(), new Card()), callback);
+
+        ArgumentCaptor<JSONObject> payloadCaptor = ArgumentCaptor.forClass(JSONObject.class);
+        verify(apiClient).tokenizeGraphQL(payloadCaptor.capture(), any(TokenizeCallback.class));
+        JSONObject payload = payloadCaptor.getValue();
+        String query = payload.getString("query");
+        assertTrue(query.startsWith("mutation TokenizeCreditCards("));
+        assertTrue(query.contains("card0: tokenizeCreditCard(input: $input0)"));
+        assertTrue(query.contains("card1: tokenizeCreditCard(input: $input1)"));
+        assertTrue(payload.getJSONObject("variables").has("input0"));
+        assertTrue(payload.getJSONObject("variables").has("input1"));
+
+        List<CardResult> results = captureCardResults(callback);
+        assertEquals(2, results.size());
+        for (CardResult result : results) {
+            assertTrue(result instanceof CardResult.Success);
+            assertEquals("3744a73e-b1ab-0dbd-85f0-c12a0a4bd3d1",
+                    ((CardResult.Success) result).getNonce().getString());
+        }
+    }
+
+    @Test
+    public void tokenizeAll_whenGraphQLEnabled_splitsCardsIntoBoundedChunks() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLEnabledConfig)
+                .build();
+
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < CardBulkTokenization.MAX_CARDS_PER_DOCUMENT + 1; i++) {
+            cards.add(new Card());
+        }
+
+        CardClient sut = new CardClient(braintreeClient, apiClient, analyticsParamRepository);
+        sut.tokenizeAll(cards, mock(CardTokenizeAllCallback.class));
+
+        verify(apiClient, times(2))
+                .tokenizeGraphQL(any(JSONObject.class), any(TokenizeCallback.class));
+    }
+
+    @Test
+    public void tokenizeAll_whenGraphQLReturnsNoResponseAndNoError_failsEveryCard() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLEnabledConfig)
+                .build();
+        doAnswer(invocation -> {
+            TokenizeCallback tokenizeCallback = invocation.getArgument(1);
+            tokenizeCallback.onResult(null, null);
+            return null;
+        }).when(apiClient).tokenizeGraphQL(any(JSONObject.class), any(TokenizeCallback.class));
+        CardTokenizeAllCallback callback = mock(CardTokenizeAllCallback.class);
+
+        CardClient sut = new CardClient(braintreeClient, apiClient, analyticsParamRepository);
+        sut.tokenizeAll(Arrays.asList(new Card(), new Card()), callback);
+
+        List<CardResult> results = captureCardResults(callback);
+        assertEquals(2, results.size());
+        for (CardResult result : results) {
+            assertEquals("Card tokenization failed",
+                    ((CardResult.Failure) result).getError().getMessage());
+        }
+    }
+
+    @Test
+    public void tokenizeAll_whenChunkFailsValidation_retriesCardsIndividually() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLEnabledConfig)
+                .build();
+
+        ErrorWithResponse validationError = mock(ErrorWithResponse.class);
+        Exception cardError = new Exception("card error");
+        doAnswer(invocation -> {
+            JSONObject payload = invocation.getArgument(0);
+            TokenizeCallback callback = invocation.getArgument(1);
+            if (payload.getString("query").contains("TokenizeCreditCards")) {
+                callback.onResult(null, validationError);
+            } else {
+                callback.onResult(null, cardError);
+            }
+            return null;
+        }).when(apiClient).tokenizeGraphQL(any(JSONObject.class), any(TokenizeCallback.class));
+        CardTokenizeAllCallback callback = mock(CardTokenizeAllCallback.class);
+
+        CardClient sut = new CardClient(braintreeClient, apiClient, analyticsParamRepository);
+        sut.tokenizeAll(Arrays.asList(new Card(), new Card()), callback);
+
+        verify(apiClient, times(3))
+                .tokenizeGraphQL(any(JSONObject.class), any(TokenizeCallback.class));
+        List<CardResult> results = captureCardResults(callback);
+        assertEquals(2, results.size());
+        for (CardResult result : results) {
+            assertEquals(cardError, ((CardResult.Failure) result).getError());
+        }
+    }
+
+    @Test
+    public void tokenizeAll_whenChunkPartiallyFails_retriesOnlyFailedCards() throws JSONException {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLEnabledConfig)
+                .build();
+        JSONObject cardPayload = new JSONObject(Fixtures.GRAPHQL_RESPONSE_CREDIT_CARD)
+                .getJSONObject("data")
+                .getJSONObject("tokenizeCreditCard");
+        JSONObject errorResponse = new JSONObject()
+                .put("data", new JSONObject()
+                        .put("card0", cardPayload)
+                        .put("card1", JSONObject.NULL))
+                .put("errors", new JSONArray().put(new JSONObject()
+                        .put("message", "Credit card number is invalid.")));
+        ErrorWithResponse partialError = mock(ErrorWithResponse.class);
+        when(partialError.getErrorResponse()).thenReturn(errorResponse.toString());
+        Exception cardError = new Exception("card error");
+        List<JSONObject> payloads = new ArrayList<>();
+        doAnswer(invocation -> {
+            JSONObject payload = invocation.getArgument(0);
+            TokenizeCallback callback = invocation.getArgument(1);
+            payloads.add(payload);
+            if (payload.getString("query").contains("TokenizeCreditCards")) {
+                callback.onResult(null, partialError);
+            } else {
+                callback.onResult(null, cardError);
+            }
+            return null;
+        }).when(apiClient).tokenizeGraphQL(any(JSONObject.class), any(TokenizeCallback.class));
+        CardTokenizeAllCallback callback = mock(CardTokenizeAllCallback.class);
+
+        CardClient sut = new CardClient(braintreeClient, apiClient, analyticsParamRepository);
+        sut.tokenizeAll(Arrays.asList(new Card(), new Card()), callback);
+
+        assertEquals(2, payloads.size());
+        List<CardResult> results = captureCardResults(callback);
+        assertEquals("3744a73e-b1ab-0dbd-85f0-c12a0a4bd3d1",
+                ((CardResult.Success) results.get(0)).getNonce().getString());
+        assertEquals(cardError, ((CardResult.Failure) results.get(1)).getError());
+    }
+
+    @Test
+    public void tokenizeAll_whenGraphQLDisabled_limitsConcurrentRequests() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLDisabledConfig)
+                .build();
+        List<TokenizeCallback> pendingCallbacks = new ArrayList<>();
+        doAnswer(invocation -> {
+            pendingCallbacks.add(invocation.getArgument(1));
+            return null;
+        }).when(apiClient).tokenizeREST(any(Card.class), any(TokenizeCallback.class));
+
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < CardClient.MAX_CONCURRENT_REQUESTS + 2; i++) {
+            cards.add(new Card());
+        }
+        CardClient sut = new CardClient(braintreeClient, apiClient, analyticsParamRepository);
+        sut.tokenizeAll(cards, mock(CardTokenizeAllCallback.class));
+
+        verify(apiClient, times(CardClient.MAX_CONCURRENT_REQUESTS))
+                .tokenizeREST(any(Card.class), any(TokenizeCallback.class));
+
+        pendingCallbacks.get(0).onResult(null, new Exception("error"));
+        verify(apiClient, times(CardClient.MAX_CONCURRENT_REQUESTS + 1))
+                .tokenizeREST(any(Card.class), any(TokenizeCallback.class));
+    }
+
+    @Test
+    public void tokenizeAll_whenGraphQLDisabled_tokenizesEachCardWithREST() throws JSONException {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLDisabledConfig)
+                .build();
+        apiClient = new MockApiClientBuilder()
+                .tokenizeRESTSuccess(
+                        new JSONObject(Fixtures.PAYMENT_METHODS_RESPONSE_VISA_CREDIT_CARD))
+                .build();
+        CardTokenizeAllCallback callback = mock(CardTokenizeAllCallback.class);
+
+        CardClient sut = new CardClient(braintreeClient, apiClient, analyticsParamRepository);
+        sut.tokenizeAll(Arrays.asList(new Card(), new Card(), new Card()), callback);
+
+        verify(apiClient, times(3)).tokenizeREST(any(Card.class), any(TokenizeCallback.class));
+        List<CardResult> results = captureCardResults(callback);
+        assertEquals(3, results.size());
+        for (CardResult result : results) {
+            assertTrue(result instanceof CardResult.Success);
+        }
+    }
+
+    @Test
+    public void tokenizeAll_resetsSessionAndSendsAnalyticsOnce() throws JSONException {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLDisabledConfig)
+                .build();
+        apiClient = new MockApiClientBuilder()
+                .tokenizeRESTSuccess(
+                        new JSONObject(Fixtures.PAYMENT_METHODS_RESPONSE_VISA_CREDIT_CARD))
+                .build();
+
+        CardClient sut = new CardClient(braintreeClient, apiClient, analyticsParamRepository);
+        sut.tokenizeAll(Arrays.asList(new Card(), new Card()),
+                mock(CardTokenizeAllCallback.class));
+
+        verify(analyticsParamRepository, times(1)).resetSessionId();
+        verify(braintreeClient, times(1))
+                .sendAnalyticsEvent(eq(CardAnalytics.CARD_TOKENIZE_STARTED), any());
+        verify(braintreeClient, times(1))
+                .sendAnalyticsEvent(eq(CardAnalytics.CARD_TOKENIZE_SUCCEEDED), any());
+    }
+
+    @Test
+    public void tokenizeAll_propagatesConfigurationFetchErrorToEveryCard() {
+        Exception configError = new Exception("Configuration error.");
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configurationError(configError)
+                .build();
+        CardTokenizeAllCallback callback = mock(CardTokenizeAllCallback.class);
+
+        CardClient sut = new CardClient(braintreeClient, apiClient, analyticsParamRepository);
+        sut.tokenizeAll(Arrays.asList(new Card(), new Card()), callback);
+
+        List<CardResult> results = captureCardResults(callback);
+        assertEquals(2, results.size());
+        for (CardResult result : results) {
+            assertEquals(configError, ((CardResult.Failure) result).getError());
+        }
+        verify(braintreeClient).sendAnalyticsEvent(eq(CardAnalytics.CARD_TOKENIZE_FAILED), any());
+    }
+
+    @Test
+    public void tokenize_withPreflightValidationEnabled_andInvalidCard_failsWithoutTokenizing() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLEnabledConfig)
+                .build();
+
+        CardClient sut = new CardClient(braintreeClient, apiClient, analyticsParamRepository);
+        sut.setPreflightValidationEnabled(true);
+
+        Card card = new Card();
+        card.setNumber("4111111111111112");
+        card.setExpirationMonth("12");
+        card.setExpirationYear("2099");
+        sut.tokenize(card, cardTokenizeCallback);
+
+        ArgumentCaptor<CardResult> captor = ArgumentCaptor.forClass(CardResult.class);
+        verify(cardTokenizeCallback).onCardResult(captor.capture());
+        ErrorWithResponse error =
+                (ErrorWithResponse) ((CardResult.Failure) captor.getValue()).getError();
+        assertEquals(81715, error.errorFor("number").getCode());
+
+        verify(apiClient, never())
+                .tokenizeGraphQL(any(JSONObject.class), any(TokenizeCallback.class));
+        verify(braintreeClient).sendAnalyticsEvent(eq(CardAnalytics.CARD_TOKENIZE_FAILED), any());
+    }
+
+    @Test
+    public void tokenize_withPreflightValidationEnabled_andValidCard_tokenizes() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLDisabledConfig)
+                .build();
+
+        CardClient sut = new CardClient(braintreeClient, apiClient, analyticsParamRepository);
+        sut.setPreflightValidationEnabled(true);
+
+        Card card = new Card();
+        card.setNumber("4111111111111111");
+        card.setExpirationMonth("12");
+        card.setExpirationYear("2099");
+        card.setCvv("123");
+        sut.tokenize(card, cardTokenizeCallback);
+
+        verify(apiClient).tokenizeREST(same(card), any(TokenizeCallback.class));
+    }
+
+    @Test
+    public void tokenizeAll_withPreflightValidationEnabled_onlyTokenizesValidCards()
+            throws JSONException {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLDisabledConfig)
+                .build();
+        apiClient = new MockApiClientBuilder()
+                .tokenizeRESTSuccess(
+                        new JSONObject(Fixtures.PAYMENT_METHODS_RESPONSE_VISA_CREDIT_CARD))
+                .build();
+        CardTokenizeAllCallback callback = mock(CardTokenizeAllCallback.class);
+
+        Card validCard = new Card();
+        validCard.setNumber("4111111111111111");
+        validCard.setExpirationMonth("12");
+        validCard.setExpirationYear("2099");
+        Card invalidCard = new Card();
+        invalidCard.setNumber("4111");
+
+        CardClient sut = new CardClient(braintreeClient, apiClient, analyticsParamRepository);
+        sut.setPreflightValidationEnabled(true);
+        sut.tokenizeAll(Arrays.asList(invalidCard, validCard), callback);
+
+        verify(apiClient, times(1)).tokenizeREST(same(validCard), any(TokenizeCallback.class));
+        List<CardResult> results = captureCardResults(callback);
+        assertTrue(((CardResult.Failure) results.get(0)).getError() instanceof ErrorWithResponse);
+        assertTrue(results.get(1) instanceof CardResult.Success);
+    }
+
+    @Test
+    public void tokenize_suspend_resumesWithCardResult() throws Exception {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLDisabledConfig)
+                .build();
+        apiClient = new MockApiClientBuilder()
+                .tokenizeRESTSuccess(
+                        new JSONObject(Fixtures.PAYMENT_METHODS_RESPONSE_VISA_CREDIT_CARD))
+                .build();
+        CardClient sut = new CardClient(braintreeClient, apiClient, analyticsParamRepository);
+
+        CardResult result = BuildersKt.runBlocking(EmptyCoroutineContext.INSTANCE,
+                (scope, continuation) -> sut.tokenize(card, continuation));
+
+        assertTrue(result instanceof CardResult.Success);
+        assertEquals("123456-12345-12345-a-adfa",
+                ((CardResult.Success) result).getNonce().getString());
+    }
+
+    @Test
+    public void tokenize_suspend_onConfigurationError_resumesWithFailure() throws Exception {
+        Exception configError = new Exception("configuration error");
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configurationError(configError)
+                .build();
+        CardClient sut = new CardClient(braintreeClient, apiClient, analyticsParamRepository);
+
+        CardResult result = BuildersKt.runBlocking(EmptyCoroutineContext.INSTANCE,
+                (scope, continuation) -> sut.tokenize(card, continuation));
+
+        assertTrue(result instanceof CardResult.Failure);
+        assertSame(configError, ((CardResult.Failure) result).getError());
+    }
+
+    @Test
+    public void tokenize_suspend_whenCancelled_discardsLateResult() throws Exception {
+        BraintreeClient braintreeClient = mock(BraintreeClient.class);
+        CardClient sut = new CardClient(braintreeClient, apiClient, analyticsParamRepository);
+
+        Deferred<CardResult> result = BuildersKt.runBlocking(EmptyCoroutineContext.INSTANCE,
+                (scope, continuation) -> {
+                    Deferred<CardResult> deferred = BuildersKt.async(scope,
+                            EmptyCoroutineContext.INSTANCE, CoroutineStart.UNDISPATCHED,
+                            (asyncScope, asyncContinuation) ->
+                                    sut.tokenize(card, asyncContinuation));
+                    deferred.cancel((CancellationException) null);
+                    return deferred;
+                });
+
+        ArgumentCaptor<ConfigurationCallback> configurationCallback =
+                ArgumentCaptor.forClass(ConfigurationCallback.class);
+        verify(braintreeClient)
+                .getConfiguration(any(HttpCall.class), configurationCallback.capture());
+        configurationCallback.getValue().onResult(graphQLDisabledConfig, null);
+
+        assertTrue(result.isCancelled());
+    }
+
+    @Test
+    public void tokenize_suspend_whenCancelled_cancelsInFlightTokenizeCall() throws Exception {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLDisabledConfig)
+                .build();
+        HttpCall tokenizeCall = new HttpCall();
+        when(apiClient.tokenizeREST(any(PaymentMethod.class), any(TokenizeCallback.class)))
+                .thenReturn(tokenizeCall);
+        CardClient sut = new CardClient(braintreeClient, apiClient, analyticsParamRepository);
+
+        BuildersKt.runBlocking(EmptyCoroutineContext.INSTANCE,
+                (scope, continuation) -> {
+                    Deferred<CardResult> deferred = BuildersKt.async(scope,
+                            EmptyCoroutineContext.INSTANCE, CoroutineStart.UNDISPATCHED,
+                            (asyncScope, asyncContinuation) ->
+                                    sut.tokenize(card, asyncContinuation));
+                    deferred.cancel((CancellationException) null);
+                    return deferred;
+                });
+
+        assertTrue(tokenizeCall.isCanceled());
+    }
+
+    @Test
+    public void tokenizeAll_suspend_whenCancelled_cancelsInFlightTokenizeCalls()
+            throws Exception {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLDisabledConfig)
+                .build();
+        List<HttpCall> tokenizeCalls = new ArrayList<>();
+        when(apiClient.tokenizeREST(any(PaymentMethod.class), any(TokenizeCallback.class)))
+                .thenAnswer(invocation -> {
+                    HttpCall tokenizeCall = new HttpCall();
+                    tokenizeCalls.add(tokenizeCall);
+                    return tokenizeCall;
+                });
+        CardClient sut = new CardClient(braintreeClient, apiClient, analyticsParamRepository);
+
+        BuildersKt.runBlocking(EmptyCoroutineContext.INSTANCE,
+                (scope, continuation) -> {
+                    Deferred<List<CardResult>> deferred = BuildersKt.async(scope,
+                            EmptyCoroutineContext.INSTANCE, CoroutineStart.UNDISPATCHED,
+                            (asyncScope, asyncContinuation) -> sut.tokenizeAll(
+                                    Arrays.asList(new Card(), new Card()), asyncContinuation));
+                    deferred.cancel((CancellationException) null);
+                    return deferred;
+                });
+
+        assertEquals(2, tokenizeCalls.size());
+        for (HttpCall tokenizeCall : tokenizeCalls) {
+            assertTrue(tokenizeCall.isCanceled());
+        }
+    }
+
+    @Test
+    public void tokenizeAll_suspend_resumesWithOneResultPerCard() throws Exception {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLDisabledConfig)
+                .build();
+        apiClient = new MockApiClientBuilder()
+                .tokenizeRESTSuccess(
+                        new JSONObject(Fixtures.PAYMENT_METHODS_RESPONSE_VISA_CREDIT_CARD))
+                .build();
+        CardClient sut = new CardClient(braintreeClient, apiClient, analyticsParamRepository);
+
+        List<CardResult> results = BuildersKt.runBlocking(EmptyCoroutineContext.INSTANCE,
+                (scope, continuation) ->
+                        sut.tokenizeAll(Arrays.asList(new Card(), new Card()), continuation));
+
+        assertEquals(2, results.size());
+        for (CardResult result : results) {
+            assertTrue(result instanceof CardResult.Success);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<CardResult> captureCardResults(CardTokenizeAllCallback callback) {
+        ArgumentCaptor<List<CardResult>> captor = ArgumentCaptor.forClass(List.class);
+        verify(callback).onCardResults(captor.capture());
+        return captor.getValue();
+    }
+}
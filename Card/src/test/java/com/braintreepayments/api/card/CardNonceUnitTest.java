@@ -98,6 +98,27 @@ public class CardNonceUnitTest {
         assertEquals("", cardNonce.getCardholderName());
     }
 
+    @Test
+    public void fromJSON_withMinimalProfileGraphQLResponse_parsesCardNonce() throws JSONException {
+        JSONObject response = new JSONObject()
+            .put("data", new JSONObject()
+                .put("tokenizeCreditCard", new JSONObject()
+                    .put("token", "fake-nonce")
+                    .put("creditCard", new JSONObject()
+                        .put("brand", "Visa")
+                        .put("last4", "1111"))));
+
+        CardNonce cardNonce = CardNonce.fromJSON(response);
+
+        assertEquals("fake-nonce", cardNonce.getString());
+        assertEquals("Visa", cardNonce.getCardType());
+        assertEquals("1111", cardNonce.getLastFour());
+        assertEquals("11", cardNonce.getLastTwo());
+        assertEquals("", cardNonce.getBin());
+        assertEquals("", cardNonce.getExpirationMonth());
+        assertEquals(BinType.Unknown, cardNonce.getBinData().getPrepaid());
+    }
+
     @Test
     public void fromJSON_withGraphQLTokenizationResponse_parsesUnknownCardResponses() throws JSONException {
         CardNonce cardNonce = CardNonce.fromJSON(new JSONObject(Fixtures.GRAPHQL_RESPONSE_UNKNOWN_CREDIT_CARD));
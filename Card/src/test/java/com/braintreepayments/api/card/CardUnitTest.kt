@@ -5,12 +5,14 @@ import com.braintreepayments.api.core.GraphQLConstants
 import com.braintreepayments.api.core.IntegrationType
 import com.braintreepayments.api.core.MetadataBuilder
 import com.braintreepayments.api.core.PaymentMethod
+import com.braintreepayments.api.sharedutils.JsonBodyWriter
 import com.braintreepayments.api.testutils.CardNumber.VISA
 import junit.framework.TestCase.assertEquals
 import junit.framework.TestCase.assertFalse
 import junit.framework.TestCase.assertNull
 import junit.framework.TestCase.assertTrue
 import org.json.JSONException
+import org.json.JSONObject
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
@@ -136,6 +138,42 @@ class CardUnitTest {
         assertEquals("test-session-id", jsonMetadata.getString("sessionId"))
     }
 
+    @Test
+    fun writeJSONFields_writesSameMembersAsBuildJSON() {
+        val card = Card(
+            number = VISA,
+            expirationMonth = "01",
+            expirationYear = "2015",
+            cvv = "123",
+            cardholderName = "Joe \"Smith\"",
+            firstName = "Joé",
+            postalCode = "12345",
+            countryCode = "USA",
+            shouldValidate = true,
+            merchantAccountId = "merchant-account-id",
+            isAuthenticationInsightRequested = true,
+            sessionId = "test-session-id"
+        )
+
+        assertEquals(card.buildJSON().toString(), writeJSONFields(card).toString())
+    }
+
+    @Test
+    fun writeJSONFields_withoutBillingAddress_omitsBillingAddress() {
+        val card = Card(number = VISA)
+
+        val json = writeJSONFields(card)
+
+        assertEquals(card.buildJSON().toString(), json.toString())
+        assertFalse(json.getJSONObject(CREDIT_CARD_KEY).has(BILLING_ADDRESS_KEY))
+    }
+
+    private fun writeJSONFields(card: Card): JSONObject {
+        val writer = JsonBodyWriter().beginObject()
+        card.writeJSONFields(writer)
+        return JSONObject(String(writer.endObject().toByteArray(), Charsets.UTF_8))
+    }
+
     @Test
     @Throws(JSONException::class)
     fun buildJSON_nestsAddressCorrectly() {
@@ -507,4 +545,53 @@ class CardUnitTest {
         assertNull(variablesJson.optJSONObject("authenticationInsightInput"))
         assertEquals(GRAPH_QL_MUTATION, json.getString(GraphQLConstants.Keys.QUERY))
     }
+
+    @Test
+    fun buildJSONForGraphQL_withMinimalResponseProfile_requestsOnlyTokenBrandAndLastFour() {
+        val card = Card(responseProfile = CardResponseProfile.MINIMAL)
+
+        val query = card.buildJSONForGraphQL().getString(GraphQLConstants.Keys.QUERY)
+
+        assertEquals(
+            "mutation TokenizeCreditCard(\$input: TokenizeCreditCardInput!) {" +
+                "  tokenizeCreditCard(input: \$input) {" +
+                "    token" +
+                "    creditCard {" +
+                "      brand" +
+                "      last4" +
+                "    }" +
+                "  }" +
+                "}",
+            query
+        )
+    }
+
+    @Test
+    fun buildJSONForGraphQL_withStandardResponseProfile_doesNotRequestBinData() {
+        val card = Card(responseProfile = CardResponseProfile.STANDARD)
+
+        val query = card.buildJSONForGraphQL().getString(GraphQLConstants.Keys.QUERY)
+
+        assertTrue(query.contains("cardholderName"))
+        assertFalse(query.contains("binData"))
+    }
+
+    @Test
+    fun buildJSONForGraphQL_withResponseProfile_andAuthInsightRequested_requestsAuthInsight() {
+        val card = Card(
+            merchantAccountId = "merchant-account-id",
+            isAuthenticationInsightRequested = true,
+            responseProfile = CardResponseProfile.MINIMAL
+        )
+
+        val query = card.buildJSONForGraphQL().getString(GraphQLConstants.Keys.QUERY)
+
+        assertTrue(query.contains("authenticationInsight(input: \$authenticationInsightInput)"))
+        assertFalse(query.contains("expirationMonth"))
+    }
+
+    @Test
+    fun responseProfile_defaultsToFull() {
+        assertEquals(CardResponseProfile.FULL, Card().responseProfile)
+    }
 }
@@ -0,0 +1,144 @@
+package com.braintreepayments.api.card
+
+import com.braintreepayments.api.core.Configuration
+import com.braintreepayments.api.sharedutils.Time
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.util.Calendar
+
+class CardValidatorUnitTest {
+
+    private lateinit var sut: CardValidator
+
+    @Before
+    fun beforeEach() {
+        // June 15, 2025
+        val now = Calendar.getInstance().apply { set(2025, Calendar.JUNE, 15) }.timeInMillis
+        val time = mockk<Time>()
+        every { time.currentTime } returns now
+        sut = CardValidator(time)
+    }
+
+    @Test
+    fun `validate returns null for a valid card`() {
+        assertNull(sut.validate(validCard()))
+    }
+
+    @Test
+    fun `validate returns null for a CVV-only card`() {
+        assertNull(sut.validate(Card(cvv = "123")))
+    }
+
+    @Test
+    fun `validate reports number failing Luhn check`() {
+        val error = sut.validate(validCard().apply { number = "4111111111111112" })
+
+        assertEquals(81715, error?.errorFor("number")?.code)
+        assertNotNull(error?.errorFor("creditCard"))
+    }
+
+    @Test
+    fun `validate does not apply Luhn check to UnionPay numbers`() {
+        assertFalse(CardValidator.passesLuhnCheck("6212345678901233"))
+
+        assertNull(sut.validate(validCard().apply { number = "6212345678901233" }))
+    }
+
+    @Test
+    fun `validate reports number with wrong length for brand`() {
+        val error = sut.validate(validCard().apply { number = "3782822463100050" })
+
+        assertEquals(81716, error?.errorFor("number")?.code)
+    }
+
+    @Test
+    fun `validate ignores spaces in the number`() {
+        assertNull(sut.validate(validCard().apply { number = "4111 1111 1111 1111" }))
+    }
+
+    @Test
+    fun `validate reports expired card`() {
+        val error = sut.validate(validCard().apply {
+            expirationMonth = "05"
+            expirationYear = "2025"
+        })
+
+        assertEquals(81710, error?.errorFor("expirationDate")?.code)
+    }
+
+    @Test
+    fun `validate accepts card expiring this month and two-digit years`() {
+        assertNull(sut.validate(validCard().apply { expirationMonth = "06" }))
+        assertNull(sut.validate(validCard().apply { expirationYear = "27" }))
+    }
+
+    @Test
+    fun `validate reports invalid month and year`() {
+        val error = sut.validate(validCard().apply {
+            expirationMonth = "13"
+            expirationYear = "20x5"
+        })
+
+        assertEquals(81712, error?.errorFor("expirationMonth")?.code)
+        assertEquals(81713, error?.errorFor("expirationYear")?.code)
+    }
+
+    @Test
+    fun `validate reports missing expiration date`() {
+        val error = sut.validate(validCard().apply {
+            expirationMonth = null
+            expirationYear = null
+        })
+
+        assertEquals(81709, error?.errorFor("expirationDate")?.code)
+    }
+
+    @Test
+    fun `validate reports CVV with wrong length for brand`() {
+        val visaError = sut.validate(validCard().apply { cvv = "1234" })
+        assertEquals(81707, visaError?.errorFor("cvv")?.code)
+
+        val amex = validCard().apply {
+            number = "378282246310005"
+            cvv = "1234"
+        }
+        assertNull(sut.validate(amex))
+    }
+
+    @Test
+    fun `validate checks merchant challenges when configuration is provided`() {
+        val configuration = mockk<Configuration>()
+        every { configuration.isCvvChallengePresent } returns true
+        every { configuration.isPostalCodeChallengePresent } returns true
+        val card = validCard().apply { cvv = null }
+
+        assertNull(sut.validate(card))
+
+        val error = sut.validate(card, configuration)
+        assertEquals(81706, error?.errorFor("cvv")?.code)
+        assertEquals(81808, error?.errorFor("postalCode")?.code)
+        assertNotNull(error?.errorFor("billingAddress"))
+        assertEquals(422, error?.statusCode)
+    }
+
+    @Test
+    fun `passesLuhnCheck validates check digit`() {
+        assertTrue(CardValidator.passesLuhnCheck("4111111111111111"))
+        assertTrue(CardValidator.passesLuhnCheck("378282246310005"))
+        assertFalse(CardValidator.passesLuhnCheck("4111111111111112"))
+    }
+
+    private fun validCard() = Card(
+        number = "4111111111111111",
+        expirationMonth = "12",
+        expirationYear = "2030",
+        cvv = "123"
+    )
+}
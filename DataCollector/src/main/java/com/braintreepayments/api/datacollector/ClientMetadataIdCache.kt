@@ -0,0 +1,104 @@
+package com.braintreepayments.api.datacollector
+
+import com.braintreepayments.api.sharedutils.Time
+import java.util.concurrent.TimeUnit
+
+/**
+ * Client metadata ids collected by Magnes, keyed by the pairing id and settings they were
+ * collected with, so that a flow can await a collection started earlier instead of running its
+ * own. Collections that are still running are shared by every caller with the same [Key].
+ * Empty ids, which Magnes returns when collection fails, are not cached, and neither are ids
+ * collected without a pairing id, since Magnes generates a new one for each such collection.
+ */
+internal class ClientMetadataIdCache(
+    private val time: Time = Time(),
+    private val maxEntries: Int = DEFAULT_MAX_ENTRIES
+) {
+
+    /**
+     * Snapshot of the [DataCollectorInternalRequest] fields and environment that Magnes
+     * collection depends on.
+     */
+    data class Key(
+        val pairingId: String?,
+        val applicationGuid: String?,
+        val hasUserLocationConsent: Boolean,
+        val isDisableBeacon: Boolean,
+        val additionalData: Map<String, String>?,
+        val environment: String?
+    ) {
+        constructor(request: DataCollectorInternalRequest, environment: String?) : this(
+            request.clientMetadataId,
+            request.applicationGuid,
+            request.hasUserLocationConsent,
+            request.isDisableBeacon,
+            request.additionalData?.toMap(),
+            environment
+        )
+    }
+
+    /**
+     * A collection that has been started for [key]. Its id is null while it is running.
+     */
+    class Entry(val key: Key, val collectedAt: Long) {
+        var clientMetadataId: String? = null
+        val waiting = mutableListOf<(String) -> Unit>()
+    }
+
+    private val entries = object : LinkedHashMap<Key, Entry>(maxEntries, LOAD_FACTOR, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Key, Entry>?) =
+            size > maxEntries
+    }
+
+    /**
+     * Calls [callback] with the client metadata id for [key] once it is available.
+     *
+     * @return a new [Entry] if no collection for [key] is cached or running, or if [key] has no
+     * pairing id, in which case the caller must collect the id and pass it to [complete]; null
+     * otherwise
+     */
+    fun await(key: Key, callback: (String) -> Unit): Entry? {
+        if (key.pairingId == null) {
+            return Entry(key, time.currentTime).apply { waiting.add(callback) }
+        }
+        val cachedId = synchronized(this) {
+            val entry = entries[key]
+            val isFresh = entry != null && time.currentTime - entry.collectedAt < MAX_AGE_MILLIS
+            if (entry == null || !isFresh) {
+                val newEntry = Entry(key, time.currentTime).apply { waiting.add(callback) }
+                entries[key] = newEntry
+                return newEntry
+            }
+            entry.clientMetadataId ?: run {
+                entry.waiting.add(callback)
+                return null
+            }
+        }
+        callback(cachedId)
+        return null
+    }
+
+    /**
+     * Records the [clientMetadataId] collected for [entry] and passes it to every callback
+     * waiting on it.
+     */
+    fun complete(entry: Entry, clientMetadataId: String) {
+        val waiting = synchronized(this) {
+            if (clientMetadataId.isEmpty()) {
+                if (entries[entry.key] === entry) entries.remove(entry.key)
+            } else {
+                entry.clientMetadataId = clientMetadataId
+            }
+            entry.waiting.toList().also { entry.waiting.clear() }
+        }
+        waiting.forEach { it(clientMetadataId) }
+    }
+
+    companion object {
+        private const val DEFAULT_MAX_ENTRIES = 8
+        private const val LOAD_FACTOR = 0.75f
+
+        // Magnes correlates risk data per session; ids older than this are collected again
+        private val MAX_AGE_MILLIS = TimeUnit.MINUTES.toMillis(30)
+    }
+}
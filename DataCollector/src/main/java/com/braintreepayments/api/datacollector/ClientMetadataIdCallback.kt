@@ -0,0 +1,19 @@
+package com.braintreepayments.api.datacollector
+
+import androidx.annotation.RestrictTo
+
+/**
+ * Callback for receiving the client metadata id collected by
+ * [DataCollector.getClientMetadataId].
+ *
+ * @suppress
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+fun interface ClientMetadataIdCallback {
+
+    /**
+     * @param clientMetadataId the collected client metadata id, or an empty string if collection
+     * failed
+     */
+    fun onClientMetadataId(clientMetadataId: String)
+}
@@ -1,6 +1,8 @@
 package com.braintreepayments.api.datacollector
 
 import android.content.Context
+import android.os.Handler
+import android.os.Looper
 import android.text.TextUtils
 import androidx.annotation.MainThread
 import androidx.annotation.RestrictTo
@@ -9,6 +11,8 @@ import com.braintreepayments.api.core.Configuration
 import com.braintreepayments.api.core.UUIDHelper
 import org.json.JSONException
 import org.json.JSONObject
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
 
 /**
  * PayPalDataCollector is used to collect PayPal specific device information to aid in fraud detection and prevention.
@@ -16,7 +20,10 @@ import org.json.JSONObject
 class DataCollector @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) constructor(
     private val braintreeClient: BraintreeClient,
     private val magnesInternalClient: MagnesInternalClient = MagnesInternalClient(),
-    private val uuidHelper: UUIDHelper = UUIDHelper()
+    private val uuidHelper: UUIDHelper = UUIDHelper(),
+    private val clientMetadataIdCache: ClientMetadataIdCache = sharedClientMetadataIdCache,
+    private val backgroundExecutor: Executor = magnesExecutor,
+    private val mainThreadExecutor: Executor = MainThreadExecutor
 ) {
     /**
      * Initializes a new [DataCollector] instance
@@ -56,6 +63,9 @@ class DataCollector @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) constructor(
     }
 
     /**
+     * Collects synchronously. Prefer the variant with a [ClientMetadataIdCallback]: this one
+     * blocks while a collection started on the background thread is still running.
+     *
      * @suppress
      */
     @MainThread
@@ -68,6 +78,59 @@ class DataCollector @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) constructor(
         return magnesInternalClient.getClientMetadataId(context, configuration, request)
     }
 
+    /**
+     * Variant of [getClientMetadataId] that collects on a background thread and calls [callback]
+     * on the main thread. The id is cached per pairing id (`request.clientMetadataId`) and
+     * settings, so a collection already started by another flow is awaited rather than
+     * repeated. Requests without a pairing id are always collected anew.
+     *
+     * @suppress
+     */
+    @Suppress("SwallowedException", "TooGenericExceptionCaught")
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    fun getClientMetadataId(
+        context: Context,
+        request: DataCollectorInternalRequest,
+        configuration: Configuration,
+        callback: ClientMetadataIdCallback
+    ) {
+        val key = ClientMetadataIdCache.Key(request, configuration.environment)
+        val entry = clientMetadataIdCache.await(key) { clientMetadataId ->
+            mainThreadExecutor.execute { callback.onClientMetadataId(clientMetadataId) }
+        } ?: return
+
+        backgroundExecutor.execute {
+            val clientMetadataId = try {
+                magnesInternalClient.getClientMetadataId(context, configuration, request)
+            } catch (ignored: Exception) {
+                // nothing above this task would handle the exception; report it and move on
+                braintreeClient.sendAnalyticsEvent(DataCollectorAnalytics.CLIENT_METADATA_ID_FAILED)
+                ""
+            }
+            // an empty id is not cached, so callers waiting on a failed collection move on
+            clientMetadataIdCache.complete(entry, clientMetadataId)
+        }
+    }
+
+    /**
+     * Variant of [getClientMetadataId] that collects on a background thread and calls [callback]
+     * on the main thread. The request has no pairing id, so the id is not cached.
+     *
+     * @suppress
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    fun getClientMetadataId(
+        context: Context,
+        configuration: Configuration,
+        hasUserLocationConsent: Boolean,
+        callback: ClientMetadataIdCallback
+    ) {
+        val request = DataCollectorInternalRequest(hasUserLocationConsent).apply {
+            applicationGuid = getPayPalInstallationGUID(context)
+        }
+        getClientMetadataId(context, request, configuration, callback)
+    }
+
     /**
      * Collects device data for PayPal APIs.
      *
@@ -89,34 +152,62 @@ class DataCollector @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) constructor(
     ) {
         braintreeClient.getConfiguration { configuration: Configuration?, error: Exception? ->
             if (configuration != null) {
-                val deviceData = JSONObject()
-                try {
-                    val internalRequest =
-                        DataCollectorInternalRequest(request.hasUserLocationConsent).apply {
-                            applicationGuid = getPayPalInstallationGUID(context)
-                        }
-                    if (request.riskCorrelationId != null) {
-                        internalRequest.clientMetadataId = request.riskCorrelationId
-                    }
-                    val correlationId =
-                        magnesInternalClient.getClientMetadataId(
-                            context,
-                            configuration,
-                            internalRequest
-                        )
-                    if (!TextUtils.isEmpty(correlationId)) {
-                        deviceData.put(CORRELATION_ID_KEY, correlationId)
+                // Magnes collection runs on the same thread as every other collection
+                backgroundExecutor.execute {
+                    val deviceData = collectDeviceData(context, request, configuration)
+                    mainThreadExecutor.execute {
+                        callback.onDataCollectorResult(DataCollectorResult.Success(deviceData))
                     }
-                } catch (ignored: JSONException) {
                 }
-                callback.onDataCollectorResult(DataCollectorResult.Success(deviceData.toString()))
             } else if (error != null) {
                 callback.onDataCollectorResult(DataCollectorResult.Failure(error))
             }
         }
     }
 
+    private fun collectDeviceData(
+        context: Context,
+        request: DataCollectorRequest,
+        configuration: Configuration
+    ): String {
+        val deviceData = JSONObject()
+        try {
+            val internalRequest =
+                DataCollectorInternalRequest(request.hasUserLocationConsent).apply {
+                    applicationGuid = getPayPalInstallationGUID(context)
+                }
+            if (request.riskCorrelationId != null) {
+                internalRequest.clientMetadataId = request.riskCorrelationId
+            }
+            val correlationId =
+                magnesInternalClient.getClientMetadataId(context, configuration, internalRequest)
+            if (!TextUtils.isEmpty(correlationId)) {
+                deviceData.put(CORRELATION_ID_KEY, correlationId)
+            }
+        } catch (ignored: JSONException) {
+        }
+        return deviceData.toString()
+    }
+
     companion object {
         private const val CORRELATION_ID_KEY = "correlation_id"
+
+        // shared by every DataCollector so that flows can await each other's collections
+        private val sharedClientMetadataIdCache = ClientMetadataIdCache()
+
+        // a single thread, since MagnesSDK is a singleton that is set up for each collection
+        private val magnesExecutor: Executor by lazy {
+            Executors.newSingleThreadExecutor { runnable ->
+                Thread(runnable, "braintree-magnes").apply { isDaemon = true }
+            }
+        }
+    }
+
+    private object MainThreadExecutor : Executor {
+        private val handler = Handler(Looper.getMainLooper())
+
+        override fun execute(command: Runnable) {
+            handler.post(command)
+        }
     }
 }
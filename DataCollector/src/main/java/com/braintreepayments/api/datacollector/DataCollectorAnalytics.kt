@@ -0,0 +1,6 @@
+package com.braintreepayments.api.datacollector
+
+internal object DataCollectorAnalytics {
+
+    const val CLIENT_METADATA_ID_FAILED = "data-collector:client-metadata-id:failed"
+}
@@ -2,7 +2,7 @@ package com.braintreepayments.api.datacollector
 
 import android.content.Context
 import android.util.Log
-import androidx.annotation.MainThread
+import androidx.annotation.AnyThread
 import androidx.annotation.RestrictTo
 import com.braintreepayments.api.core.Configuration
 import lib.android.paypal.com.magnessdk.Environment
@@ -16,7 +16,7 @@ class MagnesInternalClient(
     private val magnesSDK: MagnesSDK = MagnesSDK.getInstance()
 ) {
 
-    @MainThread
+    @AnyThread
     internal fun getClientMetadataId(
         context: Context?,
         configuration: Configuration?,
@@ -43,12 +43,16 @@ class MagnesInternalClient(
                     .setAppGuid(request.applicationGuid ?: "")
                     .setHasUserLocationConsent(request.hasUserLocationConsent)
 
-            magnesSDK.setUp(magnesSettingsBuilder.build())
-            val result = magnesSDK.collectAndSubmit(
-                context.applicationContext,
-                request.clientMetadataId,
-                request.additionalData
-            )
+            // MagnesSDK is a process-wide singleton, so setting it up and collecting must not
+            // interleave with a collection on another thread
+            val result = synchronized(MAGNES_LOCK) {
+                magnesSDK.setUp(magnesSettingsBuilder.build())
+                magnesSDK.collectAndSubmit(
+                    context.applicationContext,
+                    request.clientMetadataId,
+                    request.additionalData
+                )
+            }
             return result.paypalClientMetaDataId
         } catch (e: InvalidInputException) {
             // Either clientMetadataId or appGuid exceeds their character limit
@@ -60,4 +64,8 @@ class MagnesInternalClient(
             return ""
         }
     }
+
+    companion object {
+        private val MAGNES_LOCK = Any()
+    }
 }
@@ -0,0 +1,113 @@
+package com.braintreepayments.api.datacollector
+
+import com.braintreepayments.api.sharedutils.Time
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Before
+import org.junit.Test
+import java.util.concurrent.TimeUnit
+
+class ClientMetadataIdCacheUnitTest {
+
+    private val time: Time = mockk()
+    private val key = ClientMetadataIdCache.Key(
+        pairingId = "pairing-id",
+        applicationGuid = "application-guid",
+        hasUserLocationConsent = true,
+        isDisableBeacon = false,
+        additionalData = null,
+        environment = "sandbox"
+    )
+
+    private lateinit var sut: ClientMetadataIdCache
+
+    @Before
+    fun beforeEach() {
+        every { time.currentTime } returns 0L
+        sut = ClientMetadataIdCache(time)
+    }
+
+    @Test
+    fun await_whenNothingCached_returnsEntryToCollect() {
+        val results = mutableListOf<String>()
+
+        val entry = sut.await(key) { results.add(it) }
+
+        assertNotNull(entry)
+        assertEquals(emptyList<String>(), results)
+    }
+
+    @Test
+    fun await_whileCollectionRunning_waitsForIt() {
+        val results = mutableListOf<String>()
+
+        val entry = sut.await(key) { results.add("first $it") }
+        assertNull(sut.await(key) { results.add("second $it") })
+        sut.complete(entry!!, "client-metadata-id")
+
+        assertEquals(listOf("first client-metadata-id", "second client-metadata-id"), results)
+    }
+
+    @Test
+    fun await_afterCollection_callsBackWithCachedId() {
+        val results = mutableListOf<String>()
+        sut.complete(sut.await(key) { }!!, "client-metadata-id")
+
+        assertNull(sut.await(key) { results.add(it) })
+
+        assertEquals(listOf("client-metadata-id"), results)
+    }
+
+    @Test
+    fun await_withDifferentKey_returnsEntryToCollect() {
+        sut.complete(sut.await(key) { }!!, "client-metadata-id")
+
+        assertNotNull(sut.await(key.copy(pairingId = "other-pairing-id")) { })
+    }
+
+    @Test
+    fun await_withoutPairingId_doesNotCacheCollection() {
+        val keyWithoutPairingId = key.copy(pairingId = null)
+        val results = mutableListOf<String>()
+
+        val entry = sut.await(keyWithoutPairingId) { results.add(it) }
+        assertNotNull(sut.await(keyWithoutPairingId) { })
+        sut.complete(entry!!, "client-metadata-id")
+
+        assertNotNull(sut.await(keyWithoutPairingId) { })
+        assertEquals(listOf("client-metadata-id"), results)
+    }
+
+    @Test
+    fun await_afterFailedCollection_returnsEntryToCollect() {
+        val results = mutableListOf<String>()
+        sut.complete(sut.await(key) { results.add(it) }!!, "")
+
+        assertNotNull(sut.await(key) { })
+        assertEquals(listOf(""), results)
+    }
+
+    @Test
+    fun await_whenCachedIdExpired_returnsEntryToCollect() {
+        sut.complete(sut.await(key) { }!!, "client-metadata-id")
+
+        every { time.currentTime } returns TimeUnit.MINUTES.toMillis(30)
+
+        assertNotNull(sut.await(key) { })
+    }
+
+    @Test
+    fun complete_afterEntryEvicted_stillCallsBackWaitingCallbacks() {
+        val sut = ClientMetadataIdCache(time, maxEntries = 1)
+        val results = mutableListOf<String>()
+
+        val entry = sut.await(key) { results.add(it) }
+        sut.await(key.copy(pairingId = "other-pairing-id")) { }
+        sut.complete(entry!!, "client-metadata-id")
+
+        assertEquals(listOf("client-metadata-id"), results)
+    }
+}
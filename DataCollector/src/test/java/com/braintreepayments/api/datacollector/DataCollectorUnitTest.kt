@@ -10,8 +10,10 @@ import com.braintreepayments.api.testutils.MockBraintreeClientBuilder
 import io.mockk.MockKAnnotations
 import io.mockk.every
 import io.mockk.impl.annotations.MockK
+import io.mockk.mockk
 import io.mockk.slot
 import io.mockk.verify
+import java.util.concurrent.Executor
 import org.json.JSONObject
 import org.junit.Assert
 import org.junit.Before
@@ -131,7 +133,8 @@ class DataCollectorUnitTest {
             .configurationError(configError)
             .build()
 
-        val sut = DataCollector(braintreeClient, magnesInternalClient, uuidHelper)
+        val sut = DataCollector(braintreeClient, magnesInternalClient, uuidHelper,
+            ClientMetadataIdCache(), { it.run() }, { it.run() })
         sut.collectDeviceData(context, dataCollectorRequest, callback)
 
         val deviceDataCaptor = slot<DataCollectorResult>()
@@ -148,7 +151,8 @@ class DataCollectorUnitTest {
             .configuration(configuration)
             .build()
 
-        val sut = DataCollector(braintreeClient, magnesInternalClient, uuidHelper)
+        val sut = DataCollector(braintreeClient, magnesInternalClient, uuidHelper,
+            ClientMetadataIdCache(), { it.run() }, { it.run() })
         sut.collectDeviceData(context, dataCollectorRequest, callback)
 
         val captor = slot<DataCollectorInternalRequest>()
@@ -171,7 +175,8 @@ class DataCollectorUnitTest {
             .configuration(configuration)
             .build()
 
-        val sut = DataCollector(braintreeClient, magnesInternalClient, uuidHelper)
+        val sut = DataCollector(braintreeClient, magnesInternalClient, uuidHelper,
+            ClientMetadataIdCache(), { it.run() }, { it.run() })
         sut.collectDeviceData(context, dataCollectorRequest, callback)
 
         val captor = slot<DataCollectorInternalRequest>()
@@ -195,7 +200,8 @@ class DataCollectorUnitTest {
             .configuration(configuration)
             .build()
 
-        val sut = DataCollector(braintreeClient, magnesInternalClient, uuidHelper)
+        val sut = DataCollector(braintreeClient, magnesInternalClient, uuidHelper,
+            ClientMetadataIdCache(), { it.run() }, { it.run() })
         sut.collectDeviceData(context, dataCollectorRequest, callback)
 
         val captor = slot<DataCollectorInternalRequest>()
@@ -220,7 +226,8 @@ class DataCollectorUnitTest {
             .configuration(configuration)
             .build()
 
-        val sut = DataCollector(braintreeClient, magnesInternalClient, uuidHelper)
+        val sut = DataCollector(braintreeClient, magnesInternalClient, uuidHelper,
+            ClientMetadataIdCache(), { it.run() }, { it.run() })
         sut.collectDeviceData(context, dataCollectorRequest, callback)
 
         val deviceDataCaptor = slot<DataCollectorResult>()
@@ -239,7 +246,8 @@ class DataCollectorUnitTest {
             .configuration(configuration)
             .build()
 
-        val sut = DataCollector(braintreeClient, magnesInternalClient, uuidHelper)
+        val sut = DataCollector(braintreeClient, magnesInternalClient, uuidHelper,
+            ClientMetadataIdCache(), { it.run() }, { it.run() })
         sut.collectDeviceData(context, dataCollectorRequest, callback)
 
         val deviceDataCaptor = slot<DataCollectorResult>()
@@ -262,7 +270,8 @@ class DataCollectorUnitTest {
             .configuration(configuration)
             .build()
 
-        val sut = DataCollector(braintreeClient, magnesInternalClient, uuidHelper)
+        val sut = DataCollector(braintreeClient, magnesInternalClient, uuidHelper,
+            ClientMetadataIdCache(), { it.run() }, { it.run() })
         val dataCollectorRequest = DataCollectorRequest(true)
         sut.collectDeviceData(context, dataCollectorRequest, callback)
 
@@ -279,4 +288,131 @@ class DataCollectorUnitTest {
         }
         Assert.assertTrue(captor.captured.hasUserLocationConsent)
     }
+
+    @Test
+    fun collectDeviceData_collectsInBackgroundAndCallsBackOnMainThread() {
+        val backgroundExecutor = RecordingExecutor()
+        val mainThreadExecutor = RecordingExecutor()
+        val braintreeClient = MockBraintreeClientBuilder()
+            .configuration(configuration)
+            .build()
+
+        val sut = DataCollector(braintreeClient, magnesInternalClient, uuidHelper,
+            ClientMetadataIdCache(), backgroundExecutor, mainThreadExecutor)
+        sut.collectDeviceData(context, dataCollectorRequest, callback)
+
+        verify(exactly = 0) { magnesInternalClient.getClientMetadataId(any(), any(), any()) }
+        backgroundExecutor.runAll()
+        verify(exactly = 0) { callback.onDataCollectorResult(any()) }
+        mainThreadExecutor.runAll()
+        verify { callback.onDataCollectorResult(ofType<DataCollectorResult.Success>()) }
+    }
+
+    @Test
+    fun getClientMetadataId_withCallback_collectsInBackgroundAndCallsBackOnMainThread() {
+        val backgroundExecutor = RecordingExecutor()
+        val mainThreadExecutor = RecordingExecutor()
+        val clientMetadataIdCallback = mockk<ClientMetadataIdCallback>(relaxed = true)
+        val request = DataCollectorInternalRequest(true).apply { clientMetadataId = "pairing-id" }
+
+        val sut = DataCollector(braintreeClient, magnesInternalClient, uuidHelper,
+            ClientMetadataIdCache(), backgroundExecutor, mainThreadExecutor)
+        sut.getClientMetadataId(context, request, configuration, clientMetadataIdCallback)
+
+        verify(exactly = 0) { magnesInternalClient.getClientMetadataId(any(), any(), any()) }
+
+        backgroundExecutor.runAll()
+        verify { magnesInternalClient.getClientMetadataId(context, configuration, request) }
+        verify(exactly = 0) { clientMetadataIdCallback.onClientMetadataId(any()) }
+
+        mainThreadExecutor.runAll()
+        verify { clientMetadataIdCallback.onClientMetadataId("paypal-clientmetadata-id") }
+    }
+
+    @Test
+    fun getClientMetadataId_withCallback_withSamePairingId_reusesCollectedClientMetadataId() {
+        val clientMetadataIdCallback = mockk<ClientMetadataIdCallback>(relaxed = true)
+
+        val sut = DataCollector(braintreeClient, magnesInternalClient, uuidHelper,
+            ClientMetadataIdCache(), { it.run() }, { it.run() })
+        val request = DataCollectorInternalRequest(false).apply {
+            applicationGuid = sampleInstallationGUID
+            clientMetadataId = "pairing-id"
+        }
+        sut.getClientMetadataId(context, request, configuration, clientMetadataIdCallback)
+        sut.getClientMetadataId(context, request, configuration, clientMetadataIdCallback)
+
+        verify(exactly = 1) { magnesInternalClient.getClientMetadataId(any(), any(), any()) }
+        verify(exactly = 2) {
+            clientMetadataIdCallback.onClientMetadataId("paypal-clientmetadata-id")
+        }
+    }
+
+    @Test
+    fun getClientMetadataId_withCallback_whenCollectionFails_collectsAgainOnNextCall() {
+        every { magnesInternalClient.getClientMetadataId(any(), any(), any()) } returns ""
+        val clientMetadataIdCallback = mockk<ClientMetadataIdCallback>(relaxed = true)
+
+        val sut = DataCollector(braintreeClient, magnesInternalClient, uuidHelper,
+            ClientMetadataIdCache(), { it.run() }, { it.run() })
+        val request = DataCollectorInternalRequest(true).apply { clientMetadataId = "pairing-id" }
+        sut.getClientMetadataId(context, request, configuration, clientMetadataIdCallback)
+        sut.getClientMetadataId(context, request, configuration, clientMetadataIdCallback)
+
+        verify(exactly = 2) { magnesInternalClient.getClientMetadataId(any(), any(), any()) }
+        verify(exactly = 2) { clientMetadataIdCallback.onClientMetadataId("") }
+    }
+
+    @Test
+    fun getClientMetadataId_withCallback_whenMagnesThrows_reportsFailureAndCallsBackWithEmptyId() {
+        every {
+            magnesInternalClient.getClientMetadataId(any(), any(), any())
+        } throws RuntimeException("magnes error")
+        val braintreeClient = mockk<BraintreeClient>(relaxed = true)
+        val backgroundExecutor = RecordingExecutor()
+        val clientMetadataIdCallback = mockk<ClientMetadataIdCallback>(relaxed = true)
+        val request = DataCollectorInternalRequest(true).apply { clientMetadataId = "pairing-id" }
+
+        val sut = DataCollector(braintreeClient, magnesInternalClient, uuidHelper,
+            ClientMetadataIdCache(), backgroundExecutor, { it.run() })
+        sut.getClientMetadataId(context, request, configuration, clientMetadataIdCallback)
+        sut.getClientMetadataId(context, request, configuration, clientMetadataIdCallback)
+
+        backgroundExecutor.runAll()
+        verify(exactly = 2) { clientMetadataIdCallback.onClientMetadataId("") }
+        verify {
+            braintreeClient.sendAnalyticsEvent(DataCollectorAnalytics.CLIENT_METADATA_ID_FAILED)
+        }
+
+        sut.getClientMetadataId(context, request, configuration, clientMetadataIdCallback)
+        backgroundExecutor.runAll()
+        verify(exactly = 2) { magnesInternalClient.getClientMetadataId(any(), any(), any()) }
+    }
+
+    @Test
+    fun getClientMetadataId_withCallback_withoutPairingId_collectsOnEveryCall() {
+        val clientMetadataIdCallback = mockk<ClientMetadataIdCallback>(relaxed = true)
+
+        val sut = DataCollector(braintreeClient, magnesInternalClient, uuidHelper,
+            ClientMetadataIdCache(), { it.run() }, { it.run() })
+        sut.getClientMetadataId(context, configuration, true, clientMetadataIdCallback)
+        sut.getClientMetadataId(context, configuration, true, clientMetadataIdCallback)
+
+        verify(exactly = 2) { magnesInternalClient.getClientMetadataId(any(), any(), any()) }
+        verify(exactly = 2) {
+            clientMetadataIdCallback.onClientMetadataId("paypal-clientmetadata-id")
+        }
+    }
+
+    private class RecordingExecutor : Executor {
+        private val commands = mutableListOf<Runnable>()
+
+        override fun execute(command: Runnable) {
+            commands.add(command)
+        }
+
+        fun runAll() {
+            commands.toList().also { commands.clear() }.forEach { it.run() }
+        }
+    }
 }
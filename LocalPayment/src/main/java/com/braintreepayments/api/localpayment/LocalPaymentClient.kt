@@ -79,6 +79,9 @@ class LocalPaymentClient internal constructor(
                         return@getConfiguration
                     }
 
+                    // start the browser while the payment method is created
+                    braintreeClient.warmUpBrowserSwitch()
+
                     localPaymentApi.createPaymentMethod(
                         request
                     ) { localPaymentResult: LocalPaymentAuthRequestParams?, createPaymentMethodError: Exception? ->
@@ -136,6 +139,9 @@ class LocalPaymentClient internal constructor(
         }
 
         localPaymentAuthRequestParams.browserSwitchOptions = browserSwitchOptions
+        braintreeClient.preconnectBrowserSwitch(
+            Uri.parse(localPaymentAuthRequestParams.approvalUrl)
+        )
         callback.onLocalPaymentAuthRequest(
             LocalPaymentAuthRequest.ReadyToLaunch(localPaymentAuthRequestParams)
         )
@@ -181,20 +187,13 @@ class LocalPaymentClient internal constructor(
         }
         braintreeClient.getConfiguration { configuration: Configuration?, error: Exception? ->
             if (configuration != null) {
-                localPaymentApi.tokenize(
-                    merchantAccountId, responseString,
-                    dataCollector.getClientMetadataId(
-                        context,
-                        configuration,
-                        hasUserLocationConsent
-                    )
-                ) { localPaymentNonce: LocalPaymentNonce?, localPaymentError: Exception? ->
-                    if (localPaymentNonce != null) {
-                        sendAnalyticsEvent(LocalPaymentAnalytics.PAYMENT_SUCCEEDED)
-                        callback.onLocalPaymentResult(LocalPaymentResult.Success(localPaymentNonce))
-                    } else if (localPaymentError != null) {
-                        tokenizeFailure(localPaymentError, callback)
-                    }
+                // Magnes collection runs off the main thread
+                dataCollector.getClientMetadataId(
+                    context,
+                    configuration,
+                    hasUserLocationConsent
+                ) { clientMetadataId ->
+                    tokenize(merchantAccountId, responseString, clientMetadataId, callback)
                 }
             } else if (error != null) {
                 tokenizeFailure(error, callback)
@@ -202,6 +201,24 @@ class LocalPaymentClient internal constructor(
         }
     }
 
+    private fun tokenize(
+        merchantAccountId: String?,
+        responseString: String,
+        clientMetadataId: String,
+        callback: LocalPaymentTokenizeCallback
+    ) {
+        localPaymentApi.tokenize(
+            merchantAccountId, responseString, clientMetadataId
+        ) { localPaymentNonce: LocalPaymentNonce?, localPaymentError: Exception? ->
+            if (localPaymentNonce != null) {
+                sendAnalyticsEvent(LocalPaymentAnalytics.PAYMENT_SUCCEEDED)
+                callback.onLocalPaymentResult(LocalPaymentResult.Success(localPaymentNonce))
+            } else if (localPaymentError != null) {
+                tokenizeFailure(localPaymentError, callback)
+            }
+        }
+    }
+
     private fun callbackCancel(callback: LocalPaymentTokenizeCallback) {
         sendAnalyticsEvent(LocalPaymentAnalytics.PAYMENT_CANCELED)
         callback.onLocalPaymentResult(LocalPaymentResult.Cancel)
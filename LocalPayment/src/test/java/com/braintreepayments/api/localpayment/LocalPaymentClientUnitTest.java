@@ -7,6 +7,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -27,6 +28,7 @@ import com.braintreepayments.api.core.Configuration;
 import com.braintreepayments.api.core.ConfigurationException;
 import com.braintreepayments.api.core.IntegrationType;
 import com.braintreepayments.api.core.PostalAddress;
+import com.braintreepayments.api.datacollector.ClientMetadataIdCallback;
 import com.braintreepayments.api.datacollector.DataCollector;
 import com.braintreepayments.api.testutils.Fixtures;
 import com.braintreepayments.api.testutils.MockBraintreeClientBuilder;
@@ -65,6 +67,7 @@ public class LocalPaymentClientUnitTest {
             new MockBraintreeClientBuilder().configuration(
                 Configuration.fromJson(Fixtures.CONFIGURATION_WITH_LIVE_PAYPAL)).build();
         dataCollector = mock(DataCollector.class);
+        stubClientMetadataId("");
         localPaymentApi = mock(LocalPaymentApi.class);
         analyticsParamRepository = mock(AnalyticsParamRepository.class);
         localPaymentAuthRequestParams = mock(LocalPaymentAuthRequestParams.class);
@@ -130,6 +133,16 @@ public class LocalPaymentClientUnitTest {
             any(LocalPaymentInternalAuthRequestCallback.class));
     }
 
+    @Test
+    public void createPaymentAuthRequest_warmsUpBrowser() {
+        LocalPaymentClient sut =
+            new LocalPaymentClient(braintreeClient, dataCollector,
+                localPaymentApi, analyticsParamRepository);
+        sut.createPaymentAuthRequest(getIdealLocalPaymentRequest(), localPaymentAuthCallback);
+
+        verify(braintreeClient).warmUpBrowserSwitch();
+    }
+
     @Test
     public void createPaymentAuthRequest_success_forwardsResultToCallback() {
         BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
@@ -459,6 +472,22 @@ public class LocalPaymentClientUnitTest {
         );
     }
 
+    @Test
+    public void buildBrowserSwitchOptions_preconnectsToApprovalUrl() {
+        LocalPaymentClient sut =
+            new LocalPaymentClient(braintreeClient, dataCollector,
+                localPaymentApi, analyticsParamRepository);
+
+        LocalPaymentRequest request = getIdealLocalPaymentRequest();
+        String approvalUrl = "https://sample.com/approval?token=sample-token";
+        LocalPaymentAuthRequestParams
+            transaction = new LocalPaymentAuthRequestParams(request, approvalUrl, "payment-id");
+
+        sut.buildBrowserSwitchOptions(transaction, true, localPaymentAuthCallback);
+
+        verify(braintreeClient).preconnectBrowserSwitch(Uri.parse(approvalUrl));
+    }
+
     @Test
     public void tokenize_whenPostFailure_notifiesCallbackOfErrorAlongWithAnalyticsEvent()
         throws JSONException {
@@ -482,8 +511,7 @@ public class LocalPaymentClientUnitTest {
             .tokenizeError(postError)
             .build();
 
-        when(dataCollector.getClientMetadataId(activity, payPalEnabledConfig, false)).thenReturn(
-            "sample-correlation-id");
+        stubClientMetadataId("sample-correlation-id");
 
         LocalPaymentClient sut =
             new LocalPaymentClient(braintreeClient, dataCollector,
@@ -522,8 +550,7 @@ public class LocalPaymentClientUnitTest {
         BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
             .configuration(payPalEnabledConfig)
             .build();
-        when(dataCollector.getClientMetadataId(activity, payPalEnabledConfig, false)).thenReturn(
-            "sample-correlation-id");
+        stubClientMetadataId("sample-correlation-id");
 
         LocalPaymentClient sut =
             new LocalPaymentClient(braintreeClient, dataCollector,
@@ -552,8 +579,7 @@ public class LocalPaymentClientUnitTest {
         BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
             .configuration(payPalEnabledConfig)
             .build();
-        when(dataCollector.getClientMetadataId(any(Context.class),
-            same(payPalEnabledConfig), eq(false))).thenReturn("client-metadata-id");
+        stubClientMetadataId("client-metadata-id");
 
         LocalPaymentNonce successNonce = LocalPaymentNonce.fromJSON(
             new JSONObject(Fixtures.PAYMENT_METHODS_LOCAL_PAYMENT_RESPONSE));
@@ -599,8 +625,7 @@ public class LocalPaymentClientUnitTest {
                 new JSONObject(Fixtures.PAYMENT_METHODS_LOCAL_PAYMENT_RESPONSE)))
             .build();
 
-        when(dataCollector.getClientMetadataId(any(Context.class),
-            same(payPalEnabledConfig), eq(false))).thenReturn("client-metadata-id");
+        stubClientMetadataId("client-metadata-id");
 
 
         LocalPaymentClient sut =
@@ -633,8 +658,7 @@ public class LocalPaymentClientUnitTest {
         BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
             .configurationError(configError)
             .build();
-        when(dataCollector.getClientMetadataId(activity, payPalEnabledConfig, true)).thenReturn(
-            "sample-correlation-id");
+        stubClientMetadataId("sample-correlation-id");
 
         LocalPaymentClient sut =
             new LocalPaymentClient(braintreeClient, dataCollector,
@@ -699,7 +723,7 @@ public class LocalPaymentClientUnitTest {
         BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
             .configuration(payPalEnabledConfig)
             .build();
-        when(dataCollector.getClientMetadataId(any(Context.class), same(payPalEnabledConfig), anyBoolean())).thenReturn("client-metadata-id");
+        stubClientMetadataId("client-metadata-id");
 
         LocalPaymentRequest request = getIdealLocalPaymentRequest();
         LocalPaymentClient sut = new LocalPaymentClient(braintreeClient, dataCollector, localPaymentApi, analyticsParamRepository);
@@ -709,7 +733,8 @@ public class LocalPaymentClientUnitTest {
 
         sut.tokenize(activity, localPaymentAuthResult, mock());
 
-        verify(dataCollector).getClientMetadataId(any(), same(payPalEnabledConfig), eq(true));
+        verify(dataCollector).getClientMetadataId(any(), same(payPalEnabledConfig), eq(true),
+            any(ClientMetadataIdCallback.class));
     }
 
     private LocalPaymentRequest getIdealLocalPaymentRequest() {
@@ -725,4 +750,13 @@ public class LocalPaymentClientUnitTest {
             "jon@getbraintree.com", "Jon", "local-merchant-account-id", "ideal", "NL", "639847934",
             true, "Doe");
     }
+
+    private void stubClientMetadataId(String clientMetadataId) {
+        doAnswer(invocation -> {
+            ClientMetadataIdCallback callback = invocation.getArgument(3);
+            callback.onClientMetadataId(clientMetadataId);
+            return null;
+        }).when(dataCollector).getClientMetadataId(any(Context.class), any(Configuration.class),
+            anyBoolean(), any(ClientMetadataIdCallback.class));
+    }
 }
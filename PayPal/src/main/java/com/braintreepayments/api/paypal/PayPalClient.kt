@@ -84,11 +84,37 @@ class PayPalClient internal constructor(
                     PayPalPaymentAuthRequest.Failure(createPayPalError())
                 )
             } else {
+                // start the browser while the payment resource is created
+                if (!isAppSwitchFlow(context, payPalRequest)) {
+                    braintreeClient.warmUpBrowserSwitch()
+                }
                 sendPayPalRequest(context, payPalRequest, callback)
             }
         }
     }
 
+    /**
+     * Creates the PayPal payment resource for [payPalRequest] in the background, e.g. once the
+     * cart is final, so that a later [createPaymentAuthRequest] with an identical request can
+     * launch the PayPal flow without waiting on the network.
+     *
+     * The prefetched resource is only used by a [createPaymentAuthRequest] call on this
+     * [PayPalClient] whose request produces the same payment resource request, and only within a
+     * few minutes. It is discarded as soon as a different request is made, e.g. because the cart
+     * changed. Prefetching is best effort: errors are ignored, and the resource is created again
+     * when it is needed.
+     *
+     * @param context       Android Context
+     * @param payPalRequest a [PayPalRequest] used to customize the request.
+     */
+    fun prefetchPaymentAuthRequest(context: Context, payPalRequest: PayPalRequest) {
+        braintreeClient.getConfiguration { configuration: Configuration?, _: Exception? ->
+            if (!payPalConfigInvalid(configuration)) {
+                internalPayPalClient.prefetch(context, payPalRequest)
+            }
+        }
+    }
+
     private fun sendPayPalRequest(
         context: Context,
         payPalRequest: PayPalRequest,
@@ -101,8 +127,7 @@ class PayPalClient internal constructor(
             error: Exception? ->
             if (payPalResponse != null) {
                 payPalContextId = payPalResponse.pairingId
-                val isAppSwitchFlow = internalPayPalClient.isAppSwitchEnabled(payPalRequest) &&
-                    internalPayPalClient.isPayPalInstalled(context)
+                val isAppSwitchFlow = isAppSwitchFlow(context, payPalRequest)
                 linkType = if (isAppSwitchFlow) LinkType.APP_SWITCH else LinkType.APP_LINK
 
                 try {
@@ -110,6 +135,10 @@ class PayPalClient internal constructor(
 
                     if (isAppSwitchFlow) {
                         braintreeClient.sendAnalyticsEvent(PayPalAnalytics.APP_SWITCH_STARTED, analyticsParams)
+                    } else {
+                        payPalResponse.approvalUrl?.let {
+                            braintreeClient.preconnectBrowserSwitch(Uri.parse(it))
+                        }
                     }
 
                     callback.onPayPalPaymentAuthRequest(
@@ -130,6 +159,10 @@ class PayPalClient internal constructor(
         }
     }
 
+    private fun isAppSwitchFlow(context: Context, payPalRequest: PayPalRequest) =
+        internalPayPalClient.isAppSwitchEnabled(payPalRequest) &&
+            internalPayPalClient.isPayPalInstalled(context)
+
     @Throws(JSONException::class)
     private fun buildBrowserSwitchOptions(
         paymentAuthRequest: PayPalPaymentAuthRequestParams
@@ -11,8 +11,10 @@ import com.braintreepayments.api.core.MerchantRepository
 import com.braintreepayments.api.datacollector.DataCollector
 import com.braintreepayments.api.datacollector.DataCollectorInternalRequest
 import com.braintreepayments.api.paypal.PayPalPaymentResource.Companion.fromJson
+import com.braintreepayments.api.sharedutils.Time
 import org.json.JSONException
 import org.json.JSONObject
+import java.util.concurrent.TimeUnit
 
 internal class PayPalInternalClient(
     private val braintreeClient: BraintreeClient,
@@ -20,19 +22,111 @@ internal class PayPalInternalClient(
     private val apiClient: ApiClient = ApiClient(braintreeClient),
     private val deviceInspector: DeviceInspector = DeviceInspector(),
     private val merchantRepository: MerchantRepository = MerchantRepository.instance,
+    private val time: Time = Time(),
 ) {
     private val cancelUrl = "${merchantRepository.appLinkReturnUri}://onetouch/v1/cancel"
     private val successUrl = "${merchantRepository.appLinkReturnUri}://onetouch/v1/success"
     private val appLink = merchantRepository.appLinkReturnUri?.toString()
 
+    /**
+     * A created payment resource, along with the client metadata id collected for it.
+     */
+    private class PaymentResource(
+        val redirectUri: Uri,
+        val pairingId: String?,
+        val clientMetadataId: String?
+    )
+
+    /**
+     * A payment resource created by [prefetch], handed out to the first [sendRequest] whose request
+     * body is identical.
+     */
+    private class Prefetch(val requestKey: String, val expiresAt: Long) {
+        var paymentResource: PaymentResource? = null
+        var error: Exception? = null
+        val waiting = mutableListOf<(PaymentResource?) -> Unit>()
+
+        val isComplete: Boolean
+            get() = paymentResource != null || error != null
+    }
+
+    private var prefetch: Prefetch? = null
+
     fun sendRequest(
         context: Context,
         payPalRequest: PayPalRequest,
         callback: PayPalInternalClientCallback
+    ) {
+        preparePost(context, payPalRequest, callback::onResult) { url, requestBody, configuration ->
+            val requestKey = requestKey(url, requestBody)
+            val prefetched = takePrefetch(requestKey)
+            if (prefetched == null) {
+                createPaymentResource(url, requestBody, payPalRequest, context, configuration) {
+                        paymentResource, error ->
+                    completeRequest(paymentResource, error, payPalRequest, context, callback)
+                }
+                return@preparePost
+            }
+
+            awaitPrefetch(prefetched) { paymentResource ->
+                if (paymentResource != null) {
+                    completeRequest(paymentResource, null, payPalRequest, context, callback)
+                } else {
+                    // the prefetch failed; try again now that the buyer is waiting for it
+                    createPaymentResource(url, requestBody, payPalRequest, context, configuration) {
+                            retriedResource, error ->
+                        completeRequest(retriedResource, error, payPalRequest, context, callback)
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the payment resource for [payPalRequest] ahead of time, so that a later
+     * [sendRequest] with the same request contents can be completed without a network round trip.
+     * Only the most recent prefetch is kept; it is discarded after [PREFETCH_LIFETIME_MILLIS] or
+     * once it has been handed out.
+     */
+    fun prefetch(context: Context, payPalRequest: PayPalRequest) {
+        preparePost(context, payPalRequest, { _, _ -> }) { url, requestBody, configuration ->
+            val requestKey = requestKey(url, requestBody)
+            val now = time.currentTime
+            val newPrefetch = synchronized(this) {
+                val current = prefetch
+                val isAlreadyPrefetched = current != null && current.requestKey == requestKey &&
+                    now < current.expiresAt && current.error == null
+                if (isAlreadyPrefetched) return@preparePost
+                Prefetch(requestKey, now + PREFETCH_LIFETIME_MILLIS).also { prefetch = it }
+            }
+
+            createPaymentResource(url, requestBody, payPalRequest, context, configuration) {
+                    paymentResource, error ->
+                val waiting = synchronized(this) {
+                    newPrefetch.paymentResource = paymentResource
+                    if (paymentResource == null) {
+                        newPrefetch.error = error ?: BraintreeException("Error is null")
+                    }
+                    newPrefetch.waiting.toList().also { newPrefetch.waiting.clear() }
+                }
+                waiting.forEach { it(paymentResource) }
+            }
+        }
+    }
+
+    /**
+     * Loads the configuration and builds the payment resource endpoint and request body for
+     * [payPalRequest], then hands them to [onPrepared].
+     */
+    private fun preparePost(
+        context: Context,
+        payPalRequest: PayPalRequest,
+        onError: (PayPalPaymentAuthRequestParams?, Exception?) -> Unit,
+        onPrepared: (url: String, requestBody: String, configuration: Configuration) -> Unit
     ) {
         braintreeClient.getConfiguration { configuration: Configuration?, configError: Exception? ->
             if (configuration == null) {
-                callback.onResult(null, configError)
+                onError(null, configError)
                 return@getConfiguration
             }
 
@@ -58,16 +152,9 @@ internal class PayPalInternalClient(
                     appLink = appLinkReturn
                 ) ?: throw JSONException("Error creating requestBody")
 
-                sendPost(
-                    url = url,
-                    requestBody = requestBody,
-                    payPalRequest = payPalRequest,
-                    context = context,
-                    configuration = configuration,
-                    callback = callback
-                )
+                onPrepared(url, requestBody, configuration)
             } catch (exception: JSONException) {
-                callback.onResult(null, exception)
+                onError(null, exception)
             }
         }
     }
@@ -86,13 +173,17 @@ internal class PayPalInternalClient(
         }
     }
 
-    private fun sendPost(
+    /**
+     * Posts [requestBody] to create a payment resource and collects the client metadata id for it
+     * on a background thread.
+     */
+    private fun createPaymentResource(
         url: String,
         requestBody: String,
         payPalRequest: PayPalRequest,
         context: Context,
         configuration: Configuration,
-        callback: PayPalInternalClientCallback
+        callback: (PaymentResource?, Exception?) -> Unit
     ) {
         braintreeClient.sendPOST(
             url = url,
@@ -100,7 +191,7 @@ internal class PayPalInternalClient(
         ) { responseBody: String?, httpError: Exception? ->
 
             if (responseBody == null) {
-                callback.onResult(null, httpError)
+                callback(null, httpError)
                 return@sendPOST
             }
 
@@ -109,45 +200,96 @@ internal class PayPalInternalClient(
                 val parsedRedirectUri = Uri.parse(paypalPaymentResource.redirectUrl)
 
                 val pairingId = findPairingId(parsedRedirectUri)
-                val clientMetadataId = payPalRequest.riskCorrelationId ?: run {
-                    val dataCollectorRequest = DataCollectorInternalRequest(
-                        payPalRequest.hasUserLocationConsent
-                    ).apply {
-                        applicationGuid = dataCollector.getPayPalInstallationGUID(context)
-                        clientMetadataId = pairingId
-                    }
-                    dataCollector.getClientMetadataId(
-                        context = context,
-                        request = dataCollectorRequest,
-                        configuration = configuration
-                    )
+                val riskCorrelationId = payPalRequest.riskCorrelationId
+                if (riskCorrelationId != null) {
+                    callback(PaymentResource(parsedRedirectUri, pairingId, riskCorrelationId), null)
+                    return@sendPOST
                 }
 
-                val paymentAuthRequest = PayPalPaymentAuthRequestParams(
-                    payPalRequest = payPalRequest,
-                    browserSwitchOptions = null,
-                    clientMetadataId = clientMetadataId,
-                    pairingId = pairingId,
-                    successUrl = successUrl
-                )
-
-                if (isAppSwitchEnabled(payPalRequest) && isPayPalInstalled(context)) {
-                    if (!pairingId.isNullOrEmpty()) {
-                        paymentAuthRequest.approvalUrl = createAppSwitchUri(parsedRedirectUri).toString()
-                    } else {
-                        callback.onResult(null, BraintreeException("Missing BA Token for PayPal App Switch."))
-                    }
-                } else {
-                    paymentAuthRequest.approvalUrl = parsedRedirectUri.toString()
+                val dataCollectorRequest = DataCollectorInternalRequest(
+                    payPalRequest.hasUserLocationConsent
+                ).apply {
+                    applicationGuid = dataCollector.getPayPalInstallationGUID(context)
+                    clientMetadataId = pairingId
+                }
+                // Magnes collection runs off the main thread
+                dataCollector.getClientMetadataId(
+                    context,
+                    dataCollectorRequest,
+                    configuration
+                ) { clientMetadataId ->
+                    callback(PaymentResource(parsedRedirectUri, pairingId, clientMetadataId), null)
                 }
-
-                callback.onResult(paymentAuthRequest, null)
             } catch (exception: JSONException) {
-                callback.onResult(null, exception)
+                callback(null, exception)
+            }
+        }
+    }
+
+    private fun completeRequest(
+        paymentResource: PaymentResource?,
+        error: Exception?,
+        payPalRequest: PayPalRequest,
+        context: Context,
+        callback: PayPalInternalClientCallback
+    ) {
+        if (paymentResource == null) {
+            callback.onResult(null, error)
+            return
+        }
+
+        val pairingId = paymentResource.pairingId
+        val paymentAuthRequest = PayPalPaymentAuthRequestParams(
+            payPalRequest = payPalRequest,
+            browserSwitchOptions = null,
+            clientMetadataId = paymentResource.clientMetadataId,
+            pairingId = pairingId,
+            successUrl = successUrl
+        )
+
+        if (isAppSwitchEnabled(payPalRequest) && isPayPalInstalled(context)) {
+            if (!pairingId.isNullOrEmpty()) {
+                paymentAuthRequest.approvalUrl =
+                    createAppSwitchUri(paymentResource.redirectUri).toString()
+            } else {
+                callback.onResult(null, BraintreeException("Missing BA Token for PayPal App Switch."))
+            }
+        } else {
+            paymentAuthRequest.approvalUrl = paymentResource.redirectUri.toString()
+        }
+
+        callback.onResult(paymentAuthRequest, null)
+    }
+
+    /**
+     * Removes and returns the prefetch for [requestKey], or null if there is none that is still
+     * usable. A prefetch for different request contents is discarded, since the request it was
+     * made for has changed.
+     */
+    private fun takePrefetch(requestKey: String): Prefetch? = synchronized(this) {
+        val current = prefetch ?: return null
+        prefetch = null
+        val isUsable = current.requestKey == requestKey &&
+            time.currentTime < current.expiresAt && current.error == null
+        if (isUsable) current else null
+    }
+
+    /**
+     * Calls [callback] with the payment resource of [prefetch] once it has been created, or with
+     * null if creating it failed.
+     */
+    private fun awaitPrefetch(prefetch: Prefetch, callback: (PaymentResource?) -> Unit) {
+        synchronized(this) {
+            if (!prefetch.isComplete) {
+                prefetch.waiting.add(callback)
+                return
             }
         }
+        callback(prefetch.paymentResource)
     }
 
+    private fun requestKey(url: String, requestBody: String) = "$url $requestBody"
+
     private fun createAppSwitchUri(uri: Uri): Uri {
         return uri.buildUpon()
             .appendQueryParameter("source", "braintree_sdk")
@@ -170,6 +312,9 @@ internal class PayPalInternalClient(
     }
 
     companion object {
+        // payment resources stay valid for longer, but carts rarely stay unchanged for this long
+        private val PREFETCH_LIFETIME_MILLIS = TimeUnit.MINUTES.toMillis(10)
+
         private const val CREATE_SINGLE_PAYMENT_ENDPOINT = "paypal_hermes/create_payment_resource"
         private const val SETUP_BILLING_AGREEMENT_ENDPOINT = "paypal_hermes/setup_billing_agreement"
     }
@@ -6,9 +6,11 @@ import static junit.framework.TestCase.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import android.content.Context;
 import android.net.Uri;
 
 import androidx.fragment.app.FragmentActivity;
@@ -206,6 +208,31 @@ public class PayPalClientUnitTest {
         verify(braintreeClient).sendAnalyticsEvent(PayPalAnalytics.TOKENIZATION_FAILED, params);
     }
 
+    @Test
+    public void prefetchPaymentAuthRequest_prefetchesPaymentResource() {
+        PayPalInternalClient payPalInternalClient = new MockPayPalInternalClientBuilder().build();
+        BraintreeClient braintreeClient =
+            new MockBraintreeClientBuilder().configuration(payPalEnabledConfig).build();
+
+        PayPalClient sut = new PayPalClient(braintreeClient, payPalInternalClient, merchantRepository);
+        PayPalCheckoutRequest payPalRequest = new PayPalCheckoutRequest("1.00", true);
+        sut.prefetchPaymentAuthRequest(activity, payPalRequest);
+
+        verify(payPalInternalClient).prefetch(same(activity), same(payPalRequest));
+    }
+
+    @Test
+    public void prefetchPaymentAuthRequest_whenPayPalDisabled_doesNotPrefetch() {
+        PayPalInternalClient payPalInternalClient = new MockPayPalInternalClientBuilder().build();
+        BraintreeClient braintreeClient =
+            new MockBraintreeClientBuilder().configuration(payPalDisabledConfig).build();
+
+        PayPalClient sut = new PayPalClient(braintreeClient, payPalInternalClient, merchantRepository);
+        sut.prefetchPaymentAuthRequest(activity, new PayPalCheckoutRequest("1.00", true));
+
+        verify(payPalInternalClient, never()).prefetch(any(Context.class), any(PayPalRequest.class));
+    }
+
     @Test
     public void createPaymentAuthRequest_whenCheckoutRequest_whenConfigError_forwardsErrorToListener() {
         PayPalInternalClient payPalInternalClient = new MockPayPalInternalClientBuilder().build();
@@ -337,6 +364,71 @@ public class PayPalClientUnitTest {
         verify(braintreeClient).sendAnalyticsEvent(PayPalAnalytics.APP_SWITCH_STARTED, params);
     }
 
+    @Test
+    public void createPaymentAuthRequest_whenBrowserFlow_warmsUpBrowserAndPreconnectsToApprovalUrl() {
+        PayPalCheckoutRequest payPalCheckoutRequest = new PayPalCheckoutRequest("1.00", true);
+        PayPalPaymentAuthRequestParams paymentAuthRequest = new PayPalPaymentAuthRequestParams(
+            payPalCheckoutRequest,
+            null,
+            "https://example.com/approval/url",
+            "sample-client-metadata-id",
+            null,
+            "https://example.com/success/url"
+        );
+        PayPalInternalClient payPalInternalClient =
+            new MockPayPalInternalClientBuilder().sendRequestSuccess(paymentAuthRequest)
+                .build();
+        BraintreeClient braintreeClient =
+            new MockBraintreeClientBuilder().configuration(payPalEnabledConfig).build();
+
+        PayPalClient sut = new PayPalClient(braintreeClient, payPalInternalClient, merchantRepository);
+        sut.createPaymentAuthRequest(activity, payPalCheckoutRequest, paymentAuthCallback);
+
+        verify(braintreeClient).warmUpBrowserSwitch();
+        verify(braintreeClient).preconnectBrowserSwitch(
+            Uri.parse("https://example.com/approval/url"));
+    }
+
+    @Test
+    public void createPaymentAuthRequest_whenPayPalDisabled_doesNotWarmUpBrowser() {
+        PayPalInternalClient payPalInternalClient = new MockPayPalInternalClientBuilder().build();
+        BraintreeClient braintreeClient =
+            new MockBraintreeClientBuilder().configuration(payPalDisabledConfig).build();
+
+        PayPalClient sut = new PayPalClient(braintreeClient, payPalInternalClient, merchantRepository);
+        sut.createPaymentAuthRequest(activity, new PayPalCheckoutRequest("1.00", true),
+            paymentAuthCallback);
+
+        verify(braintreeClient, never()).warmUpBrowserSwitch();
+    }
+
+    @Test
+    public void createPaymentAuthRequest_whenAppSwitchFlow_doesNotWarmUpBrowser() {
+        PayPalVaultRequest payPalVaultRequest = new PayPalVaultRequest(true);
+        payPalVaultRequest.setEnablePayPalAppSwitch(true);
+        PayPalPaymentAuthRequestParams paymentAuthRequest = new PayPalPaymentAuthRequestParams(
+            payPalVaultRequest,
+            null,
+            "https://example.com/approval/url",
+            "sample-client-metadata-id",
+            null,
+            "https://example.com/success/url"
+        );
+        PayPalInternalClient payPalInternalClient =
+            new MockPayPalInternalClientBuilder().sendRequestSuccess(paymentAuthRequest)
+                .build();
+        when(payPalInternalClient.isPayPalInstalled(activity)).thenReturn(true);
+        when(payPalInternalClient.isAppSwitchEnabled(payPalVaultRequest)).thenReturn(true);
+        BraintreeClient braintreeClient =
+            new MockBraintreeClientBuilder().configuration(payPalEnabledConfig).build();
+
+        PayPalClient sut = new PayPalClient(braintreeClient, payPalInternalClient, merchantRepository);
+        sut.createPaymentAuthRequest(activity, payPalVaultRequest, paymentAuthCallback);
+
+        verify(braintreeClient, never()).warmUpBrowserSwitch();
+        verify(braintreeClient, never()).preconnectBrowserSwitch(any(Uri.class));
+    }
+
     @Test
     public void tokenize_withBillingAgreement_tokenizesResponseOnSuccess() throws JSONException {
         PayPalInternalClient payPalInternalClient = new MockPayPalInternalClientBuilder().build();
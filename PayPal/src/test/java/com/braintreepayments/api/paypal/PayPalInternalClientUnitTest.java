@@ -11,7 +11,10 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -27,9 +30,11 @@ import com.braintreepayments.api.core.MerchantRepository;
 import com.braintreepayments.api.core.PostalAddress;
 import com.braintreepayments.api.core.TokenizationKey;
 import com.braintreepayments.api.core.TokenizeCallback;
+import com.braintreepayments.api.datacollector.ClientMetadataIdCallback;
 import com.braintreepayments.api.datacollector.DataCollector;
 import com.braintreepayments.api.datacollector.DataCollectorInternalRequest;
 import com.braintreepayments.api.sharedutils.HttpResponseCallback;
+import com.braintreepayments.api.sharedutils.Time;
 import com.braintreepayments.api.testutils.Fixtures;
 import com.braintreepayments.api.testutils.MockApiClientBuilder;
 import com.braintreepayments.api.testutils.MockBraintreeClientBuilder;
@@ -46,6 +51,7 @@ import org.skyscreamer.jsonassert.JSONAssert;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 @RunWith(RobolectricTestRunner.class)
 public class PayPalInternalClientUnitTest {
@@ -63,6 +69,7 @@ public class PayPalInternalClientUnitTest {
     PayPalInternalClientCallback payPalInternalClientCallback;
 
     private MerchantRepository merchantRepository = mock(MerchantRepository.class);
+    private Time time;
 
     @Before
     public void beforeEach() throws JSONException {
@@ -75,6 +82,8 @@ public class PayPalInternalClientUnitTest {
         apiClient = mock(ApiClient.class);
         deviceInspector = mock(DeviceInspector.class);
         payPalInternalClientCallback = mock(PayPalInternalClientCallback.class);
+        time = mock(Time.class);
+        stubClientMetadataId("");
     }
 
     @Test
@@ -92,7 +101,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         PostalAddress shippingAddressOverride = new PostalAddress();
@@ -168,7 +178,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
         PostalAddress shippingAddressOverride = new PostalAddress();
         shippingAddressOverride.setRecipientName("Brianna Tree");
@@ -269,7 +280,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         PayPalVaultRequest payPalRequest = new PayPalVaultRequest(true);
@@ -304,7 +316,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         PayPalVaultRequest payPalRequest = new PayPalVaultRequest(false);
@@ -339,7 +352,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         PayPalVaultRequest payPalRequest = new PayPalVaultRequest(true);
@@ -374,7 +388,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         PayPalVaultRequest payPalRequest = new PayPalVaultRequest(true);
@@ -409,7 +424,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         PayPalVaultRequest payPalRequest = new PayPalVaultRequest(true);
@@ -445,7 +461,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         PayPalVaultRequest payPalRequest = new PayPalVaultRequest(true);
@@ -482,7 +499,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         PayPalVaultRequest payPalRequest = new PayPalVaultRequest(true);
@@ -517,7 +535,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         PayPalCheckoutRequest payPalRequest = new PayPalCheckoutRequest("1.00", true);
@@ -550,7 +569,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         PayPalCheckoutRequest payPalRequest = new PayPalCheckoutRequest("1.00", true);
@@ -573,7 +593,7 @@ public class PayPalInternalClientUnitTest {
 
     @Test
     public void sendRequest_whenRiskCorrelationIdNotNull_setsClientMetadataIdToRiskCorrelationId() {
-        when(dataCollector.getClientMetadataId(same(context), any(), same(configuration))).thenReturn("sample-client-metadata-id");
+        stubClientMetadataId("sample-client-metadata-id");
 
         BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
             .configuration(configuration)
@@ -587,7 +607,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         PayPalCheckoutRequest payPalRequest = new PayPalCheckoutRequest("1.00", true);
@@ -605,7 +626,7 @@ public class PayPalInternalClientUnitTest {
 
     @Test
     public void sendRequest_whenRiskCorrelationIdNull_setsClientMetadataIdFromPayPalDataCollector() {
-        when(dataCollector.getClientMetadataId(same(context), any(), any())).thenReturn("sample-client-metadata-id");
+        stubClientMetadataId("sample-client-metadata-id");
 
         BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
             .configuration(configuration)
@@ -619,7 +640,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         PayPalCheckoutRequest payPalRequest = new PayPalCheckoutRequest("1.00", true);
@@ -649,7 +671,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         PayPalCheckoutRequest payPalRequest = new PayPalCheckoutRequest("1.00", true);
@@ -674,7 +697,7 @@ public class PayPalInternalClientUnitTest {
 
     @Test
     public void sendRequest_withPayPalVaultRequest_callsBackPayPalResponseOnSuccess() {
-        when(dataCollector.getClientMetadataId(context, configuration, true)).thenReturn("sample-client-metadata-id");
+        stubClientMetadataId("sample-client-metadata-id");
 
         BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
             .configuration(configuration)
@@ -689,7 +712,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         PayPalVaultRequest payPalRequest = new PayPalVaultRequest(true);
@@ -728,7 +752,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         PayPalVaultRequest payPalRequest = new PayPalVaultRequest(true);
@@ -770,7 +795,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         PayPalVaultRequest payPalRequest = new PayPalVaultRequest(true);
@@ -790,7 +816,7 @@ public class PayPalInternalClientUnitTest {
 
     @Test
     public void sendRequest_withPayPalCheckoutRequest_callsBackPayPalResponseOnSuccess() {
-        when(dataCollector.getClientMetadataId(context, configuration, true)).thenReturn("sample-client-metadata-id");
+        stubClientMetadataId("sample-client-metadata-id");
 
         BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
             .configuration(configuration)
@@ -805,7 +831,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         PayPalCheckoutRequest payPalRequest = new PayPalCheckoutRequest("1.00", true);
@@ -847,7 +874,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         PayPalCheckoutRequest payPalRequest = new PayPalCheckoutRequest("1.00", true);
@@ -870,7 +898,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         PayPalCheckoutRequest payPalRequest = new PayPalCheckoutRequest("1.00", true);
@@ -894,7 +923,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         PayPalCheckoutRequest payPalRequest = new PayPalCheckoutRequest("1.00", true);
@@ -914,7 +944,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         sut.tokenize(payPalAccount, callback);
@@ -937,7 +968,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         sut.tokenize(payPalAccount, callback);
@@ -967,7 +999,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         sut.tokenize(payPalAccount, callback);
@@ -991,7 +1024,8 @@ public class PayPalInternalClientUnitTest {
             dataCollector,
             apiClient,
             deviceInspector,
-            merchantRepository
+            merchantRepository,
+            new Time()
         );
 
         PayPalCheckoutRequest payPalRequest = new PayPalCheckoutRequest("1.00", true);
@@ -1003,8 +1037,131 @@ public class PayPalInternalClientUnitTest {
         ArgumentCaptor<DataCollectorInternalRequest> captor = ArgumentCaptor.forClass(
             DataCollectorInternalRequest.class);
 
-        verify(dataCollector).getClientMetadataId(same(context), captor.capture(), same(configuration));
+        verify(dataCollector).getClientMetadataId(same(context), captor.capture(),
+            same(configuration), any(ClientMetadataIdCallback.class));
 
         assertTrue(captor.getValue().getHasUserLocationConsent());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void sendRequest_afterPrefetchWithSameRequest_usesPrefetchedPaymentResource() {
+        stubClientMetadataId("sample-client-metadata-id");
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+            .configuration(configuration)
+            .sendPOSTSuccessfulResponse(Fixtures.PAYPAL_HERMES_RESPONSE)
+            .build();
+        when(merchantRepository.getAuthorization()).thenReturn(clientToken);
+
+        PayPalInternalClient sut = new PayPalInternalClient(braintreeClient, dataCollector,
+            apiClient, deviceInspector, merchantRepository, time);
+
+        sut.prefetch(context, new PayPalCheckoutRequest("1.00", true));
+        sut.sendRequest(context, new PayPalCheckoutRequest("1.00", true),
+            payPalInternalClientCallback);
+
+        verify(braintreeClient, times(1)).sendPOST(anyString(), anyString(), anyMap(),
+            any(HttpResponseCallback.class));
+        ArgumentCaptor<PayPalPaymentAuthRequestParams> captor = ArgumentCaptor.forClass(
+            PayPalPaymentAuthRequestParams.class);
+        verify(payPalInternalClientCallback).onResult(captor.capture(), isNull());
+        assertEquals("sample-client-metadata-id", captor.getValue().getClientMetadataId());
+    }
+
+    @Test
+    public void sendRequest_afterPrefetchWithDifferentRequest_createsNewPaymentResource() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+            .configuration(configuration)
+            .sendPOSTSuccessfulResponse(Fixtures.PAYPAL_HERMES_RESPONSE)
+            .build();
+        when(merchantRepository.getAuthorization()).thenReturn(clientToken);
+
+        PayPalInternalClient sut = new PayPalInternalClient(braintreeClient, dataCollector,
+            apiClient, deviceInspector, merchantRepository, time);
+
+        sut.prefetch(context, new PayPalCheckoutRequest("1.00", true));
+        sut.sendRequest(context, new PayPalCheckoutRequest("2.00", true),
+            payPalInternalClientCallback);
+
+        verify(braintreeClient, times(2)).sendPOST(anyString(), anyString(), anyMap(),
+            any(HttpResponseCallback.class));
+        verify(payPalInternalClientCallback).onResult(any(PayPalPaymentAuthRequestParams.class),
+            isNull());
+    }
+
+    @Test
+    public void sendRequest_afterPrefetchExpires_createsNewPaymentResource() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+            .configuration(configuration)
+            .sendPOSTSuccessfulResponse(Fixtures.PAYPAL_HERMES_RESPONSE)
+            .build();
+        when(merchantRepository.getAuthorization()).thenReturn(clientToken);
+
+        PayPalInternalClient sut = new PayPalInternalClient(braintreeClient, dataCollector,
+            apiClient, deviceInspector, merchantRepository, time);
+
+        sut.prefetch(context, new PayPalCheckoutRequest("1.00", true));
+        when(time.getCurrentTime()).thenReturn(TimeUnit.HOURS.toMillis(1));
+        sut.sendRequest(context, new PayPalCheckoutRequest("1.00", true),
+            payPalInternalClientCallback);
+
+        verify(braintreeClient, times(2)).sendPOST(anyString(), anyString(), anyMap(),
+            any(HttpResponseCallback.class));
+    }
+
+    @Test
+    public void sendRequest_usesPrefetchedPaymentResourceOnlyOnce() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+            .configuration(configuration)
+            .sendPOSTSuccessfulResponse(Fixtures.PAYPAL_HERMES_RESPONSE)
+            .build();
+        when(merchantRepository.getAuthorization()).thenReturn(clientToken);
+
+        PayPalInternalClient sut = new PayPalInternalClient(braintreeClient, dataCollector,
+            apiClient, deviceInspector, merchantRepository, time);
+
+        sut.prefetch(context, new PayPalCheckoutRequest("1.00", true));
+        sut.sendRequest(context, new PayPalCheckoutRequest("1.00", true),
+            payPalInternalClientCallback);
+        sut.sendRequest(context, new PayPalCheckoutRequest("1.00", true),
+            payPalInternalClientCallback);
+
+        verify(braintreeClient, times(2)).sendPOST(anyString(), anyString(), anyMap(),
+            any(HttpResponseCallback.class));
+    }
+
+    @Test
+    public void sendRequest_whilePrefetchIsInFlight_waitsForPrefetchedPaymentResource() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+            .configuration(configuration)
+            .build();
+        when(merchantRepository.getAuthorization()).thenReturn(clientToken);
+
+        PayPalInternalClient sut = new PayPalInternalClient(braintreeClient, dataCollector,
+            apiClient, deviceInspector, merchantRepository, time);
+
+        sut.prefetch(context, new PayPalCheckoutRequest("1.00", true));
+        sut.sendRequest(context, new PayPalCheckoutRequest("1.00", true),
+            payPalInternalClientCallback);
+
+        ArgumentCaptor<HttpResponseCallback> captor =
+            ArgumentCaptor.forClass(HttpResponseCallback.class);
+        verify(braintreeClient, times(1)).sendPOST(anyString(), anyString(), anyMap(),
+            captor.capture());
+        verify(payPalInternalClientCallback, never()).onResult(any(), any());
+
+        captor.getValue().onResult(Fixtures.PAYPAL_HERMES_RESPONSE, null);
+
+        verify(payPalInternalClientCallback).onResult(any(PayPalPaymentAuthRequestParams.class),
+            isNull());
+    }
+
+    private void stubClientMetadataId(String clientMetadataId) {
+        doAnswer(invocation -> {
+            ClientMetadataIdCallback callback = invocation.getArgument(3);
+            callback.onClientMetadataId(clientMetadataId);
+            return null;
+        }).when(dataCollector).getClientMetadataId(any(Context.class),
+            any(DataCollectorInternalRequest.class), any(Configuration.class),
+            any(ClientMetadataIdCallback.class));
+    }
+}
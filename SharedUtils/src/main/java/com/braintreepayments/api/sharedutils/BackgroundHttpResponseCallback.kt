@@ -0,0 +1,18 @@
+package com.braintreepayments.api.sharedutils
+
+import androidx.annotation.RestrictTo
+import androidx.annotation.WorkerThread
+
+/**
+ * An [HttpResponseCallback] that is invoked on the background thread that completed the request
+ * instead of on the main thread. Use this for internal continuations, so that a chain of requests
+ * only switches threads once, when its final result is delivered.
+ *
+ * @suppress
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+fun interface BackgroundHttpResponseCallback : HttpResponseCallback {
+
+    @WorkerThread
+    override fun onResult(responseBody: String?, httpError: Exception?)
+}
@@ -0,0 +1,38 @@
+package com.braintreepayments.api.sharedutils
+
+import androidx.annotation.RestrictTo
+import androidx.annotation.WorkerThread
+
+/**
+ * A [NetworkResponseCallback] that [HttpClient] invokes directly on the background thread that
+ * executed the request instead of posting the result to the main thread. Use this for internal
+ * continuations (e.g. a configuration fetch followed by another request) so they do not bounce
+ * through the main thread before the final public callback fires.
+ *
+ * @suppress
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+fun interface BackgroundNetworkResponseCallback : NetworkResponseCallback {
+    @WorkerThread
+    override fun onResult(response: HttpResponse?, httpError: Exception?)
+
+    companion object {
+
+        /**
+         * Wraps [continuation], which forwards its result to [callback], so that [HttpClient]
+         * invokes it on the same thread it would invoke [callback] on: the background thread if
+         * [callback] is a [BackgroundNetworkResponseCallback], the main thread otherwise.
+         */
+        @JvmStatic
+        fun continuationOf(
+            callback: NetworkResponseCallback,
+            continuation: NetworkResponseCallback
+        ): NetworkResponseCallback = if (callback is BackgroundNetworkResponseCallback) {
+            BackgroundNetworkResponseCallback { response, httpError ->
+                continuation.onResult(response, httpError)
+            }
+        } else {
+            continuation
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.braintreepayments.api.sharedutils;
+
+import androidx.annotation.RestrictTo;
+
+/**
+ * Exception thrown when a request is rejected without being sent because recent requests to the
+ * same host have been failing or timing out. Indicates that the client should wait a period of
+ * time and try again.
+ */
+public class CircuitBreakerOpenException extends Exception {
+
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+}
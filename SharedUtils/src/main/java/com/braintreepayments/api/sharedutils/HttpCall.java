@@ -0,0 +1,84 @@
+package com.braintreepayments.api.sharedutils;
+
+import androidx.annotation.RestrictTo;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Handle for an in-flight HTTP request. Canceling a call aborts the underlying
+ * {@link HttpURLConnection} (which unblocks the worker thread executing it), drops any pending
+ * retries and guarantees that the request callback will not be invoked.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class HttpCall {
+
+    private boolean canceled;
+    private HttpURLConnection connection;
+    private final List<HttpCall> linkedCalls;
+
+    public HttpCall() {
+        linkedCalls = new ArrayList<>();
+    }
+
+    /**
+     * Cancels this call and every call linked to it. Calling this method more than once has no
+     * additional effect.
+     */
+    public void cancel() {
+        HttpURLConnection connectionToAbort;
+        List<HttpCall> callsToCancel;
+        synchronized (this) {
+            if (canceled) {
+                return;
+            }
+            canceled = true;
+            connectionToAbort = connection;
+            connection = null;
+            callsToCancel = new ArrayList<>(linkedCalls);
+            linkedCalls.clear();
+        }
+
+        if (connectionToAbort != null) {
+            connectionToAbort.disconnect();
+        }
+        for (HttpCall call : callsToCancel) {
+            call.cancel();
+        }
+    }
+
+    public synchronized boolean isCanceled() {
+        return canceled;
+    }
+
+    /**
+     * Links another call to this one so that canceling this call also cancels {@code call}.
+     * If this call has already been canceled, {@code call} is canceled immediately.
+     *
+     * @param call the dependent call
+     */
+    public void link(HttpCall call) {
+        synchronized (this) {
+            if (!canceled) {
+                linkedCalls.add(call);
+                return;
+            }
+        }
+        call.cancel();
+    }
+
+    void attachConnection(HttpURLConnection connection) {
+        synchronized (this) {
+            if (!canceled) {
+                this.connection = connection;
+                return;
+            }
+        }
+        connection.disconnect();
+    }
+
+    synchronized void detachConnection() {
+        connection = null;
+    }
+}
@@ -0,0 +1,311 @@
+package com.braintreepayments.api.sharedutils;
+
+import androidx.annotation.RestrictTo;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-host circuit breaker used by {@link HttpClient} to fail fast while a host is degraded.
+ * <p>
+ * A host starts out {@link State#CLOSED}. Once enough recent requests have failed (network
+ * errors, timeouts, 429 and 5xx responses), or enough of them were slower than the slow call
+ * threshold, the circuit {@link State#OPEN}s and requests are rejected with a
+ * {@link CircuitBreakerOpenException}. Failure and slow call rates are tracked separately, so an
+ * occasional slow response does not count as a failure, and failures caused by the device being
+ * offline say nothing about the host and are not counted at all. After a cool-down the circuit
+ * becomes {@link State#HALF_OPEN} and a single probe request is let through: the circuit closes
+ * again if the probe succeeds in time and re-opens if it fails or is slow. Outcomes of requests
+ * sent before the circuit opened are ignored while it is half-open.
+ * <p>
+ * User-initiated and background (e.g. analytics) traffic are tracked in separate circuits.
+ * Background traffic trips sooner and backs off for longer, its failures never open the circuit
+ * for user-initiated traffic, and it is held back entirely while the user-initiated circuit for the
+ * same host is recovering.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+class HttpCircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    static final class Policy {
+
+        final int windowSize;
+        final int minimumCalls;
+        final float failureRateThreshold;
+        final long slowCallThresholdMillis;
+        final float slowCallRateThreshold;
+        final long openDurationMillis;
+
+        Policy(int windowSize, int minimumCalls, float failureRateThreshold,
+               long slowCallThresholdMillis, float slowCallRateThreshold,
+               long openDurationMillis) {
+            this.windowSize = windowSize;
+            this.minimumCalls = minimumCalls;
+            this.failureRateThreshold = failureRateThreshold;
+            this.slowCallThresholdMillis = slowCallThresholdMillis;
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            this.openDurationMillis = openDurationMillis;
+        }
+    }
+
+    static final Policy USER_INITIATED_POLICY = new Policy(10, 5, 0.5f, 10000, 0.8f, 15000);
+    static final Policy BACKGROUND_POLICY = new Policy(10, 3, 0.3f, 5000, 0.5f, 60000);
+
+    private static final HttpCircuitBreaker SHARED_INSTANCE = new HttpCircuitBreaker(new Time());
+
+    /**
+     * @return the circuit breaker shared by every {@link HttpClient} in the process, so that host
+     * health is tracked across clients.
+     */
+    static HttpCircuitBreaker getSharedInstance() {
+        return SHARED_INSTANCE;
+    }
+
+    private final Time time;
+    private final Policy userInitiatedPolicy;
+    private final Policy backgroundPolicy;
+
+    private final Map<String, Circuit> userInitiatedCircuits = new HashMap<>();
+    private final Map<String, Circuit> backgroundCircuits = new HashMap<>();
+
+    HttpCircuitBreaker(Time time) {
+        this(time, USER_INITIATED_POLICY, BACKGROUND_POLICY);
+    }
+
+    @VisibleForTesting
+    HttpCircuitBreaker(Time time, Policy userInitiatedPolicy, Policy backgroundPolicy) {
+        this.time = time;
+        this.userInitiatedPolicy = userInitiatedPolicy;
+        this.backgroundPolicy = backgroundPolicy;
+    }
+
+    /**
+     * Throws if a request to {@code host} should not be sent right now. When a half-open circuit
+     * lets the request through as its probe, the outcome of the request must be reported with one
+     * of the {@code record} methods, passing {@code probe = true}.
+     *
+     * @param host the host the request is sent to.
+     * @param background whether the request is background traffic.
+     * @return true if the request is the probe of a half-open circuit.
+     */
+    synchronized boolean checkAllowed(String host, boolean background)
+            throws CircuitBreakerOpenException {
+        long now = time.getMonotonicTime();
+        if (background) {
+            Circuit userInitiatedCircuit = userInitiatedCircuits.get(host);
+            if (userInitiatedCircuit != null && userInitiatedCircuit.isRecovering(now)) {
+                throw newOpenException(host);
+            }
+        }
+        Circuit circuit = getCircuit(host, background);
+        if (!circuit.tryAcquire(now)) {
+            throw newOpenException(host);
+        }
+        return circuit.state == State.HALF_OPEN;
+    }
+
+    /**
+     * Records a response from {@code host}. Responses slower than the slow call threshold of the
+     * policy count towards the slow call rate rather than the failure rate.
+     *
+     * @param probe the value returned by {@link #checkAllowed(String, boolean)} for the request.
+     * @param latencyMillis how long the request took.
+     */
+    synchronized void recordSuccess(String host, boolean background, boolean probe,
+                                    long latencyMillis) {
+        Circuit circuit = getCircuit(host, background);
+        boolean slow = latencyMillis >= circuit.policy.slowCallThresholdMillis;
+        circuit.record(false, slow, probe, time.getMonotonicTime());
+    }
+
+    /**
+     * Records a failed request to {@code host}. Failures that indicate the request itself was
+     * rejected (e.g. validation or authentication errors) show that the host is healthy and are
+     * counted as successes. Failures caused by the device being offline are not counted at all.
+     *
+     * @param probe the value returned by {@link #checkAllowed(String, boolean)} for the request.
+     */
+    synchronized void recordFailure(String host, boolean background, boolean probe,
+                                    HttpFailureType failureType) {
+        Circuit circuit = getCircuit(host, background);
+        if (failureType == HttpFailureType.OFFLINE) {
+            circuit.release(probe);
+        } else {
+            circuit.record(isHostFailure(failureType), false, probe, time.getMonotonicTime());
+        }
+    }
+
+    /**
+     * Records that a request to {@code host} was canceled before it completed, releasing the probe
+     * slot of a half-open circuit if the request was its probe.
+     *
+     * @param probe the value returned by {@link #checkAllowed(String, boolean)} for the request.
+     */
+    synchronized void recordCanceled(String host, boolean background, boolean probe) {
+        getCircuit(host, background).release(probe);
+    }
+
+    @VisibleForTesting
+    synchronized State getState(String host, boolean background) {
+        return getCircuit(host, background).state;
+    }
+
+    private Circuit getCircuit(String host, boolean background) {
+        Map<String, Circuit> circuits = background ? backgroundCircuits : userInitiatedCircuits;
+        Circuit circuit = circuits.get(host);
+        if (circuit == null) {
+            circuit = new Circuit(background ? backgroundPolicy : userInitiatedPolicy);
+            circuits.put(host, circuit);
+        }
+        return circuit;
+    }
+
+    private static boolean isHostFailure(HttpFailureType failureType) {
+        switch (failureType) {
+            case TIMEOUT:
+            case NETWORK:
+            case RATE_LIMITED:
+            case SERVER_ERROR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static CircuitBreakerOpenException newOpenException(String host) {
+        return new CircuitBreakerOpenException("Requests to " + host + " are temporarily "
+                + "suspended after repeated failures. Please try again later.");
+    }
+
+    private static final class Circuit {
+
+        final Policy policy;
+
+        State state = State.CLOSED;
+        long openedAt;
+        boolean probeInFlight;
+
+        // ring buffers of the most recent outcomes; true marks a failure or a slow call
+        private final boolean[] failures;
+        private final boolean[] slowCalls;
+        private int nextIndex;
+        private int callCount;
+        private int failureCount;
+        private int slowCallCount;
+
+        Circuit(Policy policy) {
+            this.policy = policy;
+            this.failures = new boolean[policy.windowSize];
+            this.slowCalls = new boolean[policy.windowSize];
+        }
+
+        boolean tryAcquire(long now) {
+            if (state == State.OPEN && now - openedAt >= policy.openDurationMillis) {
+                state = State.HALF_OPEN;
+                probeInFlight = false;
+            }
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case HALF_OPEN:
+                    if (probeInFlight) {
+                        return false;
+                    }
+                    probeInFlight = true;
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * @return true while the circuit is open and cooling down, or half-open with its probe in
+         * flight.
+         */
+        boolean isRecovering(long now) {
+            if (state == State.OPEN) {
+                return now - openedAt < policy.openDurationMillis;
+            }
+            return state == State.HALF_OPEN && probeInFlight;
+        }
+
+        void record(boolean failed, boolean slow, boolean probe, long now) {
+            switch (state) {
+                case HALF_OPEN:
+                    if (!probe) {
+                        // outcome of a request that was sent before the circuit opened
+                        break;
+                    }
+                    probeInFlight = false;
+                    if (failed || slow) {
+                        open(now);
+                    } else {
+                        close();
+                    }
+                    break;
+                case CLOSED:
+                    addOutcome(failed, slow);
+                    if (callCount >= policy.minimumCalls
+                            && (failureCount >= policy.failureRateThreshold * callCount
+                            || slowCallCount >= policy.slowCallRateThreshold * callCount)) {
+                        open(now);
+                    }
+                    break;
+                default:
+                    // outcome of a request that was sent before the circuit opened
+                    break;
+            }
+        }
+
+        /**
+         * Frees the probe slot without changing the state, for a probe whose outcome says nothing
+         * about the host.
+         */
+        void release(boolean probe) {
+            if (probe && state == State.HALF_OPEN) {
+                probeInFlight = false;
+            }
+        }
+
+        private void addOutcome(boolean failed, boolean slow) {
+            if (callCount == failures.length) {
+                if (failures[nextIndex]) {
+                    failureCount--;
+                }
+                if (slowCalls[nextIndex]) {
+                    slowCallCount--;
+                }
+            } else {
+                callCount++;
+            }
+            failures[nextIndex] = failed;
+            slowCalls[nextIndex] = slow;
+            if (failed) {
+                failureCount++;
+            }
+            if (slow) {
+                slowCallCount++;
+            }
+            nextIndex = (nextIndex + 1) % failures.length;
+        }
+
+        private void open(long now) {
+            state = State.OPEN;
+            openedAt = now;
+        }
+
+        private void close() {
+            state = State.CLOSED;
+            nextIndex = 0;
+            callCount = 0;
+            failureCount = 0;
+            slowCallCount = 0;
+        }
+    }
+}
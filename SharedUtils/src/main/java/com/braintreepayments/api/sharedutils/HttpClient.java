@@ -1,6 +1,7 @@
 package com.braintreepayments.api.sharedutils;
 
 import androidx.annotation.IntDef;
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 
@@ -9,8 +10,12 @@ import java.lang.annotation.RetentionPolicy;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLSocketFactory;
 
@@ -29,22 +34,68 @@ public class HttpClient {
 
     private final Scheduler scheduler;
     private final SynchronousHttpClient syncHttpClient;
+    private final HttpCircuitBreaker circuitBreaker;
+    private final HttpTimeoutEstimator timeoutEstimator;
 
     private final Map<URL, Integer> retryCountMap;
+    private final Map<String, InFlightGet> inFlightGets;
+
+    private volatile HttpEventListener eventListener;
 
     public HttpClient(SSLSocketFactory socketFactory, HttpResponseParser httpResponseParser) {
-        this(new SynchronousHttpClient(socketFactory, httpResponseParser), new ThreadScheduler());
+        this(new SynchronousHttpClient(socketFactory, httpResponseParser), new ThreadScheduler(),
+                HttpCircuitBreaker.getSharedInstance(), HttpTimeoutEstimator.getSharedInstance());
     }
 
     @VisibleForTesting
     HttpClient(SynchronousHttpClient syncHttpClient, Scheduler scheduler) {
+        this(syncHttpClient, scheduler, new HttpCircuitBreaker(new Time()));
+    }
+
+    @VisibleForTesting
+    HttpClient(SynchronousHttpClient syncHttpClient, Scheduler scheduler,
+               HttpCircuitBreaker circuitBreaker) {
+        this(syncHttpClient, scheduler, circuitBreaker, new HttpTimeoutEstimator());
+    }
+
+    @VisibleForTesting
+    HttpClient(SynchronousHttpClient syncHttpClient, Scheduler scheduler,
+               HttpCircuitBreaker circuitBreaker, HttpTimeoutEstimator timeoutEstimator) {
         this.syncHttpClient = syncHttpClient;
         this.scheduler = scheduler;
-        this.retryCountMap = new HashMap<>();
+        this.circuitBreaker = circuitBreaker;
+        this.timeoutEstimator = timeoutEstimator;
+        this.retryCountMap = new ConcurrentHashMap<>();
+        this.inFlightGets = new HashMap<>();
+    }
+
+    /**
+     * Registers a listener for request lifecycle events, replacing any previously registered one.
+     * When no listener is registered, events are not dispatched at all.
+     *
+     * @param eventListener the listener, or {@code null} to unregister.
+     */
+    public void setEventListener(@Nullable HttpEventListener eventListener) {
+        this.eventListener = eventListener;
+        syncHttpClient.setEventListener(eventListener);
     }
 
     public String sendRequest(HttpRequest request) throws Exception {
-        return syncHttpClient.request(request).getBody();
+        URL url = parseURL(request);
+        boolean probe = false;
+        if (url != null) {
+            probe = circuitBreaker.checkAllowed(url.getHost(), request.isBackground());
+            timeoutEstimator.applyTimeouts(request, url);
+        }
+        long requestStart = System.nanoTime();
+        try {
+            HttpResponse httpResponse = syncHttpClient.request(request);
+            recordSuccess(url, request, probe, requestStart, httpResponse);
+            return httpResponse.getBody();
+        } catch (Exception e) {
+            recordFailure(url, request, probe, HttpFailureType.classify(e));
+            throw e;
+        }
     }
 
     public void sendRequest(HttpRequest request, NetworkResponseCallback callback) {
@@ -53,21 +104,161 @@ public class HttpClient {
 
     public void sendRequest(HttpRequest request, @RetryStrategy int retryStrategy,
                             NetworkResponseCallback callback) {
-        scheduleRequest(request, retryStrategy, callback);
+        HttpEventListener listener = eventListener;
+        if (listener != null) {
+            listener.onRequestEnqueued(request);
+        }
+
+        String coalescingKey = getCoalescingKey(request, retryStrategy);
+        if (coalescingKey != null) {
+            joinInFlightGet(coalescingKey, request, retryStrategy, callback);
+        } else {
+            scheduleRequest(request, retryStrategy, callback);
+        }
+    }
+
+    /**
+     * Identical GET requests (same url, credentials and retry strategy) that are sent while one
+     * of them is still in flight share a single network call and its parsed response.
+     */
+    private void joinInFlightGet(String key, HttpRequest request,
+                                 @RetryStrategy int retryStrategy,
+                                 NetworkResponseCallback callback) {
+        InFlightGet flight;
+        boolean isNewFlight = false;
+        synchronized (inFlightGets) {
+            flight = inFlightGets.get(key);
+            if (flight == null) {
+                flight = new InFlightGet(key);
+                inFlightGets.put(key, flight);
+                isNewFlight = true;
+            }
+            flight.waiters.add(new Waiter(request, callback));
+            flight.activeWaiters++;
+        }
+
+        HttpCall waiterCall = request.getCall();
+        if (waiterCall != null) {
+            // the shared call is only aborted once every caller has canceled
+            waiterCall.link(new WaiterCancellation(flight));
+        }
+
+        if (isNewFlight) {
+            final InFlightGet sharedFlight = flight;
+            HttpRequest sharedRequest = request.copy().call(flight.call);
+            BackgroundNetworkResponseCallback sharedCallback = (response, httpError) ->
+                    completeInFlightGet(sharedFlight, response, httpError);
+            scheduleRequest(sharedRequest, retryStrategy, sharedCallback);
+        }
+    }
+
+    private void completeInFlightGet(InFlightGet flight, HttpResponse response,
+                                     Exception httpError) {
+        List<Waiter> waiters;
+        synchronized (inFlightGets) {
+            if (inFlightGets.get(flight.key) == flight) {
+                inFlightGets.remove(flight.key);
+            }
+            waiters = new ArrayList<>(flight.waiters);
+        }
+        // only one caller receives the response as sent, so that its timing is reported once
+        boolean leaderNotified = false;
+        for (Waiter waiter : waiters) {
+            if (response != null) {
+                HttpResponse waiterResponse = response;
+                if (leaderNotified || waiter.request.isCanceled()) {
+                    waiterResponse =
+                            new HttpResponse(response.getBody(), response.getTiming(), true);
+                } else {
+                    leaderNotified = true;
+                }
+                notifySuccessOnMainThread(waiter.request, waiter.callback, waiterResponse);
+            } else {
+                notifyErrorOnMainThread(waiter.request, waiter.callback, httpError);
+            }
+        }
+    }
+
+    private void onWaiterCanceled(InFlightGet flight) {
+        synchronized (inFlightGets) {
+            flight.activeWaiters--;
+            if (flight.activeWaiters > 0) {
+                return;
+            }
+            if (inFlightGets.get(flight.key) == flight) {
+                inFlightGets.remove(flight.key);
+            }
+        }
+        flight.call.cancel();
+    }
+
+    private static String getCoalescingKey(HttpRequest request, @RetryStrategy int retryStrategy) {
+        if (!"GET".equals(request.getMethod())) {
+            return null;
+        }
+        URL url = parseURL(request);
+        if (url == null) {
+            return null;
+        }
+        Map<String, String> headers = request.getHeaders();
+        return url + "|" + headers.get("Authorization") + "|" + headers.get("Client-Key")
+                + "|" + retryStrategy;
     }
 
     private void scheduleRequest(final HttpRequest request, @RetryStrategy final int retryStrategy,
                                  final NetworkResponseCallback callback) {
         resetRetryCount(request);
 
+        final long enqueueTime = System.nanoTime();
         scheduler.runOnBackground(() -> {
+            if (request.isCanceled()) {
+                return;
+            }
+            // time spent waiting for a worker thread, e.g. behind other requests
+            long queueWaitDuration =
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enqueueTime);
+
+            URL url = parseURL(request);
+            boolean probe = false;
+            if (url != null) {
+                try {
+                    probe = circuitBreaker.checkAllowed(url.getHost(), request.isBackground());
+                } catch (CircuitBreakerOpenException e) {
+                    // fail fast without retrying while the host is degraded
+                    HttpEventListener listener = eventListener;
+                    if (listener != null) {
+                        listener.onRequestFailed(request, e, HttpFailureType.CIRCUIT_OPEN);
+                    }
+                    notifyErrorOnMainThread(request, callback, e);
+                    return;
+                }
+                timeoutEstimator.applyTimeouts(request, url);
+            }
+
+            long requestStart = System.nanoTime();
             try {
                 HttpResponse httpResponse = syncHttpClient.request(request);
-                notifySuccessOnMainThread(callback, httpResponse);
+                recordSuccess(url, request, probe, requestStart, httpResponse);
+                httpResponse.getTiming().setQueueWaitDuration(queueWaitDuration);
+                notifySuccessOnMainThread(request, callback, httpResponse);
             } catch (Exception e) {
+                if (request.isCanceled()) {
+                    if (url != null) {
+                        circuitBreaker.recordCanceled(url.getHost(), request.isBackground(),
+                                probe);
+                    }
+                    // canceled requests are neither retried nor reported
+                    return;
+                }
+                HttpFailureType failureType = HttpFailureType.classify(e);
+                recordFailure(url, request, probe, failureType);
+                HttpEventListener listener = eventListener;
+                if (listener != null) {
+                    listener.onRequestFailed(request, e, failureType);
+                }
                 switch (retryStrategy) {
                     case HttpClient.NO_RETRY:
-                        notifyErrorOnMainThread(callback, e);
+                        notifyErrorOnMainThread(request, callback, e);
                         break;
                     case HttpClient.RETRY_MAX_3_TIMES:
                         retryGet(request, retryStrategy, callback);
@@ -89,16 +280,48 @@ public class HttpClient {
             int retryCount = getNumRetriesSoFar(url);
             boolean shouldRetry = ((retryCount + 1) < MAX_RETRY_ATTEMPTS);
             if (shouldRetry) {
-                scheduleRequest(request, retryStrategy, callback);
+                HttpEventListener listener = eventListener;
+                if (listener != null) {
+                    listener.onRetryScheduled(request, retryCount + 1);
+                }
                 retryCountMap.put(url, retryCount + 1);
+                scheduleRequest(request, retryStrategy, callback);
             } else {
                 String message = "Retry limit has been exceeded. Try again later.";
                 HttpClientException retryLimitException = new HttpClientException(message);
-                notifyErrorOnMainThread(callback, retryLimitException);
+                notifyErrorOnMainThread(request, callback, retryLimitException);
+            }
+        }
+    }
+
+    private void recordSuccess(URL url, HttpRequest request, boolean probe, long requestStart,
+                               HttpResponse response) {
+        if (url != null) {
+            long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - requestStart);
+            circuitBreaker.recordSuccess(url.getHost(), request.isBackground(), probe, latency);
+            timeoutEstimator.record(url, response.getTiming());
+        }
+    }
+
+    private void recordFailure(URL url, HttpRequest request, boolean probe,
+                               HttpFailureType failureType) {
+        if (url != null) {
+            circuitBreaker.recordFailure(url.getHost(), request.isBackground(), probe,
+                    failureType);
+            if (failureType == HttpFailureType.TIMEOUT) {
+                timeoutEstimator.recordTimeout(url);
             }
         }
     }
 
+    private static URL parseURL(HttpRequest request) {
+        try {
+            return request.getURL();
+        } catch (MalformedURLException | URISyntaxException | RuntimeException ignore) {
+            return null;
+        }
+    }
+
     private int getNumRetriesSoFar(URL url) {
         Integer retryCount = retryCountMap.get(url);
         if (retryCount == null) {
@@ -119,16 +342,82 @@ public class HttpClient {
         }
     }
 
-    private void notifySuccessOnMainThread(final NetworkResponseCallback callback,
+    private void notifySuccessOnMainThread(final HttpRequest request,
+                                           final NetworkResponseCallback callback,
                                            final HttpResponse response) {
-        if (callback != null) {
-            scheduler.runOnMain(() -> callback.onResult(response, null));
+        if (callback == null || request.isCanceled()) {
+            return;
+        }
+        if (callback instanceof BackgroundNetworkResponseCallback) {
+            callback.onResult(response, null);
+        } else {
+            scheduler.runOnMain(() -> {
+                if (!request.isCanceled()) {
+                    callback.onResult(response, null);
+                }
+            });
+        }
+    }
+
+    private void notifyErrorOnMainThread(final HttpRequest request,
+                                         final NetworkResponseCallback callback,
+                                         final Exception e) {
+        if (callback == null || request.isCanceled()) {
+            return;
+        }
+        if (callback instanceof BackgroundNetworkResponseCallback) {
+            callback.onResult(null, e);
+        } else {
+            scheduler.runOnMain(() -> {
+                if (!request.isCanceled()) {
+                    callback.onResult(null, e);
+                }
+            });
+        }
+    }
+
+    private static final class InFlightGet {
+
+        final String key;
+        final HttpCall call = new HttpCall();
+        final List<Waiter> waiters = new ArrayList<>();
+        int activeWaiters;
+
+        InFlightGet(String key) {
+            this.key = key;
         }
     }
 
-    private void notifyErrorOnMainThread(final NetworkResponseCallback callback, final Exception e) {
-        if (callback != null) {
-            scheduler.runOnMain(() -> callback.onResult(null, e));
+    private static final class Waiter {
+
+        final HttpRequest request;
+        final NetworkResponseCallback callback;
+
+        Waiter(HttpRequest request, NetworkResponseCallback callback) {
+            this.request = request;
+            this.callback = callback;
+        }
+    }
+
+    /**
+     * Linked to the {@link HttpCall} of a caller waiting on a shared GET, so that the caller
+     * canceling is counted against the shared call.
+     */
+    private final class WaiterCancellation extends HttpCall {
+
+        private final InFlightGet flight;
+
+        WaiterCancellation(InFlightGet flight) {
+            this.flight = flight;
+        }
+
+        @Override
+        public void cancel() {
+            if (isCanceled()) {
+                return;
+            }
+            super.cancel();
+            onWaiterCanceled(flight);
         }
     }
 }
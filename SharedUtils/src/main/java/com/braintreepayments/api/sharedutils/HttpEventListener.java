@@ -0,0 +1,71 @@
+package com.braintreepayments.api.sharedutils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+import androidx.annotation.WorkerThread;
+
+/**
+ * Receives lifecycle events for requests sent through an {@link HttpClient}.
+ * <p>
+ * Apart from {@link #onRequestEnqueued(HttpRequest)}, events are delivered on the background
+ * thread executing the request, so implementations must be thread-safe and should return quickly.
+ * All methods have empty default implementations.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public interface HttpEventListener {
+
+    /**
+     * Called on the calling thread when a request is handed to the {@link HttpClient}.
+     *
+     * @param request the request.
+     */
+    default void onRequestEnqueued(@NonNull HttpRequest request) {
+    }
+
+    /**
+     * Called once a connection to the server is available and the request is about to be sent.
+     *
+     * @param request the request.
+     * @param connectDurationMillis time spent acquiring the connection, including DNS resolution,
+     * TCP connect and TLS handshake when a new connection had to be established.
+     */
+    @WorkerThread
+    default void onConnectionAcquired(@NonNull HttpRequest request, long connectDurationMillis) {
+    }
+
+    /**
+     * Called when a successful response has been read and parsed.
+     *
+     * @param request the request.
+     * @param responseCode the http status code of the response.
+     * @param response the parsed response, including its {@link HttpResponseTiming}.
+     */
+    @WorkerThread
+    default void onResponseParsed(@NonNull HttpRequest request, int responseCode,
+                                  @NonNull HttpResponse response) {
+    }
+
+    /**
+     * Called when an attempt fails, before the failure is either retried or reported to the
+     * caller. Canceled requests are not reported.
+     *
+     * @param request the request.
+     * @param error the exception that terminated the attempt.
+     * @param failureType the classification of {@code error}.
+     */
+    @WorkerThread
+    default void onRequestFailed(@NonNull HttpRequest request, @NonNull Exception error,
+                                 @NonNull HttpFailureType failureType) {
+    }
+
+    /**
+     * Called when a failed request is scheduled to be sent again.
+     *
+     * @param request the request.
+     * @param retryCount the number of retries scheduled so far for this request, including this
+     * one.
+     */
+    @WorkerThread
+    default void onRetryScheduled(@NonNull HttpRequest request, int retryCount) {
+    }
+}
@@ -0,0 +1,100 @@
+package com.braintreepayments.api.sharedutils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+
+import java.io.IOException;
+import java.net.NoRouteToHostException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+
+/**
+ * Coarse classification of the exceptions that can terminate an http request.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public enum HttpFailureType {
+
+    /**
+     * The connection or read timed out.
+     */
+    TIMEOUT,
+
+    /**
+     * The device has no usable network connection, e.g. DNS resolution fails or the network is
+     * unreachable.
+     */
+    OFFLINE,
+
+    /**
+     * The request could not be sent or the response could not be read, e.g. connection or TLS
+     * failures.
+     */
+    NETWORK,
+
+    /**
+     * The server responded with 429 and a {@link RateLimitException} was thrown.
+     */
+    RATE_LIMITED,
+
+    /**
+     * The server responded with 500 or 503, see {@link ServerException} and
+     * {@link ServiceUnavailableException}.
+     */
+    SERVER_ERROR,
+
+    /**
+     * The server rejected the request, see {@link UnprocessableEntityException},
+     * {@link AuthenticationException}, {@link AuthorizationException} and
+     * {@link UpgradeRequiredException}.
+     */
+    CLIENT_ERROR,
+
+    /**
+     * The request was not sent because the circuit breaker for its host is open, see
+     * {@link CircuitBreakerOpenException}.
+     */
+    CIRCUIT_OPEN,
+
+    /**
+     * Any other failure.
+     */
+    UNEXPECTED;
+
+    /**
+     * @param error the exception that terminated the request.
+     * @return the {@link HttpFailureType} for the given exception.
+     */
+    @NonNull
+    public static HttpFailureType classify(@NonNull Exception error) {
+        if (error instanceof SocketTimeoutException) {
+            return TIMEOUT;
+        } else if (isOffline(error)) {
+            return OFFLINE;
+        } else if (error instanceof IOException) {
+            return NETWORK;
+        } else if (error instanceof CircuitBreakerOpenException) {
+            return CIRCUIT_OPEN;
+        } else if (error instanceof RateLimitException) {
+            return RATE_LIMITED;
+        } else if (error instanceof ServerException
+                || error instanceof ServiceUnavailableException) {
+            return SERVER_ERROR;
+        } else if (error instanceof UnprocessableEntityException
+                || error instanceof AuthenticationException
+                || error instanceof AuthorizationException
+                || error instanceof UpgradeRequiredException) {
+            return CLIENT_ERROR;
+        }
+        return UNEXPECTED;
+    }
+
+    private static boolean isOffline(Exception error) {
+        if (error instanceof UnknownHostException || error instanceof NoRouteToHostException) {
+            return true;
+        }
+        String message = error.getMessage();
+        return error instanceof SocketException && message != null
+                && (message.contains("ENETUNREACH") || message.contains("Network is unreachable"));
+    }
+}
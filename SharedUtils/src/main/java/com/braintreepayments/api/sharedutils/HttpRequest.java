@@ -25,12 +25,17 @@ public class HttpRequest {
     private byte[] data;
     private String method;
 
-    private final int readTimeout;
-    private final int connectTimeout;
+    private int readTimeout;
+    private int connectTimeout;
+    private int deadline;
+    private int transferDeadline;
 
     private Map<String, String> headers;
     private final Map<String, String> additionalHeaders;
 
+    private HttpCall call;
+    private boolean background;
+
     static HttpRequest newInstance() {
         return new HttpRequest();
     }
@@ -59,6 +64,15 @@ public class HttpRequest {
         return this;
     }
 
+    /**
+     * @param data the request body, already encoded as UTF-8. The request takes ownership of the
+     * array and zeroes it once the body has been written.
+     */
+    public HttpRequest data(byte[] data) {
+        this.data = data;
+        return this;
+    }
+
     public HttpRequest method(String method) {
         this.method = method;
         return this;
@@ -69,6 +83,53 @@ public class HttpRequest {
         return this;
     }
 
+    /**
+     * @param call handle used to cancel this request while it is in flight
+     */
+    public HttpRequest call(HttpCall call) {
+        this.call = call;
+        return this;
+    }
+
+    /**
+     * @param background whether this request is background traffic (e.g. analytics) rather than
+     * part of a user-initiated flow. Background requests back off more aggressively when the host
+     * is degraded.
+     */
+    public HttpRequest background(boolean background) {
+        this.background = background;
+        return this;
+    }
+
+    boolean isBackground() {
+        return background;
+    }
+
+    /**
+     * @return a copy of this request without its {@link HttpCall}.
+     */
+    HttpRequest copy() {
+        HttpRequest copy = new HttpRequest()
+                .path(path)
+                .baseUrl(baseUrl)
+                .method(method)
+                .background(background)
+                .timeouts(connectTimeout, readTimeout, deadline, transferDeadline);
+        copy.additionalHeaders.putAll(additionalHeaders);
+        if (data != null) {
+            copy.data = Arrays.copyOf(data, data.length);
+        }
+        return copy;
+    }
+
+    HttpCall getCall() {
+        return call;
+    }
+
+    boolean isCanceled() {
+        return call != null && call.isCanceled();
+    }
+
     String getPath() {
         return path;
     }
@@ -98,6 +159,33 @@ public class HttpRequest {
         return Collections.unmodifiableMap(headers);
     }
 
+    /**
+     * @param connectTimeout connect timeout in milliseconds
+     * @param readTimeout read timeout in milliseconds
+     * @param deadline time budget for connecting and waiting for the response status line in
+     * milliseconds, or 0 for none
+     */
+    HttpRequest timeouts(int connectTimeout, int readTimeout, int deadline) {
+        return timeouts(connectTimeout, readTimeout, deadline, 0);
+    }
+
+    /**
+     * @param connectTimeout connect timeout in milliseconds
+     * @param readTimeout read timeout in milliseconds
+     * @param deadline time budget for connecting and waiting for the response status line in
+     * milliseconds, or 0 for none
+     * @param transferDeadline time budget for writing the request body, and again for reading the
+     * response body, in milliseconds, or 0 for none
+     */
+    HttpRequest timeouts(int connectTimeout, int readTimeout, int deadline,
+                         int transferDeadline) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.deadline = deadline;
+        this.transferDeadline = transferDeadline;
+        return this;
+    }
+
     int getReadTimeout() {
         return readTimeout;
     }
@@ -106,6 +194,14 @@ public class HttpRequest {
         return connectTimeout;
     }
 
+    int getDeadline() {
+        return deadline;
+    }
+
+    int getTransferDeadline() {
+        return transferDeadline;
+    }
+
     public URL getURL() throws MalformedURLException, URISyntaxException {
         URL url;
         if (path.startsWith("http")) {
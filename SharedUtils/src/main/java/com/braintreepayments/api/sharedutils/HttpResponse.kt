@@ -2,8 +2,14 @@ package com.braintreepayments.api.sharedutils
 
 import androidx.annotation.RestrictTo
 
+/**
+ * @property isCoalesced true when the response was delivered to a caller that joined an identical
+ * request already in flight. Its [timing] belongs to the request that was actually sent, which
+ * reports it, so it should not be reported again.
+ */
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
-data class HttpResponse(
+data class HttpResponse @JvmOverloads constructor(
     val body: String? = null,
-    val timing: HttpResponseTiming
+    val timing: HttpResponseTiming,
+    val isCoalesced: Boolean = false
 )
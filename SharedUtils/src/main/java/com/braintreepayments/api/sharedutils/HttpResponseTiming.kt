@@ -2,8 +2,31 @@ package com.braintreepayments.api.sharedutils
 
 import androidx.annotation.RestrictTo
 
+/**
+ * Timing information for a single http request.
+ *
+ * [startTime] and [endTime] are wall-clock timestamps in milliseconds. The phase durations are
+ * measured with a monotonic clock and are expressed in milliseconds; a phase is `null` when it was
+ * not measured for the request (e.g. [requestWriteDuration] for a request without a body).
+ *
+ * @property startTime wall-clock time at which the connection was opened.
+ * @property endTime wall-clock time at which the response status line was received.
+ * @property connectDuration time spent establishing the connection, including DNS resolution, TCP
+ * connect and the TLS handshake.
+ * @property requestWriteDuration time spent writing the request body.
+ * @property timeToFirstByte time between the request being sent and the response status line
+ * being received.
+ * @property responseReadDuration time spent reading, decompressing and parsing the response body.
+ * @property queueWaitDuration time the request spent waiting for a background thread before it
+ * started executing.
+ */
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
-data class HttpResponseTiming(
+data class HttpResponseTiming @JvmOverloads constructor(
     var startTime: Long,
     var endTime: Long,
+    var connectDuration: Long? = null,
+    var requestWriteDuration: Long? = null,
+    var timeToFirstByte: Long? = null,
+    var responseReadDuration: Long? = null,
+    var queueWaitDuration: Long? = null,
 )
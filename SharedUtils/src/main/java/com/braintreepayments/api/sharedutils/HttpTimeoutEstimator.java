@@ -0,0 +1,175 @@
+package com.braintreepayments.api.sharedutils;
+
+import androidx.annotation.RestrictTo;
+import androidx.annotation.VisibleForTesting;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Derives connect and read timeouts for each endpoint from the latencies observed for it, so that
+ * a hung request is abandoned after a few seconds instead of the default 30 seconds.
+ * <p>
+ * For every endpoint the estimator keeps a rolling window of connect durations, times to first
+ * byte and body transfer durations (writing the request body plus reading the response body).
+ * Once enough samples have been collected, each budget is the 95th percentile of its window
+ * multiplied by a safety factor and clamped between a floor and a ceiling. The deadline for
+ * connecting and receiving the response status line is the sum of the first two budgets; the body
+ * transfers get the transfer budget, so that a large payload does not eat into the time allowed
+ * for the server to respond. Endpoints without enough samples keep the default timeouts and no
+ * deadlines.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+class HttpTimeoutEstimator {
+
+    static final int WINDOW_SIZE = 50;
+    static final int MIN_SAMPLES = 20;
+    static final int SAFETY_FACTOR = 3;
+    static final double PERCENTILE = 0.95;
+
+    // a timed-out request is recorded as taking this much longer than the budget it ran out of
+    // would allow for, so repeated timeouts widen the budget gradually instead of pinning it at
+    // the ceiling
+    static final double TIMEOUT_GROWTH_FACTOR = 1.5;
+
+    static final int CONNECT_TIMEOUT_FLOOR_MS = 5000;
+    static final int READ_TIMEOUT_FLOOR_MS = 10000;
+    static final int TRANSFER_TIMEOUT_FLOOR_MS = 10000;
+    static final int TIMEOUT_CEILING_MS = 30000;
+
+    private static final HttpTimeoutEstimator SHARED_INSTANCE = new HttpTimeoutEstimator();
+
+    /**
+     * @return the estimator shared by every {@link HttpClient} in the process.
+     */
+    static HttpTimeoutEstimator getSharedInstance() {
+        return SHARED_INSTANCE;
+    }
+
+    private final Map<String, Endpoint> endpoints = new HashMap<>();
+
+    @VisibleForTesting
+    HttpTimeoutEstimator() {
+    }
+
+    /**
+     * Applies the learned timeouts for {@code url} to {@code request}, if any.
+     */
+    synchronized void applyTimeouts(HttpRequest request, URL url) {
+        Endpoint endpoint = endpoints.get(getEndpointKey(url));
+        if (endpoint != null && endpoint.sampleCount >= MIN_SAMPLES) {
+            request.timeouts(endpoint.connectTimeout, endpoint.readTimeout,
+                    endpoint.connectTimeout + endpoint.readTimeout, endpoint.transferTimeout);
+        }
+    }
+
+    /**
+     * Adds the latencies of a completed request to {@code url} to the endpoint's window.
+     */
+    synchronized void record(URL url, HttpResponseTiming timing) {
+        Long connectDuration = timing.getConnectDuration();
+        Long timeToFirstByte = timing.getTimeToFirstByte();
+        Long responseReadDuration = timing.getResponseReadDuration();
+        if (connectDuration == null || timeToFirstByte == null || responseReadDuration == null) {
+            return;
+        }
+        Long requestWriteDuration = timing.getRequestWriteDuration();
+        long transferDuration = responseReadDuration
+                + (requestWriteDuration != null ? requestWriteDuration : 0);
+
+        String key = getEndpointKey(url);
+        Endpoint endpoint = endpoints.get(key);
+        if (endpoint == null) {
+            endpoint = new Endpoint();
+            endpoints.put(key, endpoint);
+        }
+        endpoint.add(connectDuration, timeToFirstByte, transferDuration);
+    }
+
+    /**
+     * Records that a request to {@code url} timed out. A sample slightly above what the current
+     * budgets allow for is added, so that once timeouts make up more than a few percent of the
+     * window the timeouts for the endpoint widen and legitimately slow requests are not cut off
+     * repeatedly. A single timeout does not move the 95th percentile.
+     */
+    synchronized void recordTimeout(URL url) {
+        Endpoint endpoint = endpoints.get(getEndpointKey(url));
+        if (endpoint != null && endpoint.sampleCount >= MIN_SAMPLES) {
+            endpoint.add(toTimeoutSample(endpoint.connectTimeout),
+                    toTimeoutSample(endpoint.readTimeout),
+                    toTimeoutSample(endpoint.transferTimeout));
+        }
+    }
+
+    private static long toTimeoutSample(int budget) {
+        return Math.round(budget * TIMEOUT_GROWTH_FACTOR / SAFETY_FACTOR);
+    }
+
+    /**
+     * Groups urls by host and path, collapsing id-like path segments (nonces, merchant ids) so
+     * that e.g. every 3DS lookup shares a single endpoint.
+     */
+    @VisibleForTesting
+    static String getEndpointKey(URL url) {
+        StringBuilder key = new StringBuilder(url.getHost());
+        for (String segment : url.getPath().split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            key.append('/').append(isIdentifier(segment) ? "*" : segment);
+        }
+        return key.toString();
+    }
+
+    private static boolean isIdentifier(String segment) {
+        if (segment.length() < 8) {
+            return false;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (Character.isDigit(segment.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int deriveTimeout(long[] samples, int count, int floor) {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        long percentile = sorted[(int) Math.ceil(count * PERCENTILE) - 1];
+        long timeout = percentile * SAFETY_FACTOR;
+        return (int) Math.max(floor, Math.min(TIMEOUT_CEILING_MS, timeout));
+    }
+
+    private static final class Endpoint {
+
+        private final long[] connectDurations = new long[WINDOW_SIZE];
+        private final long[] timesToFirstByte = new long[WINDOW_SIZE];
+        private final long[] transferDurations = new long[WINDOW_SIZE];
+        private int nextIndex;
+        int sampleCount;
+
+        int connectTimeout = TIMEOUT_CEILING_MS;
+        int readTimeout = TIMEOUT_CEILING_MS;
+        int transferTimeout = TIMEOUT_CEILING_MS;
+
+        void add(long connectDuration, long timeToFirstByte, long transferDuration) {
+            connectDurations[nextIndex] = connectDuration;
+            timesToFirstByte[nextIndex] = timeToFirstByte;
+            transferDurations[nextIndex] = transferDuration;
+            nextIndex = (nextIndex + 1) % WINDOW_SIZE;
+            sampleCount = Math.min(sampleCount + 1, WINDOW_SIZE);
+
+            // budgets are recomputed here so that applying them is a plain lookup
+            if (sampleCount >= MIN_SAMPLES) {
+                connectTimeout =
+                        deriveTimeout(connectDurations, sampleCount, CONNECT_TIMEOUT_FLOOR_MS);
+                readTimeout = deriveTimeout(timesToFirstByte, sampleCount, READ_TIMEOUT_FLOOR_MS);
+                transferTimeout = deriveTimeout(transferDurations, sampleCount,
+                        TRANSFER_TIMEOUT_FLOOR_MS);
+            }
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.braintreepayments.api.sharedutils;
+
+import androidx.annotation.RestrictTo;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Streaming JSON writer that encodes request bodies directly into UTF-8 bytes, without building
+ * an intermediate {@link JSONObject} tree or {@link String}.
+ * <p>
+ * Because request bodies can contain card data, every buffer the writer outgrows or copies out of
+ * is zeroed, and {@link #release()} must be called once the writer is no longer needed so that an
+ * abandoned body does not linger in memory. Buffers are not pooled: a pooled buffer would always
+ * need an extra copy for the result and would keep card data reachable between requests.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class JsonBodyWriter {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final int MAX_DEPTH = 32;
+
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes();
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int size;
+
+    // per nesting level: whether a value has already been written (i.e. a comma is needed)
+    private final boolean[] hasValue = new boolean[MAX_DEPTH];
+    private int depth;
+    private boolean expectingValueAfterName;
+
+    public JsonBodyWriter beginObject() {
+        return open('{');
+    }
+
+    public JsonBodyWriter endObject() {
+        return close('}');
+    }
+
+    public JsonBodyWriter beginArray() {
+        return open('[');
+    }
+
+    public JsonBodyWriter endArray() {
+        return close(']');
+    }
+
+    /**
+     * Writes the name of the next member of the current object.
+     */
+    public JsonBodyWriter name(String name) {
+        beforeValue();
+        writeString(name);
+        writeByte(':');
+        expectingValueAfterName = true;
+        return this;
+    }
+
+    public JsonBodyWriter value(String value) {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+
+    public JsonBodyWriter value(boolean value) {
+        beforeValue();
+        writeAscii(value ? "true" : "false");
+        return this;
+    }
+
+    public JsonBodyWriter value(long value) {
+        beforeValue();
+        writeAscii(Long.toString(value));
+        return this;
+    }
+
+    public JsonBodyWriter nullValue() {
+        beforeValue();
+        writeAscii("null");
+        return this;
+    }
+
+    /**
+     * Writes an arbitrary value, streaming {@link JSONObject} and {@link JSONArray} trees member
+     * by member. This lets callers embed JSON that is only available as a tree, such as metadata.
+     */
+    public JsonBodyWriter value(Object value) {
+        if (value == null || value == JSONObject.NULL) {
+            return nullValue();
+        } else if (value instanceof String) {
+            return value((String) value);
+        } else if (value instanceof Boolean) {
+            return value(((Boolean) value).booleanValue());
+        } else if (value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte) {
+            return value(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            String number;
+            try {
+                number = JSONObject.numberToString((Number) value);
+            } catch (JSONException e) {
+                throw new IllegalArgumentException(e);
+            }
+            beforeValue();
+            writeAscii(number);
+            return this;
+        } else if (value instanceof JSONObject) {
+            JSONObject json = (JSONObject) value;
+            beginObject();
+            Iterator<String> keys = json.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                name(key).value(json.opt(key));
+            }
+            return endObject();
+        } else if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            beginArray();
+            for (int i = 0; i < array.length(); i++) {
+                value(array.opt(i));
+            }
+            return endArray();
+        }
+        return value(value.toString());
+    }
+
+    /**
+     * Writes a string member, omitting it entirely if {@code value} is null. This mirrors
+     * {@link JSONObject#put(String, Object)}, which removes a key when given a null value.
+     */
+    public JsonBodyWriter putOpt(String name, String value) {
+        if (value != null) {
+            name(name).value(value);
+        }
+        return this;
+    }
+
+    /**
+     * Hands the encoded bytes over to the caller. The writer cannot be used afterwards.
+     *
+     * @return the UTF-8 encoded JSON document
+     */
+    public byte[] toByteArray() {
+        if (buffer == null) {
+            throw new IllegalStateException("JsonBodyWriter has already been released");
+        }
+        if (depth != 0) {
+            throw new IllegalStateException("JSON document is incomplete");
+        }
+        byte[] result;
+        if (size == buffer.length) {
+            result = buffer;
+        } else {
+            result = Arrays.copyOf(buffer, size);
+            Arrays.fill(buffer, 0, size, (byte) 0);
+        }
+        buffer = null;
+        size = 0;
+        return result;
+    }
+
+    /**
+     * Zeroes whatever has been written so far and releases the writer. Safe to call after
+     * {@link #toByteArray()} or more than once, so callers can call it unconditionally in a
+     * {@code finally} block.
+     */
+    public void release() {
+        if (buffer != null) {
+            Arrays.fill(buffer, 0, size, (byte) 0);
+            buffer = null;
+            size = 0;
+        }
+    }
+
+    private JsonBodyWriter open(char bracket) {
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("JSON nesting is too deep");
+        }
+        beforeValue();
+        writeByte(bracket);
+        hasValue[depth++] = false;
+        return this;
+    }
+
+    private JsonBodyWriter close(char bracket) {
+        if (depth == 0) {
+            throw new IllegalStateException("Nothing to close");
+        }
+        depth--;
+        writeByte(bracket);
+        return this;
+    }
+
+    private void beforeValue() {
+        if (expectingValueAfterName) {
+            expectingValueAfterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (hasValue[depth - 1]) {
+                writeByte(',');
+            }
+            hasValue[depth - 1] = true;
+        }
+    }
+
+    private void writeString(String value) {
+        writeByte('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                    writeByte('\\');
+                    writeByte(c);
+                    break;
+                case '\n':
+                    writeByte('\\');
+                    writeByte('n');
+                    break;
+                case '\r':
+                    writeByte('\\');
+                    writeByte('r');
+                    break;
+                case '\t':
+                    writeByte('\\');
+                    writeByte('t');
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writeUnicodeEscape(c);
+                    } else if (c < 0x80) {
+                        writeByte(c);
+                    } else if (c < 0x800) {
+                        writeByte(0xc0 | (c >> 6));
+                        writeByte(0x80 | (c & 0x3f));
+                    } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                            && Character.isLowSurrogate(value.charAt(i + 1))) {
+                        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                        writeByte(0xf0 | (codePoint >> 18));
+                        writeByte(0x80 | ((codePoint >> 12) & 0x3f));
+                        writeByte(0x80 | ((codePoint >> 6) & 0x3f));
+                        writeByte(0x80 | (codePoint & 0x3f));
+                    } else if (Character.isSurrogate(c)) {
+                        // unpaired surrogate; escape it rather than emit invalid UTF-8
+                        writeUnicodeEscape(c);
+                    } else {
+                        writeByte(0xe0 | (c >> 12));
+                        writeByte(0x80 | ((c >> 6) & 0x3f));
+                        writeByte(0x80 | (c & 0x3f));
+                    }
+            }
+        }
+        writeByte('"');
+    }
+
+    private void writeUnicodeEscape(char c) {
+        writeByte('\\');
+        writeByte('u');
+        writeByte(HEX_DIGITS[(c >> 12) & 0xf]);
+        writeByte(HEX_DIGITS[(c >> 8) & 0xf]);
+        writeByte(HEX_DIGITS[(c >> 4) & 0xf]);
+        writeByte(HEX_DIGITS[c & 0xf]);
+    }
+
+    private void writeAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            writeByte(value.charAt(i));
+        }
+    }
+
+    private void writeByte(int b) {
+        if (buffer == null) {
+            throw new IllegalStateException("JsonBodyWriter has already been released");
+        }
+        if (size == buffer.length) {
+            byte[] grown = Arrays.copyOf(buffer, buffer.length * 2);
+            // don't leave a partial copy of the body behind in the old buffer
+            Arrays.fill(buffer, (byte) 0);
+            buffer = grown;
+        }
+        buffer[size++] = (byte) b;
+    }
+}
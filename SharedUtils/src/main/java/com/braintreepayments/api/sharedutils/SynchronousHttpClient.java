@@ -2,10 +2,18 @@ package com.braintreepayments.api.sharedutils;
 
 import androidx.annotation.RestrictTo;
 
+import java.io.InterruptedIOException;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLException;
@@ -18,8 +26,17 @@ import javax.net.ssl.SSLSocketFactory;
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 class SynchronousHttpClient {
 
+    // enforces request deadlines by aborting connections that outlive them
+    private static final ScheduledExecutorService DEADLINE_TIMER =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "braintree-http-deadline");
+                thread.setDaemon(true);
+                return thread;
+            });
+
     private SSLSocketFactory socketFactory;
     private final HttpResponseParser parser;
+    private volatile HttpEventListener eventListener;
 
     SynchronousHttpClient(SSLSocketFactory socketFactory, HttpResponseParser parser) {
         this.parser = parser;
@@ -38,13 +55,21 @@ class SynchronousHttpClient {
         this.socketFactory = socketFactory;
     }
 
+    void setEventListener(HttpEventListener eventListener) {
+        this.eventListener = eventListener;
+    }
+
     HttpResponse request(HttpRequest httpRequest) throws Exception {
         if (httpRequest.getPath() == null) {
             throw new IllegalArgumentException("Path cannot be null");
         }
         URL url = httpRequest.getURL();
+        if (httpRequest.isCanceled()) {
+            throw new InterruptedIOException("Request was canceled");
+        }
 
         long startTime = System.currentTimeMillis();
+        long phaseStart = System.nanoTime();
 
         HttpURLConnection connection = (HttpURLConnection) url.openConnection();
         if (connection instanceof HttpsURLConnection) {
@@ -54,6 +79,12 @@ class SynchronousHttpClient {
             ((HttpsURLConnection) connection).setSSLSocketFactory(socketFactory);
         }
 
+        HttpCall call = httpRequest.getCall();
+        if (call != null) {
+            // lets HttpCall#cancel abort the connection and unblock this thread
+            call.attachConnection(connection);
+        }
+
         String requestMethod = httpRequest.getMethod();
         connection.setRequestMethod(requestMethod);
 
@@ -66,28 +97,120 @@ class SynchronousHttpClient {
             connection.setRequestProperty(entry.getKey(), entry.getValue());
         }
 
-        if (requestMethod != null && requestMethod.equals("POST")) {
+        boolean hasRequestBody = requestMethod != null && requestMethod.equals("POST");
+        if (hasRequestBody) {
             connection.setRequestProperty("Content-Type", "application/json");
             connection.setDoOutput(true);
-
-            OutputStream outputStream = connection.getOutputStream();
-            outputStream.write(httpRequest.getData());
-            outputStream.flush();
-            outputStream.close();
-
-            httpRequest.dispose();
         }
 
+        // connecting and waiting for the response share one budget; writing and reading the
+        // bodies are budgeted separately since their duration depends on the payload size
+        int deadline = httpRequest.getDeadline();
+        int transferDeadline = httpRequest.getTransferDeadline();
+        PhaseTimer timer = new PhaseTimer(connection);
+
         try {
+            timer.start(deadline);
+            // connect explicitly so that DNS, TCP and TLS setup is timed separately from the
+            // exchange itself
+            connection.connect();
+            long connectDuration = elapsedMillisSince(phaseStart);
+
+            HttpEventListener listener = eventListener;
+            if (listener != null) {
+                listener.onConnectionAcquired(httpRequest, connectDuration);
+            }
+
+            Long requestWriteDuration = null;
+            if (hasRequestBody) {
+                timer.start(transferDeadline);
+                phaseStart = System.nanoTime();
+                OutputStream outputStream = connection.getOutputStream();
+                outputStream.write(httpRequest.getData());
+                outputStream.flush();
+                outputStream.close();
+
+                httpRequest.dispose();
+                requestWriteDuration = elapsedMillisSince(phaseStart);
+            }
+
+            if (hasRequestBody) {
+                // resume the connect budget, minus the time already spent connecting
+                timer.start(deadline > 0 ? (int) Math.max(1, deadline - connectDuration) : 0);
+            }
+            phaseStart = System.nanoTime();
             int responseCode = connection.getResponseCode();
             long endTime = System.currentTimeMillis();
+            long timeToFirstByte = elapsedMillisSince(phaseStart);
 
+            timer.start(transferDeadline);
+            phaseStart = System.nanoTime();
             String responseBody = parser.parse(responseCode, connection);
+            long responseReadDuration = elapsedMillisSince(phaseStart);
 
-            HttpResponseTiming timing = new HttpResponseTiming(startTime, endTime);
-            return new HttpResponse(responseBody, timing);
+            HttpResponseTiming timing = new HttpResponseTiming(startTime, endTime,
+                    connectDuration, requestWriteDuration, timeToFirstByte, responseReadDuration);
+            HttpResponse response = new HttpResponse(responseBody, timing);
+            if (listener != null) {
+                listener.onResponseParsed(httpRequest, responseCode, response);
+            }
+            return response;
+        } catch (IOException e) {
+            if (timer.isExceeded()) {
+                SocketTimeoutException timeout = new SocketTimeoutException(
+                        "Request did not complete within its deadline");
+                timeout.initCause(e);
+                throw timeout;
+            }
+            throw e;
         } finally {
+            timer.cancel();
+            if (call != null) {
+                call.detachConnection();
+            }
             connection.disconnect();
         }
     }
+
+    private static long elapsedMillisSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Aborts the connection when the current phase of a request outlives its budget.
+     */
+    private static final class PhaseTimer {
+
+        private final HttpURLConnection connection;
+        private final AtomicBoolean exceeded = new AtomicBoolean();
+        private ScheduledFuture<?> timeout;
+
+        PhaseTimer(HttpURLConnection connection) {
+            this.connection = connection;
+        }
+
+        /**
+         * Starts a new phase with the given budget, or without one if {@code budgetMillis} is 0.
+         */
+        void start(int budgetMillis) {
+            cancel();
+            if (budgetMillis > 0) {
+                timeout = DEADLINE_TIMER.schedule(() -> {
+                    exceeded.set(true);
+                    connection.disconnect();
+                }, budgetMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        void cancel() {
+            if (timeout != null) {
+                timeout.cancel(false);
+                timeout = null;
+            }
+        }
+
+        boolean isExceeded() {
+            return exceeded.get();
+        }
+    }
 }
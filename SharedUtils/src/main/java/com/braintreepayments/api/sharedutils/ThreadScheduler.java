@@ -12,11 +12,16 @@ import java.util.concurrent.Executors;
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 class ThreadScheduler implements Scheduler {
 
+    // shared by every HttpClient in the process so that each new client does not spin up
+    // (and leak) its own cached thread pool
+    private static final ExecutorService SHARED_BACKGROUND_THREAD_POOL =
+            Executors.newCachedThreadPool();
+
     private final Handler mainThreadHandler;
     private final ExecutorService backgroundThreadService;
 
     ThreadScheduler() {
-        this(new Handler(Looper.getMainLooper()), Executors.newCachedThreadPool());
+        this(new Handler(Looper.getMainLooper()), SHARED_BACKGROUND_THREAD_POOL);
     }
 
     @VisibleForTesting
@@ -1,6 +1,7 @@
 package com.braintreepayments.api.sharedutils
 
 import androidx.annotation.RestrictTo
+import java.util.concurrent.TimeUnit
 
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 class Time {
@@ -10,4 +11,10 @@ class Time {
      */
     val currentTime: Long
         get() = System.currentTimeMillis()
+
+    /**
+     * Returns a monotonic timestamp in milliseconds, only meaningful for measuring elapsed time
+     */
+    val monotonicTime: Long
+        get() = TimeUnit.NANOSECONDS.toMillis(System.nanoTime())
 }
@@ -0,0 +1,74 @@
+package com.braintreepayments.api.sharedutils;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Test;
+
+import java.net.HttpURLConnection;
+
+public class HttpCallUnitTest {
+
+    @Test
+    public void cancel_marksCallAsCanceled() {
+        HttpCall sut = new HttpCall();
+        assertFalse(sut.isCanceled());
+
+        sut.cancel();
+        assertTrue(sut.isCanceled());
+    }
+
+    @Test
+    public void cancel_disconnectsAttachedConnection() {
+        HttpCall sut = new HttpCall();
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        sut.attachConnection(connection);
+
+        sut.cancel();
+        verify(connection).disconnect();
+    }
+
+    @Test
+    public void cancel_doesNotDisconnectDetachedConnection() {
+        HttpCall sut = new HttpCall();
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        sut.attachConnection(connection);
+        sut.detachConnection();
+
+        sut.cancel();
+        verify(connection, never()).disconnect();
+    }
+
+    @Test
+    public void attachConnection_whenAlreadyCanceled_disconnectsImmediately() {
+        HttpCall sut = new HttpCall();
+        sut.cancel();
+
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        sut.attachConnection(connection);
+        verify(connection).disconnect();
+    }
+
+    @Test
+    public void cancel_cancelsLinkedCalls() {
+        HttpCall sut = new HttpCall();
+        HttpCall linkedCall = new HttpCall();
+        sut.link(linkedCall);
+
+        sut.cancel();
+        assertTrue(linkedCall.isCanceled());
+    }
+
+    @Test
+    public void link_whenAlreadyCanceled_cancelsLinkedCallImmediately() {
+        HttpCall sut = new HttpCall();
+        sut.cancel();
+
+        HttpCall linkedCall = new HttpCall();
+        sut.link(linkedCall);
+        assertTrue(linkedCall.isCanceled());
+    }
+}
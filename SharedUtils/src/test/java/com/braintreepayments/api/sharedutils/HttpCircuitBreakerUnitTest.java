@@ -0,0 +1,203 @@
+package com.braintreepayments.api.sharedutils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class HttpCircuitBreakerUnitTest {
+
+    private static final String HOST = "api.braintreegateway.com";
+
+    private Time time;
+    private HttpCircuitBreaker sut;
+
+    @Before
+    public void beforeEach() throws Exception {
+        time = mock(Time.class);
+        when(time.getMonotonicTime()).thenReturn(0L);
+
+        HttpCircuitBreaker.Policy userInitiatedPolicy =
+                new HttpCircuitBreaker.Policy(4, 2, 0.5f, 1000, 0.75f, 10000);
+        HttpCircuitBreaker.Policy backgroundPolicy =
+                new HttpCircuitBreaker.Policy(4, 2, 0.5f, 1000, 0.75f, 60000);
+        sut = new HttpCircuitBreaker(time, userInitiatedPolicy, backgroundPolicy);
+    }
+
+    @Test
+    public void checkAllowed_whenClosed_allowsRequests() throws Exception {
+        assertFalse(sut.checkAllowed(HOST, false));
+        assertFalse(sut.checkAllowed(HOST, true));
+        assertEquals(HttpCircuitBreaker.State.CLOSED, sut.getState(HOST, false));
+    }
+
+    @Test
+    public void recordFailure_whenFailureRateReachesThreshold_opensCircuit() {
+        sut.recordSuccess(HOST, false, false, 0);
+        assertEquals(HttpCircuitBreaker.State.CLOSED, sut.getState(HOST, false));
+
+        sut.recordFailure(HOST, false, false, HttpFailureType.SERVER_ERROR);
+        assertEquals(HttpCircuitBreaker.State.OPEN, sut.getState(HOST, false));
+
+        assertThrows(CircuitBreakerOpenException.class, () -> sut.checkAllowed(HOST, false));
+    }
+
+    @Test
+    public void recordFailure_whenFailureIsClientError_doesNotOpenCircuit() {
+        sut.recordFailure(HOST, false, false, HttpFailureType.CLIENT_ERROR);
+        sut.recordFailure(HOST, false, false, HttpFailureType.UNEXPECTED);
+        assertEquals(HttpCircuitBreaker.State.CLOSED, sut.getState(HOST, false));
+    }
+
+    @Test
+    public void recordSuccess_whenSlow_isNotCountedAsFailure() {
+        sut.recordSuccess(HOST, false, false, 1000);
+        sut.recordSuccess(HOST, false, false, 0);
+        assertEquals(HttpCircuitBreaker.State.CLOSED, sut.getState(HOST, false));
+    }
+
+    @Test
+    public void recordSuccess_whenSlowCallRateReachesThreshold_opensCircuit() {
+        sut.recordSuccess(HOST, false, false, 1000);
+        sut.recordSuccess(HOST, false, false, 999);
+        sut.recordSuccess(HOST, false, false, 1500);
+        assertEquals(HttpCircuitBreaker.State.CLOSED, sut.getState(HOST, false));
+
+        sut.recordSuccess(HOST, false, false, 2000);
+        assertEquals(HttpCircuitBreaker.State.OPEN, sut.getState(HOST, false));
+    }
+
+    @Test
+    public void recordFailure_whenOffline_doesNotOpenCircuit() {
+        sut.recordFailure(HOST, false, false, HttpFailureType.OFFLINE);
+        sut.recordFailure(HOST, false, false, HttpFailureType.OFFLINE);
+        assertEquals(HttpCircuitBreaker.State.CLOSED, sut.getState(HOST, false));
+    }
+
+    @Test
+    public void recordFailure_tracksHostsIndependently() throws Exception {
+        sut.recordFailure(HOST, false, false, HttpFailureType.TIMEOUT);
+        sut.recordFailure(HOST, false, false, HttpFailureType.TIMEOUT);
+
+        sut.checkAllowed("api-m.paypal.com", false);
+        assertEquals(HttpCircuitBreaker.State.CLOSED, sut.getState("api-m.paypal.com", false));
+    }
+
+    @Test
+    public void checkAllowed_afterOpenDuration_allowsSingleProbe() throws Exception {
+        sut.recordFailure(HOST, false, false, HttpFailureType.NETWORK);
+        sut.recordFailure(HOST, false, false, HttpFailureType.NETWORK);
+
+        when(time.getMonotonicTime()).thenReturn(10000L);
+        sut.checkAllowed(HOST, false);
+        assertEquals(HttpCircuitBreaker.State.HALF_OPEN, sut.getState(HOST, false));
+
+        assertThrows(CircuitBreakerOpenException.class, () -> sut.checkAllowed(HOST, false));
+    }
+
+    @Test
+    public void recordSuccess_whenProbeSucceeds_closesCircuit() throws Exception {
+        sut.recordFailure(HOST, false, false, HttpFailureType.NETWORK);
+        sut.recordFailure(HOST, false, false, HttpFailureType.NETWORK);
+
+        when(time.getMonotonicTime()).thenReturn(10000L);
+        assertTrue(sut.checkAllowed(HOST, false));
+        sut.recordSuccess(HOST, false, true, 0);
+
+        assertEquals(HttpCircuitBreaker.State.CLOSED, sut.getState(HOST, false));
+        sut.checkAllowed(HOST, false);
+    }
+
+    @Test
+    public void recordFailure_whenProbeFails_reopensCircuit() throws Exception {
+        sut.recordFailure(HOST, false, false, HttpFailureType.NETWORK);
+        sut.recordFailure(HOST, false, false, HttpFailureType.NETWORK);
+
+        when(time.getMonotonicTime()).thenReturn(10000L);
+        assertTrue(sut.checkAllowed(HOST, false));
+        sut.recordFailure(HOST, false, true, HttpFailureType.TIMEOUT);
+
+        assertEquals(HttpCircuitBreaker.State.OPEN, sut.getState(HOST, false));
+        when(time.getMonotonicTime()).thenReturn(19999L);
+        assertThrows(CircuitBreakerOpenException.class, () -> sut.checkAllowed(HOST, false));
+    }
+
+    @Test
+    public void recordSuccess_whenProbeIsSlow_reopensCircuit() throws Exception {
+        sut.recordFailure(HOST, false, false, HttpFailureType.NETWORK);
+        sut.recordFailure(HOST, false, false, HttpFailureType.NETWORK);
+
+        when(time.getMonotonicTime()).thenReturn(10000L);
+        assertTrue(sut.checkAllowed(HOST, false));
+        sut.recordSuccess(HOST, false, true, 1000);
+
+        assertEquals(HttpCircuitBreaker.State.OPEN, sut.getState(HOST, false));
+    }
+
+    @Test
+    public void recordCanceled_releasesProbe() throws Exception {
+        sut.recordFailure(HOST, false, false, HttpFailureType.NETWORK);
+        sut.recordFailure(HOST, false, false, HttpFailureType.NETWORK);
+
+        when(time.getMonotonicTime()).thenReturn(10000L);
+        assertTrue(sut.checkAllowed(HOST, false));
+        sut.recordCanceled(HOST, false, true);
+
+        sut.checkAllowed(HOST, false);
+    }
+
+    @Test
+    public void record_whenHalfOpen_ignoresOutcomesOfRequestsSentBeforeProbe() throws Exception {
+        sut.recordFailure(HOST, false, false, HttpFailureType.NETWORK);
+        sut.recordFailure(HOST, false, false, HttpFailureType.NETWORK);
+
+        when(time.getMonotonicTime()).thenReturn(10000L);
+        assertTrue(sut.checkAllowed(HOST, false));
+
+        sut.recordSuccess(HOST, false, false, 0);
+        sut.recordFailure(HOST, false, false, HttpFailureType.SERVER_ERROR);
+        assertEquals(HttpCircuitBreaker.State.HALF_OPEN, sut.getState(HOST, false));
+
+        sut.recordSuccess(HOST, false, true, 0);
+        assertEquals(HttpCircuitBreaker.State.CLOSED, sut.getState(HOST, false));
+    }
+
+    @Test
+    public void recordFailure_whenProbeIsOffline_releasesProbeWithoutReopening() throws Exception {
+        sut.recordFailure(HOST, false, false, HttpFailureType.NETWORK);
+        sut.recordFailure(HOST, false, false, HttpFailureType.NETWORK);
+
+        when(time.getMonotonicTime()).thenReturn(10000L);
+        assertTrue(sut.checkAllowed(HOST, false));
+        sut.recordFailure(HOST, false, true, HttpFailureType.OFFLINE);
+
+        assertEquals(HttpCircuitBreaker.State.HALF_OPEN, sut.getState(HOST, false));
+        assertTrue(sut.checkAllowed(HOST, false));
+    }
+
+    @Test
+    public void recordFailure_forBackgroundTraffic_doesNotOpenUserInitiatedCircuit()
+            throws Exception {
+        sut.recordFailure(HOST, true, false, HttpFailureType.SERVER_ERROR);
+        sut.recordFailure(HOST, true, false, HttpFailureType.SERVER_ERROR);
+
+        assertEquals(HttpCircuitBreaker.State.OPEN, sut.getState(HOST, true));
+        assertEquals(HttpCircuitBreaker.State.CLOSED, sut.getState(HOST, false));
+        sut.checkAllowed(HOST, false);
+        assertThrows(CircuitBreakerOpenException.class, () -> sut.checkAllowed(HOST, true));
+    }
+
+    @Test
+    public void checkAllowed_whenUserInitiatedCircuitIsOpen_rejectsBackgroundTraffic() {
+        sut.recordFailure(HOST, false, false, HttpFailureType.SERVER_ERROR);
+        sut.recordFailure(HOST, false, false, HttpFailureType.SERVER_ERROR);
+
+        assertEquals(HttpCircuitBreaker.State.CLOSED, sut.getState(HOST, true));
+        assertThrows(CircuitBreakerOpenException.class, () -> sut.checkAllowed(HOST, true));
+    }
+}
@@ -1,8 +1,11 @@
 package com.braintreepayments.api.sharedutils;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
@@ -15,6 +18,10 @@ import static org.mockito.Mockito.when;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.net.SocketTimeoutException;
+import java.net.URL;
 
 public class HttpClientUnitTest {
 
@@ -80,6 +87,299 @@ public class HttpClientUnitTest {
         verify(callback).onResult(response, null);
     }
 
+    @Test
+    public void sendRequest_onSuccess_recordsQueueWaitDuration() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+        HttpResponse response = new HttpResponse("response body", new HttpResponseTiming(123, 456));
+
+        when(syncHttpClient.request(httpRequest)).thenReturn(response);
+
+        NetworkResponseCallback callback = mock(NetworkResponseCallback.class);
+        sut.sendRequest(httpRequest, callback);
+
+        threadScheduler.flushBackgroundThread();
+        assertNotNull(response.getTiming().getQueueWaitDuration());
+    }
+
+    @Test
+    public void sendRequest_withBackgroundCallback_notifiesSuccessOnBackgroundThread()
+            throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+        HttpResponse response = new HttpResponse("response body", new HttpResponseTiming(123, 456));
+
+        when(syncHttpClient.request(httpRequest)).thenReturn(response);
+
+        BackgroundNetworkResponseCallback callback = mock(BackgroundNetworkResponseCallback.class);
+        sut.sendRequest(httpRequest, callback);
+
+        threadScheduler.flushBackgroundThread();
+        verify(callback).onResult(response, null);
+        verify(threadScheduler, never()).runOnMain(any(Runnable.class));
+    }
+
+    @Test
+    public void sendRequest_withBackgroundCallback_notifiesErrorOnBackgroundThread()
+            throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+
+        Exception exception = new Exception("error");
+        when(syncHttpClient.request(httpRequest)).thenThrow(exception);
+
+        BackgroundNetworkResponseCallback callback = mock(BackgroundNetworkResponseCallback.class);
+        sut.sendRequest(httpRequest, callback);
+
+        threadScheduler.flushBackgroundThread();
+        verify(callback).onResult(null, exception);
+        verify(threadScheduler, never()).runOnMain(any(Runnable.class));
+    }
+
+    @Test
+    public void sendRequest_whenCanceledBeforeRunning_doesNotSendRequest() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+        HttpCall httpCall = new HttpCall();
+        httpRequest.call(httpCall);
+
+        NetworkResponseCallback callback = mock(NetworkResponseCallback.class);
+        sut.sendRequest(httpRequest, callback);
+        httpCall.cancel();
+
+        threadScheduler.flushBackgroundThread();
+        threadScheduler.flushMainThread();
+
+        verifyNoInteractions(syncHttpClient);
+        verifyNoInteractions(callback);
+    }
+
+    @Test
+    public void sendRequest_whenCanceledBeforeResultIsDelivered_doesNotNotifyCallback()
+            throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+        HttpCall httpCall = new HttpCall();
+        httpRequest.call(httpCall);
+        HttpResponse response = new HttpResponse("response body", new HttpResponseTiming(123, 456));
+        when(syncHttpClient.request(httpRequest)).thenReturn(response);
+
+        NetworkResponseCallback callback = mock(NetworkResponseCallback.class);
+        sut.sendRequest(httpRequest, callback);
+
+        threadScheduler.flushBackgroundThread();
+        httpCall.cancel();
+        threadScheduler.flushMainThread();
+
+        verifyNoInteractions(callback);
+    }
+
+    @Test
+    public void sendRequest_whenCanceledAndRetryMax3TimesEnabled_doesNotRetry() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+        HttpCall httpCall = new HttpCall();
+        httpRequest.call(httpCall);
+        when(syncHttpClient.request(httpRequest)).thenAnswer(invocation -> {
+            httpCall.cancel();
+            throw new Exception("connection aborted");
+        });
+
+        NetworkResponseCallback callback = mock(NetworkResponseCallback.class);
+        sut.sendRequest(httpRequest, HttpClient.RETRY_MAX_3_TIMES, callback);
+
+        threadScheduler.flushBackgroundThread();
+        threadScheduler.flushMainThread();
+
+        verify(syncHttpClient, times(1)).request(httpRequest);
+        verifyNoInteractions(callback);
+    }
+
+    @Test
+    public void setEventListener_forwardsListenerToSynchronousHttpClient() {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+        HttpEventListener eventListener = mock(HttpEventListener.class);
+
+        sut.setEventListener(eventListener);
+        verify(syncHttpClient).setEventListener(eventListener);
+    }
+
+    @Test
+    public void sendRequest_withEventListener_notifiesRequestEnqueued() {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+        HttpEventListener eventListener = mock(HttpEventListener.class);
+        sut.setEventListener(eventListener);
+
+        sut.sendRequest(httpRequest, mock(NetworkResponseCallback.class));
+        verify(eventListener).onRequestEnqueued(httpRequest);
+    }
+
+    @Test
+    public void sendRequest_withEventListener_notifiesClassifiedFailureAndRetries()
+            throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+        HttpEventListener eventListener = mock(HttpEventListener.class);
+        sut.setEventListener(eventListener);
+
+        Exception exception = new ServiceUnavailableException("unavailable");
+        when(syncHttpClient.request(httpRequest)).thenThrow(exception);
+
+        sut.sendRequest(httpRequest, HttpClient.RETRY_MAX_3_TIMES,
+                mock(NetworkResponseCallback.class));
+        threadScheduler.flushBackgroundThread();
+
+        verify(eventListener, times(3))
+                .onRequestFailed(httpRequest, exception, HttpFailureType.SERVER_ERROR);
+        verify(eventListener).onRetryScheduled(httpRequest, 1);
+        verify(eventListener).onRetryScheduled(httpRequest, 2);
+        verify(eventListener, never()).onRetryScheduled(httpRequest, 3);
+    }
+
+    @Test
+    public void sendRequest_whenCircuitIsOpen_failsFastWithoutSendingRequest() throws Exception {
+        HttpCircuitBreaker circuitBreaker = mock(HttpCircuitBreaker.class);
+        CircuitBreakerOpenException exception = new CircuitBreakerOpenException("open");
+        doThrow(exception).when(circuitBreaker).checkAllowed("example.com", false);
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler, circuitBreaker);
+
+        NetworkResponseCallback callback = mock(NetworkResponseCallback.class);
+        sut.sendRequest(httpRequest, HttpClient.RETRY_MAX_3_TIMES, callback);
+
+        threadScheduler.flushBackgroundThread();
+        threadScheduler.flushMainThread();
+
+        verifyNoInteractions(syncHttpClient);
+        verify(callback).onResult(null, exception);
+    }
+
+    @Test
+    public void sendRequest_recordsOutcomesWithCircuitBreaker() throws Exception {
+        HttpCircuitBreaker circuitBreaker = mock(HttpCircuitBreaker.class);
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler, circuitBreaker);
+        httpRequest.background(true);
+
+        Exception exception = new ServerException("error");
+        when(syncHttpClient.request(httpRequest)).thenThrow(exception);
+
+        sut.sendRequest(httpRequest, mock(NetworkResponseCallback.class));
+        threadScheduler.flushBackgroundThread();
+
+        verify(circuitBreaker).checkAllowed("example.com", true);
+        verify(circuitBreaker)
+                .recordFailure("example.com", true, false, HttpFailureType.SERVER_ERROR);
+    }
+
+    @Test
+    public void sendRequest_appliesAndRecordsLearnedTimeouts() throws Exception {
+        HttpTimeoutEstimator timeoutEstimator = mock(HttpTimeoutEstimator.class);
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler,
+                new HttpCircuitBreaker(new Time()), timeoutEstimator);
+        HttpResponseTiming timing = new HttpResponseTiming(123, 456);
+        HttpResponse response = new HttpResponse("response body", timing);
+        when(syncHttpClient.request(httpRequest)).thenReturn(response);
+
+        sut.sendRequest(httpRequest, mock(NetworkResponseCallback.class));
+        threadScheduler.flushBackgroundThread();
+
+        URL url = httpRequest.getURL();
+        InOrder inOrder = inOrder(timeoutEstimator, syncHttpClient);
+        inOrder.verify(timeoutEstimator).applyTimeouts(httpRequest, url);
+        inOrder.verify(syncHttpClient).request(httpRequest);
+        inOrder.verify(timeoutEstimator).record(url, timing);
+    }
+
+    @Test
+    public void sendRequest_onTimeout_recordsTimeout() throws Exception {
+        HttpTimeoutEstimator timeoutEstimator = mock(HttpTimeoutEstimator.class);
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler,
+                new HttpCircuitBreaker(new Time()), timeoutEstimator);
+        when(syncHttpClient.request(httpRequest)).thenThrow(new SocketTimeoutException());
+
+        sut.sendRequest(httpRequest, mock(NetworkResponseCallback.class));
+        threadScheduler.flushBackgroundThread();
+
+        verify(timeoutEstimator).recordTimeout(httpRequest.getURL());
+    }
+
+    @Test
+    public void sendRequest_withIdenticalGetsInFlight_sharesSingleRequest() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+        HttpResponse response = new HttpResponse("response body", new HttpResponseTiming(123, 456));
+        when(syncHttpClient.request(any(HttpRequest.class))).thenReturn(response);
+
+        NetworkResponseCallback callback1 = mock(NetworkResponseCallback.class);
+        NetworkResponseCallback callback2 = mock(NetworkResponseCallback.class);
+        sut.sendRequest(newGetRequest("token"), callback1);
+        sut.sendRequest(newGetRequest("token"), callback2);
+
+        threadScheduler.flushBackgroundThread();
+        threadScheduler.flushMainThread();
+
+        verify(syncHttpClient, times(1)).request(any(HttpRequest.class));
+        verify(callback1).onResult(response, null);
+        verify(callback2).onResult(
+                new HttpResponse("response body", response.getTiming(), true), null);
+    }
+
+    @Test
+    public void sendRequest_withGetsForDifferentAuthorization_sendsSeparateRequests()
+            throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+        HttpResponse response = new HttpResponse("response body", new HttpResponseTiming(123, 456));
+        when(syncHttpClient.request(any(HttpRequest.class))).thenReturn(response);
+
+        sut.sendRequest(newGetRequest("token"), mock(NetworkResponseCallback.class));
+        sut.sendRequest(newGetRequest("other-token"), mock(NetworkResponseCallback.class));
+        threadScheduler.flushBackgroundThread();
+
+        verify(syncHttpClient, times(2)).request(any(HttpRequest.class));
+    }
+
+    @Test
+    public void sendRequest_withIdenticalGetAfterCompletion_sendsNewRequest() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+        HttpResponse response = new HttpResponse("response body", new HttpResponseTiming(123, 456));
+        when(syncHttpClient.request(any(HttpRequest.class))).thenReturn(response);
+
+        sut.sendRequest(newGetRequest("token"), mock(NetworkResponseCallback.class));
+        threadScheduler.flushBackgroundThread();
+        sut.sendRequest(newGetRequest("token"), mock(NetworkResponseCallback.class));
+        threadScheduler.flushBackgroundThread();
+
+        verify(syncHttpClient, times(2)).request(any(HttpRequest.class));
+    }
+
+    @Test
+    public void sendRequest_whenOneSharedGetIsCanceled_notifiesRemainingCallers()
+            throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+        HttpResponse response = new HttpResponse("response body", new HttpResponseTiming(123, 456));
+        when(syncHttpClient.request(any(HttpRequest.class))).thenReturn(response);
+
+        HttpCall canceledCall = new HttpCall();
+        NetworkResponseCallback canceledCallback = mock(NetworkResponseCallback.class);
+        NetworkResponseCallback callback = mock(NetworkResponseCallback.class);
+        sut.sendRequest(newGetRequest("token").call(canceledCall), canceledCallback);
+        sut.sendRequest(newGetRequest("token").call(new HttpCall()), callback);
+        canceledCall.cancel();
+
+        threadScheduler.flushBackgroundThread();
+        threadScheduler.flushMainThread();
+
+        verify(syncHttpClient, times(1)).request(any(HttpRequest.class));
+        verifyNoInteractions(canceledCallback);
+        verify(callback).onResult(response, null);
+    }
+
+    @Test
+    public void sendRequest_whenAllSharedGetsAreCanceled_doesNotSendRequest() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+
+        HttpCall call1 = new HttpCall();
+        HttpCall call2 = new HttpCall();
+        sut.sendRequest(newGetRequest("token").call(call1), mock(NetworkResponseCallback.class));
+        sut.sendRequest(newGetRequest("token").call(call2), mock(NetworkResponseCallback.class));
+        call1.cancel();
+        call2.cancel();
+
+        threadScheduler.flushBackgroundThread();
+        verifyNoInteractions(syncHttpClient);
+    }
+
     @Test
     public void sendRequest_whenCallbackIsNull_doesNotNotifySuccess() throws Exception {
         HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
@@ -178,4 +478,11 @@ public class HttpClientUnitTest {
         String result = sut.sendRequest(httpRequest);
         assertEquals("response body", result);
     }
+
+    private static HttpRequest newGetRequest(String token) {
+        return new HttpRequest()
+                .method("GET")
+                .path("https://example.com/v1/configuration")
+                .addHeader("Authorization", "Bearer " + token);
+    }
 }
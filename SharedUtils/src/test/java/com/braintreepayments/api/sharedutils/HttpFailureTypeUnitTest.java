@@ -0,0 +1,80 @@
+package com.braintreepayments.api.sharedutils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+
+import javax.net.ssl.SSLHandshakeException;
+
+public class HttpFailureTypeUnitTest {
+
+    @Test
+    public void classify_socketTimeout_returnsTimeout() {
+        assertEquals(HttpFailureType.TIMEOUT,
+                HttpFailureType.classify(new SocketTimeoutException("timeout")));
+    }
+
+    @Test
+    public void classify_ioExceptions_returnsNetwork() {
+        assertEquals(HttpFailureType.NETWORK, HttpFailureType.classify(new IOException()));
+        assertEquals(HttpFailureType.NETWORK,
+                HttpFailureType.classify(new ConnectException("connection refused")));
+        assertEquals(HttpFailureType.NETWORK,
+                HttpFailureType.classify(new SSLHandshakeException("handshake failed")));
+    }
+
+    @Test
+    public void classify_connectivityExceptions_returnsOffline() {
+        assertEquals(HttpFailureType.OFFLINE,
+                HttpFailureType.classify(new UnknownHostException("unknown host")));
+        assertEquals(HttpFailureType.OFFLINE,
+                HttpFailureType.classify(new NoRouteToHostException("no route")));
+        assertEquals(HttpFailureType.OFFLINE, HttpFailureType.classify(
+                new ConnectException("connect failed: ENETUNREACH (Network is unreachable)")));
+    }
+
+    @Test
+    public void classify_rateLimitException_returnsRateLimited() {
+        assertEquals(HttpFailureType.RATE_LIMITED,
+                HttpFailureType.classify(new RateLimitException("rate limited")));
+    }
+
+    @Test
+    public void classify_serverExceptions_returnsServerError() {
+        assertEquals(HttpFailureType.SERVER_ERROR,
+                HttpFailureType.classify(new ServerException("server error")));
+        assertEquals(HttpFailureType.SERVER_ERROR,
+                HttpFailureType.classify(new ServiceUnavailableException("unavailable")));
+    }
+
+    @Test
+    public void classify_requestRejections_returnsClientError() {
+        assertEquals(HttpFailureType.CLIENT_ERROR,
+                HttpFailureType.classify(new UnprocessableEntityException("unprocessable")));
+        assertEquals(HttpFailureType.CLIENT_ERROR,
+                HttpFailureType.classify(new AuthenticationException("unauthorized")));
+        assertEquals(HttpFailureType.CLIENT_ERROR,
+                HttpFailureType.classify(new AuthorizationException("forbidden")));
+        assertEquals(HttpFailureType.CLIENT_ERROR,
+                HttpFailureType.classify(new UpgradeRequiredException("upgrade required")));
+    }
+
+    @Test
+    public void classify_circuitBreakerOpenException_returnsCircuitOpen() {
+        assertEquals(HttpFailureType.CIRCUIT_OPEN,
+                HttpFailureType.classify(new CircuitBreakerOpenException("open")));
+    }
+
+    @Test
+    public void classify_otherExceptions_returnsUnexpected() {
+        assertEquals(HttpFailureType.UNEXPECTED,
+                HttpFailureType.classify(new UnexpectedException("unexpected")));
+        assertEquals(HttpFailureType.UNEXPECTED, HttpFailureType.classify(new Exception()));
+    }
+}
@@ -0,0 +1,132 @@
+package com.braintreepayments.api.sharedutils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URL;
+
+public class HttpTimeoutEstimatorUnitTest {
+
+    private URL url;
+    private HttpRequest httpRequest;
+    private HttpTimeoutEstimator sut;
+
+    @Before
+    public void beforeEach() throws Exception {
+        url = new URL("https://api.braintreegateway.com/merchants/abc123def/client_api"
+                + "/v1/payment_methods/credit_cards");
+        httpRequest = new HttpRequest().path(url.toString());
+        sut = new HttpTimeoutEstimator();
+    }
+
+    @Test
+    public void applyTimeouts_withoutEnoughSamples_keepsDefaultTimeouts() {
+        recordSamples(HttpTimeoutEstimator.MIN_SAMPLES - 1, 100, 200);
+
+        sut.applyTimeouts(httpRequest, url);
+
+        assertEquals(30000, httpRequest.getConnectTimeout());
+        assertEquals(30000, httpRequest.getReadTimeout());
+        assertEquals(0, httpRequest.getDeadline());
+        assertEquals(0, httpRequest.getTransferDeadline());
+    }
+
+    @Test
+    public void applyTimeouts_whenObservedLatencyIsLow_appliesFloors() {
+        recordSamples(HttpTimeoutEstimator.MIN_SAMPLES, 100, 200);
+
+        sut.applyTimeouts(httpRequest, url);
+
+        assertEquals(5000, httpRequest.getConnectTimeout());
+        assertEquals(10000, httpRequest.getReadTimeout());
+        assertEquals(15000, httpRequest.getDeadline());
+        assertEquals(10000, httpRequest.getTransferDeadline());
+    }
+
+    @Test
+    public void applyTimeouts_derivesTimeoutsFromP95() {
+        recordSamples(HttpTimeoutEstimator.MIN_SAMPLES - 2, 100, 200);
+        recordSamples(2, 2000, 4000);
+
+        sut.applyTimeouts(httpRequest, url);
+
+        assertEquals(6000, httpRequest.getConnectTimeout());
+        assertEquals(12000, httpRequest.getReadTimeout());
+        assertEquals(18000, httpRequest.getDeadline());
+    }
+
+    @Test
+    public void applyTimeouts_ignoresSingleOutlier() {
+        recordSamples(HttpTimeoutEstimator.MIN_SAMPLES - 1, 100, 200);
+        recordSamples(1, 2000, 4000);
+
+        sut.applyTimeouts(httpRequest, url);
+
+        assertEquals(5000, httpRequest.getConnectTimeout());
+        assertEquals(10000, httpRequest.getReadTimeout());
+    }
+
+    @Test
+    public void applyTimeouts_budgetsBodyTransferSeparately() {
+        for (int i = 0; i < HttpTimeoutEstimator.MIN_SAMPLES; i++) {
+            sut.record(url, new HttpResponseTiming(0, 0, 100L, 1000L, 200L, 3000L));
+        }
+
+        sut.applyTimeouts(httpRequest, url);
+
+        assertEquals(15000, httpRequest.getDeadline());
+        assertEquals(12000, httpRequest.getTransferDeadline());
+    }
+
+    @Test
+    public void applyTimeouts_clampsToCeiling() {
+        recordSamples(HttpTimeoutEstimator.MIN_SAMPLES, 20000, 20000);
+
+        sut.applyTimeouts(httpRequest, url);
+
+        assertEquals(30000, httpRequest.getConnectTimeout());
+        assertEquals(30000, httpRequest.getReadTimeout());
+    }
+
+    @Test
+    public void recordTimeout_once_keepsTimeouts() {
+        recordSamples(HttpTimeoutEstimator.MIN_SAMPLES, 2000, 4000);
+
+        sut.recordTimeout(url);
+        sut.applyTimeouts(httpRequest, url);
+
+        assertEquals(6000, httpRequest.getConnectTimeout());
+        assertEquals(12000, httpRequest.getReadTimeout());
+    }
+
+    @Test
+    public void recordTimeout_whenRepeated_widensTimeoutsGradually() {
+        recordSamples(HttpTimeoutEstimator.MIN_SAMPLES, 2000, 4000);
+
+        sut.recordTimeout(url);
+        sut.recordTimeout(url);
+        sut.applyTimeouts(httpRequest, url);
+
+        assertEquals(9000, httpRequest.getConnectTimeout());
+        assertEquals(18000, httpRequest.getReadTimeout());
+        assertEquals(15000, httpRequest.getTransferDeadline());
+    }
+
+    @Test
+    public void getEndpointKey_collapsesIdentifierSegments() throws Exception {
+        URL lookupUrl = new URL("https://api.braintreegateway.com/merchants/abc123def/client_api"
+                + "/v1/payment_methods/tokencc_bc_1234abcd/three_d_secure/lookup?param=1");
+
+        assertEquals("api.braintreegateway.com/merchants/*/client_api/v1/payment_methods/*"
+                + "/three_d_secure/lookup", HttpTimeoutEstimator.getEndpointKey(lookupUrl));
+    }
+
+    private void recordSamples(int count, long connectDuration, long timeToFirstByte) {
+        for (int i = 0; i < count; i++) {
+            sut.record(url, new HttpResponseTiming(0, 0, connectDuration, null,
+                    timeToFirstByte, 10L));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.braintreepayments.api.sharedutils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+@RunWith(RobolectricTestRunner.class)
+public class JsonBodyWriterUnitTest {
+
+    @Test
+    public void writesNestedObjectsAndArraysWithCommas() {
+        JsonBodyWriter sut = new JsonBodyWriter()
+                .beginObject()
+                .name("a").value("b")
+                .name("nested").beginObject()
+                    .name("flag").value(true)
+                    .name("count").value(42L)
+                .endObject()
+                .name("list").beginArray()
+                    .value(1L)
+                    .value("two")
+                    .nullValue()
+                .endArray()
+                .endObject();
+
+        assertEquals("{\"a\":\"b\",\"nested\":{\"flag\":true,\"count\":42},\"list\":[1,\"two\",null]}",
+                asString(sut.toByteArray()));
+    }
+
+    @Test
+    public void value_escapesQuotesBackslashesAndControlCharacters() {
+        JsonBodyWriter sut = new JsonBodyWriter()
+                .beginObject()
+                .name("key").value("a\"b\\c\nd\te\u0001")
+                .endObject();
+
+        String json = asString(sut.toByteArray());
+        assertEquals("{\"key\":\"a\\\"b\\\\c\\nd\\te\\u0001\"}", json);
+    }
+
+    @Test
+    public void value_encodesMultibyteCharactersAsUtf8() throws Exception {
+        String value = "caf\u00e9 \u20ac \ud83d\ude00";
+        JsonBodyWriter sut = new JsonBodyWriter()
+                .beginObject()
+                .name("key").value(value)
+                .endObject();
+
+        byte[] bytes = sut.toByteArray();
+        assertEquals("{\"key\":\"" + value + "\"}", asString(bytes));
+        assertEquals(value, new JSONObject(asString(bytes)).getString("key"));
+    }
+
+    @Test
+    public void value_escapesUnpairedSurrogates() {
+        JsonBodyWriter sut = new JsonBodyWriter()
+                .beginArray()
+                .value("\ud83d")
+                .endArray();
+
+        assertEquals("[\"\\ud83d\"]", asString(sut.toByteArray()));
+    }
+
+    @Test
+    public void putOpt_omitsNullValues() {
+        JsonBodyWriter sut = new JsonBodyWriter()
+                .beginObject()
+                .putOpt("present", "value")
+                .putOpt("absent", null)
+                .endObject();
+
+        assertEquals("{\"present\":\"value\"}", asString(sut.toByteArray()));
+    }
+
+    @Test
+    public void value_withJSONObject_streamsMembers() throws Exception {
+        JSONObject json = new JSONObject()
+                .put("string", "value")
+                .put("number", 1.5)
+                .put("array", new JSONArray().put(1).put(false));
+
+        JsonBodyWriter sut = new JsonBodyWriter()
+                .beginObject()
+                .name("json").value((Object) json)
+                .endObject();
+
+        JSONObject result = new JSONObject(asString(sut.toByteArray())).getJSONObject("json");
+        assertEquals("value", result.getString("string"));
+        assertEquals(1.5, result.getDouble("number"), 0);
+        assertEquals(2, result.getJSONArray("array").length());
+    }
+
+    @Test
+    public void writesBodiesLargerThanInitialBuffer() throws Exception {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            value.append('x');
+        }
+
+        JsonBodyWriter sut = new JsonBodyWriter()
+                .beginObject()
+                .name("key").value(value.toString())
+                .endObject();
+
+        JSONObject result = new JSONObject(asString(sut.toByteArray()));
+        assertEquals(value.toString(), result.getString("key"));
+    }
+
+    @Test
+    public void toByteArray_releasesWriter() {
+        JsonBodyWriter sut = new JsonBodyWriter().beginObject().endObject();
+        sut.toByteArray();
+
+        assertThrows(IllegalStateException.class, () -> sut.name("key"));
+        assertThrows(IllegalStateException.class, sut::toByteArray);
+    }
+
+    @Test
+    public void toByteArray_withUnclosedObject_throwsIllegalStateException() {
+        JsonBodyWriter sut = new JsonBodyWriter().beginObject();
+
+        assertThrows(IllegalStateException.class, sut::toByteArray);
+    }
+
+    @Test
+    public void release_beforeToByteArray_releasesWriter() {
+        JsonBodyWriter sut = new JsonBodyWriter().beginObject().name("number").value("4111");
+        sut.release();
+        sut.release();
+
+        assertThrows(IllegalStateException.class, () -> sut.value("1111"));
+        assertThrows(IllegalStateException.class, sut::toByteArray);
+    }
+
+    @Test
+    public void release_afterToByteArray_keepsReturnedBytes() {
+        JsonBodyWriter sut = new JsonBodyWriter().beginObject().name("key").value("v").endObject();
+        byte[] bytes = sut.toByteArray();
+        sut.release();
+
+        assertEquals("{\"key\":\"v\"}", asString(bytes));
+    }
+
+    private static String asString(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
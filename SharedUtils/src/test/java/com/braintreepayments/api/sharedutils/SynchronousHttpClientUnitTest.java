@@ -1,8 +1,14 @@
 package com.braintreepayments.api.sharedutils;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
@@ -16,12 +22,17 @@ import com.braintreepayments.api.sharedutils.TLSSocketFactory;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.function.ThrowingRunnable;
+import org.mockito.InOrder;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLException;
@@ -389,6 +400,153 @@ public class SynchronousHttpClientUnitTest {
         verify(httpRequest).dispose();
     }
 
+    @Test
+    public void request_whenGet_recordsPhaseTimingsWithoutRequestWrite() throws Exception {
+        final HttpRequest httpRequest = spy(new HttpRequest()
+                .path("sample/path")
+                .method("GET")
+                .baseUrl("https://www.sample.com"));
+
+        URL url = mock(URL.class);
+        when(httpRequest.getURL()).thenReturn(url);
+
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        when(url.openConnection()).thenReturn(connection);
+
+        when(connection.getResponseCode()).thenReturn(200);
+        when(httpResponseParser.parse(200, connection)).thenReturn("http_ok");
+
+        SynchronousHttpClient sut = new SynchronousHttpClient(sslSocketFactory, httpResponseParser);
+        HttpResponseTiming timing = sut.request(httpRequest).getTiming();
+
+        verify(connection).connect();
+        assertNotNull(timing.getConnectDuration());
+        assertNull(timing.getRequestWriteDuration());
+        assertNotNull(timing.getTimeToFirstByte());
+        assertNotNull(timing.getResponseReadDuration());
+        assertNull(timing.getQueueWaitDuration());
+    }
+
+    @Test
+    public void request_whenPost_connectsBeforeWritingAndRecordsRequestWriteDuration()
+            throws Exception {
+        final HttpRequest httpRequest = spy(new HttpRequest()
+                .path("sample/path")
+                .method("POST")
+                .data("test data")
+                .baseUrl("https://www.sample.com"));
+
+        URL url = mock(URL.class);
+        when(httpRequest.getURL()).thenReturn(url);
+
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        when(url.openConnection()).thenReturn(connection);
+
+        when(connection.getResponseCode()).thenReturn(200);
+        when(httpResponseParser.parse(200, connection)).thenReturn("http_ok");
+
+        OutputStream outputStream = mock(OutputStream.class);
+        when(connection.getOutputStream()).thenReturn(outputStream);
+
+        SynchronousHttpClient sut = new SynchronousHttpClient(sslSocketFactory, httpResponseParser);
+        HttpResponseTiming timing = sut.request(httpRequest).getTiming();
+
+        InOrder inOrder = inOrder(connection);
+        inOrder.verify(connection).setDoOutput(true);
+        inOrder.verify(connection).connect();
+        inOrder.verify(connection).getOutputStream();
+        inOrder.verify(connection).getResponseCode();
+        assertNotNull(timing.getRequestWriteDuration());
+    }
+
+    @Test
+    public void request_withEventListener_notifiesConnectionAcquiredAndResponseParsed()
+            throws Exception {
+        final HttpRequest httpRequest = spy(new HttpRequest()
+                .path("sample/path")
+                .method("GET")
+                .baseUrl("https://www.sample.com"));
+
+        URL url = mock(URL.class);
+        when(httpRequest.getURL()).thenReturn(url);
+
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        when(url.openConnection()).thenReturn(connection);
+
+        when(connection.getResponseCode()).thenReturn(200);
+        when(httpResponseParser.parse(200, connection)).thenReturn("http_ok");
+
+        HttpEventListener eventListener = mock(HttpEventListener.class);
+        SynchronousHttpClient sut = new SynchronousHttpClient(sslSocketFactory, httpResponseParser);
+        sut.setEventListener(eventListener);
+        HttpResponse response = sut.request(httpRequest);
+
+        InOrder inOrder = inOrder(eventListener);
+        inOrder.verify(eventListener).onConnectionAcquired(same(httpRequest), anyLong());
+        inOrder.verify(eventListener).onResponseParsed(httpRequest, 200, response);
+    }
+
+    @Test
+    public void request_whenDeadlineIsExceeded_abortsConnectionAndThrowsSocketTimeout()
+            throws Exception {
+        final HttpRequest httpRequest = spy(new HttpRequest()
+                .path("sample/path")
+                .method("GET")
+                .baseUrl("https://www.sample.com"))
+                .timeouts(30000, 30000, 50);
+
+        URL url = mock(URL.class);
+        when(httpRequest.getURL()).thenReturn(url);
+
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        when(url.openConnection()).thenReturn(connection);
+
+        CountDownLatch disconnected = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            disconnected.countDown();
+            return null;
+        }).when(connection).disconnect();
+        when(connection.getResponseCode()).thenAnswer(invocation -> {
+            disconnected.await(5, TimeUnit.SECONDS);
+            throw new IOException("connection closed");
+        });
+
+        final SynchronousHttpClient sut =
+                new SynchronousHttpClient(sslSocketFactory, httpResponseParser);
+        assertThrows(SocketTimeoutException.class, () -> sut.request(httpRequest));
+    }
+
+    @Test
+    public void request_whenWritingBodyOutlastsDeadline_doesNotAbortConnection()
+            throws Exception {
+        final HttpRequest httpRequest = spy(new HttpRequest()
+                .path("sample/path")
+                .method("POST")
+                .data("test data")
+                .baseUrl("https://www.sample.com"))
+                .timeouts(30000, 30000, 50, 0);
+
+        URL url = mock(URL.class);
+        when(httpRequest.getURL()).thenReturn(url);
+
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        when(url.openConnection()).thenReturn(connection);
+
+        OutputStream outputStream = mock(OutputStream.class);
+        doAnswer(invocation -> {
+            Thread.sleep(200);
+            return null;
+        }).when(outputStream).write(any(byte[].class));
+        when(connection.getOutputStream()).thenReturn(outputStream);
+        when(connection.getResponseCode()).thenReturn(200);
+        when(httpResponseParser.parse(200, connection)).thenReturn("http_ok");
+
+        SynchronousHttpClient sut = new SynchronousHttpClient(sslSocketFactory, httpResponseParser);
+        HttpResponse response = sut.request(httpRequest);
+
+        assertEquals("http_ok", response.getBody());
+    }
+
     private static byte[] toByteArray(String data) {
         return data.getBytes(StandardCharsets.UTF_8);
     }
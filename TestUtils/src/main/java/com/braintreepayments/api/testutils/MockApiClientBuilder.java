@@ -3,6 +3,7 @@ package com.braintreepayments.api.testutils;
 import com.braintreepayments.api.core.ApiClient;
 import com.braintreepayments.api.core.PaymentMethod;
 import com.braintreepayments.api.core.TokenizeCallback;
+import com.braintreepayments.api.sharedutils.HttpCall;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doAnswer;
@@ -42,16 +43,16 @@ public class MockApiClientBuilder {
     public ApiClient build() {
         ApiClient apiClient = mock(ApiClient.class);
 
-        doAnswer((Answer<Void>) invocation -> {
+        doAnswer((Answer<HttpCall>) invocation -> {
             TokenizeCallback listener = (TokenizeCallback) invocation.getArguments()[1];
             listener.onResult(tokenizeRESTSuccess, tokenizeRESTError);
-            return null;
+            return new HttpCall();
         }).when(apiClient).tokenizeREST(any(PaymentMethod.class), any(TokenizeCallback.class));
 
-        doAnswer((Answer<Void>) invocation -> {
+        doAnswer((Answer<HttpCall>) invocation -> {
             TokenizeCallback listener = (TokenizeCallback) invocation.getArguments()[1];
             listener.onResult(tokenizeGraphQLSuccess, tokenizeGraphQLError);
-            return null;
+            return new HttpCall();
         }).when(apiClient).tokenizeGraphQL(any(JSONObject.class), any(TokenizeCallback.class));
 
         return apiClient;
@@ -15,6 +15,7 @@ import com.braintreepayments.api.core.BraintreeClient;
 import com.braintreepayments.api.core.Configuration;
 import com.braintreepayments.api.core.ConfigurationCallback;
 import com.braintreepayments.api.core.IntegrationType;
+import com.braintreepayments.api.sharedutils.HttpCall;
 import com.braintreepayments.api.sharedutils.HttpResponseCallback;
 
 import org.mockito.stubbing.Answer;
@@ -114,45 +115,56 @@ public class MockBraintreeClientBuilder {
         }).when(braintreeClient).getConfiguration(any(ConfigurationCallback.class));
 
         doAnswer((Answer<Void>) invocation -> {
+            ConfigurationCallback callback = (ConfigurationCallback) invocation.getArguments()[1];
+            if (configuration != null) {
+                callback.onResult(configuration, null);
+            } else if (configurationError != null) {
+                callback.onResult(null, configurationError);
+            }
+            return null;
+        }).when(braintreeClient)
+                .getConfiguration(any(HttpCall.class), any(ConfigurationCallback.class));
+
+        doAnswer((Answer<HttpCall>) invocation -> {
             HttpResponseCallback callback = (HttpResponseCallback) invocation.getArguments()[1];
             if (sendGETSuccess != null) {
                 callback.onResult(sendGETSuccess, null);
             } else if (sendGETError != null) {
                 callback.onResult(null, sendGETError);
             }
-            return null;
+            return new HttpCall();
         }).when(braintreeClient).sendGET(anyString(), any(HttpResponseCallback.class));
 
-        doAnswer((Answer<Void>) invocation -> {
+        doAnswer((Answer<HttpCall>) invocation -> {
             HttpResponseCallback callback = (HttpResponseCallback) invocation.getArguments()[2];
             if (sendPOSTSuccess != null) {
                 callback.onResult(sendPOSTSuccess, null);
             } else if (sendPOSTError != null) {
                 callback.onResult(null, sendPOSTError);
             }
-            return null;
+            return new HttpCall();
         }).when(braintreeClient)
                 .sendPOST(anyString(), anyString(), any(HttpResponseCallback.class));
 
-        doAnswer((Answer<Void>) invocation -> {
+        doAnswer((Answer<HttpCall>) invocation -> {
             HttpResponseCallback callback = (HttpResponseCallback) invocation.getArguments()[3];
             if (sendPOSTSuccess != null) {
                 callback.onResult(sendPOSTSuccess, null);
             } else if (sendPOSTError != null) {
                 callback.onResult(null, sendPOSTError);
             }
-            return null;
+            return new HttpCall();
         }).when(braintreeClient)
             .sendPOST(anyString(), anyString(), anyMap(), any(HttpResponseCallback.class));
 
-        doAnswer((Answer<Void>) invocation -> {
+        doAnswer((Answer<HttpCall>) invocation -> {
             HttpResponseCallback callback = (HttpResponseCallback) invocation.getArguments()[1];
             if (sendGraphQLPOSTSuccess != null) {
                 callback.onResult(sendGraphQLPOSTSuccess, null);
             } else if (sendGraphQLPOSTError != null) {
                 callback.onResult(null, sendGraphQLPOSTError);
             }
-            return null;
+            return new HttpCall();
         }).when(braintreeClient).sendGraphQLPOST(any(), any(HttpResponseCallback.class));
 
         return braintreeClient;
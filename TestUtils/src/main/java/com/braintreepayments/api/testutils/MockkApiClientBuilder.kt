@@ -2,6 +2,7 @@ package com.braintreepayments.api.testutils
 
 import com.braintreepayments.api.core.ApiClient
 import com.braintreepayments.api.core.TokenizeCallback
+import com.braintreepayments.api.sharedutils.HttpCall
 import io.mockk.every
 import io.mockk.mockk
 import org.json.JSONObject
@@ -40,11 +41,13 @@ class MockkApiClientBuilder {
         every { apiClient.tokenizeREST(any(), any()) } answers {
             val listener = lastArg() as TokenizeCallback
             listener.onResult(tokenizeRESTSuccess, tokenizeRESTError)
+            HttpCall()
         }
 
         every { apiClient.tokenizeGraphQL(any(), any()) } answers {
             val listener = lastArg() as TokenizeCallback
             listener.onResult(tokenizeGraphQLSuccess, tokenizeGraphQLError)
+            HttpCall()
         }
         return apiClient
     }
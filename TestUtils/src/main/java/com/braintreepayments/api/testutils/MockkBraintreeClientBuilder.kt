@@ -5,6 +5,7 @@ import com.braintreepayments.api.core.BraintreeClient
 import com.braintreepayments.api.core.Configuration
 import com.braintreepayments.api.core.ConfigurationCallback
 import com.braintreepayments.api.core.ErrorWithResponse
+import com.braintreepayments.api.sharedutils.HttpCall
 import com.braintreepayments.api.sharedutils.HttpResponseCallback
 import io.mockk.every
 import io.mockk.mockk
@@ -41,10 +42,16 @@ class MockkBraintreeClientBuilder {
             callback.onResult(configurationSuccess, configurationException)
         }
 
+        every { braintreeClient.getConfiguration(any<HttpCall>(), any()) } answers { call ->
+            val callback = call.invocation.args[1] as ConfigurationCallback
+            callback.onResult(configurationSuccess, configurationException)
+        }
+
         every { braintreeClient.sendGraphQLPOST(any(), any()) } answers { call ->
             val callback = call.invocation.args[1] as HttpResponseCallback
             sendGraphQLPostSuccess?.let { callback.onResult(it, null) }
                 ?: sendGraphQLPOSTError?.let { callback.onResult(null, it) }
+            HttpCall()
         }
 
         return braintreeClient
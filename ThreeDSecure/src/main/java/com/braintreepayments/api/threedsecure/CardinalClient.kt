@@ -1,8 +1,10 @@
 package com.braintreepayments.api.threedsecure
 
 import android.content.Context
+import android.util.Base64
 import com.braintreepayments.api.core.BraintreeException
 import com.braintreepayments.api.core.Configuration
+import com.braintreepayments.api.sharedutils.Time
 import com.cardinalcommerce.cardinalmobilesdk.Cardinal
 import com.cardinalcommerce.cardinalmobilesdk.enums.CardinalEnvironment
 import com.cardinalcommerce.cardinalmobilesdk.enums.CardinalRenderType
@@ -12,11 +14,43 @@ import com.cardinalcommerce.cardinalmobilesdk.models.CardinalConfigurationParame
 import com.cardinalcommerce.cardinalmobilesdk.models.ValidateResponse
 import com.cardinalcommerce.cardinalmobilesdk.services.CardinalInitService
 import org.json.JSONArray
+import org.json.JSONObject
+import java.util.concurrent.TimeUnit
 
-internal class CardinalClient {
+/**
+ * Wraps the Cardinal SDK. A Cardinal session that was set up successfully is kept until its
+ * authentication JWT expires or [cleanup] is called, and is reused by later [initialize] calls
+ * with the same settings, so that only the first 3D Secure lookup waits for Cardinal's device data
+ * collection. The session is shared by every [CardinalClient], since the Cardinal SDK itself is a
+ * process-wide singleton.
+ */
+internal class CardinalClient(private val time: Time = Time()) {
     var consumerSessionId: String? = null
         private set
 
+    /**
+     * Cardinal settings that a session was set up with. A session can only be reused by a request
+     * that would configure Cardinal the same way.
+     */
+    private data class SessionKey(
+        val cardinalAuthenticationJwt: String?,
+        val environment: String?,
+        val uiType: ThreeDSecureUiType,
+        val renderTypes: List<ThreeDSecureRenderType>?
+    )
+
+    private class Session(val key: SessionKey, val consumerSessionId: String, val expiresAt: Long)
+
+    /**
+     * A session that is being set up. Every [CardinalClient] waiting on it, including ones that
+     * joined another instance's setup, is notified through [callbacks].
+     */
+    private class PendingSession(val key: SessionKey?, val startedAt: Long) {
+        val callbacks = mutableListOf<CardinalInitializeCallback>()
+        var consumerSessionId: String? = null
+        var isComplete = false
+    }
+
     @Throws(BraintreeException::class)
     @Suppress("TooGenericExceptionCaught")
     fun initialize(
@@ -25,31 +59,141 @@ internal class CardinalClient {
         request: ThreeDSecureRequest,
         callback: CardinalInitializeCallback
     ) {
-        configureCardinal(context, configuration, request)
+        val key = sessionKey(configuration, request)
+        val now = time.currentTime
+        val sessionCallback = CardinalInitializeCallback { sessionId, error ->
+            sessionId?.let { consumerSessionId = it }
+            callback.onResult(sessionId, error)
+        }
+        val pending = PendingSession(key, now).apply { callbacks.add(sessionCallback) }
+        var cachedSessionId: String? = null
+        synchronized(lock) {
+            val cachedSession = session
+            val currentPending = pendingSession
+            if (key != null && cachedSession?.key == key && now < cachedSession.expiresAt) {
+                consumerSessionId = cachedSession.consumerSessionId
+                cachedSessionId = cachedSession.consumerSessionId
+            } else if (key != null && currentPending?.key == key &&
+                now - currentPending.startedAt < PENDING_SESSION_TIMEOUT_MILLIS
+            ) {
+                // a session with the same settings is already being set up, e.g. by prewarming
+                currentPending.callbacks.add(sessionCallback)
+                return
+            } else {
+                // setting up reconfigures the Cardinal singleton, which invalidates the cached
+                // session even if the new one is never cached, e.g. with UI customization
+                session = null
+                pendingSession = pending
+            }
+        }
+        cachedSessionId?.let {
+            callback.onResult(it, null)
+            return
+        }
 
         try {
+            configureCardinal(context, configuration, request)
+
             val cardinalInitService = object : CardinalInitService {
                 override fun onSetupCompleted(sessionId: String) {
-                    consumerSessionId = sessionId
-                    callback.onResult(consumerSessionId, null)
+                    completeSession(pending, sessionId, configuration, null)
                 }
 
                 override fun onValidated(validateResponse: ValidateResponse?, serverJWT: String?) {
-                    if (consumerSessionId == null) {
-                        callback.onResult(
-                            consumerSessionId = null,
-                            error = BraintreeException("consumer session id not available")
-                        )
-                    } else {
-                        callback.onResult(consumerSessionId, null)
-                    }
+                    // ignored when setup already completed with a session id
+                    completeSession(
+                        pending,
+                        null,
+                        configuration,
+                        BraintreeException("consumer session id not available")
+                    )
                 }
             }
 
-            Cardinal.getInstance()
-                .init(configuration.cardinalAuthenticationJwt, cardinalInitService)
-        } catch (e: RuntimeException) {
-            throw BraintreeException("Cardinal SDK init Error.", e)
+            try {
+                Cardinal.getInstance()
+                    .init(configuration.cardinalAuthenticationJwt, cardinalInitService)
+            } catch (e: RuntimeException) {
+                throw BraintreeException("Cardinal SDK init Error.", e)
+            }
+        } catch (e: BraintreeException) {
+            synchronized(lock) {
+                if (pendingSession === pending) pendingSession = null
+            }
+            throw e
+        }
+    }
+
+    /**
+     * Discards any cached Cardinal session, so the next [initialize] call sets up a new one.
+     * Callbacks waiting on a session that is being set up are still notified.
+     */
+    fun invalidateSession() {
+        synchronized(lock) {
+            session = null
+            pendingSession = null
+        }
+    }
+
+    private fun completeSession(
+        pending: PendingSession,
+        sessionId: String?,
+        configuration: Configuration,
+        error: Exception?
+    ) {
+        val callbacks = synchronized(lock) {
+            if (pending.isComplete) return
+            pending.isComplete = true
+            pending.consumerSessionId = sessionId
+            if (pendingSession === pending) pendingSession = null
+            if (sessionId != null && pending.key != null) {
+                session = Session(
+                    pending.key,
+                    sessionId,
+                    sessionExpiration(configuration.cardinalAuthenticationJwt)
+                )
+            }
+            pending.callbacks.toList()
+        }
+        callbacks.forEach { it.onResult(pending.consumerSessionId, error) }
+    }
+
+    private fun sessionKey(configuration: Configuration, request: ThreeDSecureRequest) =
+        // UI customizations cannot be compared, so sessions configured with them are not reused
+        if (request.v2UiCustomization == null) {
+            SessionKey(
+                configuration.cardinalAuthenticationJwt,
+                configuration.environment,
+                request.uiType,
+                request.renderTypes?.toList()
+            )
+        } else {
+            null
+        }
+
+    /**
+     * @return when a session set up with [jwt] should stop being reused: a minute before the
+     * JWT's `exp` claim, or [DEFAULT_SESSION_LIFETIME_MILLIS] from now if it has none
+     */
+    @Suppress("TooGenericExceptionCaught", "SwallowedException")
+    private fun sessionExpiration(jwt: String?): Long {
+        val now = time.currentTime
+        val expiresAtSeconds = try {
+            val payload = jwt?.split('.')?.getOrNull(1)
+            payload?.let {
+                val flags = Base64.URL_SAFE or Base64.NO_PADDING or Base64.NO_WRAP
+                JSONObject(String(Base64.decode(it, flags))).optLong(JWT_EXPIRATION_KEY)
+            } ?: 0L
+        } catch (e: Exception) {
+            0L
+        }
+        return if (expiresAtSeconds > 0) {
+            minOf(
+                TimeUnit.SECONDS.toMillis(expiresAtSeconds) - EXPIRATION_MARGIN_MILLIS,
+                now + MAX_SESSION_LIFETIME_MILLIS
+            )
+        } else {
+            now + DEFAULT_SESSION_LIFETIME_MILLIS
         }
     }
 
@@ -117,6 +261,7 @@ internal class CardinalClient {
     }
 
     fun cleanup() {
+        invalidateSession()
         Cardinal.getInstance().cleanup()
     }
 
@@ -134,5 +279,17 @@ internal class CardinalClient {
 
     companion object {
         private const val REQUEST_TIMEOUT = 8000
+
+        private const val JWT_EXPIRATION_KEY = "exp"
+        private val EXPIRATION_MARGIN_MILLIS = TimeUnit.MINUTES.toMillis(1)
+        private val DEFAULT_SESSION_LIFETIME_MILLIS = TimeUnit.MINUTES.toMillis(10)
+        private val MAX_SESSION_LIFETIME_MILLIS = TimeUnit.HOURS.toMillis(1)
+
+        // a setup that has not called back by then is not waited on by later requests
+        private val PENDING_SESSION_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30)
+
+        private val lock = Any()
+        private var session: Session? = null
+        private var pendingSession: PendingSession? = null
     }
 }
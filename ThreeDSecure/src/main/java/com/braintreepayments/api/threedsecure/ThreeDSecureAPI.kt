@@ -4,6 +4,7 @@ import com.braintreepayments.api.core.ApiClient
 import com.braintreepayments.api.core.ApiClient.Companion.versionedPath
 import com.braintreepayments.api.core.BraintreeClient
 import com.braintreepayments.api.core.BraintreeException
+import com.braintreepayments.api.sharedutils.HttpCall
 import com.braintreepayments.api.threedsecure.ThreeDSecureParams.Companion.fromJson
 import org.json.JSONException
 import org.json.JSONObject
@@ -16,7 +17,7 @@ internal class ThreeDSecureAPI(
         request: ThreeDSecureRequest,
         cardinalConsumerSessionId: String?,
         callback: ThreeDSecureResultCallback
-    ) {
+    ): HttpCall =
         braintreeClient.sendPOST(
             url = versionedPath(
                 "${ApiClient.PAYMENT_METHOD_ENDPOINT}/${request.nonce}/three_d_secure/lookup"
@@ -34,7 +35,6 @@ internal class ThreeDSecureAPI(
                 callback.onThreeDSecureResult(null, httpError)
             }
         }
-    }
 
     fun authenticateCardinalJWT(
         threeDSecureParams: ThreeDSecureParams?,
@@ -2,16 +2,22 @@ package com.braintreepayments.api.threedsecure
 
 import android.content.Context
 import androidx.annotation.RestrictTo
+import com.braintreepayments.api.card.Card
+import com.braintreepayments.api.card.CardClient
+import com.braintreepayments.api.card.CardResult
 import com.braintreepayments.api.core.BraintreeClient
 import com.braintreepayments.api.core.BraintreeException
 import com.braintreepayments.api.core.BuildConfig
 import com.braintreepayments.api.core.Configuration
 import com.braintreepayments.api.core.InvalidArgumentException
 import com.braintreepayments.api.core.MerchantRepository
+import com.braintreepayments.api.sharedutils.HttpCall
 import com.braintreepayments.api.threedsecure.ThreeDSecureParams.Companion.fromJson
 import com.cardinalcommerce.cardinalmobilesdk.models.CardinalActionCode
+import kotlinx.coroutines.suspendCancellableCoroutine
 import org.json.JSONException
 import org.json.JSONObject
+import kotlin.coroutines.resume
 
 /**
  * 3D Secure is a protocol that enables cardholders and issuers to add a layer of security to
@@ -27,6 +33,7 @@ class ThreeDSecureClient internal constructor(
     private val cardinalClient: CardinalClient = CardinalClient(),
     private val api: ThreeDSecureAPI = ThreeDSecureAPI(braintreeClient),
     private val merchantRepository: MerchantRepository = MerchantRepository.instance,
+    private val cardClient: CardClient = CardClient(braintreeClient),
 ) {
     /**
      * Initializes a new [ThreeDSecureClient] instance
@@ -60,6 +67,15 @@ class ThreeDSecureClient internal constructor(
         context: Context,
         request: ThreeDSecureRequest,
         callback: ThreeDSecurePaymentAuthRequestCallback
+    ) {
+        createPaymentAuthRequest(context, request, HttpCall(), callback)
+    }
+
+    private fun createPaymentAuthRequest(
+        context: Context,
+        request: ThreeDSecureRequest,
+        httpCall: HttpCall,
+        callback: ThreeDSecurePaymentAuthRequestCallback
     ) {
         braintreeClient.sendAnalyticsEvent(ThreeDSecureAnalytics.VERIFY_STARTED)
         if (request.amount == null || request.nonce == null) {
@@ -74,36 +90,183 @@ class ThreeDSecureClient internal constructor(
             return
         }
 
-        braintreeClient.getConfiguration { configuration: Configuration?, error: Exception? ->
-            val failure = when {
-                configuration == null -> {
-                    error ?: BraintreeException("Configuration is null")
-                }
-
-                !configuration.isThreeDSecureEnabled -> {
-                    BraintreeException(
-                        "Three D Secure is not enabled for this account. " +
-                            "Please contact Braintree Support for assistance."
+        braintreeClient.getConfiguration(
+            httpCall
+        ) { configuration: Configuration?, error: Exception? ->
+            val failure = threeDSecureConfigurationError(configuration, error)
+            if (configuration != null && failure == null) {
+                initializeCardinalClient(context, configuration, request, httpCall, callback)
+            } else {
+                callbackCreatePaymentAuthFailure(
+                    callback,
+                    ThreeDSecurePaymentAuthRequest.Failure(
+                        failure ?: BraintreeException("Configuration is null")
                     )
-                }
+                )
+            }
+        }
+    }
 
-                configuration.cardinalAuthenticationJwt == null -> {
-                    BraintreeException(
-                        "Merchant is not configured for 3DS 2.0. " +
-                            "Please contact Braintree Support for assistance."
-                    )
-                }
+    /**
+     * Suspending variant of [createPaymentAuthRequest]. Cancelling the calling coroutine cancels
+     * the configuration fetch and 3D Secure lookup that are in flight, e.g. when it runs in the
+     * `lifecycleScope` of an Activity that is destroyed before the lookup completes.
+     *
+     * @param context Android context
+     * @param request the [ThreeDSecureRequest] with information used for authentication.
+     * @return a [ThreeDSecurePaymentAuthRequest]
+     */
+    suspend fun createPaymentAuthRequest(
+        context: Context,
+        request: ThreeDSecureRequest
+    ): ThreeDSecurePaymentAuthRequest = suspendCancellableCoroutine { continuation ->
+        val httpCall = HttpCall()
+        continuation.invokeOnCancellation { httpCall.cancel() }
+        createPaymentAuthRequest(context, request, httpCall) { paymentAuthRequest ->
+            continuation.resume(paymentAuthRequest)
+        }
+    }
 
-                else -> {
-                    initializeCardinalClient(context, configuration, request, callback)
-                    return@getConfiguration
-                }
-            }
+    /**
+     * Tokenizes [card] and starts the 3D Secure flow for the resulting nonce.
+     *
+     * Setting up the Cardinal session does not depend on the nonce, so it runs at the same time
+     * as card tokenization. The 3D Secure lookup is sent as soon as both have finished. This saves
+     * the Cardinal setup time compared to calling [CardClient.tokenize] and then
+     * [createPaymentAuthRequest].
+     *
+     * The nonce of [request] is set to the tokenized card's nonce before the lookup. If
+     * tokenization fails, [callback] receives a [ThreeDSecurePaymentAuthRequest.Failure] with the
+     * tokenization error right away, without waiting for the Cardinal setup, e.g. an
+     * [com.braintreepayments.api.core.ErrorWithResponse] for invalid card details.
+     *
+     * @param context  Android context
+     * @param card     the [Card] to tokenize and verify
+     * @param request  the [ThreeDSecureRequest] with information used for authentication. Its
+     * amount must be set.
+     * @param callback [ThreeDSecurePaymentAuthRequestCallback]
+     */
+    fun tokenizeAndVerify(
+        context: Context,
+        card: Card,
+        request: ThreeDSecureRequest,
+        callback: ThreeDSecurePaymentAuthRequestCallback
+    ) {
+        tokenizeAndVerify(context, card, request, HttpCall(), callback)
+    }
 
+    private fun tokenizeAndVerify(
+        context: Context,
+        card: Card,
+        request: ThreeDSecureRequest,
+        httpCall: HttpCall,
+        callback: ThreeDSecurePaymentAuthRequestCallback
+    ) {
+        braintreeClient.sendAnalyticsEvent(ThreeDSecureAnalytics.VERIFY_STARTED)
+        if (request.amount == null) {
             callbackCreatePaymentAuthFailure(
                 callback,
-                ThreeDSecurePaymentAuthRequest.Failure(failure)
+                ThreeDSecurePaymentAuthRequest.Failure(
+                    InvalidArgumentException("The ThreeDSecureRequest amount cannot be null")
+                )
             )
+            return
+        }
+
+        val join = TokenizeAndVerifyJoin { cardResult, cardinalSetupError ->
+            when {
+                cardResult is CardResult.Failure -> callbackCreatePaymentAuthFailure(
+                    callback,
+                    ThreeDSecurePaymentAuthRequest.Failure(cardResult.error)
+                )
+
+                cardinalSetupError != null -> callbackCreatePaymentAuthFailure(
+                    callback,
+                    ThreeDSecurePaymentAuthRequest.Failure(cardinalSetupError)
+                )
+
+                cardResult is CardResult.Success -> {
+                    request.nonce = cardResult.nonce.string
+                    performLookup(request, httpCall, callback)
+                }
+            }
+        }
+
+        // tokenizing is part of this verification, so it must not start a new analytics session
+        cardClient.tokenizeInCurrentSession(card, httpCall) { cardResult ->
+            join.onCardResult(cardResult)
+        }
+        braintreeClient.getConfiguration(
+            httpCall
+        ) { configuration: Configuration?, error: Exception? ->
+            val failure = threeDSecureConfigurationError(configuration, error)
+            if (configuration == null || failure != null) {
+                join.onCardinalSetupComplete(
+                    failure ?: BraintreeException("Configuration is null")
+                )
+                return@getConfiguration
+            }
+            try {
+                // a Cardinal setup error is not fatal; the lookup is sent without a session id,
+                // as in createPaymentAuthRequest
+                cardinalClient.initialize(context, configuration, request) { _, _ ->
+                    join.onCardinalSetupComplete(null)
+                }
+            } catch (initializeException: BraintreeException) {
+                join.onCardinalSetupComplete(initializeException)
+            }
+        }
+    }
+
+    /**
+     * Suspending variant of [tokenizeAndVerify]. Cancelling the calling coroutine cancels the
+     * configuration fetch, card tokenization and 3D Secure lookup that are in flight.
+     *
+     * @param context Android context
+     * @param card    the [Card] to tokenize and verify
+     * @param request the [ThreeDSecureRequest] with information used for authentication
+     * @return a [ThreeDSecurePaymentAuthRequest]
+     */
+    suspend fun tokenizeAndVerify(
+        context: Context,
+        card: Card,
+        request: ThreeDSecureRequest
+    ): ThreeDSecurePaymentAuthRequest = suspendCancellableCoroutine { continuation ->
+        val httpCall = HttpCall()
+        continuation.invokeOnCancellation { httpCall.cancel() }
+        tokenizeAndVerify(context, card, request, httpCall) { paymentAuthRequest ->
+            continuation.resume(paymentAuthRequest)
+        }
+    }
+
+    /**
+     * Sets up the Cardinal session ahead of checkout, e.g. when the payment screen is shown, so
+     * that a later [createPaymentAuthRequest] or [tokenizeAndVerify] does not wait for Cardinal's
+     * device data collection before sending the 3D Secure lookup.
+     *
+     * The session is reused until its authentication JWT expires, by requests with the same
+     * [ThreeDSecureRequest.uiType] and [ThreeDSecureRequest.renderTypes] as [request]. Requests
+     * with a [ThreeDSecureRequest.v2UiCustomization] always set up a new session. Prewarming is
+     * best effort: any error is ignored, and the session is set up again when it is needed.
+     *
+     * @param context Android context
+     * @param request a [ThreeDSecureRequest] with the UI settings checkout will use. Its nonce and
+     * amount are not used.
+     */
+    @JvmOverloads
+    fun prewarm(context: Context, request: ThreeDSecureRequest = ThreeDSecureRequest()) {
+        if (request.v2UiCustomization != null) return
+        braintreeClient.getConfiguration { configuration: Configuration?, error: Exception? ->
+            if (configuration == null ||
+                threeDSecureConfigurationError(configuration, error) != null
+            ) {
+                return@getConfiguration
+            }
+            try {
+                cardinalClient.initialize(context, configuration, request) { _, _ -> }
+            } catch (ignored: BraintreeException) {
+                // the session is set up again when a lookup needs it
+            }
         }
     }
 
@@ -111,6 +274,7 @@ class ThreeDSecureClient internal constructor(
         context: Context,
         configuration: Configuration,
         request: ThreeDSecureRequest,
+        httpCall: HttpCall,
         callback: ThreeDSecurePaymentAuthRequestCallback
     ) {
         try {
@@ -119,23 +283,7 @@ class ThreeDSecureClient internal constructor(
                 configuration = configuration,
                 request = request
             ) { _, _ ->
-                api.performLookup(
-                    request = request,
-                    cardinalConsumerSessionId = cardinalClient.consumerSessionId
-                ) { threeDSecureResult: ThreeDSecureParams?, performLookupError: Exception? ->
-                    if (threeDSecureResult != null) {
-                        braintreeClient.sendAnalyticsEvent(ThreeDSecureAnalytics.LOOKUP_SUCCEEDED)
-                        sendAnalyticsAndCallbackResult(threeDSecureResult, callback)
-                    } else {
-                        braintreeClient.sendAnalyticsEvent(ThreeDSecureAnalytics.LOOKUP_FAILED)
-                        callbackCreatePaymentAuthFailure(
-                            callback,
-                            ThreeDSecurePaymentAuthRequest.Failure(
-                                performLookupError ?: BraintreeException("3DS lookup failed")
-                            )
-                        )
-                    }
-                }
+                performLookup(request, httpCall, callback)
             }
         } catch (initializeException: BraintreeException) {
             callbackCreatePaymentAuthFailure(
@@ -145,6 +293,55 @@ class ThreeDSecureClient internal constructor(
         }
     }
 
+    private fun performLookup(
+        request: ThreeDSecureRequest,
+        httpCall: HttpCall,
+        callback: ThreeDSecurePaymentAuthRequestCallback
+    ) {
+        // Cardinal setup cannot be canceled; stop once it completes instead
+        if (httpCall.isCanceled) return
+        val lookupCall = api.performLookup(
+            request = request,
+            cardinalConsumerSessionId = cardinalClient.consumerSessionId
+        ) { threeDSecureResult: ThreeDSecureParams?, performLookupError: Exception? ->
+            if (threeDSecureResult != null) {
+                braintreeClient.sendAnalyticsEvent(ThreeDSecureAnalytics.LOOKUP_SUCCEEDED)
+                sendAnalyticsAndCallbackResult(threeDSecureResult, callback)
+            } else {
+                braintreeClient.sendAnalyticsEvent(ThreeDSecureAnalytics.LOOKUP_FAILED)
+                callbackCreatePaymentAuthFailure(
+                    callback,
+                    ThreeDSecurePaymentAuthRequest.Failure(
+                        performLookupError ?: BraintreeException("3DS lookup failed")
+                    )
+                )
+            }
+        }
+        httpCall.link(lookupCall)
+    }
+
+    /**
+     * @return the reason 3D Secure cannot be used with [configuration], or null if it can
+     */
+    private fun threeDSecureConfigurationError(
+        configuration: Configuration?,
+        configurationError: Exception?
+    ): Exception? = when {
+        configuration == null -> configurationError ?: BraintreeException("Configuration is null")
+
+        !configuration.isThreeDSecureEnabled -> BraintreeException(
+            "Three D Secure is not enabled for this account. " +
+                "Please contact Braintree Support for assistance."
+        )
+
+        configuration.cardinalAuthenticationJwt == null -> BraintreeException(
+            "Merchant is not configured for 3DS 2.0. " +
+                "Please contact Braintree Support for assistance."
+        )
+
+        else -> null
+    }
+
     /**
      * Creates a stringified JSON object containing the information necessary to perform a lookup
      *
@@ -415,4 +612,41 @@ class ThreeDSecureClient internal constructor(
         braintreeClient.sendAnalyticsEvent(ThreeDSecureAnalytics.VERIFY_CANCELED)
         callback.onThreeDSecureResult(ThreeDSecureResult.Cancel)
     }
+
+    /**
+     * Waits for both card tokenization and Cardinal setup to finish, in either order, before
+     * calling [onComplete] once. A tokenization failure completes right away, since the lookup
+     * cannot be sent without a nonce.
+     */
+    private class TokenizeAndVerifyJoin(
+        private val onComplete: (cardResult: CardResult, cardinalSetupError: Exception?) -> Unit
+    ) {
+        private var cardResult: CardResult? = null
+        private var isCardinalSetupComplete = false
+        private var cardinalSetupError: Exception? = null
+        private var isComplete = false
+
+        fun onCardResult(result: CardResult) {
+            val error = synchronized(this) {
+                if (isComplete) return
+                cardResult = result
+                if (result !is CardResult.Failure && !isCardinalSetupComplete) return
+                isComplete = true
+                cardinalSetupError
+            }
+            onComplete(result, error)
+        }
+
+        fun onCardinalSetupComplete(error: Exception?) {
+            val result = synchronized(this) {
+                if (isComplete || isCardinalSetupComplete) return
+                isCardinalSetupComplete = true
+                cardinalSetupError = error
+                val result = cardResult ?: return
+                isComplete = true
+                result
+            }
+            onComplete(result, error)
+        }
+    }
 }
@@ -4,6 +4,7 @@ import android.content.Context
 import androidx.fragment.app.FragmentActivity
 import com.braintreepayments.api.core.BraintreeException
 import com.braintreepayments.api.core.Configuration
+import com.braintreepayments.api.sharedutils.Time
 import com.cardinalcommerce.cardinalmobilesdk.Cardinal
 import com.cardinalcommerce.cardinalmobilesdk.enums.CardinalEnvironment
 import com.cardinalcommerce.cardinalmobilesdk.enums.CardinalUiType
@@ -17,11 +18,13 @@ import io.mockk.mockkStatic
 import io.mockk.slot
 import io.mockk.verify
 import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertNull
 import junit.framework.TestCase.assertSame
 import junit.framework.TestCase.assertTrue
 import junit.framework.TestCase.fail
 import org.junit.Before
 import org.junit.Test
+import java.util.concurrent.TimeUnit
 
 class CardinalClientUnitTest {
 
@@ -32,6 +35,7 @@ class CardinalClientUnitTest {
     private lateinit var cardinalInitializeCallback: CardinalInitializeCallback
     private lateinit var cardinalValidateReceiver: CardinalValidateReceiver
     private lateinit var cardinalChallengeObserver: CardinalChallengeObserver
+    private lateinit var time: Time
 
     @Before
     fun beforeEach() {
@@ -44,6 +48,11 @@ class CardinalClientUnitTest {
         activity = mockk(relaxed = true)
         cardinalValidateReceiver = mockk(relaxed = true)
         cardinalChallengeObserver = mockk(relaxed = true)
+        time = mockk()
+        every { time.currentTime } returns 0L
+
+        // the Cardinal session is shared by every CardinalClient
+        CardinalClient().invalidateSession()
     }
 
     @Test
@@ -290,4 +299,183 @@ class CardinalClientUnitTest {
         sut.cleanup()
         verify { cardinalInstance.cleanup() }
     }
+
+    @Test
+    fun cleanup_invalidatesCachedSession() {
+        every { Cardinal.getInstance() } returns cardinalInstance
+        every { configuration.cardinalAuthenticationJwt } returns "token"
+
+        val sut = CardinalClient(time)
+        sut.initialize(context, configuration, ThreeDSecureRequest(), cardinalInitializeCallback)
+        completeSetup("session-id")
+        sut.cleanup()
+        sut.initialize(context, configuration, ThreeDSecureRequest(), cardinalInitializeCallback)
+
+        verify(exactly = 2) { cardinalInstance.init("token", any()) }
+    }
+
+    @Test
+    fun initialize_withSameSettings_reusesCachedSession() {
+        every { Cardinal.getInstance() } returns cardinalInstance
+        every { configuration.cardinalAuthenticationJwt } returns "token"
+
+        CardinalClient(time).initialize(
+            context, configuration, ThreeDSecureRequest(), cardinalInitializeCallback
+        )
+        completeSetup("session-id")
+
+        val sut = CardinalClient(time)
+        val callback = mockk<CardinalInitializeCallback>(relaxed = true)
+        sut.initialize(context, configuration, ThreeDSecureRequest(), callback)
+
+        verify(exactly = 1) { cardinalInstance.configure(any(), any()) }
+        verify(exactly = 1) { cardinalInstance.init(any(), any()) }
+        verify { callback.onResult("session-id", null) }
+        assertEquals("session-id", sut.consumerSessionId)
+    }
+
+    @Test
+    fun initialize_withDifferentUiType_setsUpNewSession() {
+        every { Cardinal.getInstance() } returns cardinalInstance
+        every { configuration.cardinalAuthenticationJwt } returns "token"
+
+        val sut = CardinalClient(time)
+        sut.initialize(context, configuration, ThreeDSecureRequest(), cardinalInitializeCallback)
+        completeSetup("session-id")
+
+        val request = ThreeDSecureRequest(uiType = ThreeDSecureUiType.NATIVE)
+        sut.initialize(context, configuration, request, cardinalInitializeCallback)
+
+        verify(exactly = 2) { cardinalInstance.init("token", any()) }
+    }
+
+    @Test
+    fun initialize_withV2UiCustomization_doesNotReuseSession() {
+        every { Cardinal.getInstance() } returns cardinalInstance
+        every { configuration.cardinalAuthenticationJwt } returns "token"
+
+        val sut = CardinalClient(time)
+        val request = ThreeDSecureRequest(v2UiCustomization = ThreeDSecureV2UiCustomization())
+        sut.initialize(context, configuration, request, cardinalInitializeCallback)
+        completeSetup("session-id")
+        sut.initialize(context, configuration, request, cardinalInitializeCallback)
+
+        verify(exactly = 2) { cardinalInstance.init("token", any()) }
+    }
+
+    @Test
+    fun initialize_afterSessionWithV2UiCustomization_doesNotReuseEarlierSession() {
+        every { Cardinal.getInstance() } returns cardinalInstance
+        every { configuration.cardinalAuthenticationJwt } returns "token"
+
+        val sut = CardinalClient(time)
+        sut.initialize(context, configuration, ThreeDSecureRequest(), cardinalInitializeCallback)
+        completeSetup("first-session-id")
+        val customizedRequest =
+            ThreeDSecureRequest(v2UiCustomization = ThreeDSecureV2UiCustomization())
+        sut.initialize(context, configuration, customizedRequest, cardinalInitializeCallback)
+        completeSetup("customized-session-id")
+
+        val callback = mockk<CardinalInitializeCallback>(relaxed = true)
+        sut.initialize(context, configuration, ThreeDSecureRequest(), callback)
+
+        verify(exactly = 3) { cardinalInstance.init("token", any()) }
+        verify(exactly = 0) { callback.onResult("first-session-id", any()) }
+        completeSetup("new-session-id")
+        verify { callback.onResult("new-session-id", null) }
+    }
+
+    @Test
+    fun initialize_afterSessionExpires_setsUpNewSession() {
+        every { Cardinal.getInstance() } returns cardinalInstance
+        every { configuration.cardinalAuthenticationJwt } returns "token"
+
+        val sut = CardinalClient(time)
+        sut.initialize(context, configuration, ThreeDSecureRequest(), cardinalInitializeCallback)
+        completeSetup("session-id")
+
+        every { time.currentTime } returns TimeUnit.HOURS.toMillis(2)
+        sut.initialize(context, configuration, ThreeDSecureRequest(), cardinalInitializeCallback)
+
+        verify(exactly = 2) { cardinalInstance.init("token", any()) }
+    }
+
+    @Test
+    fun initialize_whileSameSessionIsBeingSetUp_waitsForIt() {
+        every { Cardinal.getInstance() } returns cardinalInstance
+        every { configuration.cardinalAuthenticationJwt } returns "token"
+
+        val sut = CardinalClient(time)
+        val firstCallback = mockk<CardinalInitializeCallback>(relaxed = true)
+        val secondCallback = mockk<CardinalInitializeCallback>(relaxed = true)
+        sut.initialize(context, configuration, ThreeDSecureRequest(), firstCallback)
+        sut.initialize(context, configuration, ThreeDSecureRequest(), secondCallback)
+
+        verify(exactly = 0) { secondCallback.onResult(any(), any()) }
+        completeSetup("session-id")
+
+        verify(exactly = 1) { cardinalInstance.init(any(), any()) }
+        verify { firstCallback.onResult("session-id", null) }
+        verify { secondCallback.onResult("session-id", null) }
+    }
+
+    @Test
+    fun initialize_whileAnotherClientSetsUpSameSession_setsConsumerSessionIdOnBoth() {
+        every { Cardinal.getInstance() } returns cardinalInstance
+        every { configuration.cardinalAuthenticationJwt } returns "token"
+
+        // e.g. one client prewarms the session and another one checks out
+        val prewarmingClient = CardinalClient(time)
+        val sut = CardinalClient(time)
+        val callback = mockk<CardinalInitializeCallback>(relaxed = true)
+        prewarmingClient.initialize(
+            context, configuration, ThreeDSecureRequest(), cardinalInitializeCallback
+        )
+        sut.initialize(context, configuration, ThreeDSecureRequest(), callback)
+        completeSetup("session-id")
+
+        verify(exactly = 1) { cardinalInstance.init(any(), any()) }
+        verify { callback.onResult("session-id", null) }
+        assertEquals("session-id", prewarmingClient.consumerSessionId)
+        assertEquals("session-id", sut.consumerSessionId)
+    }
+
+    @Test
+    fun initialize_whenSetupCompletesThenValidates_notifiesCallbackOnce() {
+        every { Cardinal.getInstance() } returns cardinalInstance
+        every { configuration.cardinalAuthenticationJwt } returns "token"
+
+        val sut = CardinalClient(time)
+        sut.initialize(context, configuration, ThreeDSecureRequest(), cardinalInitializeCallback)
+        val cardinalInitServiceSlot = slot<CardinalInitService>()
+        verify { cardinalInstance.init("token", capture(cardinalInitServiceSlot)) }
+        cardinalInitServiceSlot.captured.onSetupCompleted("session-id")
+        cardinalInitServiceSlot.captured.onValidated(null, null)
+
+        verify(exactly = 1) { cardinalInitializeCallback.onResult(any(), any()) }
+        verify { cardinalInitializeCallback.onResult("session-id", null) }
+    }
+
+    @Test
+    fun initialize_whenSetupFails_doesNotCacheSession() {
+        every { Cardinal.getInstance() } returns cardinalInstance
+        every { configuration.cardinalAuthenticationJwt } returns "token"
+
+        val sut = CardinalClient(time)
+        sut.initialize(context, configuration, ThreeDSecureRequest(), cardinalInitializeCallback)
+        val cardinalInitServiceSlot = slot<CardinalInitService>()
+        verify { cardinalInstance.init("token", capture(cardinalInitServiceSlot)) }
+        cardinalInitServiceSlot.captured.onValidated(null, null)
+
+        sut.initialize(context, configuration, ThreeDSecureRequest(), cardinalInitializeCallback)
+
+        verify(exactly = 2) { cardinalInstance.init("token", any()) }
+        assertNull(sut.consumerSessionId)
+    }
+
+    private fun completeSetup(sessionId: String) {
+        val cardinalInitServiceSlot = slot<CardinalInitService>()
+        verify { cardinalInstance.init(any(), capture(cardinalInitServiceSlot)) }
+        cardinalInitServiceSlot.captured.onSetupCompleted(sessionId)
+    }
 }
@@ -11,18 +11,30 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import android.content.Context;
 import androidx.fragment.app.FragmentActivity;
 
+import com.braintreepayments.api.card.Card;
+import com.braintreepayments.api.card.CardClient;
+import com.braintreepayments.api.card.CardNonce;
+import com.braintreepayments.api.card.CardResult;
+import com.braintreepayments.api.card.CardTokenizeCallback;
 import com.braintreepayments.api.core.AnalyticsEventParams;
 import com.braintreepayments.api.core.Authorization;
 import com.braintreepayments.api.core.BraintreeClient;
 import com.braintreepayments.api.core.BraintreeException;
 import com.braintreepayments.api.core.Configuration;
+import com.braintreepayments.api.core.ConfigurationCallback;
+import com.braintreepayments.api.core.InvalidArgumentException;
 import com.braintreepayments.api.core.MerchantRepository;
 import com.braintreepayments.api.testutils.Fixtures;
+import com.braintreepayments.api.sharedutils.HttpCall;
 import com.braintreepayments.api.sharedutils.HttpResponseCallback;
 import com.braintreepayments.api.testutils.MockBraintreeClientBuilder;
 import com.braintreepayments.api.testutils.TestConfigurationBuilder;
@@ -41,11 +53,19 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.stubbing.Answer;
 import org.robolectric.RobolectricTestRunner;
 
+import java.util.concurrent.CancellationException;
+
+import kotlin.coroutines.EmptyCoroutineContext;
+import kotlinx.coroutines.BuildersKt;
+import kotlinx.coroutines.CoroutineStart;
+import kotlinx.coroutines.Deferred;
+
 @RunWith(RobolectricTestRunner.class)
 public class ThreeDSecureClientUnitTest {
 
     private FragmentActivity activity;
     private ThreeDSecureAPI threeDSecureAPI;
+    private CardClient cardClient;
     private MerchantRepository merchantRepository = mock(MerchantRepository.class);
 
     private ThreeDSecurePaymentAuthRequestCallback paymentAuthRequestCallback;
@@ -62,6 +82,7 @@ public class ThreeDSecureClientUnitTest {
         paymentAuthRequestCallback = mock(ThreeDSecurePaymentAuthRequestCallback.class);
         threeDSecureTokenizeCallback = mock(ThreeDSecureTokenizeCallback.class);
         threeDSecureAPI = mock(ThreeDSecureAPI.class);
+        cardClient = mock(CardClient.class);
 
         threeDSecureEnabledConfig = new TestConfigurationBuilder()
             .threeDSecureEnabled(true)
@@ -98,7 +119,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             new ThreeDSecureAPI(braintreeClient),
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
 
         ThreeDSecurePrepareLookupCallback callback = mock(ThreeDSecurePrepareLookupCallback.class);
@@ -142,7 +164,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             new ThreeDSecureAPI(braintreeClient),
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
 
         ThreeDSecurePrepareLookupCallback callback = mock(ThreeDSecurePrepareLookupCallback.class);
@@ -184,7 +207,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             new ThreeDSecureAPI(braintreeClient),
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
 
         ThreeDSecurePrepareLookupCallback callback = mock(ThreeDSecurePrepareLookupCallback.class);
@@ -210,7 +234,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             new ThreeDSecureAPI(braintreeClient),
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
 
         ThreeDSecurePrepareLookupCallback callback = mock(ThreeDSecurePrepareLookupCallback.class);
@@ -238,7 +263,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             new ThreeDSecureAPI(braintreeClient),
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
 
         ThreeDSecurePrepareLookupCallback callback = mock(ThreeDSecurePrepareLookupCallback.class);
@@ -274,7 +300,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             threeDSecureAPI,
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
         sut.createPaymentAuthRequest(activity, basicRequest, paymentAuthRequestCallback);
 
@@ -305,7 +332,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             new ThreeDSecureAPI(braintreeClient),
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
         sut.createPaymentAuthRequest(activity, request, paymentAuthRequestCallback);
 
@@ -345,7 +373,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             new ThreeDSecureAPI(braintreeClient),
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
         sut.createPaymentAuthRequest(activity, request, paymentAuthRequestCallback);
 
@@ -390,7 +419,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             new ThreeDSecureAPI(braintreeClient),
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
 
         sut.createPaymentAuthRequest(activity, request, paymentAuthRequestCallback);
@@ -408,7 +438,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             threeDSecureAPI,
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
 
         ThreeDSecureRequest request = new ThreeDSecureRequest();
@@ -437,7 +468,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             new ThreeDSecureAPI(braintreeClient),
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
         sut.createPaymentAuthRequest(activity, basicRequest, paymentAuthRequestCallback);
 
@@ -461,7 +493,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             new ThreeDSecureAPI(braintreeClient),
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
 
         sut.createPaymentAuthRequest(activity, basicRequest, paymentAuthRequestCallback);
@@ -489,7 +522,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             new ThreeDSecureAPI(braintreeClient),
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
         sut.createPaymentAuthRequest(activity, basicRequest, paymentAuthRequestCallback);
 
@@ -513,7 +547,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             new ThreeDSecureAPI(braintreeClient),
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
 
         sut.createPaymentAuthRequest(activity, basicRequest, paymentAuthRequestCallback);
@@ -531,6 +566,252 @@ public class ThreeDSecureClientUnitTest {
 
     // endregion
 
+    // region tokenizeAndVerify
+
+    @Test
+    public void tokenizeAndVerify_performsLookupWithTokenizedCardNonce()
+        throws BraintreeException, JSONException {
+        CardinalClient cardinalClient = new MockCardinalClientBuilder()
+            .successReferenceId("sample-session-id")
+            .build();
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+            .configuration(threeDSecureEnabledConfig)
+            .build();
+        CardNonce cardNonce =
+            CardNonce.fromJSON(new JSONObject(Fixtures.PAYMENT_METHODS_RESPONSE_VISA_CREDIT_CARD));
+        CardClient cardClient = mock(CardClient.class);
+        doAnswer((Answer<Void>) invocation -> {
+            CardTokenizeCallback callback = invocation.getArgument(2);
+            callback.onCardResult(new CardResult.Success(cardNonce));
+            return null;
+        }).when(cardClient)
+            .tokenizeInCurrentSession(any(Card.class), any(HttpCall.class),
+                any(CardTokenizeCallback.class));
+
+        ThreeDSecureClient sut = new ThreeDSecureClient(braintreeClient, cardinalClient,
+            threeDSecureAPI, merchantRepository, cardClient);
+
+        ThreeDSecureRequest request = new ThreeDSecureRequest();
+        request.setAmount("1.00");
+        sut.tokenizeAndVerify(activity, new Card(), request, paymentAuthRequestCallback);
+
+        assertEquals(cardNonce.getString(), request.getNonce());
+        verify(threeDSecureAPI).performLookup(same(request), eq("sample-session-id"),
+            any(ThreeDSecureResultCallback.class));
+    }
+
+    @Test
+    public void tokenizeAndVerify_initializesCardinalWhileCardIsTokenizing()
+        throws BraintreeException, JSONException {
+        CardinalClient cardinalClient = new MockCardinalClientBuilder()
+            .successReferenceId("sample-session-id")
+            .build();
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+            .configuration(threeDSecureEnabledConfig)
+            .build();
+        CardClient cardClient = mock(CardClient.class);
+
+        ThreeDSecureClient sut = new ThreeDSecureClient(braintreeClient, cardinalClient,
+            threeDSecureAPI, merchantRepository, cardClient);
+
+        ThreeDSecureRequest request = new ThreeDSecureRequest();
+        request.setAmount("1.00");
+        sut.tokenizeAndVerify(activity, new Card(), request, paymentAuthRequestCallback);
+
+        verify(cardinalClient).initialize(same(activity), same(threeDSecureEnabledConfig),
+            same(request), any(CardinalInitializeCallback.class));
+        verify(threeDSecureAPI, never()).performLookup(any(ThreeDSecureRequest.class),
+            any(), any(ThreeDSecureResultCallback.class));
+
+        ArgumentCaptor<CardTokenizeCallback> captor =
+            ArgumentCaptor.forClass(CardTokenizeCallback.class);
+        verify(cardClient)
+            .tokenizeInCurrentSession(any(Card.class), any(HttpCall.class), captor.capture());
+        CardNonce cardNonce =
+            CardNonce.fromJSON(new JSONObject(Fixtures.PAYMENT_METHODS_RESPONSE_VISA_CREDIT_CARD));
+        captor.getValue().onCardResult(new CardResult.Success(cardNonce));
+
+        verify(threeDSecureAPI).performLookup(same(request), eq("sample-session-id"),
+            any(ThreeDSecureResultCallback.class));
+    }
+
+    @Test
+    public void tokenizeAndVerify_whenTokenizationFails_forwardsErrorWithoutLookup()
+        throws BraintreeException {
+        CardinalClient cardinalClient = new MockCardinalClientBuilder()
+            .successReferenceId("sample-session-id")
+            .build();
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+            .configuration(threeDSecureEnabledConfig)
+            .build();
+        Exception tokenizeError = new Exception("tokenize error");
+        CardClient cardClient = mock(CardClient.class);
+        doAnswer((Answer<Void>) invocation -> {
+            CardTokenizeCallback callback = invocation.getArgument(2);
+            callback.onCardResult(new CardResult.Failure(tokenizeError));
+            return null;
+        }).when(cardClient)
+            .tokenizeInCurrentSession(any(Card.class), any(HttpCall.class),
+                any(CardTokenizeCallback.class));
+
+        ThreeDSecureClient sut = new ThreeDSecureClient(braintreeClient, cardinalClient,
+            threeDSecureAPI, merchantRepository, cardClient);
+
+        ThreeDSecureRequest request = new ThreeDSecureRequest();
+        request.setAmount("1.00");
+        sut.tokenizeAndVerify(activity, new Card(), request, paymentAuthRequestCallback);
+
+        ArgumentCaptor<ThreeDSecurePaymentAuthRequest> captor =
+            ArgumentCaptor.forClass(ThreeDSecurePaymentAuthRequest.class);
+        verify(paymentAuthRequestCallback).onThreeDSecurePaymentAuthRequest(captor.capture());
+        assertSame(tokenizeError,
+            ((ThreeDSecurePaymentAuthRequest.Failure) captor.getValue()).getError());
+        verify(threeDSecureAPI, never()).performLookup(any(ThreeDSecureRequest.class),
+            any(), any(ThreeDSecureResultCallback.class));
+        verify(braintreeClient).sendAnalyticsEvent(eq(ThreeDSecureAnalytics.VERIFY_FAILED), any());
+    }
+
+    @Test
+    public void tokenizeAndVerify_whenTokenizationFails_doesNotWaitForCardinalSetup()
+        throws BraintreeException {
+        CardinalClient cardinalClient = mock(CardinalClient.class);
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+            .configuration(threeDSecureEnabledConfig)
+            .build();
+        Exception tokenizeError = new Exception("tokenize error");
+        CardClient cardClient = mock(CardClient.class);
+        doAnswer((Answer<Void>) invocation -> {
+            CardTokenizeCallback callback = invocation.getArgument(2);
+            callback.onCardResult(new CardResult.Failure(tokenizeError));
+            return null;
+        }).when(cardClient)
+            .tokenizeInCurrentSession(any(Card.class), any(HttpCall.class),
+                any(CardTokenizeCallback.class));
+
+        ThreeDSecureClient sut = new ThreeDSecureClient(braintreeClient, cardinalClient,
+            threeDSecureAPI, merchantRepository, cardClient);
+
+        ThreeDSecureRequest request = new ThreeDSecureRequest();
+        request.setAmount("1.00");
+        sut.tokenizeAndVerify(activity, new Card(), request, paymentAuthRequestCallback);
+
+        ArgumentCaptor<ThreeDSecurePaymentAuthRequest> captor =
+            ArgumentCaptor.forClass(ThreeDSecurePaymentAuthRequest.class);
+        verify(paymentAuthRequestCallback).onThreeDSecurePaymentAuthRequest(captor.capture());
+        assertSame(tokenizeError,
+            ((ThreeDSecurePaymentAuthRequest.Failure) captor.getValue()).getError());
+
+        ArgumentCaptor<CardinalInitializeCallback> initializeCaptor =
+            ArgumentCaptor.forClass(CardinalInitializeCallback.class);
+        verify(cardinalClient).initialize(same(activity), same(threeDSecureEnabledConfig),
+            same(request), initializeCaptor.capture());
+        initializeCaptor.getValue().onResult("sample-session-id", null);
+
+        verify(paymentAuthRequestCallback, times(1))
+            .onThreeDSecurePaymentAuthRequest(any(ThreeDSecurePaymentAuthRequest.class));
+        verify(threeDSecureAPI, never()).performLookup(any(ThreeDSecureRequest.class),
+            any(), any(ThreeDSecureResultCallback.class));
+    }
+
+    @Test
+    public void tokenizeAndVerify_withoutAmount_postsExceptionWithoutTokenizing() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+            .configuration(threeDSecureEnabledConfig)
+            .build();
+        CardClient cardClient = mock(CardClient.class);
+
+        ThreeDSecureClient sut = new ThreeDSecureClient(braintreeClient, mock(CardinalClient.class),
+            threeDSecureAPI, merchantRepository, cardClient);
+        sut.tokenizeAndVerify(activity, new Card(), new ThreeDSecureRequest(),
+            paymentAuthRequestCallback);
+
+        ArgumentCaptor<ThreeDSecurePaymentAuthRequest> captor =
+            ArgumentCaptor.forClass(ThreeDSecurePaymentAuthRequest.class);
+        verify(paymentAuthRequestCallback).onThreeDSecurePaymentAuthRequest(captor.capture());
+        assertEquals("The ThreeDSecureRequest amount cannot be null",
+            ((ThreeDSecurePaymentAuthRequest.Failure) captor.getValue()).getError().getMessage());
+        verify(cardClient, never())
+            .tokenizeInCurrentSession(any(Card.class), any(HttpCall.class),
+                any(CardTokenizeCallback.class));
+    }
+
+    // endregion
+
+    // region prewarm
+
+    @Test
+    public void prewarm_initializesCardinalClient() throws BraintreeException {
+        CardinalClient cardinalClient = mock(CardinalClient.class);
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+            .configuration(threeDSecureEnabledConfig)
+            .build();
+
+        ThreeDSecureClient sut = new ThreeDSecureClient(braintreeClient, cardinalClient,
+            threeDSecureAPI, merchantRepository, cardClient);
+        ThreeDSecureRequest request = new ThreeDSecureRequest();
+        sut.prewarm(activity, request);
+
+        verify(cardinalClient).initialize(same(activity), same(threeDSecureEnabledConfig),
+            same(request), any(CardinalInitializeCallback.class));
+        verifyNoInteractions(threeDSecureAPI);
+    }
+
+    @Test
+    public void prewarm_whenThreeDSecureIsDisabled_doesNotInitializeCardinalClient()
+        throws BraintreeException {
+        CardinalClient cardinalClient = mock(CardinalClient.class);
+        Configuration configuration = new TestConfigurationBuilder()
+            .threeDSecureEnabled(false)
+            .buildConfiguration();
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+            .configuration(configuration)
+            .build();
+
+        ThreeDSecureClient sut = new ThreeDSecureClient(braintreeClient, cardinalClient,
+            threeDSecureAPI, merchantRepository, cardClient);
+        sut.prewarm(activity);
+
+        verify(cardinalClient, never()).initialize(any(Context.class), any(Configuration.class),
+            any(ThreeDSecureRequest.class), any(CardinalInitializeCallback.class));
+    }
+
+    @Test
+    public void prewarm_withV2UiCustomization_doesNotInitializeCardinalClient()
+        throws BraintreeException {
+        CardinalClient cardinalClient = mock(CardinalClient.class);
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+            .configuration(threeDSecureEnabledConfig)
+            .build();
+
+        ThreeDSecureClient sut = new ThreeDSecureClient(braintreeClient, cardinalClient,
+            threeDSecureAPI, merchantRepository, cardClient);
+        ThreeDSecureRequest request = new ThreeDSecureRequest();
+        request.setV2UiCustomization(new ThreeDSecureV2UiCustomization());
+        sut.prewarm(activity, request);
+
+        verify(cardinalClient, never()).initialize(any(Context.class), any(Configuration.class),
+            any(ThreeDSecureRequest.class), any(CardinalInitializeCallback.class));
+    }
+
+    @Test
+    public void prewarm_whenCardinalInitializeThrows_ignoresError() throws BraintreeException {
+        CardinalClient cardinalClient = new MockCardinalClientBuilder()
+            .initializeRuntimeError(new BraintreeException("cardinal error"))
+            .build();
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+            .configuration(threeDSecureEnabledConfig)
+            .build();
+
+        ThreeDSecureClient sut = new ThreeDSecureClient(braintreeClient, cardinalClient,
+            threeDSecureAPI, merchantRepository, cardClient);
+        sut.prewarm(activity);
+
+        verify(cardinalClient).initialize(same(activity), same(threeDSecureEnabledConfig),
+            any(ThreeDSecureRequest.class), any(CardinalInitializeCallback.class));
+    }
+
+    // endregion
+
     // region sendAnalyticsAndCallbackResult
     @Test
     public void sendAnalyticsAndCallbackResult_whenAuthenticatingWithCardinal_sendsAnalyticsEvent()
@@ -547,7 +828,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             new ThreeDSecureAPI(braintreeClient),
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
 
         ThreeDSecureParams threeDSecureParams =
@@ -573,7 +855,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             new ThreeDSecureAPI(braintreeClient),
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
 
         ThreeDSecureParams threeDSecureParams =
@@ -599,7 +882,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             new ThreeDSecureAPI(braintreeClient),
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
 
         ThreeDSecureParams threeDSecureParams =
@@ -629,7 +913,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             new ThreeDSecureAPI(braintreeClient),
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
         ThreeDSecureParams threeDSecureParams =
             ThreeDSecureParams.fromJson(Fixtures.THREE_D_SECURE_V2_LOOKUP_RESPONSE);
@@ -657,7 +942,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             threeDSecureAPI,
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
 
         Exception threeDSecureError = new Exception("3DS error.");
@@ -685,7 +971,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             threeDSecureAPI,
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
 
         ThreeDSecurePaymentAuthResult paymentAuthResult =
@@ -717,7 +1004,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             threeDSecureAPI,
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
 
         ThreeDSecurePaymentAuthResult paymentAuthResult =
@@ -753,7 +1041,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             threeDSecureAPI,
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
 
         ThreeDSecurePaymentAuthResult paymentAuthResult =
@@ -793,7 +1082,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             threeDSecureAPI,
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
 
         ThreeDSecurePaymentAuthResult paymentAuthResult =
@@ -834,7 +1124,8 @@ public class ThreeDSecureClientUnitTest {
             braintreeClient,
             cardinalClient,
             threeDSecureAPI,
-            merchantRepository
+            merchantRepository,
+            cardClient
         );
 
         ThreeDSecurePaymentAuthResult paymentAuthResult =
@@ -852,4 +1143,187 @@ public class ThreeDSecureClientUnitTest {
     }
 
     // endregion
+
+    // region suspend
+
+    @Test
+    public void createPaymentAuthRequest_suspend_resumesWithPaymentAuthRequest()
+        throws Exception {
+        CardinalClient cardinalClient = new MockCardinalClientBuilder()
+            .successReferenceId("sample-session-id")
+            .build();
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+            .configuration(threeDSecureEnabledConfig)
+            .sendPOSTSuccessfulResponse(Fixtures.THREE_D_SECURE_V2_LOOKUP_RESPONSE)
+            .build();
+        ThreeDSecureClient sut = new ThreeDSecureClient(
+            braintreeClient,
+            cardinalClient,
+            new ThreeDSecureAPI(braintreeClient),
+            merchantRepository,
+            cardClient
+        );
+
+        ThreeDSecurePaymentAuthRequest result = BuildersKt.runBlocking(
+            EmptyCoroutineContext.INSTANCE,
+            (scope, continuation) ->
+                sut.createPaymentAuthRequest(activity, basicRequest, continuation)
+        );
+
+        assertTrue(result instanceof ThreeDSecurePaymentAuthRequest.ReadyToLaunch);
+    }
+
+    @Test
+    public void createPaymentAuthRequest_suspend_withInvalidRequest_resumesWithFailure()
+        throws Exception {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder().build();
+        ThreeDSecureClient sut = new ThreeDSecureClient(
+            braintreeClient,
+            mock(CardinalClient.class),
+            threeDSecureAPI,
+            merchantRepository,
+            cardClient
+        );
+
+        ThreeDSecurePaymentAuthRequest result = BuildersKt.runBlocking(
+            EmptyCoroutineContext.INSTANCE,
+            (scope, continuation) ->
+                sut.createPaymentAuthRequest(activity, new ThreeDSecureRequest(), continuation)
+        );
+
+        assertTrue(result instanceof ThreeDSecurePaymentAuthRequest.Failure);
+        assertTrue(((ThreeDSecurePaymentAuthRequest.Failure) result).getError()
+            instanceof InvalidArgumentException);
+    }
+
+    @Test
+    public void createPaymentAuthRequest_suspend_onConfigurationError_resumesWithFailure()
+        throws Exception {
+        Exception configError = new Exception("configuration error");
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+            .configurationError(configError)
+            .build();
+        ThreeDSecureClient sut = new ThreeDSecureClient(
+            braintreeClient,
+            mock(CardinalClient.class),
+            threeDSecureAPI,
+            merchantRepository,
+            cardClient
+        );
+
+        ThreeDSecurePaymentAuthRequest result = BuildersKt.runBlocking(
+            EmptyCoroutineContext.INSTANCE,
+            (scope, continuation) ->
+                sut.createPaymentAuthRequest(activity, basicRequest, continuation)
+        );
+
+        assertTrue(result instanceof ThreeDSecurePaymentAuthRequest.Failure);
+        assertSame(configError, ((ThreeDSecurePaymentAuthRequest.Failure) result).getError());
+    }
+
+    @Test
+    public void createPaymentAuthRequest_suspend_whenCancelled_discardsLateResult()
+        throws Exception {
+        BraintreeClient braintreeClient = mock(BraintreeClient.class);
+        ThreeDSecureClient sut = new ThreeDSecureClient(
+            braintreeClient,
+            mock(CardinalClient.class),
+            threeDSecureAPI,
+            merchantRepository,
+            cardClient
+        );
+
+        Deferred<ThreeDSecurePaymentAuthRequest> result = BuildersKt.runBlocking(
+            EmptyCoroutineContext.INSTANCE,
+            (scope, continuation) -> {
+                Deferred<ThreeDSecurePaymentAuthRequest> deferred = BuildersKt.async(scope,
+                    EmptyCoroutineContext.INSTANCE, CoroutineStart.UNDISPATCHED,
+                    (asyncScope, asyncContinuation) ->
+                        sut.createPaymentAuthRequest(activity, basicRequest, asyncContinuation));
+                deferred.cancel((CancellationException) null);
+                return deferred;
+            }
+        );
+
+        ArgumentCaptor<ConfigurationCallback> configurationCallback =
+            ArgumentCaptor.forClass(ConfigurationCallback.class);
+        verify(braintreeClient).getConfiguration(any(HttpCall.class),
+            configurationCallback.capture());
+        configurationCallback.getValue().onResult(null, new Exception("configuration error"));
+
+        assertTrue(result.isCancelled());
+    }
+
+    @Test
+    public void createPaymentAuthRequest_suspend_whenCancelled_cancelsInFlightLookup()
+        throws Exception {
+        CardinalClient cardinalClient = new MockCardinalClientBuilder()
+            .successReferenceId("sample-session-id")
+            .build();
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+            .configuration(threeDSecureEnabledConfig)
+            .build();
+        HttpCall lookupCall = new HttpCall();
+        when(threeDSecureAPI.performLookup(same(basicRequest), eq("sample-session-id"),
+            any(ThreeDSecureResultCallback.class))).thenReturn(lookupCall);
+        ThreeDSecureClient sut = new ThreeDSecureClient(
+            braintreeClient,
+            cardinalClient,
+            threeDSecureAPI,
+            merchantRepository,
+            cardClient
+        );
+
+        Deferred<ThreeDSecurePaymentAuthRequest> result = BuildersKt.runBlocking(
+            EmptyCoroutineContext.INSTANCE,
+            (scope, continuation) -> {
+                Deferred<ThreeDSecurePaymentAuthRequest> deferred = BuildersKt.async(scope,
+                    EmptyCoroutineContext.INSTANCE, CoroutineStart.UNDISPATCHED,
+                    (asyncScope, asyncContinuation) ->
+                        sut.createPaymentAuthRequest(activity, basicRequest, asyncContinuation));
+                assertFalse(lookupCall.isCanceled());
+                deferred.cancel((CancellationException) null);
+                return deferred;
+            }
+        );
+
+        assertTrue(lookupCall.isCanceled());
+        assertTrue(result.isCancelled());
+    }
+
+    @Test
+    public void tokenizeAndVerify_suspend_resumesWithPaymentAuthRequest() throws Exception {
+        CardinalClient cardinalClient = new MockCardinalClientBuilder()
+            .successReferenceId("sample-session-id")
+            .build();
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+            .configuration(threeDSecureEnabledConfig)
+            .sendPOSTSuccessfulResponse(Fixtures.THREE_D_SECURE_V2_LOOKUP_RESPONSE)
+            .build();
+        CardNonce cardNonce =
+            CardNonce.fromJSON(new JSONObject(Fixtures.PAYMENT_METHODS_RESPONSE_VISA_CREDIT_CARD));
+        CardClient cardClient = mock(CardClient.class);
+        doAnswer((Answer<Void>) invocation -> {
+            CardTokenizeCallback callback = invocation.getArgument(2);
+            callback.onCardResult(new CardResult.Success(cardNonce));
+            return null;
+        }).when(cardClient)
+            .tokenizeInCurrentSession(any(Card.class), any(HttpCall.class),
+                any(CardTokenizeCallback.class));
+        ThreeDSecureClient sut = new ThreeDSecureClient(braintreeClient, cardinalClient,
+            new ThreeDSecureAPI(braintreeClient), merchantRepository, cardClient);
+
+        ThreeDSecureRequest request = new ThreeDSecureRequest();
+        request.setAmount("1.00");
+        ThreeDSecurePaymentAuthRequest result = BuildersKt.runBlocking(
+            EmptyCoroutineContext.INSTANCE,
+            (scope, continuation) ->
+                sut.tokenizeAndVerify(activity, new Card(), request, continuation)
+        );
+
+        assertTrue(result instanceof ThreeDSecurePaymentAuthRequest.ReadyToLaunch);
+        assertEquals(cardNonce.getString(), request.getNonce());
+    }
+
+    // endregion
 }
@@ -5,6 +5,7 @@ import com.braintreepayments.api.core.AnalyticsParamRepository
 import com.braintreepayments.api.core.ApiClient
 import com.braintreepayments.api.core.BraintreeClient
 import com.braintreepayments.api.core.BraintreeException
+import com.braintreepayments.api.core.GraphQLPersistedQuery
 import com.braintreepayments.api.core.MerchantRepository
 import com.braintreepayments.api.core.MetadataBuilder
 import com.braintreepayments.api.venmo.VenmoAccountNonce.Companion.fromJSON
@@ -27,16 +28,7 @@ internal class VenmoApi(
     ) {
         val params = JSONObject()
         try {
-            params.put(
-                "query", """
-                mutation CreateVenmoPaymentContext(${'$'}input: CreateVenmoPaymentContextInput!) { 
-                    createVenmoPaymentContext(input: ${'$'}input) { 
-                        venmoPaymentContext { id } 
-                    } 
-                }
-                """.trimIndent()
-
-            )
+            params.put("query", CREATE_PAYMENT_CONTEXT_MUTATION.query)
             val input = JSONObject()
             input.put("paymentMethodUsage", request.paymentMethodUsage.name)
             input.put("merchantProfileId", venmoProfileId)
@@ -125,31 +117,7 @@ internal class VenmoApi(
     ) {
         val params = JSONObject()
         try {
-            params.put(
-                "query",
-                """
-                query PaymentContext(${'$'}id: ID!) { 
-                    node(id: ${'$'}id) { 
-                        ... on VenmoPaymentContext { 
-                            paymentMethodId 
-                            userName 
-                            payerInfo { 
-                                firstName lastName phoneNumber email externalId userName  
-                                shippingAddress { 
-                                    fullName addressLine1 addressLine2 adminArea1 adminArea2 
-                                    postalCode countryCode 
-                                } 
-                                billingAddress { 
-                                    fullName addressLine1 addressLine2 adminArea1 adminArea2 
-                                    postalCode countryCode 
-                                } 
-                            } 
-                        } 
-                    } 
-                }
-                """.trimIndent()
-
-            )
+            params.put("query", PAYMENT_CONTEXT_QUERY.query)
             val variables = JSONObject()
             variables.put("id", paymentContextId)
             params.put("variables", variables)
@@ -193,6 +161,41 @@ internal class VenmoApi(
     }
 
     companion object {
+
+        private val CREATE_PAYMENT_CONTEXT_MUTATION = GraphQLPersistedQuery(
+            """
+            mutation CreateVenmoPaymentContext(${'$'}input: CreateVenmoPaymentContextInput!) { 
+                createVenmoPaymentContext(input: ${'$'}input) { 
+                    venmoPaymentContext { id } 
+                } 
+            }
+            """.trimIndent()
+        )
+
+        private val PAYMENT_CONTEXT_QUERY = GraphQLPersistedQuery(
+            """
+            query PaymentContext(${'$'}id: ID!) { 
+                node(id: ${'$'}id) { 
+                    ... on VenmoPaymentContext { 
+                        paymentMethodId 
+                        userName 
+                        payerInfo { 
+                            firstName lastName phoneNumber email externalId userName  
+                            shippingAddress { 
+                                fullName addressLine1 addressLine2 adminArea1 adminArea2 
+                                postalCode countryCode 
+                            } 
+                            billingAddress { 
+                                fullName addressLine1 addressLine2 adminArea1 adminArea2 
+                                postalCode countryCode 
+                            } 
+                        } 
+                    } 
+                } 
+            }
+            """.trimIndent()
+        )
+
         private fun parsePaymentContextId(createPaymentContextResponse: String): String? {
             var paymentContextId: String? = null
             try {
@@ -16,6 +16,7 @@ import com.braintreepayments.api.core.BraintreeException
 import com.braintreepayments.api.core.BraintreeRequestCodes
 import com.braintreepayments.api.core.ClientToken
 import com.braintreepayments.api.core.Configuration
+import com.braintreepayments.api.core.DeviceInspector
 import com.braintreepayments.api.core.MerchantRepository
 import com.braintreepayments.api.core.MetadataBuilder
 import org.json.JSONException
@@ -25,13 +26,14 @@ import java.util.Objects
 /**
  * Used to create and tokenize Venmo accounts. For more information see the [documentation](https://developer.paypal.com/braintree/docs/guides/venmo/overview)
  */
-class VenmoClient internal constructor(
+class VenmoClient @JvmOverloads internal constructor(
     private val braintreeClient: BraintreeClient,
     private val apiClient: ApiClient = ApiClient(braintreeClient),
     private val venmoApi: VenmoApi = VenmoApi(braintreeClient, apiClient),
     private val sharedPrefsWriter: VenmoSharedPrefsWriter = VenmoSharedPrefsWriter(),
     private val analyticsParamRepository: AnalyticsParamRepository = AnalyticsParamRepository.instance,
     private val merchantRepository: MerchantRepository = MerchantRepository.instance,
+    private val deviceInspector: DeviceInspector = DeviceInspector(),
 ) {
     /**
      * Used for linking events from the client to server side request
@@ -72,6 +74,7 @@ class VenmoClient internal constructor(
         callback: VenmoPaymentAuthRequestCallback
     ) {
         braintreeClient.sendAnalyticsEvent(VenmoAnalytics.TOKENIZE_STARTED)
+
         braintreeClient.getConfiguration { configuration: Configuration?, error: Exception? ->
             if (configuration == null && error != null) {
                 callbackPaymentAuthFailure(callback, VenmoPaymentAuthRequest.Failure(error))
@@ -86,6 +89,12 @@ class VenmoClient internal constructor(
                 return@getConfiguration
             }
 
+            // without the Venmo app the flow falls back to the browser; start it while the payment
+            // context is created
+            if (!deviceInspector.isVenmoInstalled(context)) {
+                braintreeClient.warmUpBrowserSwitch()
+            }
+
             // Merchants are not allowed to collect user addresses unless ECD (Enriched Customer
             // Data) is enabled on the BT Control Panel.
             val customerDataEnabled = configuration?.venmoEnrichedCustomerDataEnabled ?: false
@@ -191,6 +200,10 @@ class VenmoClient internal constructor(
             browserSwitchOptions
         )
 
+        if (!deviceInspector.isVenmoInstalled(context)) {
+            braintreeClient.preconnectBrowserSwitch(venmoBaseURL)
+        }
+
         callback.onVenmoPaymentAuthRequest(VenmoPaymentAuthRequest.ReadyToLaunch(params))
     }
 
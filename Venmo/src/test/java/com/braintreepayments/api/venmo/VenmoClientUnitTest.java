@@ -30,6 +30,7 @@ import com.braintreepayments.api.core.BraintreeClient;
 import com.braintreepayments.api.core.BraintreeException;
 import com.braintreepayments.api.core.BraintreeRequestCodes;
 import com.braintreepayments.api.core.Configuration;
+import com.braintreepayments.api.core.DeviceInspector;
 
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -193,6 +194,69 @@ public class VenmoClientUnitTest {
         assertEquals(expectedMetadata, metadataString);
     }
 
+    @Test
+    public void createPaymentAuthRequest_whenVenmoNotInstalled_preconnectsToVenmoUrl() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(venmoEnabledConfiguration)
+                .returnUrlScheme("com.example")
+                .build();
+        when(merchantRepository.getAuthorization()).thenReturn(clientToken);
+        VenmoApi venmoApi = new MockVenmoApiBuilder()
+                .createPaymentContextSuccess("venmo-payment-context-id")
+                .build();
+        DeviceInspector deviceInspector = mock(DeviceInspector.class);
+        when(deviceInspector.isVenmoInstalled(context)).thenReturn(false);
+
+        VenmoClient sut = new VenmoClient(
+            braintreeClient,
+            apiClient,
+            venmoApi,
+            sharedPrefsWriter,
+            analyticsParamRepository,
+            merchantRepository,
+            deviceInspector
+        );
+        sut.createPaymentAuthRequest(context, new VenmoRequest(VenmoPaymentMethodUsage.SINGLE_USE),
+            venmoPaymentAuthRequestCallback);
+
+        ArgumentCaptor<VenmoPaymentAuthRequest> captor =
+                ArgumentCaptor.forClass(VenmoPaymentAuthRequest.class);
+        verify(venmoPaymentAuthRequestCallback).onVenmoPaymentAuthRequest(captor.capture());
+        VenmoPaymentAuthRequestParams params =
+            ((VenmoPaymentAuthRequest.ReadyToLaunch) captor.getValue()).getRequestParams();
+
+        verify(braintreeClient).warmUpBrowserSwitch();
+        verify(braintreeClient).preconnectBrowserSwitch(params.getBrowserSwitchOptions().getUrl());
+    }
+
+    @Test
+    public void createPaymentAuthRequest_whenVenmoInstalled_doesNotWarmUpBrowser() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(venmoEnabledConfiguration)
+                .build();
+        when(merchantRepository.getAuthorization()).thenReturn(clientToken);
+        VenmoApi venmoApi = new MockVenmoApiBuilder()
+                .createPaymentContextSuccess("venmo-payment-context-id")
+                .build();
+        DeviceInspector deviceInspector = mock(DeviceInspector.class);
+        when(deviceInspector.isVenmoInstalled(context)).thenReturn(true);
+
+        VenmoClient sut = new VenmoClient(
+            braintreeClient,
+            apiClient,
+            venmoApi,
+            sharedPrefsWriter,
+            analyticsParamRepository,
+            merchantRepository,
+            deviceInspector
+        );
+        sut.createPaymentAuthRequest(context, new VenmoRequest(VenmoPaymentMethodUsage.SINGLE_USE),
+            venmoPaymentAuthRequestCallback);
+
+        verify(braintreeClient, never()).warmUpBrowserSwitch();
+        verify(braintreeClient, never()).preconnectBrowserSwitch(any(Uri.class));
+    }
+
     @Test
     public void createPaymentAuthRequest_whenConfigurationException_forwardsExceptionToListener() {
         BraintreeClient braintreeClient = new MockBraintreeClientBuilder()